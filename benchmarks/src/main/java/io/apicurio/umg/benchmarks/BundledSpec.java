@@ -0,0 +1,84 @@
+package io.apicurio.umg.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import io.apicurio.umg.io.SpecificationLoader;
+import io.apicurio.umg.models.spec.SpecificationModel;
+
+/**
+ * The specifications used by the plugin integration tests (maven-plugin-tests/src/it), along with
+ * the root namespace each integration test generates its model into.
+ */
+public enum BundledSpec {
+
+    ALL("all-test", "io.apicurio.datamodels.models", "openapi.yaml", "asyncapi.yaml"),
+    ASYNCAPI("asyncapi-test", "io.apicurio.datamodels.models.asyncapi", "asyncapi.yaml"),
+    IO("io-test", "org.example.io", "io-spec.yaml"),
+    MULTI_LEVEL("multi-level-spec-test", "org.example.multil", "first-spec.yaml", "second-spec.yaml"),
+    MULTI("multi-spec-test", "org.example.multi", "multi-spec.yaml"),
+    OPENAPI("openapi-test", "io.apicurio.datamodels.models.openapi", "openapi.yaml"),
+    PARENT_TRAIT("parent-trait-test", "org.example.pt", "parent-trait-spec.yaml"),
+    SMOKE("smoke-test", "org.example.smoke", "smoke-spec.yaml"),
+    UNION("union-test", "org.example.union", "union-spec.yaml");
+
+    private static final String ITS_DIR_PROPERTY = "umg.benchmark.itsDir";
+
+    private final String testName;
+    private final String rootNamespace;
+    private final String[] specFiles;
+
+    private BundledSpec(String testName, String rootNamespace, String... specFiles) {
+        this.testName = testName;
+        this.rootNamespace = rootNamespace;
+        this.specFiles = specFiles;
+    }
+
+    public String getRootNamespace() {
+        return rootNamespace;
+    }
+
+    /**
+     * Loads the specifications.  The pipeline modifies the specifications it is given, so they
+     * must be loaded again for each run of the generator.
+     */
+    public List<SpecificationModel> load() throws IOException {
+        File resourcesDir = new File(itsDir(), testName + "/src/main/resources");
+        List<SpecificationModel> specs = new ArrayList<>(specFiles.length);
+        for (String specFile : specFiles) {
+            specs.add(SpecificationLoader.loadSpec(new File(resourcesDir, specFile)));
+        }
+        return specs;
+    }
+
+    /**
+     * Loads the specifications, scaled up by the given factor (see {@link SyntheticSpecs}).
+     * @param scale
+     */
+    public List<SpecificationModel> load(int scale) throws IOException {
+        List<SpecificationModel> specs = load();
+        SyntheticSpecs.scale(specs, scale);
+        return specs;
+    }
+
+    private static File itsDir() throws IOException {
+        String itsDir = System.getProperty(ITS_DIR_PROPERTY);
+        if (itsDir == null) {
+            Properties properties = new Properties();
+            try (InputStream input = BundledSpec.class.getResourceAsStream("/benchmark.properties")) {
+                properties.load(input);
+            }
+            itsDir = properties.getProperty(ITS_DIR_PROPERTY);
+        }
+        File dir = new File(itsDir);
+        if (!dir.isDirectory()) {
+            throw new IOException("Integration tests directory not found (set -D" + ITS_DIR_PROPERTY + "): " + dir);
+        }
+        return dir;
+    }
+
+}
@@ -0,0 +1,29 @@
+package io.apicurio.umg.benchmarks;
+
+/**
+ * The sizes of the documents used by the benchmarks.  The generated test fixtures nest every
+ * entity of the specification (and are therefore far too big to use as-is), so each size is the
+ * fixture cut off at a maximum depth, with its outermost collections (maps and lists of objects)
+ * then repeated a number of times.
+ */
+public enum DocumentSize {
+
+    SMALL(4, 1), MEDIUM(6, 1), LARGE(6, 50);
+
+    private final int maxDepth;
+    private final int copies;
+
+    private DocumentSize(int maxDepth, int copies) {
+        this.maxDepth = maxDepth;
+        this.copies = copies;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public int getCopies() {
+        return copies;
+    }
+
+}
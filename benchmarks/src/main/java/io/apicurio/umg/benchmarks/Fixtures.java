@@ -0,0 +1,156 @@
+package io.apicurio.umg.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.apicurio.datamodels.models.ModelType;
+import io.apicurio.datamodels.models.io.ModelReaderFactory;
+import io.apicurio.datamodels.models.visitors.Traverser;
+import io.apicurio.datamodels.models.visitors.Visitor;
+
+/**
+ * Loads the test fixtures generated (by the "generateTestFixtures" option of the plugin) from the
+ * benchmark specifications and trims or scales them to the requested {@link DocumentSize}.
+ */
+public class Fixtures {
+
+    public static final ObjectMapper mapper = new ObjectMapper();
+    private static final JsonNodeFactory factory = JsonNodeFactory.instance;
+
+    /**
+     * Keys of the map entries created by the fixture generator for "*" properties and maps.
+     */
+    private static final Pattern GENERATED_KEY = Pattern.compile("key_\\d+");
+
+    /**
+     * Loads the full test fixture for the given model type (e.g. "openapi30-full.json").
+     * @param modelType
+     * @param size
+     */
+    public static ObjectNode load(ModelType modelType, DocumentSize size) throws IOException {
+        String resource = "/fixtures/" + modelType.name().toLowerCase() + "-full.json";
+        try (InputStream input = Fixtures.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IOException("Test fixture not found: " + resource);
+            }
+            ObjectNode fixture;
+            try (JsonParser parser = mapper.getFactory().createParser(input)) {
+                parser.nextToken();
+                fixture = (ObjectNode) read(parser, size.getMaxDepth());
+            }
+            if (size.getCopies() > 1) {
+                scale(fixture, size.getCopies());
+            }
+            return fixture;
+        }
+    }
+
+    /**
+     * Creates the traverser for the given model type.  The traversers have no factory, so the
+     * class is located relative to the model reader (e.g. "openapi.v30.io.OpenApi30ModelReader"
+     * becomes "openapi.v30.visitors.OpenApi30Traverser").
+     * @param modelType
+     * @param visitor
+     */
+    public static Traverser createTraverser(ModelType modelType, Visitor visitor) {
+        String readerClassName = ModelReaderFactory.createModelReader(modelType).getClass().getName();
+        String traverserClassName = readerClassName.replace(".io.", ".visitors.").replace("ModelReader", "Traverser");
+        try {
+            return (Traverser) Class.forName(traverserClassName).getConstructor(Visitor.class).newInstance(visitor);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Failed to create traverser: " + traverserClassName, e);
+        }
+    }
+
+    /**
+     * Reads the current JSON value, replacing objects and arrays nested more than the given
+     * depth with empty ones.  The rest of the (possibly huge) fixture is skipped, never parsed.
+     * @param parser
+     * @param depth
+     */
+    private static JsonNode read(JsonParser parser, int depth) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            ObjectNode object = factory.objectNode();
+            if (depth == 0) {
+                parser.skipChildren();
+                return object;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                object.set(name, read(parser, depth - 1));
+            }
+            return object;
+        }
+        if (token == JsonToken.START_ARRAY) {
+            ArrayNode array = factory.arrayNode();
+            if (depth == 0) {
+                parser.skipChildren();
+                return array;
+            }
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                array.add(read(parser, depth - 1));
+            }
+            return array;
+        }
+        return mapper.readTree(parser);
+    }
+
+    /**
+     * Repeats the entries of the outermost collections (generated maps and lists of objects) found
+     * in the given JSON object.  Nested collections are left alone, so the size of the document
+     * grows linearly with the number of copies.
+     * @param json
+     * @param copies
+     */
+    private static void scale(ObjectNode json, int copies) {
+        if (isGeneratedMap(json)) {
+            List<Map.Entry<String, JsonNode>> entries = new ArrayList<>(json.properties());
+            for (int copy = 1; copy < copies; copy++) {
+                for (Map.Entry<String, JsonNode> entry : entries) {
+                    json.set(entry.getKey() + "_" + copy, entry.getValue().deepCopy());
+                }
+            }
+            return;
+        }
+        for (Map.Entry<String, JsonNode> entry : json.properties()) {
+            JsonNode value = entry.getValue();
+            if (value.isObject()) {
+                scale((ObjectNode) value, copies);
+            } else if (value.isArray() && value.size() > 0 && value.get(0).isObject()) {
+                ArrayNode array = (ArrayNode) value;
+                List<JsonNode> items = new ArrayList<>();
+                array.forEach(items::add);
+                for (int copy = 1; copy < copies; copy++) {
+                    items.forEach(item -> array.add(item.deepCopy()));
+                }
+            }
+        }
+    }
+
+    private static boolean isGeneratedMap(ObjectNode json) {
+        if (json.isEmpty()) {
+            return false;
+        }
+        for (Map.Entry<String, JsonNode> entry : json.properties()) {
+            if (!GENERATED_KEY.matcher(entry.getKey()).matches()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
@@ -0,0 +1,80 @@
+package io.apicurio.umg.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.apicurio.umg.UnifiedModelGenerator;
+import io.apicurio.umg.UnifiedModelGeneratorConfig;
+import io.apicurio.umg.models.spec.SpecificationModel;
+
+/**
+ * Measures a complete run of the generator ({@link UnifiedModelGenerator#generate()}), including
+ * writing the generated sources, for the bundled specifications and synthetic versions of them
+ * with 10x and 100x as many entities.  See {@link PipelineBenchmark} for the cost of each stage.
+ * <p>
+ * Run with {@code java -jar benchmarks/target/benchmarks.jar GeneratorBenchmark}.  The 100x runs of
+ * the larger specifications take minutes each, so select a subset with e.g. {@code -p spec=OPENAPI -p scale=1,10}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class GeneratorBenchmark {
+
+    @Param({ "ALL", "ASYNCAPI", "IO", "MULTI_LEVEL", "MULTI", "OPENAPI", "PARENT_TRAIT", "SMOKE", "UNION" })
+    public BundledSpec spec;
+
+    @Param({ "1", "10", "100" })
+    public int scale;
+
+    private File outputDir;
+    private File testOutputDir;
+    private List<SpecificationModel> specs;
+
+    @Setup(Level.Trial)
+    public void createOutputDirs() throws Exception {
+        outputDir = Files.createTempDirectory("umg-benchmark").toFile();
+        testOutputDir = Files.createTempDirectory("umg-benchmark-test").toFile();
+    }
+
+    @Setup(Level.Invocation)
+    public void loadSpecs() throws Exception {
+        specs = spec.load(scale);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteOutputDirs() throws Exception {
+        FileUtils.deleteDirectory(outputDir);
+        FileUtils.deleteDirectory(testOutputDir);
+    }
+
+    @Benchmark
+    public void generate() throws Exception {
+        UnifiedModelGeneratorConfig config = UnifiedModelGeneratorConfig.builder()
+                .outputDirectory(outputDir)
+                .testOutputDirectory(testOutputDir)
+                .rootNamespace(spec.getRootNamespace())
+                .build();
+        new UnifiedModelGenerator(config, specs).generate();
+    }
+
+}
@@ -0,0 +1,24 @@
+package io.apicurio.umg.benchmarks;
+
+import io.apicurio.datamodels.models.Node;
+import io.apicurio.datamodels.models.visitors.AllNodeVisitor;
+import io.apicurio.datamodels.models.visitors.ReadOnlyVisitor;
+
+/**
+ * Visitor that counts the nodes it visits.  It does not modify the model, so traversers can
+ * iterate the collections of the model without copying them.
+ */
+public class NodeCounter extends AllNodeVisitor implements ReadOnlyVisitor {
+
+    private int count;
+
+    @Override
+    protected void visitNode(Node node) {
+        count++;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+}
@@ -0,0 +1,173 @@
+package io.apicurio.umg.benchmarks;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+import org.apache.commons.io.FileUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.apicurio.umg.UnifiedModelGenerator;
+import io.apicurio.umg.UnifiedModelGeneratorConfig;
+import io.apicurio.umg.models.spec.SpecificationModel;
+import io.apicurio.umg.pipe.PipelineMetrics;
+import io.apicurio.umg.pipe.StageMetrics;
+
+/**
+ * Runs the generator repeatedly with stage metrics enabled and reports the cost of each pipeline
+ * stage, as well as of the whole run.  The stage costs are the {@link StageMetrics} collected by
+ * the {@link PipelineMetrics} of full runs (each stage is measured while running on the state left
+ * by the stages before it, not replayed in isolation).  The results are written as JSON so they can be
+ * compared from one commit to the next (see {@link #FORMAT_VERSION}).
+ * <p>
+ * Run with {@code java -cp benchmarks/target/benchmarks.jar io.apicurio.umg.benchmarks.PipelineBenchmark [options]}
+ * where the options (all optional) are:
+ * <ul>
+ * <li>{@code --specs=ALL,OPENAPI,...} the bundled specifications to run (default: all of them)</li>
+ * <li>{@code --scales=1,10,100} the synthetic scale factors (default: 1,10,100)</li>
+ * <li>{@code --warmup=2} the number of (unreported) warmup runs</li>
+ * <li>{@code --iterations=5} the number of measured runs</li>
+ * <li>{@code --output=umg-pipeline-benchmark.json} the results file</li>
+ * </ul>
+ * <p>
+ * The results file contains, for every spec and scale, the elapsed time of the whole run and the
+ * wall time, CPU time and allocated bytes of every stage (in pipeline order).  Each measurement
+ * is summarized by its min, median, mean and max over the measured runs.  All times are in
+ * nanoseconds; -1 means the JVM could not measure the value.
+ */
+public class PipelineBenchmark {
+
+    /**
+     * Incremented whenever the structure of the results file changes.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("specs", String.join(",", Arrays.stream(BundledSpec.values()).map(Enum::name).toArray(String[]::new)));
+        options.put("scales", "1,10,100");
+        options.put("warmup", "2");
+        options.put("iterations", "5");
+        options.put("output", "umg-pipeline-benchmark.json");
+        for (String arg : args) {
+            int idx = arg.indexOf('=');
+            if (!arg.startsWith("--") || idx == -1 || !options.containsKey(arg.substring(2, idx))) {
+                throw new IllegalArgumentException("Invalid option: " + arg + " (valid options: " + options.keySet() + ")");
+            }
+            options.put(arg.substring(2, idx), arg.substring(idx + 1));
+        }
+
+        int warmup = Integer.parseInt(options.get("warmup"));
+        int iterations = Integer.parseInt(options.get("iterations"));
+
+        ObjectNode root = mapper.createObjectNode();
+        root.put("format", FORMAT_VERSION);
+        root.put("javaVersion", System.getProperty("java.version"));
+        root.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        root.put("warmupIterations", warmup);
+        root.put("iterations", iterations);
+        ArrayNode results = root.putArray("results");
+        for (String specName : options.get("specs").split(",")) {
+            BundledSpec spec = BundledSpec.valueOf(specName.trim());
+            for (String scaleValue : options.get("scales").split(",")) {
+                int scale = Integer.parseInt(scaleValue.trim());
+                results.add(run(spec, scale, warmup, iterations));
+            }
+        }
+
+        File output = new File(options.get("output"));
+        mapper.writeValue(output, root);
+        System.out.println("Results written to: " + output.getAbsolutePath());
+    }
+
+    /**
+     * Runs the generator for the given spec and scale, and returns the summarized results.
+     * @param spec
+     * @param scale
+     * @param warmup
+     * @param iterations
+     */
+    private static ObjectNode run(BundledSpec spec, int scale, int warmup, int iterations) throws Exception {
+        List<PipelineMetrics> runs = new ArrayList<>(iterations);
+        int entities = 0;
+        File outputDir = Files.createTempDirectory("umg-benchmark").toFile();
+        File testOutputDir = Files.createTempDirectory("umg-benchmark-test").toFile();
+        try {
+            for (int i = 0; i < warmup + iterations; i++) {
+                List<SpecificationModel> specs = spec.load(scale);
+                entities = specs.stream().flatMap(s -> s.getVersions().stream()).mapToInt(v -> v.getEntities().size()).sum();
+                UnifiedModelGeneratorConfig config = UnifiedModelGeneratorConfig.builder()
+                        .outputDirectory(outputDir)
+                        .testOutputDirectory(testOutputDir)
+                        .rootNamespace(spec.getRootNamespace())
+                        .collectStageMetrics(true)
+                        .build();
+                UnifiedModelGenerator generator = new UnifiedModelGenerator(config, specs);
+                generator.generate();
+                if (i >= warmup) {
+                    runs.add(generator.getMetrics());
+                }
+            }
+        } finally {
+            FileUtils.deleteDirectory(outputDir);
+            FileUtils.deleteDirectory(testOutputDir);
+        }
+
+        ObjectNode result = mapper.createObjectNode();
+        result.put("spec", spec.name());
+        result.put("scale", scale);
+        result.put("entities", entities);
+        result.set("elapsedNanos", summarize(runs, PipelineMetrics::getTotalWallTimeNanos));
+        ArrayNode stagesNode = result.putArray("stages");
+        List<StageMetrics> stages = runs.get(0).getStages();
+        for (int idx = 0; idx < stages.size(); idx++) {
+            List<StageMetrics> stageRuns = new ArrayList<>(runs.size());
+            for (PipelineMetrics run : runs) {
+                stageRuns.add(run.getStages().get(idx));
+            }
+            ObjectNode stageNode = stagesNode.addObject();
+            stageNode.put("stage", stages.get(idx).getStage());
+            stageNode.set("wallTimeNanos", summarize(stageRuns, StageMetrics::getWallTimeNanos));
+            stageNode.set("cpuTimeNanos", summarize(stageRuns, StageMetrics::getCpuTimeNanos));
+            stageNode.set("allocatedBytes", summarize(stageRuns, StageMetrics::getAllocatedBytes));
+        }
+
+        System.out.printf("%-12s x%-4d %,8d entities  median %,10.1f ms%n", spec.name(), scale, entities,
+                result.get("elapsedNanos").get("median").asLong() / 1_000_000.0);
+        return result;
+    }
+
+    /**
+     * Summarizes a measurement taken in each of the given runs.
+     * @param runs
+     * @param measurement
+     */
+    private static <T> ObjectNode summarize(List<T> runs, ToLongFunction<T> measurement) {
+        long[] values = runs.stream().mapToLong(measurement).sorted().toArray();
+        ObjectNode summary = mapper.createObjectNode();
+        if (values[0] < 0) {
+            summary.put("min", -1);
+            summary.put("median", -1);
+            summary.put("mean", -1);
+            summary.put("max", -1);
+        } else {
+            summary.put("min", values[0]);
+            summary.put("median", values[values.length / 2]);
+            summary.put("mean", Arrays.stream(values).sum() / values.length);
+            summary.put("max", values[values.length - 1]);
+        }
+        return summary;
+    }
+
+}
@@ -0,0 +1,117 @@
+package io.apicurio.umg.benchmarks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.apicurio.datamodels.models.ModelType;
+import io.apicurio.datamodels.models.RootNode;
+import io.apicurio.datamodels.models.io.ModelReader;
+import io.apicurio.datamodels.models.io.ModelReaderFactory;
+import io.apicurio.datamodels.models.io.ModelWriter;
+import io.apicurio.datamodels.models.io.ModelWriterFactory;
+import io.apicurio.datamodels.models.io.StreamingModelReader;
+import io.apicurio.datamodels.models.io.StreamingModelWriter;
+
+/**
+ * Measures reading and writing documents with the generated readers and writers.  Every benchmark
+ * starts from (or ends with) the raw JSON bytes, so the tree based and the streaming readers and
+ * writers can be compared directly.
+ * <p>
+ * Build with {@code mvn package -Pbenchmarks} and run with {@code java -jar benchmarks/target/benchmarks.jar}
+ * (JMH options such as {@code -p modelType=OPENAPI30 -p size=LARGE} select a subset).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReaderWriterBenchmark {
+
+    @Param({ "OPENAPI20", "OPENAPI30", "OPENAPI31", "ASYNCAPI25" })
+    public ModelType modelType;
+
+    @Param({ "SMALL", "MEDIUM", "LARGE" })
+    public DocumentSize size;
+
+    private byte[] bytes;
+    private RootNode model;
+
+    private ModelReader reader;
+    private ModelWriter writer;
+    private StreamingModelReader streamingReader;
+    private StreamingModelWriter streamingWriter;
+
+    @Setup
+    public void setup() throws IOException {
+        reader = ModelReaderFactory.createModelReader(modelType);
+        writer = ModelWriterFactory.createModelWriter(modelType);
+        streamingReader = ModelReaderFactory.createStreamingModelReader(modelType);
+        streamingWriter = ModelWriterFactory.createStreamingModelWriter(modelType);
+
+        bytes = Fixtures.mapper.writeValueAsBytes(Fixtures.load(modelType, size));
+        model = readTree();
+    }
+
+    @Benchmark
+    public RootNode readTree() throws IOException {
+        return reader.readRoot((ObjectNode) Fixtures.mapper.readTree(bytes));
+    }
+
+    @Benchmark
+    public RootNode readStreaming() throws IOException {
+        try (JsonParser parser = Fixtures.mapper.getFactory().createParser(bytes)) {
+            return streamingReader.readRoot(parser);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeTree() throws IOException {
+        return writeTree(model);
+    }
+
+    @Benchmark
+    public byte[] writeStreaming() throws IOException {
+        return writeStreaming(model);
+    }
+
+    @Benchmark
+    public byte[] roundTripTree() throws IOException {
+        return writeTree(readTree());
+    }
+
+    @Benchmark
+    public byte[] roundTripStreaming() throws IOException {
+        return writeStreaming(readStreaming());
+    }
+
+    private byte[] writeTree(RootNode node) throws IOException {
+        return Fixtures.mapper.writeValueAsBytes(writer.writeRoot(node));
+    }
+
+    private byte[] writeStreaming(RootNode node) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length);
+        try (JsonGenerator generator = Fixtures.mapper.getFactory().createGenerator(output)) {
+            streamingWriter.writeRoot(node, generator);
+        }
+        return output.toByteArray();
+    }
+
+}
@@ -0,0 +1,141 @@
+package io.apicurio.umg.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.apicurio.umg.beans.Entity;
+import io.apicurio.umg.beans.Property;
+import io.apicurio.umg.beans.SpecificationVersion;
+import io.apicurio.umg.beans.UnionRule;
+import io.apicurio.umg.models.spec.SpecificationModel;
+
+/**
+ * Creates synthetic specifications by scaling up real ones.
+ */
+public class SyntheticSpecs {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Multiplies the number of entities (and therefore of properties) in every version of the given
+     * specifications.  Each non-root entity gets (scale - 1) copies, named "{Entity}Copy{n}".  The
+     * copies have the same properties and traits as the original, and are given the same names in
+     * every version, so they are merged into the same (shared) concepts as the originals are.
+     *
+     * The copies are wired into the model the same way as the originals: the properties of copy n
+     * refer to copy n of the entities (rather than to the originals), and for each property of a
+     * root entity that refers to entities, the root entity gets a property "{property}Copy{n}" that
+     * refers to copy n of them.  So each copy n of the entities is a complete replica of the
+     * original (non-root) model, reachable from the roots.  Properties that are also defined by a
+     * trait of their entity are left as they are, as their type must match the trait's.
+     * @param specs
+     * @param scale
+     */
+    public static void scale(List<SpecificationModel> specs, int scale) {
+        if (scale <= 1) {
+            return;
+        }
+        for (SpecificationModel spec : specs) {
+            for (SpecificationVersion version : spec.getVersions()) {
+                Set<String> copiedNames = version.getEntities().stream()
+                        .filter(entity -> !Boolean.TRUE.equals(entity.getRoot()))
+                        .map(Entity::getName)
+                        .collect(Collectors.toSet());
+                if (copiedNames.isEmpty()) {
+                    continue;
+                }
+                Pattern copiedName = Pattern.compile("\\b(" + String.join("|", copiedNames) + ")\\b");
+
+                // The entities are modified, so the set is rebuilt (rather than modified in place).
+                List<Entity> entities = new ArrayList<>();
+                for (Entity entity : version.getEntities()) {
+                    Set<String> traitPropertyNames = version.getTraits().stream()
+                            .filter(trait -> entity.getTraits() != null && entity.getTraits().contains(trait.getName()))
+                            .flatMap(trait -> trait.getProperties().stream())
+                            .map(Property::getName)
+                            .collect(Collectors.toSet());
+                    entities.add(entity);
+                    if (Boolean.TRUE.equals(entity.getRoot())) {
+                        for (Property property : new ArrayList<>(entity.getProperties())) {
+                            if (isNamedProperty(property) && !traitPropertyNames.contains(property.getName())
+                                    && property.getType() != null && copiedName.matcher(property.getType()).find()) {
+                                addPropertyCopies(entity, property, copiedName, scale);
+                            }
+                        }
+                        continue;
+                    }
+                    for (int copy = 1; copy < scale; copy++) {
+                        Entity entityCopy = mapper.convertValue(entity, Entity.class);
+                        entityCopy.setName(entity.getName() + "Copy" + copy);
+                        for (Property property : entityCopy.getProperties()) {
+                            if (!traitPropertyNames.contains(property.getName())) {
+                                retarget(property, copiedName, copy);
+                            }
+                        }
+                        entities.add(entityCopy);
+                    }
+                }
+                version.getEntities().clear();
+                version.getEntities().addAll(entities);
+            }
+        }
+    }
+
+    /**
+     * Adds the copies of the given property (of a root entity) that refer to each copy of the
+     * entities, right after the property (also in the property order, if it is listed there).
+     * @param entity
+     * @param property
+     * @param copiedName
+     * @param scale
+     */
+    private static void addPropertyCopies(Entity entity, Property property, Pattern copiedName, int scale) {
+        List<Property> propertyCopies = new ArrayList<>();
+        List<String> propertyCopyNames = new ArrayList<>();
+        for (int copy = 1; copy < scale; copy++) {
+            Property propertyCopy = mapper.convertValue(property, Property.class);
+            propertyCopy.setName(property.getName() + "Copy" + copy);
+            retarget(propertyCopy, copiedName, copy);
+            propertyCopies.add(propertyCopy);
+            propertyCopyNames.add(propertyCopy.getName());
+        }
+        entity.getProperties().addAll(entity.getProperties().indexOf(property) + 1, propertyCopies);
+        int orderIndex = entity.getPropertyOrder() == null ? -1 : entity.getPropertyOrder().indexOf(property.getName());
+        if (orderIndex != -1) {
+            entity.getPropertyOrder().addAll(orderIndex + 1, propertyCopyNames);
+        }
+    }
+
+    /**
+     * Makes the given property (and its union rules) refer to the given copy of the entities.
+     * @param property
+     * @param copiedName
+     * @param copy
+     */
+    private static void retarget(Property property, Pattern copiedName, int copy) {
+        property.setType(retarget(property.getType(), copiedName, copy));
+        if (property.getUnionRules() != null) {
+            for (UnionRule rule : property.getUnionRules()) {
+                rule.setUnionType(retarget(rule.getUnionType(), copiedName, copy));
+            }
+        }
+    }
+
+    private static String retarget(String type, Pattern copiedName, int copy) {
+        return type == null ? null : copiedName.matcher(type).replaceAll("$1Copy" + copy);
+    }
+
+    /**
+     * Returns true if the given property has a plain name (it is not a star or a regex property).
+     * @param property
+     */
+    private static boolean isNamedProperty(Property property) {
+        return !property.getName().equals("*") && !property.getName().startsWith("/");
+    }
+
+}
@@ -0,0 +1,82 @@
+package io.apicurio.umg.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.apicurio.datamodels.models.ModelType;
+import io.apicurio.datamodels.models.Node;
+import io.apicurio.datamodels.models.RootNode;
+import io.apicurio.datamodels.models.io.ModelReaderFactory;
+import io.apicurio.datamodels.models.visitors.AllNodeVisitor;
+import io.apicurio.datamodels.models.visitors.ReadOnlyVisitor;
+import io.apicurio.datamodels.models.visitors.Traverser;
+
+/**
+ * Measures traversing a model (visiting every node) and creating an empty clone of every node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TraversalBenchmark {
+
+    @Param({ "OPENAPI20", "OPENAPI30", "OPENAPI31", "ASYNCAPI25" })
+    public ModelType modelType;
+
+    @Param({ "SMALL", "MEDIUM", "LARGE" })
+    public DocumentSize size;
+
+    private RootNode model;
+
+    private NodeCounter counter;
+    private Traverser countingTraverser;
+    private EmptyCloner cloner;
+    private Traverser cloningTraverser;
+
+    @Setup
+    public void setup() throws IOException {
+        model = ModelReaderFactory.createModelReader(modelType).readRoot(Fixtures.load(modelType, size));
+        counter = new NodeCounter();
+        countingTraverser = Fixtures.createTraverser(modelType, counter);
+        cloner = new EmptyCloner();
+        cloningTraverser = Fixtures.createTraverser(modelType, cloner);
+    }
+
+    @Benchmark
+    public int traverse() {
+        countingTraverser.traverse(model);
+        return counter.getCount();
+    }
+
+    @Benchmark
+    public Node emptyClone() {
+        cloningTraverser.traverse(model);
+        return cloner.lastClone;
+    }
+
+    private static class EmptyCloner extends AllNodeVisitor implements ReadOnlyVisitor {
+
+        private Node lastClone;
+
+        @Override
+        protected void visitNode(Node node) {
+            lastClone = node.emptyClone();
+        }
+
+    }
+
+}
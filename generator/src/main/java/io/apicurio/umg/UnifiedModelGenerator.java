@@ -16,10 +16,12 @@
 
 package io.apicurio.umg;
 
+import io.apicurio.umg.io.GenerationManifest;
 import io.apicurio.umg.logging.Logger;
 import io.apicurio.umg.models.spec.SpecificationModel;
 import io.apicurio.umg.pipe.GeneratorState;
 import io.apicurio.umg.pipe.Pipeline;
+import io.apicurio.umg.pipe.PipelineMetrics;
 import io.apicurio.umg.pipe.concept.CreateEntityModelsStage;
 import io.apicurio.umg.pipe.concept.CreateImplicitUnionRulesStage;
 import io.apicurio.umg.pipe.concept.CreateNamespaceModelsStage;
@@ -43,16 +45,21 @@ import io.apicurio.umg.pipe.java.ConfigureInterfaceTraitsStage;
 import io.apicurio.umg.pipe.java.CreateAcceptMethodStage;
 import io.apicurio.umg.pipe.java.CreateAllNodeVisitorStage;
 import io.apicurio.umg.pipe.java.CreateCombinedVisitorInterfacesStage;
+import io.apicurio.umg.pipe.java.CreateDeepCloneMethodStage;
 import io.apicurio.umg.pipe.java.CreateEmptyCloneMethodStage;
 import io.apicurio.umg.pipe.java.CreateEntityImplementationsStage;
 import io.apicurio.umg.pipe.java.CreateEntityInterfacesStage;
+import io.apicurio.umg.pipe.java.CreateFreezeMethodStage;
 import io.apicurio.umg.pipe.java.CreateImplFieldsStage;
 import io.apicurio.umg.pipe.java.CreateImplMethodsStage;
 import io.apicurio.umg.pipe.java.CreateInterfaceMethodsStage;
 import io.apicurio.umg.pipe.java.CreateModelTypeStage;
+import io.apicurio.umg.pipe.java.CreatePathCopyMethodsStage;
 import io.apicurio.umg.pipe.java.CreateReaderDispatchersStage;
 import io.apicurio.umg.pipe.java.CreateReaderFactoryStage;
 import io.apicurio.umg.pipe.java.CreateReadersStage;
+import io.apicurio.umg.pipe.java.CreateStreamingReadersStage;
+import io.apicurio.umg.pipe.java.CreateStreamingWritersStage;
 import io.apicurio.umg.pipe.java.CreateTestFixturesStage;
 import io.apicurio.umg.pipe.java.CreateTraitInterfacesStage;
 import io.apicurio.umg.pipe.java.CreateTraversersStage;
@@ -68,7 +75,9 @@ import io.apicurio.umg.pipe.java.JavaWriteStage;
 import io.apicurio.umg.pipe.java.LoadBaseClassesStage;
 import io.apicurio.umg.pipe.java.OrganizeImportsStage;
 import io.apicurio.umg.pipe.java.RemoveUnusedImportsStage;
+import lombok.Getter;
 
+import java.io.File;
 import java.util.Collection;
 
 /**
@@ -79,6 +88,13 @@ public class UnifiedModelGenerator {
     private final UnifiedModelGeneratorConfig config;
     private final Collection<SpecificationModel> specifications;
 
+    /**
+     * The resources used by each stage of the last run, when stage metrics are enabled in the config.
+     * Null when generation was skipped because the output was already up to date.
+     */
+    @Getter
+    private PipelineMetrics metrics;
+
     /**
      * Constructor.
      *
@@ -96,10 +112,25 @@ public class UnifiedModelGenerator {
     public void generate() throws Exception {
         Logger.info("Output directory: %s", config.getOutputDirectory().getAbsolutePath());
 
+        // Incremental generation: skip everything if the output is already up to date.
+        GenerationManifest manifest = config.isIncremental() ? GenerationManifest.create(config, specifications) : null;
+        if (manifest != null) {
+            if (manifest.isUpToDate(GenerationManifest.read(config.getOutputDirectory()), config.getOutputDirectory())) {
+                Logger.info("Specifications, configuration and generated files are unchanged, skipping generation.");
+                return;
+            }
+            // Remove the old manifest so that a failed run is never mistaken for an up to date one.
+            new File(config.getOutputDirectory(), GenerationManifest.MANIFEST_FILE_NAME).delete();
+        }
+
         GeneratorState state = new GeneratorState();
         state.setSpecifications(specifications);
         state.setConfig(config);
         Pipeline pipe = new Pipeline();
+        if (config.isCollectStageMetrics()) {
+            metrics = new PipelineMetrics();
+            pipe.setMetrics(metrics);
+        }
 
         // Index phase
         pipe.addStage(new IndexSpecificationsStage());
@@ -148,10 +179,15 @@ public class UnifiedModelGenerator {
         pipe.addStage(new CreateUnionValueMethodsStage());
 
         pipe.addStage(new CreateReadersStage());
+        pipe.addStage(new CreateStreamingReadersStage());
         pipe.addStage(new CreateWritersStage());
+        pipe.addStage(new CreateStreamingWritersStage());
         pipe.addStage(new CreateVisitorInterfacesStage());
         pipe.addStage(new CreateAcceptMethodStage());
         pipe.addStage(new CreateEmptyCloneMethodStage());
+        pipe.addStage(new CreateDeepCloneMethodStage());
+        pipe.addStage(new CreateFreezeMethodStage());
+        pipe.addStage(new CreatePathCopyMethodsStage());
         pipe.addStage(new CreateCombinedVisitorInterfacesStage());
         pipe.addStage(new CreateVisitorAdaptersStage());
         pipe.addStage(new CreateAllNodeVisitorStage());
@@ -169,5 +205,10 @@ public class UnifiedModelGenerator {
         pipe.addStage(new CreateTestFixturesStage());
 
         pipe.run(state);
+
+        if (manifest != null) {
+            manifest.recordOutputs(config.getOutputDirectory(), state.getOutputFiles());
+            manifest.write(config.getOutputDirectory());
+        }
     }
 }
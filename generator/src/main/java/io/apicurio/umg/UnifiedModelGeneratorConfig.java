@@ -17,5 +17,16 @@ public class UnifiedModelGeneratorConfig {
     private File outputDirectory;
     private File testOutputDirectory;
     private boolean generateTestFixtures;
+    private boolean generateStreamingReaders;
+    private boolean generateStreamingWriters;
+    private boolean nonDestructiveReaders;
+    private boolean lazyReaders;
+    private boolean primitiveFields;
+    private boolean persistentUpdates;
+    private boolean parallelPipeline;
+    private boolean collectStageMetrics;
+    private boolean incremental;
+    private boolean writeIfChanged;
+    private boolean parallelWrite;
 
 }
@@ -16,13 +16,17 @@
 
 package io.apicurio.umg.index.concept;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.Trie;
@@ -36,10 +40,16 @@ import io.apicurio.umg.models.concept.TraitModel;
 import io.apicurio.umg.models.concept.VisitorModel;
 
 /**
+ * Index of all concept models.  Safe for concurrent use: all access to the underlying tries is
+ * guarded by a read/write lock, and the "find" methods return a copy of the matching models
+ * rather than a live view of the index.
+ *
  * @author eric.wittmann@gmail.com
  */
 public class ConceptIndex {
 
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
     private Trie<String, NamespaceModel> namespaceIndex = new PatriciaTrie<>();
     private Trie<String, TraitModel> traitIndex = new PatriciaTrie<>();
     private Trie<String, EntityModel> entityIndex = new PatriciaTrie<>();
@@ -48,73 +58,78 @@ public class ConceptIndex {
 
 
     public void remove(TraitModel traitModel) {
-        traitIndex.remove(traitModel.fullyQualifiedName());
+        write(() -> traitIndex.remove(traitModel.fullyQualifiedName()));
     }
 
     public void remove(EntityModel entityModel) {
-        entityIndex.remove(entityModel.fullyQualifiedName());
+        write(() -> entityIndex.remove(entityModel.fullyQualifiedName()));
     }
 
     public void remove(NamespaceModel namespaceModel) {
-        namespaceIndex.remove(namespaceModel.getName());
+        write(() -> namespaceIndex.remove(namespaceModel.getName()));
     }
 
     public void remove(VisitorModel visitorModel) {
-        entityIndex.remove(visitorModel.getNamespace().fullName());
+        write(() -> entityIndex.remove(visitorModel.getNamespace().fullName()));
     }
 
 
     public boolean hasNamespace(String name) {
-        return namespaceIndex.containsKey(name);
+        return read(() -> namespaceIndex.containsKey(name));
     }
 
     public boolean hasTrait(String fullyQualifiedTraitName) {
-        return traitIndex.containsKey(fullyQualifiedTraitName);
+        return read(() -> traitIndex.containsKey(fullyQualifiedTraitName));
     }
 
     public boolean hasEntity(String fullyQualifiedEntityName) {
-        return entityIndex.containsKey(fullyQualifiedEntityName);
+        return read(() -> entityIndex.containsKey(fullyQualifiedEntityName));
     }
 
     public boolean hasVisitor(String namespace) {
-        return namespaceIndex.containsKey(namespace);
+        return read(() -> namespaceIndex.containsKey(namespace));
     }
 
 
     public void index(NamespaceModel model) {
-        namespaceIndex.put(model.getName(), model);
+        write(() -> namespaceIndex.put(model.getName(), model));
     }
 
     public void index(TraitModel model) {
-        traitIndex.put(model.fullyQualifiedName(), model);
+        write(() -> traitIndex.put(model.fullyQualifiedName(), model));
     }
 
     public void index(EntityModel model) {
-        entityIndex.put(model.fullyQualifiedName(), model);
+        write(() -> entityIndex.put(model.fullyQualifiedName(), model));
     }
 
     public void index(VisitorModel model) {
-        visitorIndex.put(model.getNamespace().fullName(), model);
+        write(() -> visitorIndex.put(model.getNamespace().fullName(), model));
     }
 
     public void index(EntityModel model, PropertyModelWithOriginComparator comparator) {
-        propertyComparatorIndex.put(model.fullyQualifiedName(), comparator);
+        write(() -> propertyComparatorIndex.put(model.fullyQualifiedName(), comparator));
     }
 
     public NamespaceModel lookupNamespace(String namespace) {
-        return namespaceIndex.get(namespace);
+        return read(() -> namespaceIndex.get(namespace));
     }
 
     public NamespaceModel lookupNamespace(String namespace, Function<String, NamespaceModel> factory) {
-        return namespaceIndex.computeIfAbsent(namespace, (key) -> factory.apply(key));
+        lock.writeLock().lock();
+        try {
+            return namespaceIndex.computeIfAbsent(namespace, (key) -> factory.apply(key));
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     public TraitModel lookupTrait(String fullyQualifiedTraitName) {
-        return traitIndex.get(fullyQualifiedTraitName);
+        return read(() -> traitIndex.get(fullyQualifiedTraitName));
     }
 
     public EntityModel lookupEntity(String fullyQualifiedEntityName) {
-        return entityIndex.get(fullyQualifiedEntityName);
+        return read(() -> entityIndex.get(fullyQualifiedEntityName));
     }
 
     public EntityModel lookupEntity(String namespace, String entityName) {
@@ -126,7 +141,7 @@ public class ConceptIndex {
     }
 
     public VisitorModel lookupVisitor(String namespace) {
-        return visitorIndex.get(namespace);
+        return read(() -> visitorIndex.get(namespace));
     }
 
     public PropertyModelWithOriginComparator lookupPropertyComparator(EntityModel entity) {
@@ -139,24 +154,24 @@ public class ConceptIndex {
 
     public PropertyModelWithOriginComparator lookupPropertyComparator(String namespace, String entityName) {
         String fqn = namespace + "." + entityName;
-        return this.propertyComparatorIndex.get(fqn);
+        return read(() -> this.propertyComparatorIndex.get(fqn));
     }
 
 
     public Collection<NamespaceModel> findNamespaces(String prefix) {
-        return namespaceIndex.prefixMap(prefix).values();
+        return read(() -> new ArrayList<>(namespaceIndex.prefixMap(prefix).values()));
     }
 
     public Collection<TraitModel> findTraits(String prefix) {
-        return traitIndex.prefixMap(prefix).values();
+        return read(() -> new ArrayList<>(traitIndex.prefixMap(prefix).values()));
     }
 
     public Collection<EntityModel> findEntities(String prefix) {
-        return entityIndex.prefixMap(prefix).values();
+        return read(() -> new ArrayList<>(entityIndex.prefixMap(prefix).values()));
     }
 
     public Collection<VisitorModel> findVisitors(String prefix) {
-        return visitorIndex.prefixMap(prefix).values();
+        return read(() -> new ArrayList<>(visitorIndex.prefixMap(prefix).values()));
     }
 
     public Collection<EntityModel> getAllEntitiesWithCopy() {
@@ -237,4 +252,22 @@ public class ConceptIndex {
         return entity;
     }
 
+    private <T> T read(Supplier<T> reader) {
+        lock.readLock().lock();
+        try {
+            return reader.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable writer) {
+        lock.writeLock().lock();
+        try {
+            writer.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
 }
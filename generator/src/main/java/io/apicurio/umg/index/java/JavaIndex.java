@@ -16,8 +16,8 @@
 
 package io.apicurio.umg.index.java;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jboss.forge.roaster.model.source.JavaClassSource;
 import org.jboss.forge.roaster.model.source.JavaEnumSource;
@@ -26,18 +26,21 @@ import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
 import lombok.Getter;
 
 /**
+ * Index of all generated java sources.  Safe for concurrent use, so that independent pipeline
+ * stages can look up and index sources at the same time.
+ *
  * @author eric.wittmann@gmail.com
  */
 public class JavaIndex {
 
     @Getter
-    private Map<String, JavaInterfaceSource> interfaces = new HashMap<>();
+    private Map<String, JavaInterfaceSource> interfaces = new ConcurrentHashMap<>();
 
     @Getter
-    private Map<String, JavaClassSource> classes = new HashMap<>();
+    private Map<String, JavaClassSource> classes = new ConcurrentHashMap<>();
 
     @Getter
-    private Map<String, JavaEnumSource> enums = new HashMap<>();
+    private Map<String, JavaEnumSource> enums = new ConcurrentHashMap<>();
 
     public JavaInterfaceSource lookupInterface(String fullyQualifiedName) {
         return this.interfaces.get(fullyQualifiedName);
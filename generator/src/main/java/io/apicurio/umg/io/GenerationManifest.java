@@ -0,0 +1,198 @@
+package io.apicurio.umg.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.apache.commons.io.IOUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import io.apicurio.umg.UnifiedModelGenerator;
+import io.apicurio.umg.UnifiedModelGeneratorConfig;
+import io.apicurio.umg.models.spec.SpecificationModel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Records what a generated output directory was generated from: a hash of the specification
+ * files (including the files of all of their versions), the generator config, and the generator
+ * version.  It also records every file that was generated (relative to the output directory),
+ * along with a hash of its content.  Used for incremental generation - when the manifest in the
+ * output directory matches the current inputs, and all of the generated files are still there
+ * unchanged, there is nothing to regenerate.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationManifest {
+
+    public static final String MANIFEST_FILE_NAME = ".umg-manifest.json";
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private String generatorVersion;
+    private String inputHash;
+    private Map<String, String> outputs;
+
+    /**
+     * Creates the manifest for the given generator inputs.  Returns null when the inputs cannot
+     * be hashed because a specification was not loaded from a file (see {@link SpecificationLoader}).
+     * @param config
+     * @param specifications
+     */
+    public static GenerationManifest create(UnifiedModelGeneratorConfig config, Collection<SpecificationModel> specifications) {
+        String generatorVersion = generatorVersion();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(generatorVersion.getBytes(StandardCharsets.UTF_8));
+            digest.update(config.toString().getBytes(StandardCharsets.UTF_8));
+            for (SpecificationModel specification : specifications) {
+                if (specification.getSources().isEmpty()) {
+                    return null;
+                }
+                for (URL source : specification.getSources()) {
+                    digest.update(source.toString().getBytes(StandardCharsets.UTF_8));
+                    try (InputStream stream = source.openStream()) {
+                        digest.update(IOUtils.toByteArray(stream));
+                    }
+                }
+            }
+            return new GenerationManifest(generatorVersion, toHex(digest.digest()), null);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records the given generated files (and the hashes of their current content) in this manifest.
+     * @param outputDirectory
+     * @param outputFiles
+     */
+    public void recordOutputs(File outputDirectory, Collection<File> outputFiles) throws IOException {
+        Map<String, String> outputs = new TreeMap<>();
+        for (File file : outputFiles) {
+            outputs.put(relativePath(outputDirectory, file), hash(file.toPath()));
+        }
+        this.outputs = outputs;
+    }
+
+    /**
+     * Returns true if the given (previously written) manifest was created from the same inputs as
+     * this one, and all of the files it records are still in place with the same content.
+     * @param previous
+     * @param outputDirectory
+     */
+    public boolean isUpToDate(GenerationManifest previous, File outputDirectory) {
+        if (previous == null || !generatorVersion.equals(previous.generatorVersion) || !inputHash.equals(previous.inputHash)
+                || previous.outputs == null || previous.outputs.isEmpty()) {
+            return false;
+        }
+        Path outputPath = outputDirectory.toPath().toAbsolutePath();
+        for (Map.Entry<String, String> output : previous.outputs.entrySet()) {
+            Path file = outputPath.resolve(output.getKey()).normalize();
+            try {
+                if (!Files.isRegularFile(file) || !output.getValue().equals(hash(file))) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reads the manifest from the given output directory.  Returns null if there is no (valid)
+     * manifest there.
+     * @param outputDirectory
+     */
+    public static GenerationManifest read(File outputDirectory) {
+        File manifestFile = new File(outputDirectory, MANIFEST_FILE_NAME);
+        if (!manifestFile.isFile()) {
+            return null;
+        }
+        try {
+            return mapper.readValue(manifestFile, GenerationManifest.class);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the manifest to the given output directory.
+     * @param outputDirectory
+     */
+    public void write(File outputDirectory) throws IOException {
+        outputDirectory.mkdirs();
+        mapper.writeValue(new File(outputDirectory, MANIFEST_FILE_NAME), this);
+    }
+
+    /**
+     * Returns the path of the given file relative to the output directory.  Files outside of the
+     * output directory (such as test fixtures) are recorded with a relative path too.
+     * @param outputDirectory
+     * @param file
+     */
+    private static String relativePath(File outputDirectory, File file) {
+        return outputDirectory.toPath().toAbsolutePath().normalize()
+                .relativize(file.toPath().toAbsolutePath().normalize())
+                .toString().replace(File.separatorChar, '/');
+    }
+
+    private static String hash(Path file) throws IOException {
+        try {
+            return toHex(MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the version of the generator.  Snapshot (and unknown) versions also include the
+     * timestamp of the generator jar, so that rebuilding the generator invalidates the manifest.
+     */
+    private static String generatorVersion() {
+        String version = "unknown";
+        try (InputStream stream = UnifiedModelGenerator.class.getResourceAsStream(
+                "/META-INF/maven/io.apicurio/apicurio-unified-model-generator/pom.properties")) {
+            if (stream != null) {
+                Properties properties = new Properties();
+                properties.load(stream);
+                version = properties.getProperty("version", version);
+            }
+        } catch (IOException e) {
+            // Fall back to "unknown".
+        }
+        if ("unknown".equals(version) || version.endsWith("-SNAPSHOT")) {
+            CodeSource codeSource = UnifiedModelGenerator.class.getProtectionDomain().getCodeSource();
+            URL location = codeSource == null ? null : codeSource.getLocation();
+            if (location != null && "file".equals(location.getProtocol())) {
+                version += "@" + new File(location.getPath()).lastModified();
+            }
+        }
+        return version;
+    }
+
+}
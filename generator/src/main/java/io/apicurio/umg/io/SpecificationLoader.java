@@ -2,9 +2,12 @@ package io.apicurio.umg.io;
 
 import java.io.File;
 import java.net.URL;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
 import io.apicurio.umg.beans.Specification;
@@ -14,7 +17,13 @@ import io.apicurio.umg.models.spec.SpecificationModel;
 
 public class SpecificationLoader {
 
-    private static final ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    /**
+     * Sets are deserialized as LinkedHashSets (rather than Jackson's default HashSet) so that the
+     * entities, traits, etc. of a specification are always processed in the order they are
+     * declared, which keeps the generated code stable from one run to the next.
+     */
+    private static final ObjectMapper mapper = new ObjectMapper(new YAMLFactory())
+            .registerModule(new SimpleModule().addAbstractTypeMapping(Set.class, LinkedHashSet.class));
 
     /**
      * Loads a single specification file, parses it into an object, and
@@ -65,6 +74,7 @@ public class SpecificationLoader {
         try {
             Specification spec = mapper.readValue(specURL, Specification.class);
             SpecificationModel model = SpecificationModel.from(spec);
+            model.getSources().add(specURL);
             loadVersions(specURL, spec, model);
             return model;
         } catch (Throwable t) {
@@ -89,6 +99,7 @@ public class SpecificationLoader {
                         } else {
                             specVersionUrl = new URL(ref);
                         }
+                        model.getSources().add(specVersionUrl);
                         return loadSpecVersion(specVersionUrl);
                     } catch (Exception e) {
                         throw new RuntimeException(e);
@@ -27,6 +27,7 @@ import io.apicurio.umg.UnifiedModelGeneratorConfig;
 import io.apicurio.umg.io.SpecificationLoader;
 import io.apicurio.umg.logging.Logger;
 import io.apicurio.umg.models.spec.SpecificationModel;
+import io.apicurio.umg.pipe.PipelineMetrics;
 
 /**
  * @author eric.wittmann@gmail.com
@@ -74,7 +75,8 @@ public class Main {
         UnifiedModelGeneratorConfig config = UnifiedModelGeneratorConfig.builder()
                 .rootNamespace(rootNamespace)
                 .outputDirectory(outputDir)
-                .testOutputDirectory(testOutputDir).build();
+                .testOutputDirectory(testOutputDir)
+                .collectStageMetrics(true).build();
         // Load the specs
         List<SpecificationModel> specs = loadSpecs(specPaths);
         // Create a unified model generator
@@ -82,6 +84,12 @@ public class Main {
         // Generate the source code into the target output directory.
         generator.generate();
         Logger.info("Model generated successfully!");
+
+        // Report the resources used by each stage
+        PipelineMetrics metrics = generator.getMetrics();
+        File metricsFile = new File("target/from-main-metrics/" + rootNamespace + ".json");
+        metrics.writeJson(metricsFile);
+        Logger.info("Stage metrics (also written to %s):%n%s", metricsFile, metrics.toSummaryTable());
     }
 
     /**
@@ -1,5 +1,6 @@
 package io.apicurio.umg.models.spec;
 
+import java.net.URL;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -28,5 +29,9 @@ public class SpecificationModel {
     private String prefix;
     private String namespace;
     private final List<SpecificationVersion> versions = new LinkedList<>();
+    /**
+     * The files the specification (and its versions) were loaded from.
+     */
+    private final List<URL> sources = new LinkedList<>();
 
 }
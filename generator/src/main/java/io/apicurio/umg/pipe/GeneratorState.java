@@ -1,8 +1,11 @@
 package io.apicurio.umg.pipe;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import io.apicurio.umg.UnifiedModelGeneratorConfig;
 import io.apicurio.umg.index.concept.ConceptIndex;
@@ -29,6 +32,12 @@ public class GeneratorState {
 
     private JavaIndex javaIndex = new JavaIndex();
 
+    /**
+     * All files generated by the output stages (generated sources and test fixtures), whether they
+     * were written or were already up to date.
+     */
+    private Set<File> outputFiles = ConcurrentHashMap.newKeySet();
+
     /**
      * Returns all traits with the same name as the given parent trait.  Does a search of
      * the namespace tree to find such traits.
@@ -1,12 +1,27 @@
 package io.apicurio.umg.pipe;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+import lombok.Getter;
+import lombok.Setter;
 
 public class Pipeline {
 
     private List<Stage> stages = new ArrayList<>();
 
+    /**
+     * When set, the resources used by each stage are recorded here.
+     */
+    @Getter
+    @Setter
+    private PipelineMetrics metrics;
+
     public Pipeline() {
     }
 
@@ -15,8 +30,96 @@ public class Pipeline {
     }
 
     public void run(GeneratorState state) {
-        for (Stage stage : stages) {
+        long start = System.nanoTime();
+        try {
+            if (state.getConfig() != null && state.getConfig().isParallelPipeline()) {
+                runParallel(state);
+            } else {
+                for (int i = 0; i < stages.size(); i++) {
+                    runStage(i, state);
+                }
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.setTotalWallTimeNanos(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void runStage(int index, GeneratorState state) {
+        Stage stage = stages.get(index);
+        if (metrics != null) {
+            metrics.measure(index, stage, state);
+        } else {
             stage.process(state);
         }
     }
+
+    /**
+     * Runs the stages as a DAG on a fork-join pool.  Each stage waits for every earlier stage
+     * it conflicts with (see {@link #dependsOn(Stage, Stage)}), so the result is the same as
+     * running the stages one after another in the order they were added.
+     * @param state
+     */
+    private void runParallel(GeneratorState state) {
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            List<CompletableFuture<Void>> futures = new ArrayList<>(stages.size());
+            for (int i = 0; i < stages.size(); i++) {
+                final int index = i;
+                Stage stage = stages.get(i);
+                List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+                for (int j = 0; j < i; j++) {
+                    if (dependsOn(stage, stages.get(j))) {
+                        dependencies.add(futures.get(j));
+                    }
+                }
+                CompletableFuture<Void> future = CompletableFuture.allOf(dependencies.toArray(CompletableFuture[]::new))
+                        .thenRunAsync(() -> runStage(index, state), pool);
+                futures.add(future);
+            }
+
+            // Wait for everything to finish, then report the first failure (in stage order).  Stages
+            // that depend on a failed stage fail with the same cause, so this is the root failure.
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).exceptionally(t -> null).join();
+            for (CompletableFuture<Void> future : futures) {
+                try {
+                    future.join();
+                } catch (CompletionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns true if the given stage must wait for the given earlier stage to complete.  Stages
+     * that do not declare their reads and writes depend on (and are depended on by) all others.
+     * @param stage
+     * @param earlierStage
+     */
+    private static boolean dependsOn(Stage stage, Stage earlierStage) {
+        if (stage.writes() == null || earlierStage.writes() == null) {
+            return true;
+        }
+        return overlaps(stage.writes(), earlierStage.writes())
+                || overlaps(stage.reads(), earlierStage.writes())
+                || overlaps(stage.writes(), earlierStage.reads());
+    }
+
+    private static boolean overlaps(Set<StageResource> set1, Set<StageResource> set2) {
+        if (set1 == null || set2 == null) {
+            return false;
+        }
+        return !Collections.disjoint(set1, set2);
+    }
 }
@@ -0,0 +1,179 @@
+package io.apicurio.umg.pipe;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Collects the wall time, CPU time and allocated bytes of each stage run by a {@link Pipeline}.
+ * CPU time and allocations are measured with the {@link ThreadMXBean} counters of the thread that
+ * runs the stage, so work a stage hands off to other threads is only included in its wall time.
+ */
+public class PipelineMetrics {
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    private final List<StageMetrics> stages = new ArrayList<>();
+
+    /**
+     * The elapsed time of the whole pipeline.  When stages run in parallel this is less than the
+     * sum of the stage wall times.
+     */
+    @Getter
+    @Setter
+    private long totalWallTimeNanos;
+
+    /**
+     * Runs the given stage and records the resources it used.
+     * @param index
+     * @param stage
+     * @param state
+     */
+    public void measure(int index, Stage stage, GeneratorState state) {
+        boolean cpuTimeSupported = threadBean.isCurrentThreadCpuTimeSupported() && threadBean.isThreadCpuTimeEnabled();
+        boolean allocationSupported = isAllocationSupported();
+        long threadId = Thread.currentThread().getId();
+
+        long cpuStart = cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() : -1;
+        long allocatedStart = allocationSupported ? allocatedBytes(threadId) : -1;
+        long wallStart = System.nanoTime();
+        try {
+            stage.process(state);
+        } finally {
+            long wallTime = System.nanoTime() - wallStart;
+            long cpuTime = cpuTimeSupported ? threadBean.getCurrentThreadCpuTime() - cpuStart : -1;
+            long allocated = allocationSupported ? allocatedBytes(threadId) - allocatedStart : -1;
+            StageMetrics metrics = StageMetrics.builder()
+                    .index(index)
+                    .stage(stage.getClass().getSimpleName())
+                    .wallTimeNanos(wallTime)
+                    .cpuTimeNanos(cpuTime)
+                    .allocatedBytes(allocated)
+                    .build();
+            synchronized (stages) {
+                stages.add(metrics);
+            }
+        }
+    }
+
+    /**
+     * Returns the metrics of all stages run so far, in pipeline order.
+     */
+    public List<StageMetrics> getStages() {
+        List<StageMetrics> rval;
+        synchronized (stages) {
+            rval = new ArrayList<>(stages);
+        }
+        rval.sort(Comparator.comparingInt(StageMetrics::getIndex));
+        return rval;
+    }
+
+    /**
+     * Formats the metrics as a human readable table (one line per stage, plus a total).
+     */
+    public String toSummaryTable() {
+        List<StageMetrics> stageMetrics = getStages();
+        int nameWidth = "Elapsed".length();
+        for (StageMetrics metrics : stageMetrics) {
+            nameWidth = Math.max(nameWidth, metrics.getStage().length());
+        }
+        String rowFormat = "%-" + nameWidth + "s %12s %12s %14s %7s%n";
+
+        long totalWall = 0;
+        long totalCpu = 0;
+        long totalAllocated = 0;
+        for (StageMetrics metrics : stageMetrics) {
+            totalWall += metrics.getWallTimeNanos();
+            totalCpu = add(totalCpu, metrics.getCpuTimeNanos());
+            totalAllocated = add(totalAllocated, metrics.getAllocatedBytes());
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format(rowFormat, "Stage", "Wall (ms)", "CPU (ms)", "Alloc (KB)", "Wall %"));
+        for (StageMetrics metrics : stageMetrics) {
+            builder.append(String.format(rowFormat, metrics.getStage(), millis(metrics.getWallTimeNanos()),
+                    millis(metrics.getCpuTimeNanos()), kilobytes(metrics.getAllocatedBytes()),
+                    percent(metrics.getWallTimeNanos(), totalWall)));
+        }
+        builder.append(String.format(rowFormat, "Total", millis(totalWall), millis(totalCpu), kilobytes(totalAllocated), ""));
+        builder.append(String.format(rowFormat, "Elapsed", millis(totalWallTimeNanos), "", "", ""));
+        return builder.toString();
+    }
+
+    /**
+     * Formats the metrics as a JSON document.
+     */
+    public String toJson() throws IOException {
+        return mapper.writeValueAsString(toJsonNode());
+    }
+
+    /**
+     * Writes the metrics (as JSON) to the given file.
+     * @param file
+     */
+    public void writeJson(File file) throws IOException {
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        mapper.writeValue(file, toJsonNode());
+    }
+
+    private ObjectNode toJsonNode() {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("totalWallTimeNanos", totalWallTimeNanos);
+        ArrayNode stagesNode = root.putArray("stages");
+        for (StageMetrics metrics : getStages()) {
+            ObjectNode stageNode = stagesNode.addObject();
+            stageNode.put("stage", metrics.getStage());
+            stageNode.put("wallTimeNanos", metrics.getWallTimeNanos());
+            stageNode.put("cpuTimeNanos", metrics.getCpuTimeNanos());
+            stageNode.put("allocatedBytes", metrics.getAllocatedBytes());
+        }
+        return root;
+    }
+
+    private boolean isAllocationSupported() {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunThreadBean = (com.sun.management.ThreadMXBean) threadBean;
+            return sunThreadBean.isThreadAllocatedMemorySupported() && sunThreadBean.isThreadAllocatedMemoryEnabled();
+        }
+        return false;
+    }
+
+    private long allocatedBytes(long threadId) {
+        return ((com.sun.management.ThreadMXBean) threadBean).getThreadAllocatedBytes(threadId);
+    }
+
+    /**
+     * Adds two measurements, either of which may be -1 (unsupported).
+     */
+    private static long add(long total, long value) {
+        return total < 0 || value < 0 ? -1 : total + value;
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "n/a" : String.format("%.1f", nanos / 1_000_000.0);
+    }
+
+    private static String kilobytes(long bytes) {
+        return bytes < 0 ? "n/a" : String.format("%,d", bytes / 1024);
+    }
+
+    private static String percent(long value, long total) {
+        return total <= 0 ? "" : String.format("%.1f", 100.0 * value / total);
+    }
+
+}
@@ -1,6 +1,24 @@
 package io.apicurio.umg.pipe;
 
+import java.util.Set;
+
 public interface Stage {
 
     public void process(GeneratorState state);
+
+    /**
+     * The parts of the generator state read by this stage.  A stage that does not declare
+     * its reads and writes (returns null) is never run at the same time as any other stage.
+     */
+    public default Set<StageResource> reads() {
+        return null;
+    }
+
+    /**
+     * The parts of the generator state written by this stage.
+     * @see #reads()
+     */
+    public default Set<StageResource> writes() {
+        return null;
+    }
 }
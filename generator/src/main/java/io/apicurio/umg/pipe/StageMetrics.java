@@ -0,0 +1,20 @@
+package io.apicurio.umg.pipe;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * The resources used by a single run of a single pipeline stage.  CPU time and allocated bytes are
+ * -1 when the JVM does not support measuring them.
+ */
+@Builder
+@Data
+public class StageMetrics {
+
+    private int index;
+    private String stage;
+    private long wallTimeNanos;
+    private long cpuTimeNanos;
+    private long allocatedBytes;
+
+}
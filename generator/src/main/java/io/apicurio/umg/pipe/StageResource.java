@@ -0,0 +1,30 @@
+package io.apicurio.umg.pipe;
+
+/**
+ * The parts of the {@link GeneratorState} that a stage can declare it reads or writes.  Used
+ * by the {@link Pipeline} to decide which stages can safely be run at the same time.
+ */
+public enum StageResource {
+
+    /** The concept models (namespaces, entities, traits, visitors) in the concept index. */
+    CONCEPT_MODEL,
+    /** The specifications and the specification index. */
+    SPEC_INDEX,
+
+    /** The base classes and interfaces loaded from the generator's resources. */
+    JAVA_BASE_TYPES,
+    JAVA_ENTITY_INTERFACES,
+    JAVA_ENTITY_IMPLEMENTATIONS,
+    JAVA_READERS,
+    JAVA_STREAMING_READERS,
+    JAVA_WRITERS,
+    JAVA_STREAMING_WRITERS,
+    JAVA_VISITORS,
+    JAVA_VISITOR_ADAPTERS,
+    JAVA_READER_DISPATCHERS,
+    JAVA_WRITER_DISPATCHERS,
+    JAVA_TRAVERSERS,
+    JAVA_READER_FACTORY,
+    JAVA_WRITER_FACTORY
+
+}
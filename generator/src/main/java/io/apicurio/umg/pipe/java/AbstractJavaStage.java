@@ -6,6 +6,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.StringUtils;
+import org.jboss.forge.roaster.model.source.FieldSource;
 import org.jboss.forge.roaster.model.source.Importer;
 import org.jboss.forge.roaster.model.source.JavaClassSource;
 import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
@@ -24,6 +25,8 @@ import io.apicurio.umg.pipe.AbstractStage;
 
 public abstract class AbstractJavaStage extends AbstractStage {
 
+    private static final String PRESENCE_FIELD_PREFIX = "_present";
+
     protected String getReaderClassName(SpecificationVersion specVersion) {
         return specVersion.getPrefix() + "ModelReader";
     }
@@ -32,10 +35,18 @@ public abstract class AbstractJavaStage extends AbstractStage {
         return specVersion.getNamespace() + ".io";
     }
 
+    protected String getStreamingReaderClassName(SpecificationVersion specVersion) {
+        return specVersion.getPrefix() + "StreamingModelReader";
+    }
+
     protected String getWriterClassName(SpecificationVersion specVersion) {
         return specVersion.getPrefix() + "ModelWriter";
     }
 
+    protected String getStreamingWriterClassName(SpecificationVersion specVersion) {
+        return specVersion.getPrefix() + "StreamingModelWriter";
+    }
+
     protected String getWriterPackageName(SpecificationVersion specVersion) {
         return specVersion.getNamespace() + ".io";
     }
@@ -177,10 +188,22 @@ public abstract class AbstractJavaStage extends AbstractStage {
         return getState().getConfig().getRootNamespace() + ".RootNodeImpl";
     }
 
+    protected String getPersistentRootNodeInterfaceFQN() {
+        return getState().getConfig().getRootNamespace() + ".PersistentRootNode";
+    }
+
+    protected String getPersistentRootNodeEntityClassFQN() {
+        return getState().getConfig().getRootNamespace() + ".PersistentRootNodeImpl";
+    }
+
     protected String getDataModelUtilFQCN() {
         return getState().getConfig().getRootNamespace() + ".util.DataModelUtil";
     }
 
+    protected String getIndexedOrderedMapFQCN() {
+        return getState().getConfig().getRootNamespace() + ".util.IndexedOrderedMap";
+    }
+
     protected String getParentPropertyTypeEnumFQN() {
         return getState().getConfig().getRootNamespace() + ".ParentPropertyType";
     }
@@ -193,10 +216,18 @@ public abstract class AbstractJavaStage extends AbstractStage {
         return getState().getConfig().getRootNamespace() + ".io.ModelReader";
     }
 
+    protected String getStreamingModelReaderInterfaceFQN() {
+        return getState().getConfig().getRootNamespace() + ".io.StreamingModelReader";
+    }
+
     protected String getModelWriterInterfaceFQN() {
         return getState().getConfig().getRootNamespace() + ".io.ModelWriter";
     }
 
+    protected String getStreamingModelWriterInterfaceFQN() {
+        return getState().getConfig().getRootNamespace() + ".io.StreamingModelWriter";
+    }
+
     protected String getRootVisitorInterfaceFQN() {
         return getState().getConfig().getRootNamespace() + ".visitors.Visitor";
     }
@@ -309,6 +340,78 @@ public abstract class AbstractJavaStage extends AbstractStage {
         return rval;
     }
 
+    /**
+     * Returns true if the given property is stored in a primitive field (boolean or int) plus a
+     * presence bit, rather than in a boxed field.  This is only the case when the generator is
+     * configured to generate primitive fields.  Star and regex properties are never stored that way.
+     * @param property
+     */
+    protected boolean isPrimitiveField(PropertyModel property) {
+        return getState().getConfig().isPrimitiveFields() && !isStarProperty(property) && !isRegexProperty(property)
+                && isPrimitive(property) && Util.PRIMITIVE_FIELD_TYPE_MAP.containsKey(property.getType().getSimpleType());
+    }
+
+    /**
+     * Returns true if the generator is configured to generate lazy readers, in which case the nodes
+     * must be read (materialized) before their properties are accessed - see NodeImpl.
+     */
+    protected boolean isLazyReaders() {
+        return getState().getConfig().isLazyReaders();
+    }
+
+    /**
+     * Returns the primitive (field) type of the given property - see {@link #isPrimitiveField(PropertyModel)}.
+     * @param property
+     */
+    protected String getPrimitiveFieldType(PropertyModel property) {
+        return Util.PRIMITIVE_FIELD_TYPE_MAP.get(property.getType().getSimpleType());
+    }
+
+    /**
+     * Returns the presence bit of the given primitive field, which is its position among the
+     * primitive fields of the impl class.  The bit is stored in field "_present{bit / 32}".
+     * @param javaEntityImpl
+     * @param fieldName
+     */
+    protected int getPresenceBit(JavaClassSource javaEntityImpl, String fieldName) {
+        int bit = 0;
+        for (FieldSource<JavaClassSource> field : javaEntityImpl.getFields()) {
+            if (field.getName().equals(fieldName)) {
+                return bit;
+            }
+            if (!field.isStatic() && field.getType().isPrimitive() && !field.getName().startsWith(PRESENCE_FIELD_PREFIX)) {
+                bit++;
+            }
+        }
+        throw new IllegalStateException("Primitive field not found: " + javaEntityImpl.getCanonicalName() + "::" + fieldName);
+    }
+
+    protected String getPresenceFieldName(int bit) {
+        return PRESENCE_FIELD_PREFIX + (bit / 32);
+    }
+
+    /**
+     * Returns the fully qualified name of the primitive-specialized collection (list or map) that
+     * the given property is stored in, or null if it is stored in a standard collection.  Like
+     * primitive fields, these are only used when the generator is configured to generate primitive
+     * fields.
+     * @param property
+     */
+    protected String getPrimitiveCollectionFQN(PropertyModel property) {
+        if (!getState().getConfig().isPrimitiveFields() || isStarProperty(property)) {
+            return null;
+        }
+        if (!isPrimitiveList(property) && !isPrimitiveMap(property)) {
+            return null;
+        }
+        String itemType = property.getType().getNested().iterator().next().getSimpleType();
+        if (!Util.PRIMITIVE_FIELD_TYPE_MAP.containsKey(itemType)) {
+            return null;
+        }
+        String itemClass = primitiveTypeToClass(property.getType().getNested().iterator().next()).getSimpleName();
+        return getState().getConfig().getRootNamespace() + ".util." + itemClass + (isPrimitiveList(property) ? "List" : "Map");
+    }
+
     protected JavaInterfaceSource resolveJavaEntityType(NamespaceModel namespace, PropertyModel property) {
         return resolveJavaEntityType(namespace.fullName(), property.getType());
     }
@@ -0,0 +1,481 @@
+package io.apicurio.umg.pipe.java;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.jboss.forge.roaster.model.source.FieldSource;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.apicurio.umg.beans.UnionRule;
+import io.apicurio.umg.beans.UnionRuleType;
+import io.apicurio.umg.models.concept.EntityModel;
+import io.apicurio.umg.models.concept.NamespaceModel;
+import io.apicurio.umg.models.concept.PropertyModel;
+import io.apicurio.umg.models.concept.PropertyModelWithOrigin;
+import io.apicurio.umg.models.concept.PropertyType;
+import io.apicurio.umg.pipe.java.method.BodyBuilder;
+
+/**
+ * Base class for stages that generate reader classes.  Contains code generation logic that is
+ * shared by the different flavors of reader.
+ */
+public abstract class AbstractReaderStage extends AbstractJavaStage {
+
+    /**
+     * The JSON node type of the values of each primitive union type that is fully determined by it.
+     */
+    private static final Map<String, JsonNodeType> PRIMITIVE_NODE_TYPES = Map.of(
+            "String", JsonNodeType.STRING,
+            "Boolean", JsonNodeType.BOOLEAN,
+            "Number", JsonNodeType.NUMBER,
+            "ObjectNode", JsonNodeType.OBJECT);
+
+    /**
+     * Returns the name of the (static) reader field holding the compiled pattern for the given
+     * regex property.  The patterns are collected in the given map (regex to field name) while the
+     * read methods are created, and added to the reader class afterwards (see {@link #addPatternFields}).
+     * @param patternFields
+     * @param property
+     */
+    protected String patternFieldName(Map<String, String> patternFields, PropertyModel property) {
+        String regex = extractRegex(property.getName());
+        return patternFields.computeIfAbsent(regex, r -> "PATTERN_" + patternFields.size());
+    }
+
+    /**
+     * Adds a static field with the compiled pattern to the reader class for each of the given regexes,
+     * so that each regular expression is compiled only once.
+     * @param readerClassSource
+     * @param patternFields
+     */
+    protected void addPatternFields(JavaClassSource readerClassSource, Map<String, String> patternFields) {
+        if (patternFields.isEmpty()) {
+            return;
+        }
+        readerClassSource.addImport(Pattern.class);
+        patternFields.forEach((regex, fieldName) -> {
+            readerClassSource.addField()
+                    .setName(fieldName)
+                    .setType("Pattern")
+                    .setPrivate()
+                    .setStatic(true)
+                    .setFinal(true)
+                    .setLiteralInitializer("Pattern.compile(\"" + encodeStringLiteral(regex) + "\")");
+        });
+    }
+
+    protected static String encodeStringLiteral(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Generates code that reads a union property.  The JSON value of the property is obtained by
+     * evaluating the given value expression, after which the nested type of the union is determined
+     * (using the union rules when needed) and the value is read accordingly.  The generated code
+     * switches on the JSON node type first, so that only the nested types that can match a node of
+     * that type are checked, and looks up the value of a discriminator property once for all of the
+     * entity types with "propertyValue" rules on that property.  The object source
+     * expression is used to produce the argument passed to the readXyz method when the value is an
+     * entity (the expression has an "object" variable of type ObjectNode in scope).
+     *
+     * @param body
+     * @param propertyWithOrigin
+     * @param entityModel
+     * @param readerClassSource
+     * @param valueExpression
+     * @param objectSourceExpression
+     */
+    protected void createReadUnionPropertyCode(BodyBuilder body, PropertyModelWithOrigin propertyWithOrigin, EntityModel entityModel,
+            JavaClassSource readerClassSource, String valueExpression, String objectSourceExpression) {
+        PropertyModel property = propertyWithOrigin.getProperty();
+        NamespaceModel nsContext = propertyWithOrigin.getOrigin().getNamespace();
+        UnionPropertyType ut = new UnionPropertyType(property.getType());
+
+        readerClassSource.addImport(JsonNode.class);
+        readerClassSource.addImport(getState().getConfig().getRootNamespace() + ".util." + "JsonUtil");
+
+        body.addContext("unionJavaType", ut.toJavaTypeString());
+        body.addContext("propertyName", property.getName());
+        body.addContext("getterMethodName", getterMethodName(property));
+        body.addContext("setterMethodName", setterMethodName(property));
+
+        body.append("{");
+        body.append("    JsonNode value = " + valueExpression + ";");
+        body.append("    if (value != null) {");
+
+        // Sort the nested types - make sure any entity types with union rules come first.  This is
+        // also an opportunity to order any of the checks we might need.  E.g. if we need isString()
+        // checks to happen before isNumber() for some reason.  Consider this an area for future
+        // improvement.
+        List<PropertyType> sortedNestedTypes = ut.getNestedTypes().stream().sorted(new Comparator<PropertyType>() {
+            @Override
+            public int compare(PropertyType o1, PropertyType o2) {
+                if (o1.isEntityType() && o2.isEntityType()) {
+                    UnionRule rule1 = property.getRuleFor(o1.asRawType());
+                    UnionRule rule2 = property.getRuleFor(o2.asRawType());
+                    if (rule1 != null && rule2 == null) {
+                        return -1;
+                    } else if (rule1 == null && rule2 != null) {
+                        return 1;
+                    }
+                }
+                return o1.asRawType().compareTo(o2.asRawType());
+            }
+        }).collect(Collectors.toUnmodifiableList());
+
+        // Now collect a branch of reader code for each nested type.  Since this
+        // property can be different things, we need to figure out what it is first,
+        // and then properly read it based on that result.  This is easy for things like
+        // 'string|boolean' types.  But for 'Entity1|Entity2' types, we need to
+        // employ the configured union rules.
+        // TODO support union rules for non-entity union types (e.g. maps and lists) for currently
+        //      unsupported use cases (like '[string]|[number]').
+        List<UnionBranch> branches = new ArrayList<>();
+        for (PropertyType nestedType : sortedNestedTypes) {
+            JavaType jt = new JavaType(nestedType, nsContext);
+            if (jt.isPrimitive()) {
+                String javaTypeName = jt.toJavaTypeString();
+                String isMethodName = "is" + javaTypeName;
+                String toMethodName = "to" + javaTypeName;
+                String typeName = getTypeName(nestedType);
+                String unionValueInterfaceName = typeName + "UnionValue";
+                String unionValueInterfaceFQN = getUnionTypeFQN(typeName + "UnionValue");
+                String unionValueClassName = unionValueInterfaceName + "Impl";
+                String unionValueClassFQN = unionValueInterfaceFQN + "Impl";
+                JavaInterfaceSource unionValueInterface = getState().getJavaIndex().lookupInterface(unionValueInterfaceFQN);
+                JavaClassSource unionValueClass = getState().getJavaIndex().lookupClass(unionValueClassFQN);
+
+                readerClassSource.addImport(unionValueInterface);
+                readerClassSource.addImport(unionValueClass);
+
+                // Most primitive types are fully determined by the JSON node type, in which case
+                // the isXyz check is not needed.  'any' (JsonNode) matches every node.
+                JsonNodeType nodeType = PRIMITIVE_NODE_TYPES.get(javaTypeName);
+                String condition = nodeType != null || JsonNode.class.getSimpleName().equals(javaTypeName) ? null :
+                    "JsonUtil." + isMethodName + "(value)";
+                branches.add(new UnionBranch(nodeType, condition, null, () -> {
+                    body.addContext("javaTypeName", javaTypeName);
+                    body.addContext("toMethodName", toMethodName);
+                    body.addContext("unionValueInterfaceName", unionValueInterfaceName);
+                    body.addContext("unionValueClassName", unionValueClassName);
+
+                    body.append("${javaTypeName} pValue = JsonUtil.${toMethodName}(value);");
+                    body.append("${unionValueInterfaceName} unionValue = new ${unionValueClassName}(pValue);");
+                    body.append("node.${setterMethodName}(unionValue);");
+                }));
+            } else if (jt.isPrimitiveList()) {
+                String nestedJavaTypeName = getTypeName(nestedType.getNested().iterator().next());
+                String unionValueName = getTypeName(nestedType);
+                String toMethodName = "to" + nestedJavaTypeName;
+                String unionValueInterfaceName = unionValueName + "UnionValue";
+                String unionValueClassName = unionValueInterfaceName + "Impl";
+                JavaInterfaceSource unionValueInterface = getState().getJavaIndex().lookupInterface(getUnionTypeFQN(unionValueInterfaceName));
+                JavaClassSource unionValueClass = getState().getJavaIndex().lookupClass(getUnionTypeFQN(unionValueClassName));
+
+                if (unionValueInterface == null || unionValueClassName == null) {
+                    warn("Missing primitive list Union Value interface or class: " + unionValueName);
+                    return;
+                }
+
+                readerClassSource.addImport(unionValueInterface);
+                readerClassSource.addImport(unionValueClass);
+                readerClassSource.addImport(JsonNode.class);
+                readerClassSource.addImport(List.class);
+                readerClassSource.addImport(ArrayList.class);
+
+                branches.add(new UnionBranch(JsonNodeType.ARRAY, null, null, () -> {
+                    body.addContext("toMethodName", toMethodName);
+                    body.addContext("javaTypeName", nestedJavaTypeName);
+                    body.addContext("unionValueInterfaceName", unionValueInterfaceName);
+                    body.addContext("unionValueClassName", unionValueClassName);
+
+                    body.append("List<JsonNode> array = JsonUtil.toList(value);");
+                    body.append("List<${javaTypeName}> items = new ArrayList<>();");
+                    body.append("array.forEach(item -> {");
+                    body.append("    ${javaTypeName} pValue = JsonUtil.${toMethodName}(item);");
+                    body.append("    items.add(pValue);");
+                    body.append("});");
+                    body.append("${unionValueInterfaceName} unionValue = new ${unionValueClassName}(items);");
+                    body.append("node.${setterMethodName}(unionValue);");
+                }));
+            } else if (jt.isEntity()) {
+                NamespaceModel nestedTypeEntityNS = entityModel.getNamespace();
+                String nestedTypeEntityName = nestedTypeEntityNS.fullName() + "." + nestedType.getSimpleType();
+                EntityModel nestedTypeEntity = getState().getConceptIndex().lookupEntity(nestedTypeEntityName);
+                if (nestedTypeEntity == null) {
+                    warn("Property union type with entity sub-type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
+                    warn("       nested union type: " + nestedType);
+                    return;
+                }
+                JavaInterfaceSource entityJavaSource = resolveJavaEntityType(nestedTypeEntityNS, nestedType);
+                if (entityJavaSource == null) {
+                    warn("Property union type with entity sub-type not found (in java index) for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
+                    warn("       nested union type: " + nestedType);
+                    return;
+                }
+                readerClassSource.addImport(entityJavaSource);
+                readerClassSource.addImport(ObjectNode.class);
+
+                UnionRule unionRule = property.getRuleFor(nestedType.asRawType());
+                String condition = null;
+                if (unionRule != null) {
+                    String rulePropertyName = encodeStringLiteral(unionRule.getPropertyName());
+                    if (unionRule.getRuleType() == UnionRuleType.propertyExists) {
+                        condition = "JsonUtil.isObjectWithProperty(value, \"" + rulePropertyName + "\")";
+                    } else if (unionRule.getRuleType() == UnionRuleType.propertyValue) {
+                        condition = "JsonUtil.isObjectWithPropertyValue(value, \"" + rulePropertyName + "\", \"" +
+                                encodeStringLiteral(unionRule.getPropertyValue()) + "\")";
+                    } else {
+                        throw new RuntimeException("Unsupported union rule: " + unionRule.getRuleType());
+                    }
+                }
+
+                branches.add(new UnionBranch(JsonNodeType.OBJECT, condition, unionRule, () -> {
+                    body.addContext("createMethodName", createMethodName(nestedTypeEntity));
+                    body.addContext("readMethodName", readMethodName(nestedTypeEntity));
+                    body.addContext("propertyEntityType", entityJavaSource.getName());
+                    body.addContext("objectSource", objectSourceExpression);
+
+                    body.append("ObjectNode object = JsonUtil.toObject(value);");
+                    body.append("node.${setterMethodName}(node.${createMethodName}());");
+                    body.append("${readMethodName}(${objectSource}, (${propertyEntityType}) node.${getterMethodName}());");
+                }));
+            } else if (jt.isEntityList()) {
+                String unionValueName = getTypeName(nestedType);
+                String unionValueInterfaceName = unionValueName + "UnionValue";
+                String unionValueClassName = unionValueInterfaceName + "Impl";
+                JavaInterfaceSource unionValueInterface = getState().getJavaIndex().lookupInterface(getUnionTypeFQN(unionValueInterfaceName));
+                JavaClassSource unionValueClass = getState().getJavaIndex().lookupClass(getUnionTypeFQN(unionValueClassName));
+                if (unionValueInterface == null || unionValueClassName == null) {
+                    warn("Missing entity list Union Value interface or class (this should have been generated!): " + unionValueName);
+                    return;
+                }
+
+                PropertyType listItemType = nestedType.getNested().iterator().next();
+                String listItemEntityName = entityModel.getNamespace().fullName() + "." + listItemType.getSimpleType();
+                EntityModel listItemEntity = getState().getConceptIndex().lookupEntity(listItemEntityName);
+                if (listItemEntity == null) {
+                    warn("Property union type with entity sub-type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
+                    warn("       nested union type: " + nestedType);
+                    return;
+                }
+                JavaInterfaceSource listItemEntitySource = getState().getJavaIndex().lookupInterface(getJavaEntityInterfaceFQN(listItemEntity));
+                if (listItemEntitySource == null) {
+                    warn("Property union type with entity sub-type not found (in java index) for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
+                    warn("       nested union type: " + listItemType);
+                    return;
+                }
+
+                readerClassSource.addImport(listItemEntitySource);
+                readerClassSource.addImport(ObjectNode.class);
+                readerClassSource.addImport(unionValueInterface);
+                readerClassSource.addImport(unionValueClass);
+                readerClassSource.addImport(JsonNode.class);
+                readerClassSource.addImport(List.class);
+                readerClassSource.addImport(ArrayList.class);
+
+                branches.add(new UnionBranch(JsonNodeType.ARRAY, null, null, () -> {
+                    body.addContext("unionValueInterfaceName", unionValueInterfaceName);
+                    body.addContext("unionValueClassName", unionValueClassName);
+                    body.addContext("listValueJavaType", listItemEntitySource.getName());
+                    body.addContext("createMethodName", createMethodName(listItemEntity));
+                    body.addContext("readMethodName", readMethodName(listItemEntity));
+                    body.addContext("objectSource", objectSourceExpression);
+
+                    body.append("List<JsonNode> array = JsonUtil.toList(value);");
+                    body.append("List<${listValueJavaType}> models = new ArrayList<>();");
+                    body.append("for (JsonNode item : array) {");
+                    body.append("    ObjectNode object = JsonUtil.toObject(item);");
+                    body.append("    ${listValueJavaType} model = (${listValueJavaType}) node.${createMethodName}();");
+                    body.append("    this.${readMethodName}(${objectSource}, model);");
+                    body.append("    models.add(model);");
+                    body.append("}");
+                    body.append("@SuppressWarnings({ \"unchecked\", \"rawtypes\" })");
+                    body.append("${unionValueInterfaceName} unionValue = new ${unionValueClassName}((List) models);");
+                    body.append("node.${setterMethodName}(unionValue);");
+                }));
+            } else {
+                // TODO implement handling for entity maps
+                warn("UNION Entity property '" + property.getName() + "' not read (unsupported union subtype) for entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+                // Matches any value (and reads nothing), just like an unconditional branch.
+                branches.add(new UnionBranch(null, null, null, () -> {}));
+            }
+        }
+
+        // Dispatch on the JSON node type first: each case only needs to consider the branches
+        // that can match a node of that type (plus any branches that match every node).
+        List<JsonNodeType> nodeTypes = branches.stream().map(branch -> branch.nodeType).filter(nodeType -> nodeType != null)
+                .distinct().collect(Collectors.toList());
+        if (nodeTypes.isEmpty()) {
+            createReadUnionBranchesCode(body, branches, readerClassSource);
+        } else {
+            readerClassSource.addImport(JsonNodeType.class);
+            body.append("switch (value.getNodeType()) {");
+            for (JsonNodeType nodeType : nodeTypes) {
+                body.append("    case " + nodeType.name() + ":");
+                createReadUnionBranchesCode(body, branches.stream()
+                        .filter(branch -> branch.nodeType == null || branch.nodeType == nodeType).collect(Collectors.toList()),
+                        readerClassSource);
+                body.append("        break;");
+            }
+            body.append("    default:");
+            createReadUnionBranchesCode(body, branches.stream()
+                    .filter(branch -> branch.nodeType == null).collect(Collectors.toList()), readerClassSource);
+            body.append("}");
+        }
+        body.append("    }");
+        body.append("}");
+    }
+
+    /**
+     * Generates the if/else chain that tries the given union branches in order.  The chain ends
+     * at the first branch without a condition; if there is none, unmatched values are stored as
+     * an extra property.  A run of two or more consecutive branches with "propertyValue" rules on
+     * the same property is replaced by a single lookup of the property value in a (static)
+     * discriminator table, followed by a switch on the result.
+     * @param body
+     * @param branches
+     * @param readerClassSource
+     */
+    private void createReadUnionBranchesCode(BodyBuilder body, List<UnionBranch> branches, JavaClassSource readerClassSource) {
+        boolean first = true;
+        for (int idx = 0; idx < branches.size(); idx++) {
+            UnionBranch branch = branches.get(idx);
+            int runEnd = idx;
+            while (runEnd < branches.size() && branch.isDiscriminatedWith(branches.get(runEnd))) {
+                runEnd++;
+            }
+            if (runEnd - idx > 1) {
+                if (!first) {
+                    body.append(" else {");
+                }
+                createReadDiscriminatedUnionCode(body, branches.subList(idx, runEnd), branches.subList(runEnd, branches.size()),
+                        readerClassSource);
+                if (!first) {
+                    body.append("}");
+                }
+                return;
+            }
+            if (!first) {
+                body.append(" else ");
+            }
+            first = false;
+            if (branch.condition == null) {
+                body.append("{");
+                branch.reader.run();
+                body.append("}");
+                return;
+            }
+            body.append("if (" + branch.condition + ") {");
+            branch.reader.run();
+            body.append("}");
+        }
+        body.append(first ? "{" : " else {");
+        body.append("    node.addExtraProperty(\"${propertyName}\", value);");
+        body.append("}");
+    }
+
+    /**
+     * Generates a switch on the index of the discriminator value of an object (see
+     * JsonUtil.discriminate), with a case for each of the given discriminated branches.  Values
+     * that match none of them fall through to the remaining branches.
+     * @param body
+     * @param discriminated
+     * @param remaining
+     * @param readerClassSource
+     */
+    private void createReadDiscriminatedUnionCode(BodyBuilder body, List<UnionBranch> discriminated, List<UnionBranch> remaining,
+            JavaClassSource readerClassSource) {
+        // Only the first branch for a given value can ever match.
+        Map<String, UnionBranch> branchesByValue = new LinkedHashMap<>();
+        discriminated.forEach(branch -> branchesByValue.putIfAbsent(branch.rule.getPropertyValue(), branch));
+
+        List<String> entries = new ArrayList<>();
+        branchesByValue.keySet().forEach(value -> entries.add("Map.entry(\"" + encodeStringLiteral(value) + "\", " + entries.size() + ")"));
+        String tableFieldName = discriminatorFieldName(readerClassSource, "Map.ofEntries(" + String.join(", ", entries) + ")");
+        String rulePropertyName = encodeStringLiteral(discriminated.get(0).rule.getPropertyName());
+
+        body.append("switch (JsonUtil.discriminate(value, \"" + rulePropertyName + "\", " + tableFieldName + ")) {");
+        int index = 0;
+        for (UnionBranch branch : branchesByValue.values()) {
+            body.append("    case " + index++ + ": {");
+            branch.reader.run();
+            body.append("        break;");
+            body.append("    }");
+        }
+        body.append("    default:");
+        createReadUnionBranchesCode(body, remaining, readerClassSource);
+        body.append("}");
+    }
+
+    /**
+     * Returns the name of the (static) reader field holding the discriminator table with the given
+     * initializer, adding the field to the reader class if it does not exist yet.
+     * @param readerClassSource
+     * @param initializer
+     */
+    private String discriminatorFieldName(JavaClassSource readerClassSource, String initializer) {
+        int count = 0;
+        for (FieldSource<JavaClassSource> field : readerClassSource.getFields()) {
+            if (field.getName().startsWith("DISCRIMINATORS_")) {
+                if (initializer.equals(field.getLiteralInitializer())) {
+                    return field.getName();
+                }
+                count++;
+            }
+        }
+        String fieldName = "DISCRIMINATORS_" + count;
+        readerClassSource.addImport(Map.class);
+        readerClassSource.addField()
+                .setName(fieldName)
+                .setType("Map<String, Integer>")
+                .setPrivate()
+                .setStatic(true)
+                .setFinal(true)
+                .setLiteralInitializer(initializer);
+        return fieldName;
+    }
+
+    /**
+     * One of the alternatives considered when reading a union property: the type of JSON node it
+     * applies to (null for all nodes), the check it needs beyond the node type (null for none),
+     * its union rule (if any), and the code that reads the value.
+     */
+    private static class UnionBranch {
+
+        private final JsonNodeType nodeType;
+        private final String condition;
+        private final UnionRule rule;
+        private final Runnable reader;
+
+        UnionBranch(JsonNodeType nodeType, String condition, UnionRule rule, Runnable reader) {
+            this.nodeType = nodeType;
+            this.condition = condition;
+            this.rule = rule;
+            this.reader = reader;
+        }
+
+        /**
+         * Returns true if this branch and the given one both have "propertyValue" rules on the
+         * same property (so that they can share a single discriminator lookup).
+         */
+        boolean isDiscriminatedWith(UnionBranch other) {
+            return rule != null && other.rule != null
+                    && rule.getRuleType() == UnionRuleType.propertyValue
+                    && other.rule.getRuleType() == UnionRuleType.propertyValue
+                    && rule.getPropertyName().equals(other.rule.getPropertyName());
+        }
+    }
+
+}
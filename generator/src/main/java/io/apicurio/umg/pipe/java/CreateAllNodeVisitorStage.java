@@ -1,5 +1,6 @@
 package io.apicurio.umg.pipe.java;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -12,6 +13,7 @@ import org.jboss.forge.roaster.model.source.MethodSource;
 import org.jboss.forge.roaster.model.source.ParameterSource;
 
 import io.apicurio.umg.models.concept.VisitorModel;
+import io.apicurio.umg.pipe.StageResource;
 
 /**
  * Creates "all node" visitors for every spec.  This
@@ -19,6 +21,16 @@ import io.apicurio.umg.models.concept.VisitorModel;
  */
 public class CreateAllNodeVisitorStage extends AbstractVisitorStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES, StageResource.JAVA_ENTITY_INTERFACES, StageResource.JAVA_VISITORS);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_VISITOR_ADAPTERS);
+    }
+
     @Override
     protected void doProcess() {
         // Create a combined visitor for the root
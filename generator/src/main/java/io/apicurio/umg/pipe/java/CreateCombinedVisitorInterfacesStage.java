@@ -1,11 +1,13 @@
 package io.apicurio.umg.pipe.java;
 
+import java.util.EnumSet;
 import java.util.Set;
 
 import org.jboss.forge.roaster.Roaster;
 import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
 
 import io.apicurio.umg.models.concept.VisitorModel;
+import io.apicurio.umg.pipe.StageResource;
 
 /**
  * Creates combined visitor interfaces.  We create a combined visitor interface for the following:
@@ -18,6 +20,16 @@ import io.apicurio.umg.models.concept.VisitorModel;
  */
 public class CreateCombinedVisitorInterfacesStage extends AbstractVisitorStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_VISITORS);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_VISITORS);
+    }
+
     @Override
     protected void doProcess() {
         // Create a combined visitor for each specification
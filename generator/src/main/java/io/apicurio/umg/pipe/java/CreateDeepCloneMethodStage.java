@@ -0,0 +1,129 @@
+package io.apicurio.umg.pipe.java;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.jboss.forge.roaster.model.source.FieldSource;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+
+import io.apicurio.umg.models.concept.EntityModel;
+import io.apicurio.umg.models.concept.PropertyModel;
+import io.apicurio.umg.models.concept.PropertyModelWithOrigin;
+import io.apicurio.umg.pipe.StageResource;
+import io.apicurio.umg.pipe.java.method.BodyBuilder;
+
+/**
+ * Creates the "deepClone" method for all entity implementations.  The clone is created field by
+ * field (rather than by writing the node to JSON and reading it back): primitive fields (and
+ * their presence bits) are copied as they are, child entities are cloned recursively and
+ * re-parented to the clone, and all other values (lists, maps, JSON nodes, union values) are
+ * copied so that the clone does not share any mutable state with the original.
+ */
+public class CreateDeepCloneMethodStage extends AbstractJavaStage {
+
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_ENTITY_IMPLEMENTATIONS);
+    }
+
+    @Override
+    protected void doProcess() {
+        getState().getConceptIndex().findEntities("").stream().filter(entity -> entity.isLeaf()).forEach(entity -> {
+            createDeepCloneMethod(entity);
+        });
+    }
+
+    private void createDeepCloneMethod(EntityModel entity) {
+        JavaClassSource javaEntity = lookupJavaEntityImpl(entity);
+        createDeepCloneMethod(entity, javaEntity);
+    }
+
+    /**
+     * Creates the "deepClone" method, needed by the Node interface that all nodes must
+     * implement.
+     * @param entity
+     * @param javaEntity
+     */
+    private void createDeepCloneMethod(EntityModel entity, JavaClassSource javaEntity) {
+        String nodeFQN = getNodeEntityInterfaceFQN();
+        JavaInterfaceSource nodeInterfaceSource = getState().getJavaIndex().lookupInterface(nodeFQN);
+
+        MethodSource<JavaClassSource> method = javaEntity.addMethod().setPublic().setName("deepClone").setReturnType(nodeInterfaceSource);
+        method.addAnnotation(Override.class);
+        javaEntity.addImport(nodeInterfaceSource);
+        javaEntity.addImport(getDataModelUtilFQCN());
+
+        BodyBuilder body = new BodyBuilder();
+        body.addContext("implClassName", javaEntity.getName());
+        if (isLazyReaders()) {
+            body.append("this._materialize();");
+        }
+        body.append("${implClassName} clone = new ${implClassName}();");
+        body.append("this._copyNodeDataTo(clone);");
+
+        // Primitive fields, including the presence fields.
+        for (FieldSource<JavaClassSource> field : javaEntity.getFields()) {
+            if (!field.isStatic() && field.getType().isPrimitive()) {
+                body.addContext("fieldName", field.getName());
+                body.append("clone.${fieldName} = this.${fieldName};");
+            }
+        }
+
+        Collection<PropertyModelWithOrigin> allProperties = getState().getConceptIndex().getAllEntityProperties(entity);
+        allProperties.forEach(property -> {
+            createFieldClone(javaEntity, property.getProperty(), body);
+        });
+
+        body.append("return clone;");
+        method.setBody(body.toString());
+    }
+
+    /**
+     * Adds the statement that copies the field of the given property (see CreateImplFieldsStage
+     * for the fields created for each property) to the clone.
+     * @param javaEntity
+     * @param property
+     * @param body
+     */
+    private void createFieldClone(JavaClassSource javaEntity, PropertyModel property, BodyBuilder body) {
+        String fieldName = getFieldName(property);
+        boolean isCollection = isStarProperty(property) || (isRegexProperty(property) && (isEntity(property) || isPrimitive(property)));
+        if (fieldName == null || !javaEntity.hasField(fieldName)) {
+            return;
+        }
+        body.addContext("fieldName", fieldName);
+
+        if (isCollection) {
+            if (isEntity(property)) {
+                body.append("clone.${fieldName} = DataModelUtil.cloneNodeMap(this.${fieldName}, clone);");
+            } else {
+                body.append("clone.${fieldName} = DataModelUtil.copyValue(this.${fieldName});");
+            }
+        } else if (isPrimitiveField(property)) {
+            // Already copied, along with the other primitive fields.
+        } else if (getPrimitiveCollectionFQN(property) != null) {
+            String primitiveCollectionFQN = getPrimitiveCollectionFQN(property);
+            body.addContext("collectionClassName", primitiveCollectionFQN.substring(primitiveCollectionFQN.lastIndexOf('.') + 1));
+            body.append("clone.${fieldName} = this.${fieldName} == null ? null : new ${collectionClassName}(this.${fieldName});");
+        } else if (isEntity(property)) {
+            body.append("clone.${fieldName} = DataModelUtil.cloneNode(this.${fieldName}, clone);");
+        } else if (isEntityList(property)) {
+            body.append("clone.${fieldName} = DataModelUtil.cloneNodeList(this.${fieldName}, clone);");
+        } else if (isEntityMap(property)) {
+            body.append("clone.${fieldName} = DataModelUtil.cloneNodeMap(this.${fieldName}, clone);");
+        } else if (isUnion(property)) {
+            body.append("clone.${fieldName} = DataModelUtil.cloneUnion(this.${fieldName}, clone);");
+        } else {
+            body.append("clone.${fieldName} = DataModelUtil.copyValue(this.${fieldName});");
+        }
+    }
+
+}
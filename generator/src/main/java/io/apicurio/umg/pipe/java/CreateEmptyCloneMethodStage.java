@@ -1,10 +1,14 @@
 package io.apicurio.umg.pipe.java;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.jboss.forge.roaster.model.source.JavaClassSource;
 import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
 import org.jboss.forge.roaster.model.source.MethodSource;
 
 import io.apicurio.umg.models.concept.EntityModel;
+import io.apicurio.umg.pipe.StageResource;
 import io.apicurio.umg.pipe.java.method.BodyBuilder;
 
 /**
@@ -15,6 +19,16 @@ import io.apicurio.umg.pipe.java.method.BodyBuilder;
  */
 public class CreateEmptyCloneMethodStage extends AbstractJavaStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_ENTITY_IMPLEMENTATIONS);
+    }
+
     @Override
     protected void doProcess() {
         getState().getConceptIndex().findEntities("").stream().filter(entity -> entity.isLeaf()).forEach(entity -> {
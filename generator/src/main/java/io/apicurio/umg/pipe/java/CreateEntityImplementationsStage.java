@@ -37,8 +37,9 @@ public class CreateEntityImplementationsStage extends AbstractJavaStage {
         entityClass.addInterface(entityInterface);
 
         if (entity.isRoot()) {
-            // Root entities must extends RootNodeImpl
-            JavaClassSource rootNodeImpl = getState().getJavaIndex().lookupClass(getRootNodeEntityClassFQN());
+            // Root entities must extends RootNodeImpl (PersistentRootNodeImpl when persistent updates are enabled)
+            String rootNodeImplFQN = getState().getConfig().isPersistentUpdates() ? getPersistentRootNodeEntityClassFQN() : getRootNodeEntityClassFQN();
+            JavaClassSource rootNodeImpl = getState().getJavaIndex().lookupClass(rootNodeImplFQN);
             entityClass.addImport(rootNodeImpl);
             entityClass.extendSuperType(rootNodeImpl);
 
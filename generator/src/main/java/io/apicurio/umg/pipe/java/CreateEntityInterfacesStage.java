@@ -30,9 +30,10 @@ public class CreateEntityInterfacesStage extends AbstractJavaStage {
 
         getState().getJavaIndex().index(entityInterface);
 
-        // If the entity is a root, it must extend the RootNode interface
+        // If the entity is a root, it must extend the RootNode interface (PersistentRootNode when
+        // persistent updates are enabled)
         if (entity.isRoot()) {
-            String rootNodeFQN = getRootNodeInterfaceFQN();
+            String rootNodeFQN = getState().getConfig().isPersistentUpdates() ? getPersistentRootNodeInterfaceFQN() : getRootNodeInterfaceFQN();
             JavaInterfaceSource rootNodeInterfaceSource = getState().getJavaIndex().lookupInterface(rootNodeFQN);
             entityInterface.addImport(rootNodeInterfaceSource);
             entityInterface.addInterface(rootNodeInterfaceSource);
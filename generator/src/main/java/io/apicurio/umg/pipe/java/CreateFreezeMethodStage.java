@@ -0,0 +1,98 @@
+package io.apicurio.umg.pipe.java;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+
+import io.apicurio.umg.models.concept.EntityModel;
+import io.apicurio.umg.models.concept.PropertyModel;
+import io.apicurio.umg.models.concept.PropertyModelWithOrigin;
+import io.apicurio.umg.pipe.StageResource;
+import io.apicurio.umg.pipe.java.method.BodyBuilder;
+
+/**
+ * Creates the "_freezeFields" method for all entity implementations (see RootNode.freeze).  It
+ * replaces every list and map held by the entity with an unmodifiable copy (trimmed to its size),
+ * freezes the primitive collections and union values, and freezes all child entities.
+ */
+public class CreateFreezeMethodStage extends AbstractJavaStage {
+
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_ENTITY_IMPLEMENTATIONS);
+    }
+
+    @Override
+    protected void doProcess() {
+        getState().getConceptIndex().findEntities("").stream().filter(entity -> entity.isLeaf()).forEach(entity -> {
+            createFreezeMethod(entity);
+        });
+    }
+
+    private void createFreezeMethod(EntityModel entity) {
+        JavaClassSource javaEntity = lookupJavaEntityImpl(entity);
+
+        BodyBuilder body = new BodyBuilder();
+        Collection<PropertyModelWithOrigin> allProperties = getState().getConceptIndex().getAllEntityProperties(entity);
+        allProperties.forEach(property -> {
+            createFieldFreeze(javaEntity, property.getProperty(), body);
+        });
+        if (body.toString().isEmpty()) {
+            return;
+        }
+
+        MethodSource<JavaClassSource> method = javaEntity.addMethod().setProtected().setName("_freezeFields").setReturnTypeVoid();
+        method.addAnnotation(Override.class);
+        javaEntity.addImport(getDataModelUtilFQCN());
+        method.setBody(body.toString());
+    }
+
+    /**
+     * Adds the statement that freezes the field of the given property (see CreateImplFieldsStage
+     * for the fields created for each property).  Primitive fields need nothing.
+     * @param javaEntity
+     * @param property
+     * @param body
+     */
+    private void createFieldFreeze(JavaClassSource javaEntity, PropertyModel property, BodyBuilder body) {
+        String fieldName = getFieldName(property);
+        boolean isCollection = isStarProperty(property) || (isRegexProperty(property) && (isEntity(property) || isPrimitive(property)));
+        if (fieldName == null || !javaEntity.hasField(fieldName)) {
+            return;
+        }
+        body.addContext("fieldName", fieldName);
+
+        if (isCollection) {
+            if (isEntity(property)) {
+                body.append("this.${fieldName} = DataModelUtil.freezeNodeMap(this.${fieldName});");
+            } else {
+                body.append("this.${fieldName} = DataModelUtil.freezeValue(this.${fieldName});");
+            }
+        } else if (isPrimitiveField(property)) {
+            // Nothing to freeze.
+        } else if (getPrimitiveCollectionFQN(property) != null) {
+            body.append("if (this.${fieldName} != null) {");
+            body.append("    this.${fieldName}.freeze();");
+            body.append("}");
+        } else if (isEntity(property)) {
+            body.append("DataModelUtil.freezeNode(this.${fieldName});");
+        } else if (isEntityList(property)) {
+            body.append("this.${fieldName} = DataModelUtil.freezeNodeList(this.${fieldName});");
+        } else if (isEntityMap(property)) {
+            body.append("this.${fieldName} = DataModelUtil.freezeNodeMap(this.${fieldName});");
+        } else if (isUnion(property)) {
+            body.append("DataModelUtil.freezeUnion(this.${fieldName});");
+        } else if (property.getType().isList() || property.getType().isMap()) {
+            body.append("this.${fieldName} = DataModelUtil.freezeValue(this.${fieldName});");
+        }
+    }
+
+}
@@ -2,7 +2,6 @@ package io.apicurio.umg.pipe.java;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.LinkedHashMap;
 
 import org.jboss.forge.roaster.model.source.FieldSource;
 import org.jboss.forge.roaster.model.source.JavaClassSource;
@@ -34,6 +33,20 @@ public class CreateImplFieldsStage extends AbstractJavaStage {
         allProperties.forEach(property -> {
             createEntityImplField(javaEntityImpl, property);
         });
+        createPresenceFields(javaEntityImpl);
+    }
+
+    /**
+     * When primitive fields are enabled, boolean and integer properties are stored in primitive
+     * fields, which can't be null.  Whether each of them is set is tracked by a bit in one of
+     * the "presence" fields (one int for every 32 primitive fields).
+     * @param javaEntityImpl
+     */
+    private void createPresenceFields(JavaClassSource javaEntityImpl) {
+        int primitiveFields = (int) javaEntityImpl.getFields().stream().filter(field -> field.getType().isPrimitive()).count();
+        for (int bit = 0; bit < primitiveFields; bit += 32) {
+            javaEntityImpl.addField().setPrivate().setType("int").setName(getPresenceFieldName(bit));
+        }
     }
 
     private void createEntityImplField(JavaClassSource javaEntityImpl, PropertyModelWithOrigin propertyWithOrigin) {
@@ -67,7 +80,13 @@ public class CreateImplFieldsStage extends AbstractJavaStage {
             return;
         }
 
-        if (isUnion(property)) {
+        String primitiveCollectionFQN = isStarProperty ? null : getPrimitiveCollectionFQN(property);
+        if (!isStarProperty && isPrimitiveField(property)) {
+            fieldType = getPrimitiveFieldType(property);
+        } else if (primitiveCollectionFQN != null) {
+            javaEntityImpl.addImport(primitiveCollectionFQN);
+            fieldType = primitiveCollectionFQN.substring(primitiveCollectionFQN.lastIndexOf('.') + 1);
+        } else if (isUnion(property)) {
             UnionPropertyType upt = new UnionPropertyType(property.getType());
             upt.addImportsTo(javaEntityImpl);
             fieldType = upt.getName();
@@ -79,8 +98,8 @@ public class CreateImplFieldsStage extends AbstractJavaStage {
 
         FieldSource<JavaClassSource> field = javaEntityImpl.addField().setPrivate().setType(fieldType).setName(fieldName);
         if (isStarProperty) {
-            javaEntityImpl.addImport(LinkedHashMap.class);
-            field.setLiteralInitializer("new LinkedHashMap<>()");
+            javaEntityImpl.addImport(getIndexedOrderedMapFQCN());
+            field.setLiteralInitializer("new IndexedOrderedMap<>()");
         }
     }
 }
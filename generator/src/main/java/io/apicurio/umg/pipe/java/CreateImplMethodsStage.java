@@ -2,9 +2,10 @@ package io.apicurio.umg.pipe.java;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import org.jboss.forge.roaster.model.source.JavaClassSource;
 import org.jboss.forge.roaster.model.source.JavaEnumSource;
@@ -97,7 +98,7 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
             method.addAnnotation(Override.class);
             method.addParameter("String", "name");
             method.setReturnType(mappedNodeType);
-            BodyBuilder body = new BodyBuilder();
+            BodyBuilder body = accessorBody();
             body.append("return this._items.get(name);");
             method.setBody(body.toString());
         }
@@ -107,7 +108,7 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
             MethodSource<?> method = ((MethodHolderSource<?>) javaEntity).addMethod().setName("getItems").setPublic();
             method.addAnnotation(Override.class);
             method.setReturnType("List<" + mappedNodeType + ">");
-            BodyBuilder body = new BodyBuilder();
+            BodyBuilder body = accessorBody();
             body.addContext("itemType", mappedNodeType);
             body.append("List<${itemType}> rval = new ArrayList<>();");
             body.append("rval.addAll(this._items.values());");
@@ -120,7 +121,7 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
             MethodSource<?> method = ((MethodHolderSource<?>) javaEntity).addMethod().setName("getItemNames").setPublic();
             method.addAnnotation(Override.class);
             method.setReturnType("List<String>");
-            BodyBuilder body = new BodyBuilder();
+            BodyBuilder body = accessorBody();
             body.addContext("itemType", mappedNodeType);
             body.append("List<String> rval = new ArrayList<>();");
             body.append("rval.addAll(this._items.keySet());");
@@ -128,13 +129,46 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
             method.setBody(body.toString());
         }
 
+        // int getItemCount()
+        {
+            MethodSource<?> method = ((MethodHolderSource<?>) javaEntity).addMethod().setName("getItemCount").setPublic();
+            method.addAnnotation(Override.class);
+            method.setReturnType("int");
+            BodyBuilder body = accessorBody();
+            body.append("return this._items.size();");
+            method.setBody(body.toString());
+        }
+
+        // Map<String, T> getItemsView()
+        {
+            javaEntity.addImport(Map.class);
+            javaEntity.addImport(Collections.class);
+            MethodSource<?> method = ((MethodHolderSource<?>) javaEntity).addMethod().setName("getItemsView").setPublic();
+            method.addAnnotation(Override.class);
+            method.setReturnType("Map<String, " + mappedNodeType + ">");
+            BodyBuilder body = accessorBody();
+            body.append("return Collections.unmodifiableMap(this._items);");
+            method.setBody(body.toString());
+        }
+
+        // void forEachItem(BiConsumer<String, ? super T> consumer)
+        {
+            javaEntity.addImport(BiConsumer.class);
+            MethodSource<?> method = ((MethodHolderSource<?>) javaEntity).addMethod().setName("forEachItem").setPublic().setReturnTypeVoid();
+            method.addAnnotation(Override.class);
+            method.addParameter("BiConsumer<String, ? super " + mappedNodeType + ">", "consumer");
+            BodyBuilder body = accessorBody();
+            body.append("this._items.forEach(consumer);");
+            method.setBody(body.toString());
+        }
+
         // void addItem(String name, T item)
         {
             MethodSource<?> method = ((MethodHolderSource<?>) javaEntity).addMethod().setName("addItem").setPublic().setReturnTypeVoid();
             method.addAnnotation(Override.class);
             method.addParameter("String", "name");
             method.addParameter(mappedNodeType, "item");
-            BodyBuilder body = new BodyBuilder();
+            BodyBuilder body = mutatorBody();
             body.append("this._items.put(name, item);");
             if (isEntity(property)) {
                 JavaEnumSource parentPropertyTypeSource = getState().getJavaIndex().lookupEnum(getParentPropertyTypeEnumFQN());
@@ -162,8 +196,9 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
             JavaClassSource dataModelUtilSource = getState().getJavaIndex().lookupClass(getDataModelUtilFQCN());
             javaEntity.addImport(dataModelUtilSource);
 
-            BodyBuilder body = new BodyBuilder();
-            body.append("this._items = DataModelUtil.insertMapEntry(this._items, name, item, atIndex);");
+            BodyBuilder body = mutatorBody();
+            // The items are an IndexedOrderedMap, which is updated in place (so views of the items stay live).
+            body.append("DataModelUtil.insertMapEntry(this._items, name, item, atIndex);");
             if (isEntity(property)) {
                 JavaEnumSource parentPropertyTypeSource = getState().getJavaIndex().lookupEnum(getParentPropertyTypeEnumFQN());
                 javaEntity.addImport(parentPropertyTypeSource);
@@ -179,13 +214,30 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
             method.setBody(body.toString());
         }
 
+        // void insertItems(Map<String, ? extends T> items, int atIndex)
+        {
+            MethodSource<?> method = ((MethodHolderSource<?>) javaEntity).addMethod().setName("insertItems").setPublic().setReturnTypeVoid();
+            method.addAnnotation(Override.class);
+            method.addParameter("Map<String, ? extends " + mappedNodeType + ">", "items");
+            method.addParameter("int", "atIndex");
+            BodyBuilder body = mutatorBody();
+            body.addContext("itemType", mappedNodeType);
+            body.append("int index = Math.max(atIndex, 0);");
+            body.append("for (Map.Entry<String, ? extends ${itemType}> entry : items.entrySet()) {");
+            body.append("    if (!this._items.containsKey(entry.getKey())) {");
+            body.append("        this.insertItem(entry.getKey(), entry.getValue(), index++);");
+            body.append("    }");
+            body.append("}");
+            method.setBody(body.toString());
+        }
+
         // T removeItem(String name)
         {
             MethodSource<?> method = ((MethodHolderSource<?>) javaEntity).addMethod().setName("removeItem").setPublic();
             method.addAnnotation(Override.class);
             method.addParameter("String", "name");
             method.setReturnType(mappedNodeType);
-            BodyBuilder body = new BodyBuilder();
+            BodyBuilder body = mutatorBody();
             body.append("return this._items.remove(name);");
             method.setBody(body.toString());
         }
@@ -195,7 +247,7 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
             MethodSource<?> method = ((MethodHolderSource<?>) javaEntity).addMethod().setName("clearItems").setPublic();
             method.addAnnotation(Override.class);
             method.setReturnTypeVoid();
-            BodyBuilder body = new BodyBuilder();
+            BodyBuilder body = mutatorBody();
             body.append("this._items.clear();");
             method.setBody(body.toString());
         }
@@ -204,8 +256,14 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
     @Override
     protected void createGetterBody(PropertyModel property, MethodSource<?> method) {
         String fieldName = getFieldName(property);
-        BodyBuilder body = new BodyBuilder();
+        BodyBuilder body = accessorBody();
         body.addContext("fieldName", fieldName);
+        if (isPrimitiveField(property)) {
+            addPresenceContext(body, (JavaClassSource) method.getOrigin(), fieldName);
+            body.append("if ((this.${presenceField} & ${presenceMask}) == 0) {");
+            body.append("    return null;");
+            body.append("}");
+        }
         body.append("return ${fieldName};");
         method.setBody(body.toString());
     }
@@ -215,10 +273,27 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
         String fieldName = getFieldName(property);
         String propertyName = property.getName();
 
-        BodyBuilder body = new BodyBuilder();
+        BodyBuilder body = mutatorBody();
         body.addContext("fieldName", fieldName);
         body.addContext("propertyName", propertyName);
-        body.append("this.${fieldName} = value;");
+        String primitiveCollectionFQN = getPrimitiveCollectionFQN(property);
+        if (isPrimitiveField(property)) {
+            addPresenceContext(body, (JavaClassSource) javaEntity, fieldName);
+            body.addContext("defaultValue", "boolean".equals(getPrimitiveFieldType(property)) ? "false" : "0");
+            body.append("if (value == null) {");
+            body.append("    this.${presenceField} &= ~${presenceMask};");
+            body.append("    this.${fieldName} = ${defaultValue};");
+            body.append("} else {");
+            body.append("    this.${presenceField} |= ${presenceMask};");
+            body.append("    this.${fieldName} = value;");
+            body.append("}");
+        } else if (primitiveCollectionFQN != null) {
+            javaEntity.addImport(primitiveCollectionFQN);
+            body.addContext("collectionClass", primitiveCollectionFQN.substring(primitiveCollectionFQN.lastIndexOf('.') + 1));
+            body.append("this.${fieldName} = ${collectionClass}.copyOf(value);");
+        } else {
+            body.append("this.${fieldName} = value;");
+        }
         if (isEntity(property)) {
             JavaEnumSource parentPropertyTypeSource = getState().getJavaIndex().lookupEnum(getParentPropertyTypeEnumFQN());
             javaEntity.addImport(parentPropertyTypeSource);
@@ -297,16 +372,16 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
         String fieldName = getFieldName(property);
         String propertyName = property.getName();
 
-        BodyBuilder body = new BodyBuilder();
+        BodyBuilder body = mutatorBody();
         body.addContext("fieldName", fieldName);
         body.addContext("propertyName", propertyName);
 
         if (type.isEntityType() || type.isPrimitiveType()) {
             if (property.getType().isMap()) {
-                javaEntity.addImport(LinkedHashMap.class);
+                addCollectionContext(javaEntity, property, body, getIndexedOrderedMapFQCN());
 
                 body.append("if (this.${fieldName} == null) {");
-                body.append("    this.${fieldName} = new LinkedHashMap<>();");
+                body.append("    this.${fieldName} = new ${collectionClass}();");
                 body.append("}");
                 body.append("this.${fieldName}.put(name, value);");
                 if (type.isEntityType()) {
@@ -322,10 +397,10 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
                     body.append("}");
                 }
             } else {
-                javaEntity.addImport(ArrayList.class);
+                addCollectionContext(javaEntity, property, body, ArrayList.class);
 
                 body.append("if (this.${fieldName} == null) {");
-                body.append("    this.${fieldName} = new ArrayList<>();");
+                body.append("    this.${fieldName} = new ${collectionClass}();");
                 body.append("}");
                 body.append("this.${fieldName}.add(value);");
                 if (type.isEntityType()) {
@@ -348,7 +423,7 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
     @Override
     protected void createClearMethodBody(PropertyModel property, MethodSource<?> method) {
         String fieldName = getFieldName(property);
-        BodyBuilder body = new BodyBuilder();
+        BodyBuilder body = mutatorBody();
         body.addContext("fieldName", fieldName);
         body.append("if (this.${fieldName} != null) {");
         body.append("    this.${fieldName}.clear();");
@@ -359,7 +434,7 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
     @Override
     protected void createRemoveMethodBody(PropertyModel property, MethodSource<?> method) {
         String fieldName = getFieldName(property);
-        BodyBuilder body = new BodyBuilder();
+        BodyBuilder body = mutatorBody();
         body.addContext("fieldName", fieldName);
 
         body.append("if (this.${fieldName} != null) {");
@@ -379,21 +454,28 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
         String fieldName = getFieldName(property);
         String propertyName = property.getName();
 
-        BodyBuilder body = new BodyBuilder();
+        BodyBuilder body = mutatorBody();
         body.addContext("fieldName", fieldName);
         body.addContext("propertyName", propertyName);
 
         if (type.isEntityType() || type.isPrimitiveType()) {
             if (property.getType().isMap()) {
-                JavaClassSource dataModelUtilSource = getState().getJavaIndex().lookupClass(getDataModelUtilFQCN());
-                javaEntity.addImport(dataModelUtilSource);
-                javaEntity.addImport(LinkedHashMap.class);
+                boolean primitiveCollection = getPrimitiveCollectionFQN(property) != null;
+                if (!primitiveCollection) {
+                    JavaClassSource dataModelUtilSource = getState().getJavaIndex().lookupClass(getDataModelUtilFQCN());
+                    javaEntity.addImport(dataModelUtilSource);
+                }
+                addCollectionContext(javaEntity, property, body, getIndexedOrderedMapFQCN());
 
                 body.append("if (this.${fieldName} == null) {");
-                body.append("    this.${fieldName} = new LinkedHashMap<>();");
+                body.append("    this.${fieldName} = new ${collectionClass}();");
                 body.append("    this.${fieldName}.put(name, value);");
                 body.append("} else {");
-                body.append("    this.${fieldName} = DataModelUtil.insertMapEntry(this.${fieldName}, name, value, atIndex);");
+                if (primitiveCollection) {
+                    body.append("    this.${fieldName}.insert(name, value, atIndex);");
+                } else {
+                    body.append("    this.${fieldName} = DataModelUtil.insertMapEntry(this.${fieldName}, name, value, atIndex);");
+                }
                 body.append("}");
 
                 if (type.isEntityType()) {
@@ -411,13 +493,17 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
             } else {
                 JavaClassSource dataModelUtilSource = getState().getJavaIndex().lookupClass(getDataModelUtilFQCN());
                 javaEntity.addImport(dataModelUtilSource);
-                javaEntity.addImport(ArrayList.class);
+                addCollectionContext(javaEntity, property, body, ArrayList.class);
 
                 body.append("if (this.${fieldName} == null) {");
-                body.append("    this.${fieldName} = new ArrayList<>();");
+                body.append("    this.${fieldName} = new ${collectionClass}();");
                 body.append("    this.${fieldName}.add(value);");
                 body.append("} else {");
-                body.append("    this.${fieldName} = DataModelUtil.insertListEntry(this.${fieldName}, value, atIndex);");
+                if (getPrimitiveCollectionFQN(property) != null) {
+                    body.append("    DataModelUtil.insertListEntry(this.${fieldName}, value, atIndex);");
+                } else {
+                    body.append("    this.${fieldName} = DataModelUtil.insertListEntry(this.${fieldName}, value, atIndex);");
+                }
                 body.append("}");
                 if (type.isEntityType()) {
                     JavaEnumSource parentPropertyTypeSource = getState().getJavaIndex().lookupEnum(getParentPropertyTypeEnumFQN());
@@ -436,6 +522,64 @@ public class CreateImplMethodsStage extends AbstractCreateMethodsStage {
         method.setBody(body.toString());
     }
 
+    /**
+     * Returns a new body for a method that accesses the properties of the entity, which starts by
+     * reading the node if it was read lazily (only when the generator is configured for lazy
+     * readers - see NodeImpl).
+     */
+    private BodyBuilder accessorBody() {
+        BodyBuilder body = new BodyBuilder();
+        if (isLazyReaders()) {
+            body.append("this._materialize();");
+        }
+        return body;
+    }
+
+    /**
+     * Returns a new body for a method that modifies the entity, which (after reading the node, see
+     * accessorBody) starts by checking that the node is not frozen (see RootNode.freeze).
+     */
+    private BodyBuilder mutatorBody() {
+        BodyBuilder body = accessorBody();
+        body.append("this._checkNotFrozen();");
+        return body;
+    }
+
+    /**
+     * Adds the name and mask of the presence bit of the given primitive field to the body context.
+     * @param body
+     * @param javaEntityImpl
+     * @param fieldName
+     */
+    private void addPresenceContext(BodyBuilder body, JavaClassSource javaEntityImpl, String fieldName) {
+        int bit = getPresenceBit(javaEntityImpl, fieldName);
+        body.addContext("presenceField", getPresenceFieldName(bit));
+        body.addContext("presenceMask", "(1 << " + (bit % 32) + ")");
+    }
+
+    /**
+     * Adds the class to instantiate for the given collection property to the body context: either
+     * the primitive-specialized collection (when primitive fields are enabled) or the given standard one.
+     * @param javaEntity
+     * @param property
+     * @param body
+     * @param standardCollectionFQN
+     */
+    private void addCollectionContext(JavaSource<?> javaEntity, PropertyModel property, BodyBuilder body, String standardCollectionFQN) {
+        String primitiveCollectionFQN = getPrimitiveCollectionFQN(property);
+        if (primitiveCollectionFQN != null) {
+            javaEntity.addImport(primitiveCollectionFQN);
+            body.addContext("collectionClass", primitiveCollectionFQN.substring(primitiveCollectionFQN.lastIndexOf('.') + 1));
+        } else {
+            javaEntity.addImport(standardCollectionFQN);
+            body.addContext("collectionClass", standardCollectionFQN.substring(standardCollectionFQN.lastIndexOf('.') + 1) + "<>");
+        }
+    }
+
+    private void addCollectionContext(JavaSource<?> javaEntity, PropertyModel property, BodyBuilder body, Class<?> standardCollection) {
+        addCollectionContext(javaEntity, property, body, standardCollection.getName());
+    }
+
     @Override
     protected void addAnnotations(MethodSource<?> method) {
         method.addAnnotation(Override.class);
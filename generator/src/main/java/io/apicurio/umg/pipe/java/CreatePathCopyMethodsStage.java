@@ -0,0 +1,153 @@
+package io.apicurio.umg.pipe.java;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.jboss.forge.roaster.model.source.FieldSource;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+
+import io.apicurio.umg.models.concept.EntityModel;
+import io.apicurio.umg.models.concept.PropertyModel;
+import io.apicurio.umg.models.concept.PropertyModelWithOrigin;
+import io.apicurio.umg.pipe.StageResource;
+import io.apicurio.umg.pipe.java.method.BodyBuilder;
+
+/**
+ * Creates the "_pathCopy" and "_findChild" methods for all entity implementations, which are
+ * needed by persistent updates of a model (see PersistentRootNode.update).  Only done when the generator
+ * is configured with the "persistentUpdates" option.
+ */
+public class CreatePathCopyMethodsStage extends AbstractJavaStage {
+
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_ENTITY_IMPLEMENTATIONS);
+    }
+
+    @Override
+    protected void doProcess() {
+        if (!getState().getConfig().isPersistentUpdates()) {
+            return;
+        }
+        getState().getConceptIndex().findEntities("").stream().filter(entity -> entity.isLeaf()).forEach(entity -> {
+            JavaClassSource javaEntity = lookupJavaEntityImpl(entity);
+            List<PropertyModel> properties = getState().getConceptIndex().getAllEntityProperties(entity).stream()
+                    .map(PropertyModelWithOrigin::getProperty)
+                    .filter(property -> getFieldName(property) != null && javaEntity.hasField(getFieldName(property)))
+                    .collect(Collectors.toList());
+            createPathCopyMethod(javaEntity, properties);
+            createFindChildMethod(javaEntity, properties);
+        });
+    }
+
+    /**
+     * Creates the "_pathCopy" method.  It is similar to "deepClone", except that the child nodes
+     * are shared with the copy (but for the one being replaced) instead of being cloned, and
+     * that the collections are copied shallowly.
+     * @param javaEntity
+     * @param properties
+     */
+    private void createPathCopyMethod(JavaClassSource javaEntity, Collection<PropertyModel> properties) {
+        JavaInterfaceSource nodeInterfaceSource = getState().getJavaIndex().lookupInterface(getNodeEntityInterfaceFQN());
+        JavaClassSource nodeImplSource = getState().getJavaIndex().lookupClass(getNodeEntityClassFQN());
+
+        MethodSource<JavaClassSource> method = javaEntity.addMethod().setProtected().setName("_pathCopy").setReturnType(nodeImplSource);
+        method.addAnnotation(Override.class);
+        method.addParameter("int", "childKey");
+        method.addParameter(nodeInterfaceSource.getName(), "newChild");
+        javaEntity.addImport(nodeInterfaceSource);
+        javaEntity.addImport(nodeImplSource);
+        javaEntity.addImport(getDataModelUtilFQCN());
+
+        BodyBuilder body = new BodyBuilder();
+        body.addContext("implClassName", javaEntity.getName());
+        body.append("${implClassName} copy = new ${implClassName}();");
+        body.append("this._copyNodeDataToPathCopy(copy);");
+
+        // Primitive fields, including the presence fields.
+        for (FieldSource<JavaClassSource> field : javaEntity.getFields()) {
+            if (!field.isStatic() && field.getType().isPrimitive()) {
+                body.addContext("fieldName", field.getName());
+                body.append("copy.${fieldName} = this.${fieldName};");
+            }
+        }
+
+        for (PropertyModel property : properties) {
+            body.addContext("fieldName", getFieldName(property));
+            if (isMappedProperty(property)) {
+                if (isEntity(property)) {
+                    body.append("copy.${fieldName} = DataModelUtil.pathCopyNodeMap(this.${fieldName}, childKey, newChild, copy);");
+                } else {
+                    body.append("copy.${fieldName} = DataModelUtil.thawValue(this.${fieldName});");
+                }
+            } else if (isPrimitiveField(property)) {
+                // Already copied, along with the other primitive fields.
+            } else if (getPrimitiveCollectionFQN(property) != null) {
+                String primitiveCollectionFQN = getPrimitiveCollectionFQN(property);
+                body.addContext("collectionClassName", primitiveCollectionFQN.substring(primitiveCollectionFQN.lastIndexOf('.') + 1));
+                body.append("copy.${fieldName} = this.${fieldName} == null ? null : new ${collectionClassName}(this.${fieldName});");
+            } else if (isEntity(property)) {
+                body.append("copy.${fieldName} = DataModelUtil.pathCopyNode(this.${fieldName}, childKey, newChild, copy);");
+            } else if (isEntityList(property)) {
+                body.append("copy.${fieldName} = DataModelUtil.pathCopyNodeList(this.${fieldName}, childKey, newChild, copy);");
+            } else if (isEntityMap(property)) {
+                body.append("copy.${fieldName} = DataModelUtil.pathCopyNodeMap(this.${fieldName}, childKey, newChild, copy);");
+            } else if (isUnion(property)) {
+                body.append("copy.${fieldName} = DataModelUtil.pathCopyUnion(this.${fieldName}, childKey, newChild, copy);");
+            } else {
+                body.append("copy.${fieldName} = DataModelUtil.thawValue(this.${fieldName});");
+            }
+        }
+
+        body.append("return copy;");
+        method.setBody(body.toString());
+    }
+
+    /**
+     * Creates the "_findChild" method, which looks for the child among the fields that can hold
+     * nodes (entities, lists and maps of entities, and unions).
+     * @param javaEntity
+     * @param properties
+     */
+    private void createFindChildMethod(JavaClassSource javaEntity, Collection<PropertyModel> properties) {
+        JavaInterfaceSource nodeInterfaceSource = getState().getJavaIndex().lookupInterface(getNodeEntityInterfaceFQN());
+
+        MethodSource<JavaClassSource> method = javaEntity.addMethod().setProtected().setName("_findChild").setReturnType(nodeInterfaceSource);
+        method.addAnnotation(Override.class);
+        method.addParameter("int", "childKey");
+
+        String childFields = properties.stream()
+                .filter(property -> isEntity(property) || isEntityList(property) || isEntityMap(property) || isUnion(property))
+                .map(property -> "this." + getFieldName(property))
+                .collect(Collectors.joining(", "));
+
+        BodyBuilder body = new BodyBuilder();
+        if (childFields.isEmpty()) {
+            body.append("return null;");
+        } else {
+            body.addContext("childFields", childFields);
+            body.append("return DataModelUtil.findChild(childKey, ${childFields});");
+        }
+        method.setBody(body.toString());
+    }
+
+    /**
+     * Returns true if the given property is stored as a map of items (a star property, or a regex
+     * property of entities or primitives - see CreateImplFieldsStage).
+     * @param property
+     */
+    private boolean isMappedProperty(PropertyModel property) {
+        return isStarProperty(property) || (isRegexProperty(property) && (isEntity(property) || isPrimitive(property)));
+    }
+
+}
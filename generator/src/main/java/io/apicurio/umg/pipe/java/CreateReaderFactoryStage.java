@@ -1,5 +1,8 @@
 package io.apicurio.umg.pipe.java;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.jboss.forge.roaster.Roaster;
 import org.jboss.forge.roaster.model.source.JavaClassSource;
 import org.jboss.forge.roaster.model.source.JavaEnumSource;
@@ -8,6 +11,7 @@ import org.jboss.forge.roaster.model.source.MethodSource;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import io.apicurio.umg.pipe.StageResource;
 import io.apicurio.umg.pipe.java.method.BodyBuilder;
 
 /**
@@ -18,6 +22,16 @@ import io.apicurio.umg.pipe.java.method.BodyBuilder;
  */
 public class CreateReaderFactoryStage extends AbstractJavaStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES, StageResource.JAVA_READERS, StageResource.JAVA_STREAMING_READERS, StageResource.JAVA_READER_DISPATCHERS);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_READER_FACTORY);
+    }
+
     @Override
     protected void doProcess() {
         String readerFactoryPackageName = getState().getConfig().getRootNamespace() + ".io";
@@ -31,6 +45,9 @@ public class CreateReaderFactoryStage extends AbstractJavaStage {
 
         createReaderFactoryMethod(readerClassSource);
         createReaderDispatcherFactoryMethod(readerClassSource);
+        if (getState().getConfig().isGenerateStreamingReaders()) {
+            createStreamingReaderFactoryMethod(readerClassSource);
+        }
 
         getState().getJavaIndex().index(readerClassSource);
     }
@@ -46,6 +63,19 @@ public class CreateReaderFactoryStage extends AbstractJavaStage {
         factoryMethodSource.setReturnType(modelReaderSource);
         factoryMethodSource.addParameter(modelTypeSource.getName(), "modelType");
 
+        // Same, with lazy reading (see the readers), when enabled
+        if (isLazyReaders()) {
+            factoryMethodSource.setBody("return createModelReader(modelType, false);");
+
+            factoryMethodSource = readerClassSource.addMethod()
+                    .setName("createModelReader").setPublic().setStatic(true);
+            factoryMethodSource.setReturnType(modelReaderSource);
+            factoryMethodSource.addParameter(modelTypeSource.getName(), "modelType");
+            factoryMethodSource.addParameter("boolean", "lazy");
+            factoryMethodSource.getJavaDoc().setText("Creates a reader that reads each node (lazily) when it is first accessed, if lazy is true. "
+                    + "A lazily read model must only be used by one thread at a time (even to read it) until it is frozen.");
+        }
+
         BodyBuilder body = new BodyBuilder();
         body.append("ModelReader reader = null;");
         body.append("switch (modelType) {");
@@ -58,6 +88,38 @@ public class CreateReaderFactoryStage extends AbstractJavaStage {
             body.addContext("modelTypeValue", modelTypeValue);
             body.addContext("modelReaderClassName", specModelReaderSource.getName());
 
+            body.append("    case ${modelTypeValue}:");
+            body.append(isLazyReaders() ? "        reader = new ${modelReaderClassName}(lazy);" : "        reader = new ${modelReaderClassName}();");
+            body.append("        break;");
+        });
+        body.append("}");
+        body.append("return reader;");
+        factoryMethodSource.setBody(body.toString());
+    }
+
+    private void createStreamingReaderFactoryMethod(JavaClassSource readerClassSource) {
+        JavaEnumSource modelTypeSource = getState().getJavaIndex().lookupEnum(getModelTypeEnumFQN());
+        readerClassSource.addImport(modelTypeSource);
+        JavaInterfaceSource modelReaderSource = getState().getJavaIndex().lookupInterface(getStreamingModelReaderInterfaceFQN());
+        readerClassSource.addImport(modelReaderSource);
+
+        MethodSource<JavaClassSource> factoryMethodSource = readerClassSource.addMethod()
+                .setName("createStreamingModelReader").setPublic().setStatic(true);
+        factoryMethodSource.setReturnType(modelReaderSource);
+        factoryMethodSource.addParameter(modelTypeSource.getName(), "modelType");
+
+        BodyBuilder body = new BodyBuilder();
+        body.append("StreamingModelReader reader = null;");
+        body.append("switch (modelType) {");
+        getState().getSpecIndex().getAllSpecificationVersions().forEach(specVersion -> {
+            String specModelReaderFQN = getReaderPackageName(specVersion) + "." + getStreamingReaderClassName(specVersion);
+            JavaClassSource specModelReaderSource = getState().getJavaIndex().lookupClass(specModelReaderFQN);
+            readerClassSource.addImport(specModelReaderSource);
+
+            String modelTypeValue = prefixToModelType(specVersion.getPrefix());
+            body.addContext("modelTypeValue", modelTypeValue);
+            body.addContext("modelReaderClassName", specModelReaderSource.getName());
+
             body.append("    case ${modelTypeValue}:");
             body.append("        reader = new ${modelReaderClassName}();");
             body.append("        break;");
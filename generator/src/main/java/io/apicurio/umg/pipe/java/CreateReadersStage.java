@@ -2,10 +2,11 @@ package io.apicurio.umg.pipe.java;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Set;
 
 import org.jboss.forge.roaster.Roaster;
 import org.jboss.forge.roaster.model.source.JavaClassSource;
@@ -16,13 +17,11 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import io.apicurio.umg.beans.SpecificationVersion;
-import io.apicurio.umg.beans.UnionRule;
-import io.apicurio.umg.beans.UnionRuleType;
 import io.apicurio.umg.models.concept.EntityModel;
-import io.apicurio.umg.models.concept.NamespaceModel;
 import io.apicurio.umg.models.concept.PropertyModel;
 import io.apicurio.umg.models.concept.PropertyModelWithOrigin;
 import io.apicurio.umg.models.concept.PropertyType;
+import io.apicurio.umg.pipe.StageResource;
 import io.apicurio.umg.pipe.java.method.BodyBuilder;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -31,9 +30,34 @@ import lombok.Data;
  * Creates the i/o reader classes.  There is a bespoke reader for each specification
  * version.
  *
+ * By default the readers remove every property they read from the input JSON object, and
+ * whatever is left over becomes the extra properties of the node.  When non-destructive
+ * readers are enabled in the generator config, the readers instead track the names of the
+ * properties they have read (per JSON object) and leave the input untouched.
+ *
+ * Star and regex properties are read together: the remaining fields of the JSON object are
+ * visited once, and each one is routed to the first (in property order) of those properties
+ * that matches it.  The regular expressions are compiled once, into static fields of the reader.
+ *
+ * When lazy readers are enabled in the generator config, a reader can also be created in lazy
+ * mode, in which it does not read the entities right away: each node keeps the JSON object it is
+ * to be read from (see NodeImpl), and is read the first time it is accessed.  The JSON must then
+ * not be modified until the nodes have been read, and as accessing a node can modify it, a lazily
+ * read model must only be used by one thread at a time (even to read it) until it is frozen.
+ *
  * @author eric.wittmann@gmail.com
  */
-public class CreateReadersStage extends AbstractJavaStage {
+public class CreateReadersStage extends AbstractReaderStage {
+
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES, StageResource.JAVA_ENTITY_INTERFACES, StageResource.JAVA_ENTITY_IMPLEMENTATIONS);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_READERS);
+    }
 
     @Override
     protected void doProcess() {
@@ -59,6 +83,9 @@ public class CreateReadersStage extends AbstractJavaStage {
                 .setPublic();
         readerClassSource.addImport(getState().getConfig().getRootNamespace() + ".util." + "JsonUtil");
         readerClassSource.addImport(getState().getConfig().getRootNamespace() + ".util." + "ReaderUtil");
+        if (isNonDestructive()) {
+            readerClassSource.addImport(getState().getConfig().getRootNamespace() + ".util." + "ConsumedProperties");
+        }
 
         // Implements the ModelReader interface
         debug("Reader implements: " + getModelReaderInterfaceFQN());
@@ -66,6 +93,21 @@ public class CreateReadersStage extends AbstractJavaStage {
         readerClassSource.addImport(modelReaderInterfaceSource);
         readerClassSource.addInterface(modelReaderInterfaceSource);
 
+        // Lazy mode
+        if (isLazyReaders()) {
+            readerClassSource.addField().setName("lazy").setType("boolean").setPrivate().setFinal(true);
+            MethodSource<JavaClassSource> constructor = readerClassSource.addMethod().setConstructor(true).setPublic();
+            constructor.setBody("this(false);");
+            constructor = readerClassSource.addMethod().setConstructor(true).setPublic();
+            constructor.addParameter("boolean", "lazy");
+            constructor.setBody("this.lazy = lazy;");
+            constructor.getJavaDoc().setText("Creates a reader that reads each node (lazily) when it is first accessed, if lazy is true. "
+                    + "A lazily read model must only be used by one thread at a time (even to read it) until it is frozen.");
+        }
+
+        // Regular expressions (for regex properties) are compiled once, and shared by all methods.
+        Map<String, String> patternFields = new LinkedHashMap<>();
+
         // Create the readXYZ methods - one for each entity
         debug("Creating readXYZ methods...");
         specVersion.getEntities().forEach(entity -> {
@@ -73,7 +115,7 @@ public class CreateReadersStage extends AbstractJavaStage {
             if (entityModel == null) {
                 warn("Entity model not found for entity: " + entity);
             } else {
-                createReadMethodFor(specVersion, readerClassSource, entityModel);
+                createReadMethodFor(specVersion, readerClassSource, entityModel, patternFields);
 
                 // There should be a single root entity in the spec.
                 if (entityModel.isRoot()) {
@@ -82,6 +124,8 @@ public class CreateReadersStage extends AbstractJavaStage {
             }
         });
 
+        addPatternFields(readerClassSource, patternFields);
+
         getState().getJavaIndex().index(readerClassSource);
     }
 
@@ -127,8 +171,10 @@ public class CreateReadersStage extends AbstractJavaStage {
      * @param specVersion
      * @param readerClassSource
      * @param entityModel
+     * @param patternFields
      */
-    private void createReadMethodFor(SpecificationVersion specVersion, JavaClassSource readerClassSource, EntityModel entityModel) {
+    private void createReadMethodFor(SpecificationVersion specVersion, JavaClassSource readerClassSource, EntityModel entityModel,
+            Map<String, String> patternFields) {
         String entityFQN = getJavaEntityInterfaceFQN(entityModel);
         String readMethodName = readMethodName(entityModel);
 
@@ -150,11 +196,27 @@ public class CreateReadersStage extends AbstractJavaStage {
 
         // Now create the body content for the reader.
         BodyBuilder body = new BodyBuilder();
-        // Read each property of the entity
+        body.addContext("readMethodName", readMethodName);
+        if (isLazyReaders()) {
+            body.append("if (this.lazy && ReaderUtil.deferRead(json, node, this::${readMethodName})) {");
+            body.append("    return;");
+            body.append("}");
+        }
+        if (isNonDestructive()) {
+            body.append("ConsumedProperties consumed = new ConsumedProperties();");
+        }
+        // Read each property of the entity.  Consecutive star/regex properties are read together.
         Collection<PropertyModelWithOrigin> allProperties = getState().getConceptIndex().getAllEntityProperties(entityModel);
+        List<PropertyModelWithOrigin> dynamicProperties = new ArrayList<>();
         allProperties.forEach(property -> {
-            createReadPropertyCode(body, property, entityModel, javaEntity, readerClassSource);
+            if (isStarProperty(property.getProperty()) || isRegexProperty(property.getProperty())) {
+                dynamicProperties.add(property);
+            } else {
+                createReadDynamicPropertiesCode(body, dynamicProperties, entityModel, javaEntity, readerClassSource, patternFields);
+                createReadPropertyCode(body, property, entityModel, javaEntity, readerClassSource, patternFields);
+            }
         });
+        createReadDynamicPropertiesCode(body, dynamicProperties, entityModel, javaEntity, readerClassSource, patternFields);
         // Read "extra" properties (whatever is left over)
         createReadExtraPropertiesCode(body);
 
@@ -169,21 +231,64 @@ public class CreateReadersStage extends AbstractJavaStage {
      * @param entityModel
      * @param javaEntity
      * @param readerClassSource
+     * @param patternFields
      */
     private void createReadPropertyCode(BodyBuilder body, PropertyModelWithOrigin property, EntityModel entityModel,
-            JavaInterfaceSource javaEntity, JavaClassSource readerClassSource) {
-        CreateReadPropertySnippet crp = new CreateReadPropertySnippet(property, entityModel, javaEntity, readerClassSource);
+            JavaInterfaceSource javaEntity, JavaClassSource readerClassSource, Map<String, String> patternFields) {
+        CreateReadPropertySnippet crp = new CreateReadPropertySnippet(property, entityModel, javaEntity, readerClassSource, patternFields);
         body.clearContext();
         crp.writeTo(body);
     }
 
+    /**
+     * Generates the code for reading a run of consecutive star and regex properties (if any) of an
+     * entity, and then clears the list.  The code makes a single pass over the (remaining) fields of
+     * the JSON object, trying each of the properties in order until one of them reads the field.
+     *
+     * @param body
+     * @param dynamicProperties
+     * @param entityModel
+     * @param javaEntity
+     * @param readerClassSource
+     * @param patternFields
+     */
+    private void createReadDynamicPropertiesCode(BodyBuilder body, List<PropertyModelWithOrigin> dynamicProperties, EntityModel entityModel,
+            JavaInterfaceSource javaEntity, JavaClassSource readerClassSource, Map<String, String> patternFields) {
+        if (dynamicProperties.isEmpty()) {
+            return;
+        }
+        readerClassSource.addImport(List.class);
+
+        body.clearContext();
+        body.addContext("consumed", isNonDestructive() ? ", consumed" : "");
+        body.append("{");
+        body.append("    List<String> propertyNames = JsonUtil.keys(json${consumed});");
+        body.append("    for (String name : propertyNames) {");
+        dynamicProperties.forEach(property -> {
+            CreateReadPropertySnippet crp = new CreateReadPropertySnippet(property, entityModel, javaEntity, readerClassSource, patternFields);
+            body.clearContext();
+            crp.writeDynamicTo(body);
+        });
+        body.append("    }");
+        body.append("}");
+        dynamicProperties.clear();
+    }
+
     /**
      * Creates code that will read any extra/remaining properties on a JSON object.
      *
      * @param body
      */
     private void createReadExtraPropertiesCode(BodyBuilder body) {
-        body.append("ReaderUtil.readExtraProperties(json, node);");
+        if (isNonDestructive()) {
+            body.append("ReaderUtil.readExtraProperties(json, node, consumed);");
+        } else {
+            body.append("ReaderUtil.readExtraProperties(json, node);");
+        }
+    }
+
+    private boolean isNonDestructive() {
+        return getState().getConfig().isNonDestructiveReaders();
     }
 
     @Data
@@ -193,6 +298,7 @@ public class CreateReadersStage extends AbstractJavaStage {
         EntityModel entityModel;
         JavaInterfaceSource javaEntity;
         JavaClassSource readerClassSource;
+        Map<String, String> patternFields;
 
         /**
          * Generates code to read a property from a JSON node into the data model.
@@ -200,12 +306,11 @@ public class CreateReadersStage extends AbstractJavaStage {
          * @param body
          */
         public void writeTo(BodyBuilder body) {
+            // Extra argument passed to the JsonUtil "consume" methods in non-destructive mode.
+            body.addContext("consumed", isNonDestructive() ? ", consumed" : "");
+
             PropertyModel property = propertyWithOrigin.getProperty();
-            if ("*".equals(property.getName())) {
-                handleStarProperty(body);
-            } else if (property.getName().startsWith("/")) {
-                handleRegexProperty(body);
-            } else if (property.getType().isEntityType()) {
+            if (property.getType().isEntityType()) {
                 handleEntityProperty(body);
             } else if (property.getType().isPrimitiveType()) {
                 handlePrimitiveTypeProperty(body);
@@ -221,119 +326,73 @@ public class CreateReadersStage extends AbstractJavaStage {
             }
         }
 
-        private void handleStarProperty(BodyBuilder body) {
-            PropertyModel property = propertyWithOrigin.getProperty();
-            if (isEntity(property)) {
-                String entityTypeName = entityModel.getNamespace().fullName() + "." + property.getType().getSimpleType();
-                EntityModel propertyTypeEntity = getState().getConceptIndex().lookupEntity(entityTypeName);
-                if (propertyTypeEntity == null) {
-                    warn("STAR Property entity type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
-                    warn("       property type: " + property.getType());
-                    return;
-                }
-                JavaInterfaceSource propertyTypeJavaEntity = getState().getJavaIndex().lookupInterface(getJavaEntityInterfaceFQN(propertyTypeEntity));
-                if (propertyTypeJavaEntity == null) {
-                    warn("STAR Entity property '" + property.getName() + "' not read (unsupported) for entity: " + entityModel.fullyQualifiedName());
-                    warn("       property type is entity but not found in JAVA index: " + property.getType());
-                    return;
-                }
-                readerClassSource.addImport(propertyTypeJavaEntity);
-                readerClassSource.addImport(List.class);
+        /**
+         * Generates code (in the loop over the remaining fields of the JSON object) that reads a star
+         * or regex property.  When the field is read, the loop continues with the next field.
+         *
+         * @param body
+         */
+        public void writeDynamicTo(BodyBuilder body) {
+            // Extra argument passed to the JsonUtil "consume" methods in non-destructive mode.
+            body.addContext("consumed", isNonDestructive() ? ", consumed" : "");
 
-                body.addContext("entityJavaType", propertyTypeJavaEntity.getName());
-                body.addContext("createMethodName", createMethodName(propertyTypeEntity));
-                body.addContext("readMethodName", readMethodName(propertyTypeEntity));
+            PropertyModel property = propertyWithOrigin.getProperty();
+            String kind = isStarProperty(property) ? "STAR" : "REGEX";
+            if (isStarProperty(property)) {
+                // A star property is tried for every field that reaches it.
+                body.addContext("condition", "");
                 body.addContext("addMethodName", "addItem");
-
-                body.append("{");
-                body.append("    List<String> propertyNames = JsonUtil.keys(json);");
-                body.append("    propertyNames.forEach(name -> {");
-                body.append("        ObjectNode object = JsonUtil.consumeObjectProperty(json, name);");
-                body.append("        if (object != null) {");
-                body.append("            ${entityJavaType} model = (${entityJavaType}) node.${createMethodName}();");
-                body.append("            this.${readMethodName}(object, model);");
-                body.append("            node.${addMethodName}(name, model);");
-                body.append("        }");
-                body.append("    });");
-                body.append("}");
-            } else if (isPrimitive(property) || isPrimitiveList(property) || isPrimitiveMap(property)) {
-                readerClassSource.addImport(List.class);
-                if (property.getType().isMap()) {
-                    readerClassSource.addImport(Map.class);
-                }
-
-                body.addContext("valueType", determineValueType(property.getType()));
-                body.addContext("consumePropertyMethodName", determineConsumePropertyVariant(property.getType()));
-
-                body.append("{");
-                body.append("    List<String> propertyNames = JsonUtil.keys(json);");
-                body.append("    propertyNames.forEach(name -> {");
-                body.append("        ${valueType} value = JsonUtil.${consumePropertyMethodName}(json, name);");
-                body.append("        node.addItem(name, value);");
-                body.append("    });");
-                body.append("}");
             } else {
-                warn("STAR Entity property '" + property.getName() + "' not read (unhandled) for entity: " + entityModel.fullyQualifiedName());
-                warn("       property type: " + property.getType());
+                body.addContext("condition", "if (" + patternFieldName(patternFields, property) + ".matcher(name).matches()) ");
+                body.addContext("addMethodName", addMethodName(singularize(property.getCollection())));
             }
-        }
 
-        private void handleRegexProperty(BodyBuilder body) {
-            PropertyModel property = propertyWithOrigin.getProperty();
             if (isEntity(property)) {
                 String entityTypeName = entityModel.getNamespace().fullName() + "." + property.getType().getSimpleType();
                 EntityModel propertyTypeEntity = getState().getConceptIndex().lookupEntity(entityTypeName);
                 if (propertyTypeEntity == null) {
-                    warn("REGEX Property entity type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
+                    warn(kind + " Property entity type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
                     warn("       property type: " + property.getType());
                     return;
                 }
                 JavaInterfaceSource propertyTypeJavaEntity = getState().getJavaIndex().lookupInterface(getJavaEntityInterfaceFQN(propertyTypeEntity));
                 if (propertyTypeJavaEntity == null) {
-                    warn("REGEX Entity property '" + property.getName() + "' not read (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                    warn(kind + " Entity property '" + property.getName() + "' not read (unsupported) for entity: " + entityModel.fullyQualifiedName());
                     warn("       property type is entity but not found in JAVA index: " + property.getType());
                     return;
                 }
                 readerClassSource.addImport(propertyTypeJavaEntity);
-                readerClassSource.addImport(List.class);
 
-                body.addContext("propertyRegex", encodeRegex(extractRegex(property.getName())));
                 body.addContext("entityJavaType", propertyTypeJavaEntity.getName());
                 body.addContext("createMethodName", createMethodName(propertyTypeEntity));
                 body.addContext("readMethodName", readMethodName(propertyTypeEntity));
-                body.addContext("addMethodName", addMethodName(singularize(property.getCollection())));
 
-                body.append("{");
-                body.append("    List<String> propertyNames = JsonUtil.matchingKeys(\"${propertyRegex}\", json);");
-                body.append("    propertyNames.forEach(name -> {");
-                body.append("        ObjectNode object = JsonUtil.consumeObjectProperty(json, name);");
-                body.append("        if (object != null) {");
-                body.append("            ${entityJavaType} model = (${entityJavaType}) node.${createMethodName}();");
-                body.append("            this.${readMethodName}(object, model);");
-                body.append("            node.${addMethodName}(name, model);");
-                body.append("        }");
-                body.append("    });");
+                body.append("${condition}{");
+                body.append("    ObjectNode object = JsonUtil.consumeObjectProperty(json, name${consumed});");
+                body.append("    if (object != null) {");
+                body.append("        ${entityJavaType} model = (${entityJavaType}) node.${createMethodName}();");
+                body.append("        this.${readMethodName}(object, model);");
+                body.append("        node.${addMethodName}(name, model);");
+                body.append("        continue;");
+                body.append("    }");
                 body.append("}");
             } else if (isPrimitive(property) || isPrimitiveList(property) || isPrimitiveMap(property)) {
-                readerClassSource.addImport(List.class);
                 if (property.getType().isMap()) {
                     readerClassSource.addImport(Map.class);
                 }
 
-                body.addContext("propertyRegex", encodeRegex(extractRegex(property.getName())));
                 body.addContext("valueType", determineValueType(property.getType()));
                 body.addContext("consumeProperty", determineConsumePropertyVariant(property.getType()));
-                body.addContext("addMethodName", addMethodName(singularize(property.getCollection())));
 
-                body.append("{");
-                body.append("    List<String> propertyNames = JsonUtil.matchingKeys(\"${propertyRegex}\", json);");
-                body.append("    propertyNames.forEach(name -> {");
-                body.append("        ${valueType} value = JsonUtil.${consumeProperty}(json, name);");
-                body.append("        node.${addMethodName}(name, value);");
-                body.append("    });");
+                body.append("${condition}{");
+                body.append("    ${valueType} value = JsonUtil.${consumeProperty}(json, name${consumed});");
+                body.append("    node.${addMethodName}(name, value);");
+                body.append("    if (value != null) {");
+                body.append("        continue;");
+                body.append("    }");
                 body.append("}");
             } else {
-                warn("REGEX Entity property '" + property.getName() + "' not read (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                warn(kind + " Entity property '" + property.getName() + "' not read (unsupported) for entity: " + entityModel.fullyQualifiedName());
                 warn("       property type: " + property.getType());
             }
         }
@@ -358,7 +417,7 @@ public class CreateReadersStage extends AbstractJavaStage {
             body.addContext("propertyEntityType", propertyTypeJavaEntity.getName());
 
             body.append("{");
-            body.append("    ObjectNode object = JsonUtil.consumeObjectProperty(json, \"${propertyName}\");");
+            body.append("    ObjectNode object = JsonUtil.consumeObjectProperty(json, \"${propertyName}\"${consumed});");
             body.append("    if (object != null) {");
             body.append("        node.${setterMethodName}(node.${createMethodName}());");
             body.append("        ${readMethodName}(object, (${propertyEntityType}) node.${getterMethodName}());");
@@ -374,7 +433,7 @@ public class CreateReadersStage extends AbstractJavaStage {
             body.addContext("setterMethodName", setterMethodName(property));
 
             body.append("{");
-            body.append("    ${valueType} value = JsonUtil.${consumeProperty}(json, \"${propertyName}\");");
+            body.append("    ${valueType} value = JsonUtil.${consumeProperty}(json, \"${propertyName}\"${consumed});");
             body.append("    node.${setterMethodName}(value);");
             body.append("}");
         }
@@ -391,7 +450,7 @@ public class CreateReadersStage extends AbstractJavaStage {
                 readerClassSource.addImport(List.class);
 
                 body.append("{");
-                body.append("    ${propertyValueJavaType} value = JsonUtil.${consumeMethodName}(json, \"${propertyName}\");");
+                body.append("    ${propertyValueJavaType} value = JsonUtil.${consumeMethodName}(json, \"${propertyName}\"${consumed});");
                 body.append("    node.${setterMethodName}(value);");
                 body.append("}");
             } else if (listValuePropertyType.isEntityType()) {
@@ -418,7 +477,7 @@ public class CreateReadersStage extends AbstractJavaStage {
                 body.addContext("addMethodName", addMethodName(singularize(property.getName())));
 
                 body.append("{");
-                body.append("    List<ObjectNode> objects = JsonUtil.consumeObjectArrayProperty(json, \"${propertyName}\");");
+                body.append("    List<ObjectNode> objects = JsonUtil.consumeObjectArrayProperty(json, \"${propertyName}\"${consumed});");
                 body.append("    if (objects != null) {");
                 body.append("        objects.forEach(object -> {");
                 body.append("            ${listValueJavaType} model = (${listValueJavaType}) node.${createMethodName}();");
@@ -445,7 +504,7 @@ public class CreateReadersStage extends AbstractJavaStage {
                 readerClassSource.addImport(Map.class);
 
                 body.append("{");
-                body.append("    ${propertyValueJavaType} value = JsonUtil.${consumeMethodName}(json, \"${propertyName}\");");
+                body.append("    ${propertyValueJavaType} value = JsonUtil.${consumeMethodName}(json, \"${propertyName}\"${consumed});");
                 body.append("    node.${setterMethodName}(value);");
                 body.append("}");
             } else if (mapValuePropertyType.isEntityType()) {
@@ -469,11 +528,12 @@ public class CreateReadersStage extends AbstractJavaStage {
                 body.addContext("createMethodName", "create" + entityTypeName);
                 body.addContext("readMethodName", "read" + entityTypeName);
                 body.addContext("addMethodName", addMethodName(singularize(property.getName())));
+                body.addContext("mapValueMethodName", isNonDestructive() ? "getObjectProperty" : "consumeObjectProperty");
 
                 body.append("{");
-                body.append("    ObjectNode object = JsonUtil.consumeObjectProperty(json, \"${propertyName}\");");
+                body.append("    ObjectNode object = JsonUtil.consumeObjectProperty(json, \"${propertyName}\"${consumed});");
                 body.append("    JsonUtil.keys(object).forEach(name -> {");
-                body.append("        ObjectNode mapValue = JsonUtil.consumeObjectProperty(object, name);");
+                body.append("        ObjectNode mapValue = JsonUtil.${mapValueMethodName}(object, name);");
                 body.append("        if (mapValue != null) {");
                 body.append("            ${mapValueJavaType} model = (${mapValueJavaType}) node.${createMethodName}();");
                 body.append("            this.${readMethodName}(mapValue, model);");
@@ -488,224 +548,8 @@ public class CreateReadersStage extends AbstractJavaStage {
         }
 
         private void handleUnionProperty(BodyBuilder body) {
-            PropertyModel property = propertyWithOrigin.getProperty();
-            NamespaceModel nsContext = propertyWithOrigin.getOrigin().getNamespace();
-            UnionPropertyType ut = new UnionPropertyType(property.getType());
-
-            readerClassSource.addImport(JsonNode.class);
-
-            body.addContext("unionJavaType", ut.toJavaTypeString());
-            body.addContext("propertyName", property.getName());
-            body.addContext("getterMethodName", getterMethodName(property));
-            body.addContext("setterMethodName", setterMethodName(property));
-
-            body.append("{");
-            body.append("    JsonNode value = JsonUtil.consumeAnyProperty(json, \"${propertyName}\");");
-            body.append("    if (value != null) {");
-
-            // Sort the nested types - make sure any entity types with union rules come first.  This is
-            // also an opportunity to order any of the checks we might need.  E.g. if we need isString()
-            // checks to happen before isNumber() for some reason.  Consider this an area for future
-            // improvement.
-            List<PropertyType> sortedNestedTypes = ut.getNestedTypes().stream().sorted(new Comparator<PropertyType>() {
-                @Override
-                public int compare(PropertyType o1, PropertyType o2) {
-                    if (o1.isEntityType() && o2.isEntityType()) {
-                        UnionRule rule1 = property.getRuleFor(o1.asRawType());
-                        UnionRule rule2 = property.getRuleFor(o2.asRawType());
-                        if (rule1 != null && rule2 == null) {
-                            return -1;
-                        } else if (rule1 == null && rule2 != null) {
-                            return 1;
-                        }
-                    }
-                    return o1.asRawType().compareTo(o2.asRawType());
-                }
-            }).collect(Collectors.toUnmodifiableList());
-
-            // Now generate a block of reader code for each nested type.  Since this
-            // property can be different things, we need to figure out what it is first,
-            // and then properly read it based on that result.  This is easy for things like
-            // 'string|boolean' types.  But for 'Entity1|Entity2' types, we need to
-            // employ the configured union rules.
-            // TODO support union rules for non-entity union types (e.g. maps and lists) for currently
-            //      unsupported use cases (like '[string]|[number]').
-            boolean first = true;
-            for (PropertyType nestedType : sortedNestedTypes) {
-                if (!first) {
-                    body.append(" else ");
-                }
-                first = false;
-                JavaType jt = new JavaType(nestedType, nsContext);
-                if (jt.isPrimitive()) {
-                    String javaTypeName = jt.toJavaTypeString();
-                    String isMethodName = "is" + javaTypeName;
-                    String toMethodName = "to" + javaTypeName;
-                    String typeName = getTypeName(nestedType);
-                    String unionValueInterfaceName = typeName + "UnionValue";
-                    String unionValueInterfaceFQN = getUnionTypeFQN(typeName + "UnionValue");
-                    String unionValueClassName = unionValueInterfaceName + "Impl";
-                    String unionValueClassFQN = unionValueInterfaceFQN + "Impl";
-                    JavaInterfaceSource unionValueInterface = getState().getJavaIndex().lookupInterface(unionValueInterfaceFQN);
-                    JavaClassSource unionValueClass = getState().getJavaIndex().lookupClass(unionValueClassFQN);
-
-                    body.addContext("javaTypeName", javaTypeName);
-                    body.addContext("isMethodName", isMethodName);
-                    body.addContext("toMethodName", toMethodName);
-                    body.addContext("unionValueInterfaceName", unionValueInterfaceName);
-                    body.addContext("unionValueClassName", unionValueClassName);
-
-                    body.append("if (JsonUtil.${isMethodName}(value)) {");
-                    body.append("    ${javaTypeName} pValue = JsonUtil.${toMethodName}(value);");
-                    body.append("    ${unionValueInterfaceName} unionValue = new ${unionValueClassName}(pValue);");
-                    body.append("    node.${setterMethodName}(unionValue);");
-                    body.append("}");
-
-                    readerClassSource.addImport(unionValueInterface);
-                    readerClassSource.addImport(unionValueClass);
-                } else if (jt.isPrimitiveList()) {
-                    String nestedJavaTypeName = getTypeName(nestedType.getNested().iterator().next());
-                    String unionValueName = getTypeName(nestedType);
-                    String toMethodName = "to" + nestedJavaTypeName;
-                    String unionValueInterfaceName = unionValueName + "UnionValue";
-                    String unionValueClassName = unionValueInterfaceName + "Impl";
-                    JavaInterfaceSource unionValueInterface = getState().getJavaIndex().lookupInterface(getUnionTypeFQN(unionValueInterfaceName));
-                    JavaClassSource unionValueClass = getState().getJavaIndex().lookupClass(getUnionTypeFQN(unionValueClassName));
-
-                    if (unionValueInterface == null || unionValueClassName == null) {
-                        warn("Missing primitive list Union Value interface or class: " + unionValueName);
-                        return;
-                    }
-
-                    body.addContext("toMethodName", toMethodName);
-                    body.addContext("javaTypeName", nestedJavaTypeName);
-                    body.addContext("unionValueInterfaceName", unionValueInterfaceName);
-                    body.addContext("unionValueClassName", unionValueClassName);
-
-                    body.append("if (JsonUtil.isArray(value)) {");
-                    body.append("    List<JsonNode> array = JsonUtil.toList(value);");
-                    body.append("    List<${javaTypeName}> items = new ArrayList<>();");
-                    body.append("    array.forEach(item -> {");
-                    body.append("        ${javaTypeName} pValue = JsonUtil.${toMethodName}(item);");
-                    body.append("        items.add(pValue);");
-                    body.append("    });");
-                    body.append("    ${unionValueInterfaceName} unionValue = new ${unionValueClassName}(items);");
-                    body.append("    node.${setterMethodName}(unionValue);");
-                    body.append("}");
-
-                    readerClassSource.addImport(unionValueInterface);
-                    readerClassSource.addImport(unionValueClass);
-                    readerClassSource.addImport(JsonNode.class);
-                    readerClassSource.addImport(List.class);
-                    readerClassSource.addImport(ArrayList.class);
-                } else if (jt.isEntity()) {
-                    NamespaceModel nestedTypeEntityNS = entityModel.getNamespace();
-                    String nestedTypeEntityName = nestedTypeEntityNS.fullName() + "." + nestedType.getSimpleType();
-                    EntityModel nestedTypeEntity = getState().getConceptIndex().lookupEntity(nestedTypeEntityName);
-                    if (nestedTypeEntity == null) {
-                        warn("Property union type with entity sub-type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
-                        warn("       nested union type: " + nestedType);
-                        return;
-                    }
-                    JavaInterfaceSource entityJavaSource = resolveJavaEntityType(nestedTypeEntityNS, nestedType);
-                    if (entityJavaSource == null) {
-                        warn("Property union type with entity sub-type not found (in java index) for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
-                        warn("       nested union type: " + nestedType);
-                        return;
-                    }
-                    readerClassSource.addImport(entityJavaSource);
-
-                    body.addContext("setterMethodName", setterMethodName(property));
-                    body.addContext("createMethodName", createMethodName(nestedTypeEntity));
-                    body.addContext("getterMethodName", getterMethodName(property));
-                    body.addContext("readMethodName", readMethodName(nestedTypeEntity));
-                    body.addContext("propertyEntityType", entityJavaSource.getName());
-
-                    UnionRule unionRule = property.getRuleFor(nestedType.asRawType());
-                    if (unionRule == null) {
-                        body.append("if (JsonUtil.isObject(value)) {");
-                    } else {
-                        body.addContext("rulePropertyName", unionRule.getPropertyName());
-                        if (unionRule.getRuleType() == UnionRuleType.propertyExists) {
-                            body.append("if (JsonUtil.isObjectWithProperty(value, \"${rulePropertyName}\")) {");
-                        } else if (unionRule.getRuleType() == UnionRuleType.propertyValue) {
-                            body.addContext("rulePropertyValue", unionRule.getPropertyValue());
-                            body.append("if (JsonUtil.isObjectWithPropertyValue(value, \"${rulePropertyName}\", \"${rulePropertyValue}\")) {");
-                        } else {
-                            throw new RuntimeException("Unsupported union rule: " + unionRule.getRuleType());
-                        }
-                    }
-
-                    body.append("    ObjectNode object = JsonUtil.toObject(value);");
-                    body.append("    node.${setterMethodName}(node.${createMethodName}());");
-                    body.append("    ${readMethodName}(object, (${propertyEntityType}) node.${getterMethodName}());");
-                    body.append("}");
-                } else if (jt.isEntityList()) {
-                    String unionValueName = getTypeName(nestedType);
-                    String unionValueInterfaceName = unionValueName + "UnionValue";
-                    String unionValueClassName = unionValueInterfaceName + "Impl";
-                    JavaInterfaceSource unionValueInterface = getState().getJavaIndex().lookupInterface(getUnionTypeFQN(unionValueInterfaceName));
-                    JavaClassSource unionValueClass = getState().getJavaIndex().lookupClass(getUnionTypeFQN(unionValueClassName));
-                    if (unionValueInterface == null || unionValueClassName == null) {
-                        warn("Missing entity list Union Value interface or class (this should have been generated!): " + unionValueName);
-                        return;
-                    }
-
-                    PropertyType listItemType = nestedType.getNested().iterator().next();
-                    String listItemEntityName = entityModel.getNamespace().fullName() + "." + listItemType.getSimpleType();
-                    EntityModel listItemEntity = getState().getConceptIndex().lookupEntity(listItemEntityName);
-                    if (listItemEntity == null) {
-                        warn("Property union type with entity sub-type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
-                        warn("       nested union type: " + nestedType);
-                        return;
-                    }
-                    JavaInterfaceSource listItemEntitySource = getState().getJavaIndex().lookupInterface(getJavaEntityInterfaceFQN(listItemEntity));
-                    if (listItemEntitySource == null) {
-                        warn("Property union type with entity sub-type not found (in java index) for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
-                        warn("       nested union type: " + listItemType);
-                        return;
-                    }
-
-                    readerClassSource.addImport(listItemEntitySource);
-                    readerClassSource.addImport(unionValueInterface);
-                    readerClassSource.addImport(unionValueClass);
-                    readerClassSource.addImport(JsonNode.class);
-                    readerClassSource.addImport(List.class);
-                    readerClassSource.addImport(ArrayList.class);
-
-                    body.addContext("unionValueInterfaceName", unionValueInterfaceName);
-                    body.addContext("unionValueClassName", unionValueClassName);
-                    body.addContext("listValueJavaType", listItemEntitySource.getName());
-                    body.addContext("setterMethodName", setterMethodName(property));
-                    body.addContext("createMethodName", createMethodName(listItemEntity));
-                    body.addContext("getterMethodName", getterMethodName(property));
-                    body.addContext("readMethodName", readMethodName(listItemEntity));
-
-                    body.append("if (JsonUtil.isArray(value)) {");
-                    body.append("    List<JsonNode> array = JsonUtil.toList(value);");
-                    body.append("    List<${listValueJavaType}> models = new ArrayList<>();");
-                    body.append("    array.forEach(item -> {");
-                    body.append("        ObjectNode object = JsonUtil.toObject(item);");
-                    body.append("        ${listValueJavaType} model = (${listValueJavaType}) node.${createMethodName}();");
-                    body.append("        this.${readMethodName}(object, model);");
-                    body.append("        models.add(model);");
-                    body.append("    });");
-                    body.append("    @SuppressWarnings({ \"unchecked\", \"rawtypes\" })");
-                    body.append("    ${unionValueInterfaceName} unionValue = new ${unionValueClassName}((List) models);");
-                    body.append("    node.${setterMethodName}(unionValue);");
-                    body.append("}");
-                } else {
-                    // TODO implement handling for entity maps
-                    warn("UNION Entity property '" + property.getName() + "' not read (unsupported union subtype) for entity: " + entityModel.fullyQualifiedName());
-                    warn("       property type: " + property.getType());
-                    body.append("if (Boolean.TRUE) {}");
-                }
-            }
-            body.append("        else {");
-            body.append("            node.addExtraProperty(\"${propertyName}\", value);");
-            body.append("        }");
-            body.append("    }");
-            body.append("}");
+            createReadUnionPropertyCode(body, propertyWithOrigin, entityModel, readerClassSource,
+                    "JsonUtil.consumeAnyProperty(json, \"${propertyName}\"${consumed})", "object");
         }
 
         /**
@@ -810,9 +654,5 @@ public class CreateReadersStage extends AbstractJavaStage {
             warn("Unable to determine value type for: " + property);
             return "Object";
         }
-
-        private String encodeRegex(String regex) {
-            return regex.replace("\\", "\\\\");
-        }
     }
 }
@@ -0,0 +1,525 @@
+package io.apicurio.umg.pipe.java;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.forge.roaster.Roaster;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.apicurio.umg.beans.SpecificationVersion;
+import io.apicurio.umg.models.concept.EntityModel;
+import io.apicurio.umg.models.concept.PropertyModel;
+import io.apicurio.umg.models.concept.PropertyModelWithOrigin;
+import io.apicurio.umg.models.concept.PropertyType;
+import io.apicurio.umg.pipe.StageResource;
+import io.apicurio.umg.pipe.java.method.BodyBuilder;
+
+/**
+ * Creates the streaming i/o reader classes.  There is a bespoke streaming reader for each
+ * specification version.  A streaming reader builds the data model directly from the tokens
+ * of a Jackson {@link JsonParser}, without first parsing the input into a JSON tree.  Each
+ * readXyz method loops over the fields of the current JSON object once, dispatching on the
+ * field name with a switch.  Only leaf values that are stored as JSON in the data model (e.g.
+ * "object" and "any" properties, and extra properties) are buffered.
+ *
+ * Each readXyz method also takes the projection (the set of paths) to read: the fields that are not
+ * part of it are skipped by the parser.  Union properties are read entirely when selected.
+ *
+ * Streaming readers are only generated when enabled in the generator config.
+ */
+public class CreateStreamingReadersStage extends AbstractReaderStage {
+
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES, StageResource.JAVA_ENTITY_INTERFACES, StageResource.JAVA_ENTITY_IMPLEMENTATIONS);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_STREAMING_READERS);
+    }
+
+    @Override
+    protected void doProcess() {
+        if (!getState().getConfig().isGenerateStreamingReaders()) {
+            return;
+        }
+
+        getState().getSpecIndex().getAllSpecificationVersions().forEach(specVersion -> {
+            createStreamingReader(specVersion);
+        });
+    }
+
+    /**
+     * Creates a streaming reader for the given spec version.
+     * @param specVersion
+     */
+    private void createStreamingReader(SpecificationVersion specVersion) {
+        String readerPackageName = getReaderPackageName(specVersion);
+        String readerClassName = getStreamingReaderClassName(specVersion);
+
+        debug("Creating streaming reader: " + readerPackageName + "." + readerClassName);
+
+        // Create java source code for the reader
+        JavaClassSource readerClassSource = Roaster.create(JavaClassSource.class)
+                .setPackage(readerPackageName)
+                .setName(readerClassName)
+                .setPublic();
+        readerClassSource.addImport(getState().getConfig().getRootNamespace() + ".util." + "StreamingReaderUtil");
+        readerClassSource.addImport(IOException.class);
+        readerClassSource.addImport(JsonParser.class);
+        readerClassSource.addImport(JsonToken.class);
+        readerClassSource.addImport(getState().getConfig().getRootNamespace() + ".util." + "Projection");
+
+        // Implements the StreamingModelReader interface
+        JavaInterfaceSource modelReaderInterfaceSource = getState().getJavaIndex().lookupInterface(getStreamingModelReaderInterfaceFQN());
+        readerClassSource.addImport(modelReaderInterfaceSource);
+        readerClassSource.addInterface(modelReaderInterfaceSource);
+
+        // Regular expressions (for regex properties) are compiled once, and shared by all methods.
+        Map<String, String> patternFields = new LinkedHashMap<>();
+
+        // Create the readXYZ methods - one for each entity
+        specVersion.getEntities().forEach(entity -> {
+            EntityModel entityModel = getState().getConceptIndex().lookupEntity(specVersion.getNamespace() + "." + entity.getName());
+            if (entityModel == null) {
+                warn("Entity model not found for entity: " + entity);
+            } else {
+                createReadMethodFor(readerClassSource, entityModel, patternFields);
+
+                // There should be a single root entity in the spec.
+                if (entityModel.isRoot()) {
+                    createReadRootMethod(readerClassSource, entityModel);
+                }
+            }
+        });
+
+        addPatternFields(readerClassSource, patternFields);
+
+        getState().getJavaIndex().index(readerClassSource);
+    }
+
+    /**
+     * Creates a "readRoot(parser)" method for this reader.
+     * @param readerClassSource
+     * @param entityModel
+     */
+    private void createReadRootMethod(JavaClassSource readerClassSource, EntityModel entityModel) {
+        JavaInterfaceSource rootNodeInterfaceSource = getState().getJavaIndex().lookupInterface(getRootNodeInterfaceFQN());
+        readerClassSource.addImport(rootNodeInterfaceSource);
+        readerClassSource.addImport(JsonParseException.class);
+
+        MethodSource<JavaClassSource> readRootMethodSource = readerClassSource.addMethod()
+                .setName("readRoot")
+                .setReturnType(rootNodeInterfaceSource.getName())
+                .setPublic();
+        readRootMethodSource.addParameter("JsonParser", "parser");
+        readRootMethodSource.addThrows(IOException.class);
+        readRootMethodSource.addAnnotation(Override.class);
+        readRootMethodSource.setBody("return this.readRoot(parser, Projection.ALL);");
+
+        readRootMethodSource = readerClassSource.addMethod()
+                .setName("readRoot")
+                .setReturnType(rootNodeInterfaceSource.getName())
+                .setPublic();
+        readRootMethodSource.addParameter("JsonParser", "parser");
+        readRootMethodSource.addParameter("Projection", "projection");
+        readRootMethodSource.addThrows(IOException.class);
+        readRootMethodSource.addAnnotation(Override.class);
+
+        JavaInterfaceSource entitySource = lookupJavaEntity(entityModel);
+        JavaClassSource entityImplSource = lookupJavaEntityImpl(entityModel);
+
+        readerClassSource.addImport(entitySource);
+        readerClassSource.addImport(entityImplSource);
+
+        BodyBuilder body = new BodyBuilder();
+        body.addContext("readMethodName", readMethodName(entityModel));
+        body.addContext("rootEntityType", entitySource.getName());
+        body.addContext("rootEntityImplType", entityImplSource.getName());
+
+        body.append("if (!parser.hasCurrentToken()) {");
+        body.append("    parser.nextToken();");
+        body.append("}");
+        body.append("if (!StreamingReaderUtil.isObject(parser)) {");
+        body.append("    throw new JsonParseException(parser, \"Expected a JSON object but found: \" + parser.currentToken());");
+        body.append("}");
+        body.append("${rootEntityType} rootModel = new ${rootEntityImplType}();");
+        body.append("this.${readMethodName}(parser, rootModel, projection);");
+        body.append("return rootModel;");
+        readRootMethodSource.setBody(body.toString());
+    }
+
+    /**
+     * Creates a single "readXyz" method for the given entity.  The method expects the parser to be
+     * positioned on the START_OBJECT token of the entity, and returns once the matching END_OBJECT
+     * token has been consumed.  A shorter overload reads the entity entirely.
+     *
+     * @param readerClassSource
+     * @param entityModel
+     * @param patternFields
+     */
+    private void createReadMethodFor(JavaClassSource readerClassSource, EntityModel entityModel, Map<String, String> patternFields) {
+        String entityFQN = getJavaEntityInterfaceFQN(entityModel);
+        String readMethodName = readMethodName(entityModel);
+
+        debug("Creating streaming read method: " + readMethodName);
+
+        JavaInterfaceSource javaEntity = getState().getJavaIndex().lookupInterface(entityFQN);
+        if (javaEntity == null) {
+            warn("Java interface for entity not found: " + entityFQN);
+        }
+
+        readerClassSource.addImport(javaEntity);
+        MethodSource<JavaClassSource> methodSource = readerClassSource.addMethod()
+                .setName(readMethodName)
+                .setReturnTypeVoid()
+                .setPublic();
+        methodSource.addParameter(JsonParser.class.getSimpleName(), "parser");
+        methodSource.addParameter(javaEntity.getName(), "node");
+        methodSource.addThrows(IOException.class);
+        methodSource.setBody("this." + readMethodName + "(parser, node, Projection.ALL);");
+
+        methodSource = readerClassSource.addMethod()
+                .setName(readMethodName)
+                .setReturnTypeVoid()
+                .setPublic();
+        methodSource.addParameter(JsonParser.class.getSimpleName(), "parser");
+        methodSource.addParameter(javaEntity.getName(), "node");
+        methodSource.addParameter("Projection", "projection");
+        methodSource.addThrows(IOException.class);
+
+        // Properties with a fixed name become a case in the field name switch, while star and
+        // regex properties are matched (in property order) against any other field name.
+        List<PropertyModelWithOrigin> namedProperties = new ArrayList<>();
+        List<PropertyModelWithOrigin> dynamicProperties = new ArrayList<>();
+        Collection<PropertyModelWithOrigin> allProperties = getState().getConceptIndex().getAllEntityProperties(entityModel);
+        allProperties.forEach(property -> {
+            if (isStarProperty(property.getProperty()) || isRegexProperty(property.getProperty())) {
+                dynamicProperties.add(property);
+            } else {
+                namedProperties.add(property);
+            }
+        });
+
+        BodyBuilder body = new BodyBuilder();
+        body.append("while (parser.nextToken() == JsonToken.FIELD_NAME) {");
+        body.append("    String name = parser.getCurrentName();");
+        body.append("    parser.nextToken();");
+        body.append("    Projection fieldProjection = projection.child(name);");
+        body.append("    if (fieldProjection == null) {");
+        body.append("        StreamingReaderUtil.skip(parser);");
+        body.append("        continue;");
+        body.append("    }");
+        if (!namedProperties.isEmpty()) {
+            body.append("    switch (name) {");
+            namedProperties.forEach(property -> {
+                CreateReadPropertySnippet crp = new CreateReadPropertySnippet(property, entityModel, readerClassSource, patternFields);
+                body.clearContext();
+                crp.writeCaseTo(body);
+            });
+            body.append("        default: {");
+        }
+        boolean consumed = false;
+        for (PropertyModelWithOrigin property : dynamicProperties) {
+            CreateReadPropertySnippet crp = new CreateReadPropertySnippet(property, entityModel, readerClassSource, patternFields);
+            body.clearContext();
+            consumed = crp.writeDynamicTo(body);
+            if (consumed) {
+                break;
+            }
+        }
+        // Read "extra" properties (whatever is left over)
+        if (!consumed) {
+            body.append("StreamingReaderUtil.readExtraProperty(parser, name, node);");
+        }
+        if (!namedProperties.isEmpty()) {
+            body.append("        }");
+            body.append("    }");
+        }
+        body.append("}");
+
+        methodSource.setBody(body.toString());
+    }
+
+    private class CreateReadPropertySnippet {
+        private final PropertyModelWithOrigin propertyWithOrigin;
+        private final EntityModel entityModel;
+        private final JavaClassSource readerClassSource;
+        private final Map<String, String> patternFields;
+
+        public CreateReadPropertySnippet(PropertyModelWithOrigin propertyWithOrigin, EntityModel entityModel,
+                JavaClassSource readerClassSource, Map<String, String> patternFields) {
+            this.propertyWithOrigin = propertyWithOrigin;
+            this.entityModel = entityModel;
+            this.readerClassSource = readerClassSource;
+            this.patternFields = patternFields;
+        }
+
+        /**
+         * Generates a "case" (of the field name switch) that reads a property with a fixed name.
+         * @param body
+         */
+        public void writeCaseTo(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            body.addContext("propertyName", encodeStringLiteral(property.getName()));
+            body.addContext("setterMethodName", setterMethodName(property));
+
+            if (property.getType().isEntityType()) {
+                EntityModel propertyTypeEntity = lookupPropertyTypeEntity(property.getType());
+                if (propertyTypeEntity == null) {
+                    return;
+                }
+                JavaInterfaceSource propertyTypeJavaEntity = resolveJavaEntityType(entityModel.getNamespace(), property);
+                readerClassSource.addImport(propertyTypeJavaEntity);
+
+                body.addContext("createMethodName", createMethodName(propertyTypeEntity));
+                body.addContext("getterMethodName", getterMethodName(property));
+                body.addContext("readMethodName", readMethodName(propertyTypeEntity));
+                body.addContext("propertyEntityType", propertyTypeJavaEntity.getName());
+
+                body.append("case \"${propertyName}\": {");
+                body.append("    if (StreamingReaderUtil.isObject(parser)) {");
+                body.append("        node.${setterMethodName}(node.${createMethodName}());");
+                body.append("        ${readMethodName}(parser, (${propertyEntityType}) node.${getterMethodName}(), fieldProjection);");
+                body.append("    } else {");
+                body.append("        StreamingReaderUtil.readExtraProperty(parser, name, node);");
+                body.append("    }");
+                body.append("    break;");
+                body.append("}");
+            } else if (property.getType().isPrimitiveType()) {
+                String typeName = determineTypeName(property.getType());
+                body.addContext("typeName", typeName);
+
+                body.append("case \"${propertyName}\": {");
+                if ("Any".equals(typeName)) {
+                    body.append("    node.${setterMethodName}(StreamingReaderUtil.readAny(parser));");
+                } else {
+                    body.append("    if (StreamingReaderUtil.is${typeName}(parser)) {");
+                    body.append("        node.${setterMethodName}(StreamingReaderUtil.read${typeName}(parser));");
+                    body.append("    } else {");
+                    body.append("        StreamingReaderUtil.readExtraProperty(parser, name, node);");
+                    body.append("    }");
+                }
+                body.append("    break;");
+                body.append("}");
+            } else if (isPrimitiveList(property)) {
+                String typeName = determineTypeName(property.getType().getNested().iterator().next());
+                body.addContext("typeName", typeName);
+
+                body.append("case \"${propertyName}\": {");
+                if ("Any".equals(typeName) || "Object".equals(typeName)) {
+                    // Only consumed when the value is actually an array (same as the tree reader).
+                    body.append("    if (StreamingReaderUtil.isArray(parser)) {");
+                    body.append("        node.${setterMethodName}(StreamingReaderUtil.read${typeName}Array(parser));");
+                    body.append("    } else {");
+                    body.append("        StreamingReaderUtil.readExtraProperty(parser, name, node);");
+                    body.append("    }");
+                } else {
+                    body.append("    node.${setterMethodName}(StreamingReaderUtil.read${typeName}Array(parser));");
+                }
+                body.append("    break;");
+                body.append("}");
+            } else if (isPrimitiveMap(property)) {
+                String typeName = determineTypeName(property.getType().getNested().iterator().next());
+                body.addContext("typeName", typeName);
+
+                body.append("case \"${propertyName}\": {");
+                body.append("    if (StreamingReaderUtil.isObject(parser)) {");
+                body.append("        node.${setterMethodName}(StreamingReaderUtil.read${typeName}Map(parser));");
+                body.append("    } else {");
+                body.append("        StreamingReaderUtil.readExtraProperty(parser, name, node);");
+                body.append("    }");
+                body.append("    break;");
+                body.append("}");
+            } else if (isEntityList(property)) {
+                EntityModel entityTypeModel = lookupPropertyTypeEntity(property.getType().getNested().iterator().next());
+                if (entityTypeModel == null) {
+                    return;
+                }
+                JavaInterfaceSource entityTypeJavaModel = getState().getJavaIndex().lookupInterface(getJavaEntityInterfaceFQN(entityTypeModel));
+                readerClassSource.addImport(entityTypeJavaModel);
+
+                body.addContext("listValueJavaType", entityTypeJavaModel.getName());
+                body.addContext("createMethodName", createMethodName(entityTypeModel));
+                body.addContext("readMethodName", readMethodName(entityTypeModel));
+                body.addContext("addMethodName", addMethodName(singularize(property.getName())));
+
+                body.append("case \"${propertyName}\": {");
+                body.append("    if (StreamingReaderUtil.isArray(parser)) {");
+                body.append("        while (parser.nextToken() != JsonToken.END_ARRAY) {");
+                body.append("            if (StreamingReaderUtil.isObject(parser)) {");
+                body.append("                ${listValueJavaType} model = (${listValueJavaType}) node.${createMethodName}();");
+                body.append("                this.${readMethodName}(parser, model, fieldProjection);");
+                body.append("                node.${addMethodName}(model);");
+                body.append("            } else {");
+                body.append("                StreamingReaderUtil.skip(parser);");
+                body.append("            }");
+                body.append("        }");
+                body.append("    } else {");
+                body.append("        StreamingReaderUtil.readExtraProperty(parser, name, node);");
+                body.append("    }");
+                body.append("    break;");
+                body.append("}");
+            } else if (isEntityMap(property)) {
+                EntityModel entityTypeModel = lookupPropertyTypeEntity(property.getType().getNested().iterator().next());
+                if (entityTypeModel == null) {
+                    return;
+                }
+                JavaInterfaceSource entityTypeJavaModel = getState().getJavaIndex().lookupInterface(getJavaEntityInterfaceFQN(entityTypeModel));
+                readerClassSource.addImport(entityTypeJavaModel);
+
+                body.addContext("mapValueJavaType", entityTypeJavaModel.getName());
+                body.addContext("createMethodName", createMethodName(entityTypeModel));
+                body.addContext("readMethodName", readMethodName(entityTypeModel));
+                body.addContext("addMethodName", addMethodName(singularize(property.getName())));
+
+                body.append("case \"${propertyName}\": {");
+                body.append("    if (StreamingReaderUtil.isObject(parser)) {");
+                body.append("        while (parser.nextToken() == JsonToken.FIELD_NAME) {");
+                body.append("            String mapKey = parser.getCurrentName();");
+                body.append("            parser.nextToken();");
+                body.append("            Projection entryProjection = fieldProjection.child(mapKey);");
+                body.append("            if (entryProjection != null && StreamingReaderUtil.isObject(parser)) {");
+                body.append("                ${mapValueJavaType} model = (${mapValueJavaType}) node.${createMethodName}();");
+                body.append("                this.${readMethodName}(parser, model, entryProjection);");
+                body.append("                node.${addMethodName}(mapKey, model);");
+                body.append("            } else {");
+                body.append("                StreamingReaderUtil.skip(parser);");
+                body.append("            }");
+                body.append("        }");
+                body.append("    } else {");
+                body.append("        StreamingReaderUtil.readExtraProperty(parser, name, node);");
+                body.append("    }");
+                body.append("    break;");
+                body.append("}");
+            } else if (property.getType().isUnion()) {
+                body.append("case \"${propertyName}\": {");
+                createReadUnionPropertyCode(body, propertyWithOrigin, entityModel, readerClassSource,
+                        "StreamingReaderUtil.readAny(parser)", "StreamingReaderUtil.traverse(object)");
+                body.append("    break;");
+                body.append("}");
+            } else {
+                warn("Entity property '" + property.getName() + "' not read (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+            }
+        }
+
+        /**
+         * Generates code (in the "default" branch of the field name switch) that reads a star or regex
+         * property.  When the field is read, the loop continues with the next field.  Returns true
+         * if the generated code reads every field that reaches it (a star property of type "any").
+         * @param body
+         */
+        public boolean writeDynamicTo(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            String condition;
+            String addMethodName;
+            if (isStarProperty(property)) {
+                condition = "";
+                addMethodName = "addItem";
+            } else {
+                String patternField = patternFieldName(patternFields, property);
+                condition = patternField + ".matcher(name).matches() && ";
+                addMethodName = addMethodName(singularize(property.getCollection()));
+            }
+            body.addContext("addMethodName", addMethodName);
+
+            if (isEntity(property)) {
+                EntityModel propertyTypeEntity = lookupPropertyTypeEntity(property.getType());
+                if (propertyTypeEntity == null) {
+                    return false;
+                }
+                JavaInterfaceSource propertyTypeJavaEntity = getState().getJavaIndex().lookupInterface(getJavaEntityInterfaceFQN(propertyTypeEntity));
+                if (propertyTypeJavaEntity == null) {
+                    warn("Dynamic entity property '" + property.getName() + "' not read (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                    return false;
+                }
+                readerClassSource.addImport(propertyTypeJavaEntity);
+
+                body.addContext("entityJavaType", propertyTypeJavaEntity.getName());
+                body.addContext("createMethodName", createMethodName(propertyTypeEntity));
+                body.addContext("readMethodName", readMethodName(propertyTypeEntity));
+
+                body.append("if (" + condition + "StreamingReaderUtil.isObject(parser)) {");
+                body.append("    ${entityJavaType} model = (${entityJavaType}) node.${createMethodName}();");
+                body.append("    this.${readMethodName}(parser, model, fieldProjection);");
+                body.append("    node.${addMethodName}(name, model);");
+                body.append("    continue;");
+                body.append("}");
+            } else if (isPrimitive(property)) {
+                String typeName = determineTypeName(property.getType());
+                body.addContext("typeName", typeName);
+
+                if ("Any".equals(typeName) && condition.isEmpty()) {
+                    body.append("node.${addMethodName}(name, StreamingReaderUtil.readAny(parser));");
+                    return true;
+                }
+                if ("Any".equals(typeName)) {
+                    body.append("if (" + condition.substring(0, condition.length() - 4) + ") {");
+                } else {
+                    body.append("if (" + condition + "StreamingReaderUtil.is${typeName}(parser)) {");
+                }
+                body.append("    node.${addMethodName}(name, StreamingReaderUtil.read${typeName}(parser));");
+                body.append("    continue;");
+                body.append("}");
+            } else if (isPrimitiveList(property)) {
+                body.addContext("typeName", determineTypeName(property.getType().getNested().iterator().next()));
+
+                body.append("if (" + condition + "StreamingReaderUtil.isArray(parser)) {");
+                body.append("    node.${addMethodName}(name, StreamingReaderUtil.read${typeName}Array(parser));");
+                body.append("    continue;");
+                body.append("}");
+            } else if (isPrimitiveMap(property)) {
+                body.addContext("typeName", determineTypeName(property.getType().getNested().iterator().next()));
+
+                body.append("if (" + condition + "StreamingReaderUtil.isObject(parser)) {");
+                body.append("    node.${addMethodName}(name, StreamingReaderUtil.read${typeName}Map(parser));");
+                body.append("    continue;");
+                body.append("}");
+            } else {
+                warn("Dynamic property '" + property.getName() + "' not read (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+            }
+            return false;
+        }
+
+        private EntityModel lookupPropertyTypeEntity(PropertyType type) {
+            String entityTypeName = entityModel.getNamespace().fullName() + "." + type.getSimpleType();
+            EntityModel propertyTypeEntity = getState().getConceptIndex().lookupEntity(entityTypeName);
+            if (propertyTypeEntity == null) {
+                PropertyModel property = propertyWithOrigin.getProperty();
+                warn("Property entity type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+            }
+            return propertyTypeEntity;
+        }
+
+        /**
+         * Determines the name used by the StreamingReaderUtil methods for the given primitive type
+         * (e.g. "String" for "isString" and "readString").
+         * @param type
+         */
+        private String determineTypeName(PropertyType type) {
+            Class<?> _class = primitiveTypeToClass(type);
+            if ("ObjectNode".equals(_class.getSimpleName())) {
+                return "Object";
+            } else if ("JsonNode".equals(_class.getSimpleName())) {
+                return "Any";
+            }
+            return _class.getSimpleName();
+        }
+    }
+}
@@ -0,0 +1,614 @@
+package io.apicurio.umg.pipe.java;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jboss.forge.roaster.Roaster;
+import org.jboss.forge.roaster.model.source.JavaClassSource;
+import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
+import org.jboss.forge.roaster.model.source.MethodSource;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.apicurio.umg.beans.SpecificationVersion;
+import io.apicurio.umg.models.concept.EntityModel;
+import io.apicurio.umg.models.concept.NamespaceModel;
+import io.apicurio.umg.models.concept.PropertyModel;
+import io.apicurio.umg.models.concept.PropertyModelWithOrigin;
+import io.apicurio.umg.models.concept.PropertyType;
+import io.apicurio.umg.pipe.StageResource;
+import io.apicurio.umg.pipe.java.method.BodyBuilder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Creates the streaming i/o writer classes.  There is a bespoke streaming writer for each
+ * specification version.  A streaming writer writes the data model directly to a Jackson
+ * {@link JsonGenerator}, without first building a JSON tree.  Properties are written in the
+ * same order, and with the same rules, as the tree based writers created by {@link CreateWritersStage}.
+ *
+ * Streaming writers are only generated when enabled in the generator config.
+ */
+public class CreateStreamingWritersStage extends AbstractJavaStage {
+
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES, StageResource.JAVA_ENTITY_INTERFACES);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_STREAMING_WRITERS);
+    }
+
+    @Override
+    protected void doProcess() {
+        if (!getState().getConfig().isGenerateStreamingWriters()) {
+            return;
+        }
+
+        getState().getSpecIndex().getAllSpecificationVersions().forEach(specVersion -> {
+            createStreamingWriter(specVersion);
+        });
+    }
+
+    /**
+     * Creates a streaming writer for the given spec version.
+     * @param specVersion
+     */
+    private void createStreamingWriter(SpecificationVersion specVersion) {
+        String writerPackageName = getWriterPackageName(specVersion);
+        String writerClassName = getStreamingWriterClassName(specVersion);
+
+        debug("Creating streaming writer: " + writerPackageName + "." + writerClassName);
+
+        // Create java source code for the writer
+        JavaClassSource writerClassSource = Roaster.create(JavaClassSource.class)
+                .setPackage(writerPackageName)
+                .setName(writerClassName)
+                .setPublic();
+        writerClassSource.addImport(getState().getConfig().getRootNamespace() + ".util." + "StreamingWriterUtil");
+        writerClassSource.addImport(IOException.class);
+        writerClassSource.addImport(JsonGenerator.class);
+
+        // Implements the StreamingModelWriter interface
+        JavaInterfaceSource modelWriterInterfaceSource = getState().getJavaIndex().lookupInterface(getStreamingModelWriterInterfaceFQN());
+        writerClassSource.addImport(modelWriterInterfaceSource);
+        writerClassSource.addInterface(modelWriterInterfaceSource);
+
+        // Create the writeXYZ methods - one for each entity
+        specVersion.getEntities().forEach(entity -> {
+            EntityModel entityModel = getState().getConceptIndex().lookupEntity(specVersion.getNamespace() + "." + entity.getName());
+            if (entityModel == null) {
+                warn("Entity model not found for entity: " + entity);
+            } else {
+                createWriteMethodFor(writerClassSource, entityModel);
+
+                // There should be a single root entity in the spec.
+                if (entityModel.isRoot()) {
+                    createWriteRootMethod(writerClassSource, entityModel);
+                }
+            }
+        });
+
+        getState().getJavaIndex().index(writerClassSource);
+    }
+
+    /**
+     * Creates a "writeRoot(node, generator)" method for this writer.
+     * @param writerClassSource
+     * @param entityModel
+     */
+    private void createWriteRootMethod(JavaClassSource writerClassSource, EntityModel entityModel) {
+        JavaInterfaceSource rootNodeInterfaceSource = getState().getJavaIndex().lookupInterface(getRootNodeInterfaceFQN());
+        writerClassSource.addImport(rootNodeInterfaceSource);
+
+        MethodSource<JavaClassSource> writeRootMethodSource = writerClassSource.addMethod()
+                .setName("writeRoot")
+                .setReturnTypeVoid()
+                .setPublic();
+        writeRootMethodSource.addParameter(rootNodeInterfaceSource.getName(), "node");
+        writeRootMethodSource.addParameter("JsonGenerator", "generator");
+        writeRootMethodSource.addThrows(IOException.class);
+        writeRootMethodSource.addAnnotation(Override.class);
+
+        JavaInterfaceSource entitySource = lookupJavaEntity(entityModel);
+        writerClassSource.addImport(entitySource);
+
+        BodyBuilder body = new BodyBuilder();
+        body.addContext("writeMethodName", writeMethodName(entityModel));
+        body.addContext("rootEntityType", entitySource.getName());
+
+        body.append("this.${writeMethodName}((${rootEntityType}) node, generator);");
+        writeRootMethodSource.setBody(body.toString());
+    }
+
+    /**
+     * Creates a single "writeXyz" method for the given entity.  The method writes the entity as a
+     * complete JSON object (from START_OBJECT to END_OBJECT).  A null entity is written as an empty
+     * object, which is what the tree based writer produces for it.
+     *
+     * @param writerClassSource
+     * @param entityModel
+     */
+    private void createWriteMethodFor(JavaClassSource writerClassSource, EntityModel entityModel) {
+        String writeMethodName = writeMethodName(entityModel);
+
+        JavaInterfaceSource javaEntityModel = getState().getJavaIndex().lookupInterface(getJavaEntityInterfaceFQN(entityModel));
+        if (javaEntityModel == null) {
+            warn("Java entity not found for: " + entityModel.fullyQualifiedName());
+            return;
+        }
+
+        writerClassSource.addImport(javaEntityModel.getQualifiedName());
+        MethodSource<JavaClassSource> methodSource = writerClassSource.addMethod()
+                .setName(writeMethodName)
+                .setReturnTypeVoid()
+                .setPublic();
+        methodSource.addParameter(javaEntityModel.getName(), "node");
+        methodSource.addParameter(JsonGenerator.class.getSimpleName(), "generator");
+        methodSource.addThrows(IOException.class);
+
+        // Now create the body content for the writer.
+        BodyBuilder body = new BodyBuilder();
+        body.append("generator.writeStartObject();");
+        body.append("if (node == null) {");
+        body.append("    generator.writeEndObject();");
+        body.append("    return;");
+        body.append("}");
+
+        // Write each property of the entity
+        Collection<PropertyModelWithOrigin> allProperties = getState().getConceptIndex().getAllEntityProperties(entityModel);
+        allProperties.forEach(property -> {
+            CreateWritePropertySnippet cwp = new CreateWritePropertySnippet(property, entityModel, writerClassSource);
+            body.clearContext();
+            cwp.writeTo(body);
+        });
+        // Write "extra" properties
+        body.append("StreamingWriterUtil.writeExtraProperties(node, generator);");
+        body.append("generator.writeEndObject();");
+
+        methodSource.setBody(body.toString());
+    }
+
+    private static String writeMethodName(EntityModel entityModel) {
+        return "write" + StringUtils.capitalize(entityModel.getName());
+    }
+
+    @Data
+    @AllArgsConstructor
+    private class CreateWritePropertySnippet {
+        PropertyModelWithOrigin propertyWithOrigin;
+        EntityModel entityModel;
+        JavaClassSource writerClassSource;
+
+        /**
+         * Generates code to write a property from the data model to the JSON generator.
+         *
+         * @param body
+         */
+        public void writeTo(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            if (isStarProperty(property)) {
+                handleStarProperty(body);
+            } else if (isRegexProperty(property)) {
+                handleRegexProperty(body);
+            } else if (isEntity(property)) {
+                handleEntityProperty(body);
+            } else if (isPrimitive(property)) {
+                handlePrimitiveTypeProperty(body);
+            } else if (property.getType().isList()) {
+                handleListProperty(body);
+            } else if (property.getType().isMap()) {
+                handleMapProperty(body);
+            } else if (property.getType().isUnion()) {
+                handleUnionProperty(body);
+            } else {
+                warn("Entity property '" + property.getName() + "' not written (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+            }
+        }
+
+        private void handleStarProperty(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            if (isEntity(property)) {
+                EntityModel propertyTypeEntity = lookupEntity(property.getType());
+                if (propertyTypeEntity == null) {
+                    warn("STAR Property entity type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
+                    warn("       property type: " + property.getType());
+                    return;
+                }
+                JavaInterfaceSource entityTypeJavaModel = resolveJavaEntity(propertyTypeEntity);
+                if (entityTypeJavaModel == null) {
+                    warn("STAR Entity property '" + property.getName() + "' not written (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                    warn("       property type is entity but not found in JAVA index: " + property.getType());
+                    return;
+                }
+
+                writerClassSource.addImport(Map.class);
+                writerClassSource.addImport(entityTypeJavaModel);
+
+                body.addContext("writeMethodName", writeMethodName(propertyTypeEntity));
+                body.addContext("entityJavaType", entityTypeJavaModel.getName());
+
+                body.append("for (Map.Entry<String, ?> item : node.getItemsView().entrySet()) {");
+                body.append("    generator.writeFieldName(item.getKey());");
+                body.append("    this.${writeMethodName}((${entityJavaType}) item.getValue(), generator);");
+                body.append("}");
+            } else if (isPrimitive(property) || isPrimitiveList(property) || isPrimitiveMap(property)) {
+                writerClassSource.addImport(Map.class);
+
+                body.addContext("valueType", determineValueType(property.getType()));
+                body.addContext("writePropertyMethodName", determineWritePropertyVariant(property.getType()));
+
+                body.append("for (Map.Entry<String, ?> item : node.getItemsView().entrySet()) {");
+                body.append("    StreamingWriterUtil.${writePropertyMethodName}(generator, item.getKey(), (${valueType}) item.getValue());");
+                body.append("}");
+            } else {
+                warn("STAR Entity property '" + property.getName() + "' not written (unhandled) for entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+            }
+        }
+
+        private void handleRegexProperty(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            if (isEntity(property)) {
+                EntityModel propertyTypeEntity = lookupEntity(property.getType());
+                if (propertyTypeEntity == null) {
+                    warn("REGEX Property entity type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
+                    warn("       property type: " + property.getType());
+                    return;
+                }
+                JavaInterfaceSource entityTypeJavaModel = resolveJavaEntity(propertyTypeEntity);
+                if (entityTypeJavaModel == null) {
+                    warn("REGEX Entity property '" + property.getName() + "' not written (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                    warn("       property type is entity but not found in JAVA index: " + property.getType());
+                    return;
+                }
+                JavaInterfaceSource commonEntityTypeJavaModel = resolveCommonJavaEntity(propertyTypeEntity);
+
+                writerClassSource.addImport(Map.class);
+                writerClassSource.addImport(entityTypeJavaModel);
+                writerClassSource.addImport(commonEntityTypeJavaModel);
+
+                body.addContext("mapValueJavaType", entityTypeJavaModel.getName());
+                body.addContext("getterMethodName", getterMethodName(property));
+                body.addContext("writeMethodName", writeMethodName(propertyTypeEntity));
+                body.addContext("mapValueCommonJavaType", commonEntityTypeJavaModel.getName());
+
+                body.append("{");
+                body.append("    Map<String, ? extends ${mapValueCommonJavaType}> models = node.${getterMethodName}();");
+                body.append("    if (models != null && !models.isEmpty()) {");
+                body.append("        for (String propertyName : models.keySet()) {");
+                body.append("            generator.writeFieldName(propertyName);");
+                body.append("            this.${writeMethodName}((${mapValueJavaType}) models.get(propertyName), generator);");
+                body.append("        }");
+                body.append("    }");
+                body.append("}");
+            } else if (isPrimitive(property) || isPrimitiveList(property) || isPrimitiveMap(property)) {
+                writerClassSource.addImport(Map.class);
+
+                body.addContext("valueType", determineValueType(property.getType()));
+                body.addContext("getterMethodName", getterMethodName(property));
+                body.addContext("writePropertyMethodName", determineWritePropertyVariant(property.getType()));
+
+                body.append("{");
+                body.append("    Map<String, ${valueType}> values = node.${getterMethodName}();");
+                body.append("    if (values != null && !values.isEmpty()) {");
+                body.append("        for (String propertyName : values.keySet()) {");
+                body.append("            ${valueType} value = values.get(propertyName);");
+                body.append("            StreamingWriterUtil.${writePropertyMethodName}(generator, propertyName, value);");
+                body.append("        }");
+                body.append("    }");
+                body.append("}");
+            } else {
+                warn("REGEX Entity property '" + property.getName() + "' not written (unhandled) for entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+            }
+        }
+
+        private void handleEntityProperty(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            EntityModel propertyTypeEntity = lookupEntity(property.getType());
+            if (propertyTypeEntity == null) {
+                warn("Property entity type not found for property: '" + property.getName() + "' of entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+                return;
+            }
+            JavaInterfaceSource propertyTypeJavaEntity = resolveJavaEntityType(entityModel.getNamespace(), property);
+            writerClassSource.addImport(propertyTypeJavaEntity);
+
+            body.addContext("propertyName", property.getName());
+            body.addContext("getterMethodName", getterMethodName(property));
+            body.addContext("writeMethodName", writeMethodName(propertyTypeEntity));
+            body.addContext("propertyTypeJavaEntity", propertyTypeJavaEntity.getName());
+
+            body.append("if (node.${getterMethodName}() != null) {");
+            body.append("    generator.writeFieldName(\"${propertyName}\");");
+            body.append("    this.${writeMethodName}((${propertyTypeJavaEntity}) node.${getterMethodName}(), generator);");
+            body.append("}");
+        }
+
+        private void handlePrimitiveTypeProperty(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            body.addContext("writePropertyMethodName", determineWritePropertyVariant(property.getType()));
+            body.addContext("propertyName", property.getName());
+            body.addContext("getterMethodName", getterMethodName(property));
+
+            body.append("StreamingWriterUtil.${writePropertyMethodName}(generator, \"${propertyName}\", node.${getterMethodName}());");
+        }
+
+        private void handleListProperty(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            body.addContext("propertyName", property.getName());
+            body.addContext("getterMethodName", getterMethodName(property));
+
+            PropertyType listValuePropertyType = property.getType().getNested().iterator().next();
+            if (listValuePropertyType.isPrimitiveType()) {
+                body.addContext("writePropertyMethodName", determineWritePropertyVariant(property.getType()));
+
+                body.append("StreamingWriterUtil.${writePropertyMethodName}(generator, \"${propertyName}\", node.${getterMethodName}());");
+            } else if (listValuePropertyType.isEntityType()) {
+                EntityModel entityTypeModel = lookupEntity(listValuePropertyType);
+                if (entityTypeModel == null) {
+                    warn("LIST Entity property '" + property.getName() + "' not written (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                    warn("       property type is entity but not found in index: " + property.getType());
+                    return;
+                }
+                JavaInterfaceSource entityTypeJavaModel = resolveJavaEntity(entityTypeModel);
+                if (entityTypeJavaModel == null) {
+                    warn("LIST Entity property '" + property.getName() + "' not written (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                    warn("       property type is entity but not found in JAVA index: " + property.getType());
+                    return;
+                }
+                JavaInterfaceSource commonEntityTypeJavaModel = resolveCommonJavaEntity(entityTypeModel);
+
+                writerClassSource.addImport(entityTypeJavaModel);
+                writerClassSource.addImport(commonEntityTypeJavaModel);
+                writerClassSource.addImport(List.class);
+
+                body.addContext("listValueJavaType", entityTypeJavaModel.getName());
+                body.addContext("writeMethodName", writeMethodName(entityTypeModel));
+                body.addContext("listValueCommonJavaType", commonEntityTypeJavaModel.getName());
+
+                body.append("{");
+                body.append("    List<? extends ${listValueCommonJavaType}> models = node.${getterMethodName}();");
+                body.append("    if (models != null && !models.isEmpty()) {");
+                body.append("        generator.writeArrayFieldStart(\"${propertyName}\");");
+                body.append("        for (${listValueCommonJavaType} model : models) {");
+                body.append("            this.${writeMethodName}((${listValueJavaType}) model, generator);");
+                body.append("        }");
+                body.append("        generator.writeEndArray();");
+                body.append("    }");
+                body.append("}");
+            } else {
+                warn("LIST Entity property '" + property.getName() + "' not written (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+            }
+        }
+
+        private void handleMapProperty(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            body.addContext("propertyName", property.getName());
+            body.addContext("getterMethodName", getterMethodName(property));
+
+            PropertyType mapValuePropertyType = property.getType().getNested().iterator().next();
+            if (mapValuePropertyType.isPrimitiveType()) {
+                body.addContext("writePropertyMethodName", determineWritePropertyVariant(property.getType()));
+
+                body.append("StreamingWriterUtil.${writePropertyMethodName}(generator, \"${propertyName}\", node.${getterMethodName}());");
+            } else if (mapValuePropertyType.isEntityType()) {
+                EntityModel entityTypeModel = lookupEntity(mapValuePropertyType);
+                if (entityTypeModel == null) {
+                    warn("MAP Entity property '" + property.getName() + "' not written (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                    warn("       property type is entity but not found in index: " + property.getType());
+                    return;
+                }
+                JavaInterfaceSource entityTypeJavaModel = resolveJavaEntity(entityTypeModel);
+                if (entityTypeJavaModel == null) {
+                    warn("MAP Entity property '" + property.getName() + "' not written (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                    warn("       property type is entity but not found in JAVA index: " + property.getType());
+                    return;
+                }
+                JavaInterfaceSource commonEntityTypeJavaModel = resolveCommonJavaEntity(entityTypeModel);
+
+                writerClassSource.addImport(Map.class);
+                writerClassSource.addImport(entityTypeJavaModel);
+                writerClassSource.addImport(commonEntityTypeJavaModel);
+
+                body.addContext("mapValueJavaType", entityTypeJavaModel.getName());
+                body.addContext("writeMethodName", writeMethodName(entityTypeModel));
+                body.addContext("mapValueCommonJavaType", commonEntityTypeJavaModel.getName());
+
+                body.append("{");
+                body.append("    Map<String, ? extends ${mapValueCommonJavaType}> models = node.${getterMethodName}();");
+                body.append("    if (models != null && !models.isEmpty()) {");
+                body.append("        generator.writeObjectFieldStart(\"${propertyName}\");");
+                body.append("        for (String jsonName : models.keySet()) {");
+                body.append("            generator.writeFieldName(jsonName);");
+                body.append("            this.${writeMethodName}((${mapValueJavaType}) models.get(jsonName), generator);");
+                body.append("        }");
+                body.append("        generator.writeEndObject();");
+                body.append("    }");
+                body.append("}");
+            } else {
+                warn("MAP Entity property '" + property.getName() + "' not written (unsupported) for entity: " + entityModel.fullyQualifiedName());
+                warn("       property type: " + property.getType());
+            }
+        }
+
+        private void handleUnionProperty(BodyBuilder body) {
+            PropertyModel property = propertyWithOrigin.getProperty();
+            NamespaceModel nsContext = propertyWithOrigin.getOrigin().getNamespace();
+            UnionPropertyType ut = new UnionPropertyType(property.getType());
+
+            body.addContext("unionJavaType", ut.toJavaTypeString());
+            body.addContext("propertyName", property.getName());
+            body.addContext("getterMethodName", getterMethodName(property));
+
+            body.append("{");
+            body.append("    ${unionJavaType} union = node.${getterMethodName}();");
+            body.append("    if (union != null) {");
+
+            ut.getNestedTypes().forEach(nestedType -> {
+                String typeName = getTypeName(nestedType);
+                JavaType jt = new JavaType(nestedType, nsContext);
+
+                body.addContext("isMethodName", "is" + typeName);
+                body.addContext("asMethodName", "as" + typeName);
+
+                body.append("        if (union.${isMethodName}()) {");
+
+                if (jt.isPrimitive() || jt.isPrimitiveList() || jt.isPrimitiveMap()) {
+                    body.addContext("writePropertyMethodName", determineWritePropertyVariant(nestedType));
+
+                    body.append("            StreamingWriterUtil.${writePropertyMethodName}(generator, \"${propertyName}\", union.${asMethodName}());");
+                } else if (jt.isEntity()) {
+                    EntityModel propertyTypeEntity = lookupEntity(nestedType);
+                    if (propertyTypeEntity == null) {
+                        warn("UNION Entity property '" + property.getName() + "' not fully written for entity: " + entityModel.fullyQualifiedName());
+                        warn("       property union type contains entity but not found in index: " + nestedType);
+                    } else {
+                        JavaInterfaceSource propertyTypeJavaEntity = resolveJavaEntityType(entityModel.getNamespace(), nestedType);
+                        writerClassSource.addImport(propertyTypeJavaEntity);
+
+                        body.addContext("writeMethodName", writeMethodName(propertyTypeEntity));
+                        body.addContext("propertyTypeJavaEntity", propertyTypeJavaEntity.getName());
+
+                        body.append("            generator.writeFieldName(\"${propertyName}\");");
+                        body.append("            this.${writeMethodName}((${propertyTypeJavaEntity}) union.${asMethodName}(), generator);");
+                    }
+                } else if (jt.isEntityList() || jt.isEntityMap()) {
+                    PropertyType valuePropertyType = jt.isEntityList() ? nestedType.getNested().iterator().next() : nestedType;
+                    EntityModel entityTypeModel = lookupEntity(valuePropertyType);
+                    JavaInterfaceSource entityTypeJavaModel = entityTypeModel == null ? null : resolveJavaEntity(entityTypeModel);
+                    if (entityTypeJavaModel == null) {
+                        warn("UNION Entity property '" + property.getName() + "' not fully written for entity: " + entityModel.fullyQualifiedName());
+                        warn("       property union type contains entity but not found in index: " + nestedType);
+                    } else {
+                        JavaInterfaceSource commonEntityTypeJavaModel = resolveCommonJavaEntity(entityTypeModel);
+
+                        writerClassSource.addImport(entityTypeJavaModel);
+                        writerClassSource.addImport(commonEntityTypeJavaModel);
+
+                        body.addContext("valueJavaType", entityTypeJavaModel.getName());
+                        body.addContext("valueCommonJavaType", commonEntityTypeJavaModel.getName());
+                        body.addContext("writeMethodName", writeMethodName(entityTypeModel));
+
+                        if (jt.isEntityList()) {
+                            writerClassSource.addImport(List.class);
+
+                            body.append("            List<? extends ${valueCommonJavaType}> models = union.${asMethodName}();");
+                            body.append("            generator.writeArrayFieldStart(\"${propertyName}\");");
+                            body.append("            for (${valueCommonJavaType} model : models) {");
+                            body.append("                this.${writeMethodName}((${valueJavaType}) model, generator);");
+                            body.append("            }");
+                            body.append("            generator.writeEndArray();");
+                        } else {
+                            writerClassSource.addImport(Map.class);
+
+                            body.append("            Map<String, ? extends ${valueCommonJavaType}> models = union.${asMethodName}();");
+                            body.append("            generator.writeObjectFieldStart(\"${propertyName}\");");
+                            body.append("            for (String jsonName : models.keySet()) {");
+                            body.append("                generator.writeFieldName(jsonName);");
+                            body.append("                this.${writeMethodName}((${valueJavaType}) models.get(jsonName), generator);");
+                            body.append("            }");
+                            body.append("            generator.writeEndObject();");
+                        }
+                    }
+                } else {
+                    warn("Nested union type (of property '" + property.getName() + "') not supported: " + nestedType);
+                }
+
+                body.append("        }");
+            });
+
+            body.append("    }");
+            body.append("}");
+
+            ut.addImportsTo(writerClassSource);
+        }
+
+        private EntityModel lookupEntity(PropertyType type) {
+            return getState().getConceptIndex().lookupEntity(entityModel.getNamespace().fullName() + "." + type.getSimpleType());
+        }
+
+        /**
+         * Figure out which variant of "writeXyzProperty" from "StreamingWriterUtil" we should use
+         * for this property.  The property might be a primitive type, or a list/map of primitive
+         * types.
+         *
+         * @param type
+         */
+        private String determineWritePropertyVariant(PropertyType type) {
+            String suffix = "Property";
+            PropertyType valueType = type;
+            if (type.isList()) {
+                suffix = "ArrayProperty";
+                valueType = type.getNested().iterator().next();
+            } else if (type.isMap()) {
+                suffix = "MapProperty";
+                valueType = type.getNested().iterator().next();
+            }
+
+            if (valueType.isPrimitiveType()) {
+                Class<?> _class = primitiveTypeToClass(valueType);
+                if (ObjectNode.class.equals(_class)) {
+                    writerClassSource.addImport(_class);
+                    return "writeObject" + suffix;
+                } else if (JsonNode.class.equals(_class)) {
+                    writerClassSource.addImport(_class);
+                    return "writeAny" + suffix;
+                } else if (_class != null) {
+                    return "write" + _class.getSimpleName() + suffix;
+                }
+            }
+
+            PropertyModel property = propertyWithOrigin.getProperty();
+            warn("Unable to determine value type for: " + property);
+            return "writeProperty";
+        }
+
+        /**
+         * Determines the Java data type of the given property.
+         *
+         * @param type
+         */
+        private String determineValueType(PropertyType type) {
+            if (type.isPrimitiveType()) {
+                Class<?> _class = primitiveTypeToClass(type);
+                if (_class != null) {
+                    writerClassSource.addImport(_class);
+                    return _class.getSimpleName();
+                }
+            }
+
+            if (type.isList() || type.isMap()) {
+                PropertyType nestedType = type.getNested().iterator().next();
+                if (nestedType.isPrimitiveType()) {
+                    Class<?> _class = primitiveTypeToClass(nestedType);
+                    if (_class != null) {
+                        writerClassSource.addImport(_class);
+                        if (type.isList()) {
+                            writerClassSource.addImport(List.class);
+                            return "List<" + _class.getSimpleName() + ">";
+                        }
+                        writerClassSource.addImport(Map.class);
+                        return "Map<String, " + _class.getSimpleName() + ">";
+                    }
+                }
+            }
+
+            PropertyModel property = propertyWithOrigin.getProperty();
+            warn("Unable to determine value type for: " + property);
+            return "Object";
+        }
+    }
+}
@@ -245,6 +245,7 @@ public class CreateTestFixturesStage extends AbstractStage {
         try {
             PrettyPrinter pp = new PrettyPrinter();
             mapper.writer(pp).writeValue(fixtureFile, allJson);
+            getState().getOutputFiles().add(fixtureFile);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
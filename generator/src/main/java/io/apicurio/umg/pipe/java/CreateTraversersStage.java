@@ -1,11 +1,19 @@
 package io.apicurio.umg.pipe.java;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import org.jboss.forge.roaster.Roaster;
@@ -17,16 +25,31 @@ import org.jboss.forge.roaster.model.source.ParameterSource;
 import io.apicurio.umg.beans.SpecificationVersion;
 import io.apicurio.umg.models.concept.EntityModel;
 import io.apicurio.umg.models.concept.PropertyModel;
+import io.apicurio.umg.models.concept.PropertyType;
 import io.apicurio.umg.models.concept.VisitorModel;
+import io.apicurio.umg.pipe.StageResource;
 import io.apicurio.umg.pipe.java.method.BodyBuilder;
 
 /**
  * Creates a traverser for each specification visitor interface.  A traverser is a visitor that
- * knows how to traverse the data model.
+ * knows how to traverse the data model.  Also creates, for each traverser, a pruning traverser
+ * that skips the properties under which none of the entity types handled by its visitor can be
+ * found (see the VISIT_METHODS and REACHABLE_TYPES tables generated in each traverser), and a
+ * parallel traverser that traverses large collections in fork-join tasks.
  * @author eric.wittmann@gmail.com
  */
 public class CreateTraversersStage extends AbstractVisitorStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES, StageResource.JAVA_ENTITY_INTERFACES, StageResource.JAVA_VISITORS, StageResource.JAVA_VISITOR_ADAPTERS);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_TRAVERSERS);
+    }
+
     @Override
     protected void doProcess() {
         // Create a visitor adapter for each spec version visitor
@@ -86,6 +109,10 @@ public class CreateTraversersStage extends AbstractVisitorStage {
             });
         }
 
+        // Each entity type handled by the visitor is identified by the index of its visit method.
+        List<String> visitMethodNames = methodsToImplement.stream().map(method -> method.getName()).collect(Collectors.toList());
+        Reachability reachability = new Reachability(specVer.getNamespace(), visitMethodNames);
+
         // Now create a traversing implementation for each visit method.
         methodsToImplement.forEach(method -> {
             MethodSource<JavaClassSource> methodSource = traverserSource.addMethod()
@@ -103,15 +130,120 @@ public class CreateTraversersStage extends AbstractVisitorStage {
             String entityName = method.getName().replace("visit", "");
             EntityModel entityModel = getState().getConceptIndex().lookupEntity(entityNamespace, entityName);
 
-            String body = createTraversalMethodBody(entityModel, traverserSource);
+            String body = createTraversalMethodBody(entityModel, traverserSource, reachability);
             methodSource.setBody(body);
         });
 
+        // Add the reachability tables used for pruning
+        traverserSource.addField()
+                .setName("VISIT_METHODS")
+                .setType("String[]")
+                .setProtected()
+                .setStatic(true)
+                .setFinal(true)
+                .setLiteralInitializer(visitMethodNames.stream().map(name -> "\"" + name + "\"").collect(Collectors.joining(", ", "{ ", " }")));
+        traverserSource.addField()
+                .setName("REACHABLE_TYPES")
+                .setType("int[][]")
+                .setProtected()
+                .setStatic(true)
+                .setFinal(true)
+                .setLiteralInitializer(reachability.sites.stream().map(types -> types.stream().map(String::valueOf).collect(Collectors.joining(", ", "{ ", " }"))).collect(Collectors.joining(", ", "{ ", " }")));
+
         // Index the new class
         getState().getJavaIndex().index(traverserSource);
+
+        createPruningTraverser(specVer, visitor, traverserSource);
+        createParallelTraverser(specVer, traverserSource);
     }
 
-    private String createTraversalMethodBody(EntityModel entityModel, JavaClassSource traverserSource) {
+    /**
+     * Creates the pruning variant of the given traverser: a subclass that prunes the traversal
+     * according to the visit methods the visitor does not inherit from one of the visitor adapters.
+     * @param specVer
+     * @param visitor
+     * @param traverserSource
+     */
+    private void createPruningTraverser(SpecificationVersion specVer, VisitorModel visitor, JavaClassSource traverserSource) {
+        String pruningTraverserClassName = specVer.getPrefix() + "PruningTraverser";
+
+        debug("Creating pruning traverser: " + pruningTraverserClassName);
+
+        JavaClassSource pruningTraverserSource = Roaster.create(JavaClassSource.class)
+                .setPackage(traverserSource.getPackage())
+                .setName(pruningTraverserClassName)
+                .setPublic();
+        pruningTraverserSource.extendSuperType(traverserSource);
+
+        // The adapters of the visitor and of its ancestors (those that exist)
+        List<String> adapterClassNames = new ArrayList<>();
+        for (VisitorModel v = visitor; v != null; v = v.getParent()) {
+            String visitorPackageName = getVisitorInterfacePackageName(v);
+            String visitorPrefix = getVisitorInterfacePrefix(v);
+            for (String adapterPrefix : List.of(visitorPrefix, "Combined" + visitorPrefix)) {
+                JavaClassSource adapterSource = getState().getJavaIndex().lookupClass(visitorPackageName + "." + adapterPrefix + "VisitorAdapter");
+                if (adapterSource != null) {
+                    pruningTraverserSource.addImport(adapterSource);
+                    adapterClassNames.add(adapterSource.getName() + ".class");
+                }
+            }
+        }
+
+        JavaInterfaceSource rootVisitorJavaInterface = getState().getJavaIndex().lookupInterface(getRootVisitorInterfaceFQN());
+        pruningTraverserSource.addImport(rootVisitorJavaInterface);
+        MethodSource<JavaClassSource> constructor = pruningTraverserSource.addMethod().setConstructor(true).setPublic();
+        constructor.addParameter(rootVisitorJavaInterface.getName(), "visitor");
+
+        BodyBuilder body = new BodyBuilder();
+        body.addContext("adapterClasses", adapterClassNames.stream().map(name -> ", " + name).collect(Collectors.joining()));
+        body.append("super(visitor);");
+        body.append("this.prune(VISIT_METHODS, REACHABLE_TYPES${adapterClasses});");
+        constructor.setBody(body.toString());
+
+        getState().getJavaIndex().index(pruningTraverserSource);
+    }
+
+    /**
+     * Creates the parallel variant of the given traverser: a subclass that traverses the items of
+     * large collections in fork-join tasks (for visitors that implement ParallelVisitor).
+     * @param specVer
+     * @param traverserSource
+     */
+    private void createParallelTraverser(SpecificationVersion specVer, JavaClassSource traverserSource) {
+        String parallelTraverserClassName = specVer.getPrefix() + "ParallelTraverser";
+
+        debug("Creating parallel traverser: " + parallelTraverserClassName);
+
+        JavaClassSource parallelTraverserSource = Roaster.create(JavaClassSource.class)
+                .setPackage(traverserSource.getPackage())
+                .setName(parallelTraverserClassName)
+                .setPublic();
+        parallelTraverserSource.extendSuperType(traverserSource);
+
+        JavaInterfaceSource rootVisitorJavaInterface = getState().getJavaIndex().lookupInterface(getRootVisitorInterfaceFQN());
+        parallelTraverserSource.addImport(rootVisitorJavaInterface);
+        parallelTraverserSource.addImport(ForkJoinPool.class);
+
+        // Traverse in parallel using the common pool by default
+        MethodSource<JavaClassSource> constructor = parallelTraverserSource.addMethod().setConstructor(true).setPublic();
+        constructor.addParameter(rootVisitorJavaInterface.getName(), "visitor");
+        constructor.setBody("this(visitor, ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD);");
+
+        constructor = parallelTraverserSource.addMethod().setConstructor(true).setPublic();
+        constructor.addParameter(rootVisitorJavaInterface.getName(), "visitor");
+        constructor.addParameter(ForkJoinPool.class.getSimpleName(), "pool");
+        constructor.addParameter("int", "threshold");
+
+        BodyBuilder body = new BodyBuilder();
+        body.addContext("parallelTraverserClassName", parallelTraverserClassName);
+        body.append("super(visitor);");
+        body.append("this.parallelize(pool, threshold, forked -> new ${parallelTraverserClassName}(forked, pool, threshold));");
+        constructor.setBody(body.toString());
+
+        getState().getJavaIndex().index(parallelTraverserSource);
+    }
+
+    private String createTraversalMethodBody(EntityModel entityModel, JavaClassSource traverserSource, Reachability reachability) {
         JavaInterfaceSource javaEntity = lookupJavaEntity(entityModel);
 
         BodyBuilder body = new BodyBuilder();
@@ -133,6 +265,13 @@ public class CreateTraversersStage extends AbstractVisitorStage {
             body.addContext("propertyName", property.getName());
             body.addContext("propertyGetter", getterMethodName(property));
 
+            // Guard the traversal of the property with its reachability (unless unknown)
+            int site = reachability.addSite(property.getType());
+            if (site >= 0) {
+                body.addContext("site", String.valueOf(site));
+                body.append("if (this.canTraverse(${site})) {");
+            }
+
             if (isEntity(property)) {
                 if (isStarProperty(_property)) {
                     body.append("this.traverseMappedNode(model);");
@@ -150,9 +289,102 @@ public class CreateTraversersStage extends AbstractVisitorStage {
             } else {
                 warn("Unhandled property in traverser: " + property);
             }
+
+            if (site >= 0) {
+                body.append("}");
+            }
         });
 
         return body.toString();
     }
 
+    /**
+     * Computes, for the properties traversed by a traverser (its traversal sites), which of the
+     * entity types of the spec version can be reached under them.
+     */
+    private class Reachability {
+
+        private final String namespace;
+        private final Map<String, Integer> typeIndexes = new HashMap<>();
+        private final Map<String, Set<Integer>> reachableTypes = new HashMap<>();
+        private final List<Set<Integer>> sites = new ArrayList<>();
+
+        Reachability(String namespace, List<String> visitMethodNames) {
+            this.namespace = namespace;
+            for (int idx = 0; idx < visitMethodNames.size(); idx++) {
+                typeIndexes.put(visitMethodNames.get(idx).replace("visit", ""), idx);
+            }
+        }
+
+        /**
+         * Adds a traversal site for a property of the given type, returning its index (or -1 if
+         * the entity types reachable under it are not known, in which case it is always traversed).
+         * @param type
+         */
+        int addSite(PropertyType type) {
+            Set<Integer> types = reachableTypes(entityTypes(type));
+            if (types == null) {
+                return -1;
+            }
+            sites.add(types);
+            return sites.size() - 1;
+        }
+
+        /**
+         * Returns the indexes of the given entity types and of all the types reachable under them,
+         * or null if one of them is unknown.
+         */
+        private Set<Integer> reachableTypes(Collection<String> entityNames) {
+            Set<Integer> types = new TreeSet<>();
+            for (String entityName : entityNames) {
+                Set<Integer> reachable = reachableTypes(entityName);
+                if (reachable == null) {
+                    return null;
+                }
+                types.addAll(reachable);
+            }
+            return types;
+        }
+
+        private Set<Integer> reachableTypes(String entityName) {
+            if (reachableTypes.containsKey(entityName)) {
+                return reachableTypes.get(entityName);
+            }
+            Set<Integer> types = new TreeSet<>();
+            Set<String> visited = new HashSet<>();
+            Deque<String> queue = new ArrayDeque<>();
+            queue.add(entityName);
+            visited.add(entityName);
+            while (types != null && !queue.isEmpty()) {
+                String name = queue.poll();
+                EntityModel entityModel = getState().getConceptIndex().lookupEntity(namespace, name);
+                Integer typeIndex = typeIndexes.get(name);
+                if (entityModel == null || typeIndex == null) {
+                    types = null;
+                } else {
+                    types.add(typeIndex);
+                    getState().getConceptIndex().getAllEntityProperties(entityModel).forEach(property -> {
+                        entityTypes(property.getProperty().getType()).stream().filter(visited::add).forEach(queue::add);
+                    });
+                }
+            }
+            reachableTypes.put(entityName, types);
+            return types;
+        }
+
+        /**
+         * Returns the names of the entity types in the given property type (including those
+         * nested in collections and unions).
+         */
+        private Set<String> entityTypes(PropertyType type) {
+            Set<String> entityNames = new HashSet<>();
+            if (type.isEntityType()) {
+                entityNames.add(type.getSimpleType());
+            } else if (type.getNested() != null) {
+                type.getNested().forEach(nested -> entityNames.addAll(entityTypes(nested)));
+            }
+            return entityNames;
+        }
+    }
+
 }
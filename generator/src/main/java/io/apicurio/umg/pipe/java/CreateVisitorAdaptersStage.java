@@ -1,6 +1,7 @@
 package io.apicurio.umg.pipe.java;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -13,6 +14,7 @@ import org.jboss.forge.roaster.model.source.MethodSource;
 import org.jboss.forge.roaster.model.source.ParameterSource;
 
 import io.apicurio.umg.models.concept.VisitorModel;
+import io.apicurio.umg.pipe.StageResource;
 
 /**
  * Creates an adapter for each visitor interface.  An adapter is just a class that implements
@@ -21,6 +23,16 @@ import io.apicurio.umg.models.concept.VisitorModel;
  */
 public class CreateVisitorAdaptersStage extends AbstractVisitorStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_ENTITY_INTERFACES, StageResource.JAVA_VISITORS);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_VISITOR_ADAPTERS);
+    }
+
     private static final String TYPE_NORMAL = "normal";
     private static final String TYPE_COMBINED = "combined";
 
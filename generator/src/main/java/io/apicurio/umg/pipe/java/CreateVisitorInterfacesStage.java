@@ -1,11 +1,15 @@
 package io.apicurio.umg.pipe.java;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.jboss.forge.roaster.Roaster;
 import org.jboss.forge.roaster.model.source.JavaInterfaceSource;
 import org.jboss.forge.roaster.model.source.MethodSource;
 
 import io.apicurio.umg.models.concept.EntityModel;
 import io.apicurio.umg.models.concept.VisitorModel;
+import io.apicurio.umg.pipe.StageResource;
 
 /**
  * Creates the visitor interfaces.  There is hierarchy of visitors that is similar to the
@@ -17,6 +21,16 @@ import io.apicurio.umg.models.concept.VisitorModel;
  */
 public class CreateVisitorInterfacesStage extends AbstractVisitorStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_ENTITY_INTERFACES);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_VISITORS);
+    }
+
     @Override
     protected void doProcess() {
         getState().getConceptIndex().findVisitors("").stream().filter(visitor -> visitor.getParent() == null).forEach(visitor -> {
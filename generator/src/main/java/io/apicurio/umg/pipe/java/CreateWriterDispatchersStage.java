@@ -1,6 +1,7 @@
 package io.apicurio.umg.pipe.java;
 
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -16,6 +17,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import io.apicurio.umg.beans.SpecificationVersion;
 import io.apicurio.umg.models.concept.VisitorModel;
+import io.apicurio.umg.pipe.StageResource;
 import io.apicurio.umg.pipe.java.method.BodyBuilder;
 
 /**
@@ -26,6 +28,16 @@ import io.apicurio.umg.pipe.java.method.BodyBuilder;
  */
 public class CreateWriterDispatchersStage extends AbstractVisitorStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_ENTITY_INTERFACES, StageResource.JAVA_VISITORS, StageResource.JAVA_WRITERS);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_WRITER_DISPATCHERS);
+    }
+
     @Override
     protected void doProcess() {
         // Create a visitor adapter for each spec version visitor
@@ -1,5 +1,8 @@
 package io.apicurio.umg.pipe.java;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import org.jboss.forge.roaster.Roaster;
 import org.jboss.forge.roaster.model.source.JavaClassSource;
 import org.jboss.forge.roaster.model.source.JavaEnumSource;
@@ -8,6 +11,7 @@ import org.jboss.forge.roaster.model.source.MethodSource;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
+import io.apicurio.umg.pipe.StageResource;
 import io.apicurio.umg.pipe.java.method.BodyBuilder;
 
 /**
@@ -18,6 +22,16 @@ import io.apicurio.umg.pipe.java.method.BodyBuilder;
  */
 public class CreateWriterFactoryStage extends AbstractJavaStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES, StageResource.JAVA_WRITERS, StageResource.JAVA_STREAMING_WRITERS, StageResource.JAVA_WRITER_DISPATCHERS);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_WRITER_FACTORY);
+    }
+
     @Override
     protected void doProcess() {
         String writerFactoryPackageName = getState().getConfig().getRootNamespace() + ".io";
@@ -31,6 +45,9 @@ public class CreateWriterFactoryStage extends AbstractJavaStage {
 
         createWriterFactoryMethod(writerClassSource);
         createWriterDispatcherFactoryMethod(writerClassSource);
+        if (getState().getConfig().isGenerateStreamingWriters()) {
+            createStreamingWriterFactoryMethod(writerClassSource);
+        }
 
         getState().getJavaIndex().index(writerClassSource);
     }
@@ -68,6 +85,38 @@ public class CreateWriterFactoryStage extends AbstractJavaStage {
         factoryMethodSource.setBody(body.toString());
     }
 
+    private void createStreamingWriterFactoryMethod(JavaClassSource writerClassSource) {
+        JavaEnumSource modelTypeSource = getState().getJavaIndex().lookupEnum(getModelTypeEnumFQN());
+        writerClassSource.addImport(modelTypeSource);
+        JavaInterfaceSource modelWriterSource = getState().getJavaIndex().lookupInterface(getStreamingModelWriterInterfaceFQN());
+        writerClassSource.addImport(modelWriterSource);
+
+        MethodSource<JavaClassSource> factoryMethodSource = writerClassSource.addMethod()
+                .setName("createStreamingModelWriter").setPublic().setStatic(true);
+        factoryMethodSource.setReturnType(modelWriterSource);
+        factoryMethodSource.addParameter(modelTypeSource.getName(), "modelType");
+
+        BodyBuilder body = new BodyBuilder();
+        body.append("StreamingModelWriter writer = null;");
+        body.append("switch (modelType) {");
+        getState().getSpecIndex().getAllSpecificationVersions().forEach(specVersion -> {
+            String specModelWriterFQN = getWriterPackageName(specVersion) + "." + getStreamingWriterClassName(specVersion);
+            JavaClassSource specModelWriterSource = getState().getJavaIndex().lookupClass(specModelWriterFQN);
+            writerClassSource.addImport(specModelWriterSource);
+
+            String modelTypeValue = prefixToModelType(specVersion.getPrefix());
+            body.addContext("modelTypeValue", modelTypeValue);
+            body.addContext("modelWriterClassName", specModelWriterSource.getName());
+
+            body.append("    case ${modelTypeValue}:");
+            body.append("        writer = new ${modelWriterClassName}();");
+            body.append("        break;");
+        });
+        body.append("}");
+        body.append("return writer;");
+        factoryMethodSource.setBody(body.toString());
+    }
+
     private void createWriterDispatcherFactoryMethod(JavaClassSource writerClassSource) {
         JavaEnumSource modelTypeSource = getState().getJavaIndex().lookupEnum(getModelTypeEnumFQN());
         writerClassSource.addImport(modelTypeSource);
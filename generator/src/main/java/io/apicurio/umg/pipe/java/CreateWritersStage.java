@@ -1,8 +1,10 @@
 package io.apicurio.umg.pipe.java;
 
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jboss.forge.roaster.Roaster;
@@ -20,6 +22,7 @@ import io.apicurio.umg.models.concept.NamespaceModel;
 import io.apicurio.umg.models.concept.PropertyModel;
 import io.apicurio.umg.models.concept.PropertyModelWithOrigin;
 import io.apicurio.umg.models.concept.PropertyType;
+import io.apicurio.umg.pipe.StageResource;
 import io.apicurio.umg.pipe.java.method.BodyBuilder;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -32,6 +35,16 @@ import lombok.Data;
  */
 public class CreateWritersStage extends AbstractJavaStage {
 
+    @Override
+    public Set<StageResource> reads() {
+        return EnumSet.of(StageResource.CONCEPT_MODEL, StageResource.SPEC_INDEX, StageResource.JAVA_BASE_TYPES, StageResource.JAVA_ENTITY_INTERFACES);
+    }
+
+    @Override
+    public Set<StageResource> writes() {
+        return EnumSet.of(StageResource.JAVA_WRITERS);
+    }
+
     @Override
     protected void doProcess() {
         getState().getSpecIndex().getAllSpecificationVersions().forEach(specVersion -> {
@@ -238,33 +251,23 @@ public class CreateWritersStage extends AbstractJavaStage {
                     return;
                 }
 
-                writerClassSource.addImport(List.class);
                 writerClassSource.addImport(entityTypeJavaModel);
 
                 body.addContext("writeMethodName", writeMethodName(propertyTypeEntity));
                 body.addContext("entityJavaType", entityTypeJavaModel.getName());
 
-                body.append("{");
-                body.append("    List<String> propertyNames = node.getItemNames();");
-                body.append("    propertyNames.forEach(propertyName -> {");
-                body.append("        ObjectNode object = JsonUtil.objectNode();");
-                body.append("        this.${writeMethodName}((${entityJavaType}) node.getItem(propertyName), object);");
-                body.append("        JsonUtil.setObjectProperty(json, propertyName, object);");
-                body.append("    });");
-                body.append("}");
+                body.append("node.forEachItem((propertyName, item) -> {");
+                body.append("    ObjectNode object = JsonUtil.objectNode();");
+                body.append("    this.${writeMethodName}((${entityJavaType}) item, object);");
+                body.append("    JsonUtil.setObjectProperty(json, propertyName, object);");
+                body.append("});");
             } else if (isPrimitive(property) || isPrimitiveList(property) || isPrimitiveMap(property)) {
-                writerClassSource.addImport(List.class);
-
                 body.addContext("valueType", determineValueType(property.getType()));
                 body.addContext("setPropertyMethodName", determineSetPropertyVariant(property.getType()));
 
-                body.append("{");
-                body.append("    List<String> propertyNames = node.getItemNames();");
-                body.append("    propertyNames.forEach(propertyName -> {");
-                body.append("        ${valueType} value = node.getItem(propertyName);");
-                body.append("        JsonUtil.${setPropertyMethodName}(json, propertyName, value);");
-                body.append("    });");
-                body.append("}");
+                body.append("node.forEachItem((propertyName, value) -> {");
+                body.append("    JsonUtil.${setPropertyMethodName}(json, propertyName, (${valueType}) value);");
+                body.append("});");
             } else {
                 warn("STAR Entity property '" + property.getName() + "' not written (unhandled) for entity: " + entityModel.fullyQualifiedName());
                 warn("       property type: " + property.getType());
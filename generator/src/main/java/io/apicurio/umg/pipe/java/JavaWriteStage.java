@@ -2,25 +2,125 @@ package io.apicurio.umg.pipe.java;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.jboss.forge.roaster.model.source.JavaSource;
 
 import io.apicurio.umg.pipe.AbstractStage;
 
+/**
+ * Writes all generated java sources to the output directory.
+ *
+ * When "write if changed" is enabled in the generator config, a source is only written when its
+ * content differs from the file already on disk.  Unchanged files keep their timestamps, so that
+ * incremental compilers (and IDEs) only recompile what actually changed.  The list of generated
+ * files is then recorded in the output directory, and any file that an earlier run generated but
+ * this run did not is deleted.  Other files in the output directory (e.g. hand-written sources) are
+ * never touched.
+ *
+ * When "parallel write" is enabled, the sources are rendered (formatted) and written on a
+ * bounded thread pool rather than one after another.
+ */
 public class JavaWriteStage extends AbstractStage {
 
+    public static final String GENERATED_FILES_LIST_NAME = ".umg-generated-files";
+
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+
     @Override
     protected void doProcess() {
-        getState().getJavaIndex().getClasses().values().forEach(_class -> {
-            writeToFile(_class, getState().getConfig().getOutputDirectory());
-        });
-        getState().getJavaIndex().getInterfaces().values().forEach(_interface -> {
-            writeToFile(_interface, getState().getConfig().getOutputDirectory());
-        });
-        getState().getJavaIndex().getEnums().values().forEach(_enum -> {
-            writeToFile(_enum, getState().getConfig().getOutputDirectory());
-        });
+        File outputDirectory = getState().getConfig().getOutputDirectory();
+
+        // Sorted, so that the order in which sources are written (and errors are reported) is stable.
+        List<JavaSource<?>> sources = new ArrayList<>();
+        sources.addAll(getState().getJavaIndex().getClasses().values());
+        sources.addAll(getState().getJavaIndex().getInterfaces().values());
+        sources.addAll(getState().getJavaIndex().getEnums().values());
+        sources.sort(Comparator.comparing(JavaSource::getCanonicalName));
+
+        Set<File> generatedFiles;
+        if (getState().getConfig().isParallelWrite()) {
+            generatedFiles = writeAllParallel(sources, outputDirectory);
+        } else {
+            generatedFiles = new HashSet<>();
+            for (JavaSource<?> source : sources) {
+                generatedFiles.add(writeToFile(source, outputDirectory));
+            }
+        }
+
+        getState().getOutputFiles().addAll(generatedFiles);
+
+        if (isWriteIfChanged()) {
+            Set<String> generatedPaths = new TreeSet<>();
+            generatedFiles.forEach(file -> generatedPaths.add(relativePath(outputDirectory, file)));
+            int deleted = deleteStaleFiles(outputDirectory, generatedPaths);
+            writeGeneratedFilesList(outputDirectory, generatedPaths);
+            info("Wrote %d java files (%d unchanged, %d stale files deleted).", written.get(), unchanged.get(), deleted);
+        }
+    }
+
+    /**
+     * Renders and writes all of the given sources using a fixed size thread pool (one thread per
+     * available processor).  Formatting a source is CPU bound and independent of all others.
+     * All sources are attempted, even if some of them fail - failures are then reported together,
+     * in source order.
+     * @param sources
+     * @param outputDirectory
+     */
+    private Set<File> writeAllParallel(List<JavaSource<?>> sources, File outputDirectory) {
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), Math.max(sources.size(), 1));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<File>> futures = new ArrayList<>(sources.size());
+            for (JavaSource<?> source : sources) {
+                futures.add(executor.submit(() -> writeToFile(source, outputDirectory)));
+            }
+
+            Set<File> generatedFiles = new HashSet<>();
+            List<String> failedSources = new ArrayList<>();
+            List<Throwable> failures = new ArrayList<>();
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    generatedFiles.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    String sourceName = sources.get(i).getCanonicalName();
+                    error("Failed to write %s: %s", sourceName, e.getCause());
+                    failedSources.add(sourceName);
+                    failures.add(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+            }
+            if (!failures.isEmpty()) {
+                RuntimeException failure = new RuntimeException("Failed to write " + failures.size() + " java source(s): " + failedSources, failures.get(0));
+                failures.stream().skip(1).forEach(failure::addSuppressed);
+                throw failure;
+            }
+            return generatedFiles;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private boolean isWriteIfChanged() {
+        return getState().getConfig().isWriteIfChanged();
     }
 
     /**
@@ -29,18 +129,108 @@ public class JavaWriteStage extends AbstractStage {
      * @param javaSource
      * @param outputDirectory
      */
-    private void writeToFile(JavaSource<?> javaSource, File outputDirectory) {
+    private File writeToFile(JavaSource<?> javaSource, File outputDirectory) {
         String pkg = javaSource.getPackage();
         String fpath = pkg.replace(".", "/");
         File dir = new File(outputDirectory, fpath);
         dir.mkdirs();
         File file = new File(dir, javaSource.getName() + ".java");
+        // TODO use Roaster's 'Formatter' with the option of custom formatting options to be more controlled here
+        String content = javaSource.toString();
+        if (isWriteIfChanged() && isUnchanged(file, content)) {
+            unchanged.incrementAndGet();
+            return file;
+        }
         try (PrintWriter writer = new PrintWriter(file)) {
-            // TODO use Roaster's 'Formatter' with the option of custom formatting options to be more controlled here
-            writer.write(javaSource.toString());
+            writer.write(content);
             writer.flush();
         } catch (FileNotFoundException e) {
             throw new RuntimeException(e);
         }
+        written.incrementAndGet();
+        return file;
+    }
+
+    /**
+     * Returns true if the given file already exists with exactly the given content (encoded the
+     * same way the file would be written).
+     * @param file
+     * @param content
+     */
+    private static boolean isUnchanged(File file, String content) {
+        if (!file.isFile()) {
+            return false;
+        }
+        byte[] expected = content.getBytes(Charset.defaultCharset());
+        if (file.length() != expected.length) {
+            return false;
+        }
+        try {
+            return Arrays.equals(expected, Files.readAllBytes(file.toPath()));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Deletes all files that were generated by an earlier run (as recorded in the generated files list
+     * in the output directory) but were not generated by this run, along with any directories that are
+     * left empty as a result.
+     * @param outputDirectory
+     * @param generatedPaths
+     */
+    private int deleteStaleFiles(File outputDirectory, Set<String> generatedPaths) {
+        File listFile = new File(outputDirectory, GENERATED_FILES_LIST_NAME);
+        if (!listFile.isFile()) {
+            return 0;
+        }
+        List<String> previousPaths;
+        try {
+            previousPaths = Files.readAllLines(listFile.toPath(), Charset.defaultCharset());
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read the list of generated files: " + listFile, e);
+        }
+        int deleted = 0;
+        for (String path : previousPaths) {
+            if (path.isEmpty() || generatedPaths.contains(path)) {
+                continue;
+            }
+            File file = new File(outputDirectory, path);
+            if (file.isFile() && file.toPath().normalize().startsWith(outputDirectory.toPath().normalize())) {
+                debug("Deleting stale file: %s", file);
+                if (!file.delete()) {
+                    throw new RuntimeException("Failed to delete stale file: " + file);
+                }
+                deleted++;
+                File dir = file.getParentFile();
+                while (dir != null && !dir.equals(outputDirectory) && dir.delete()) {
+                    dir = dir.getParentFile();
+                }
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Records the files generated by this run (relative to the output directory) so that the next run
+     * knows which files it may delete.  Like the sources, the list is only written when it changed.
+     * @param outputDirectory
+     * @param generatedPaths
+     */
+    private void writeGeneratedFilesList(File outputDirectory, Set<String> generatedPaths) {
+        File listFile = new File(outputDirectory, GENERATED_FILES_LIST_NAME);
+        String content = String.join("\n", generatedPaths) + "\n";
+        if (isUnchanged(listFile, content)) {
+            return;
+        }
+        try {
+            Files.write(listFile.toPath(), content.getBytes(Charset.defaultCharset()));
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write the list of generated files: " + listFile, e);
+        }
+    }
+
+    private static String relativePath(File outputDirectory, File file) {
+        return outputDirectory.toPath().relativize(file.toPath()).toString().replace(File.separatorChar, '/');
     }
 }
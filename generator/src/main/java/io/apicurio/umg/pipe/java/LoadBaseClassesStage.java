@@ -31,7 +31,12 @@ public class LoadBaseClassesStage extends AbstractStage {
                     "io.apicurio.umg.base.NodeImpl",
                     "io.apicurio.umg.base.RootNodeImpl",
                     "io.apicurio.umg.base.util.DataModelUtil",
+                    "io.apicurio.umg.base.util.IndexedOrderedMap",
                     "io.apicurio.umg.base.util.JsonUtil",
+                    "io.apicurio.umg.base.util.ConsumedProperties",
+                    "io.apicurio.umg.base.util.ModelIdAllocator",
+                    "io.apicurio.umg.base.util.NodeData",
+                    "io.apicurio.umg.base.util.PropertyNameTable",
                     "io.apicurio.umg.base.util.ReaderUtil",
                     "io.apicurio.umg.base.util.WriterUtil",
                     "io.apicurio.umg.base.visitors.AbstractTraverser",
@@ -58,6 +63,8 @@ public class LoadBaseClassesStage extends AbstractStage {
                     "io.apicurio.umg.base.visitors.Traverser",
                     "io.apicurio.umg.base.visitors.TraversalContext",
                     "io.apicurio.umg.base.visitors.TraversingVisitor",
+                    "io.apicurio.umg.base.visitors.ReadOnlyVisitor",
+                    "io.apicurio.umg.base.visitors.ParallelVisitor",
                     "io.apicurio.umg.base.io.ModelReader",
                     "io.apicurio.umg.base.io.ModelWriter",
                     "io.apicurio.umg.base.union.BooleanUnionValue",
@@ -73,6 +80,29 @@ public class LoadBaseClassesStage extends AbstractStage {
                     "io.apicurio.umg.base.union.Union",
                     "io.apicurio.umg.base.union.UnionValue"
                     );
+
+            if (getState().getConfig().isGenerateStreamingReaders()) {
+                loadBaseClasses("io.apicurio.umg.base.util.StreamingReaderUtil", "io.apicurio.umg.base.util.Projection");
+                loadBaseInterfaces("io.apicurio.umg.base.io.StreamingModelReader");
+            }
+            if (getState().getConfig().isGenerateStreamingWriters()) {
+                loadBaseClasses("io.apicurio.umg.base.util.StreamingWriterUtil");
+                loadBaseInterfaces("io.apicurio.umg.base.io.StreamingModelWriter");
+            }
+            if (getState().getConfig().isPrimitiveFields()) {
+                loadBaseClasses(
+                        "io.apicurio.umg.base.util.PrimitiveList",
+                        "io.apicurio.umg.base.util.BooleanList",
+                        "io.apicurio.umg.base.util.IntegerList",
+                        "io.apicurio.umg.base.util.PrimitiveMap",
+                        "io.apicurio.umg.base.util.BooleanMap",
+                        "io.apicurio.umg.base.util.IntegerMap"
+                        );
+            }
+            if (getState().getConfig().isPersistentUpdates()) {
+                loadBaseClasses("io.apicurio.umg.base.PersistentRootNodeImpl");
+                loadBaseInterfaces("io.apicurio.umg.base.PersistentRootNode");
+            }
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
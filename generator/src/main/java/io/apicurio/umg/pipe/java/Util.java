@@ -17,6 +17,10 @@ public class Util {
             entry("object", ObjectNode.class),
             entry("any", JsonNode.class));
 
+    public static Map<String, String> PRIMITIVE_FIELD_TYPE_MAP = Map.ofEntries(
+            entry("boolean", "boolean"),
+            entry("integer", "int"));
+
     public static Map<String, String> JAVA_KEYWORD_MAP = Map.ofEntries(
             entry("default", "_default"),
             entry("enum", "_enum"),
@@ -1,6 +1,8 @@
 package io.apicurio.umg.base;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 public interface MappedNode<T> {
 
@@ -21,6 +23,26 @@ public interface MappedNode<T> {
      */
     public List<String> getItemNames();
 
+    /**
+     * Returns the number of child items.
+     */
+    public int getItemCount();
+
+    /**
+     * Returns an unmodifiable view of the child items (by name).  Unlike getItems() and
+     * getItemNames(), which return copies, the view is not copied and reflects later changes
+     * to the items.
+     */
+    public Map<String, T> getItemsView();
+
+    /**
+     * Calls the given consumer with the name and value of each child item, in order.  The items
+     * must not be added or removed while this is in progress.
+     *
+     * @param consumer
+     */
+    public void forEachItem(BiConsumer<String, ? super T> consumer);
+
     /**
      * Adds a child item.
      * 
@@ -30,7 +52,8 @@ public interface MappedNode<T> {
     public void addItem(String name, T item);
 
     /**
-     * Inserts a child item.
+     * Inserts a child item at the given index.  An index past the end appends the item, and a
+     * negative index inserts it first.
      *
      * @param name
      * @param item
@@ -38,6 +61,15 @@ public interface MappedNode<T> {
      */
     public void insertItem(String name, T item, int atIndex);
 
+    /**
+     * Inserts the given child items (in the order of the given map) starting at the given index.
+     * Items with a name that is already in use are skipped (as with insertItem).
+     *
+     * @param items
+     * @param atIndex
+     */
+    public void insertItems(Map<String, ? extends T> items, int atIndex);
+
     /**
      * Removes a child item by name and returns the deleted child or undefined if there wasn't one.
      * 
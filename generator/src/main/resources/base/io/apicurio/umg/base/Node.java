@@ -2,11 +2,17 @@ package io.apicurio.umg.base;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
 public interface Node extends Visitable {
 
+    /**
+     * Returns the id of this node, which is unique among all nodes created by the running JVM
+     * (including nodes created concurrently on other threads).
+     */
     public int modelId();
     public RootNode root();
     public Node parent();
@@ -22,8 +28,25 @@ public interface Node extends Visitable {
     public boolean hasExtraProperties();
     public List<String> getExtraPropertyNames();
     public JsonNode getExtraProperty(String name);
+    public int getExtraPropertyCount();
+    /**
+     * Returns an unmodifiable view of the extra properties (by name).  Unlike getExtraPropertyNames(),
+     * which returns a copy, the view is not copied and reflects later changes to the extra properties.
+     */
+    public Map<String, JsonNode> getExtraPropertiesView();
+    /**
+     * Calls the given consumer with the name and value of each extra property, in order.  Extra
+     * properties must not be added or removed while this is in progress.
+     */
+    public void forEachExtraProperty(BiConsumer<String, JsonNode> consumer);
     public boolean isAttached();
     public void attach(Node parent);
     public Node emptyClone();
+    /**
+     * Returns a copy of this node and of all its descendants (including extra properties), which
+     * is not attached to any parent.  The parent links of the copied descendants point to their
+     * copied parents.  Node attributes are copied by reference.
+     */
+    public Node deepClone();
 
 }
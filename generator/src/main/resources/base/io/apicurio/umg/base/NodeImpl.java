@@ -1,26 +1,57 @@
 package io.apicurio.umg.base;
 
-import java.util.ArrayList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
 
 import com.fasterxml.jackson.databind.JsonNode;
 
+import io.apicurio.umg.base.util.ModelIdAllocator;
+import io.apicurio.umg.base.util.NodeData;
+import io.apicurio.umg.base.util.PropertyNameTable;
+
+/**
+ * Base class of all entity implementations.  Models can contain a very large number of nodes, so
+ * the per-node state is kept compact: the parent property name and type, and whether the node is
+ * frozen, are packed into a single int (the index of the name in the {@link PropertyNameTable},
+ * a flag and the ordinal of the type), and the extra properties, the attributes and the pending
+ * read of a lazily read node share a single {@link NodeData}, created only when needed.
+ *
+ * A node read by a lazy reader keeps the (unread) JSON it was read from, and is only actually read
+ * ("materialized") the first time its properties or extra properties are accessed.  Every such
+ * accessor (generated or not) must call {@link #_materialize()} first - the generated ones only
+ * when the generator is configured with the "lazyReaders" option.  Materializing is not
+ * synchronized: a lazily read model is only safe to share between threads once it is frozen.
+ *
+ * Once frozen (see {@link RootNode#freeze()}), a node cannot be modified: every mutator (generated
+ * or not) must call {@link #_checkNotFrozen()} first.
+ */
 public abstract class NodeImpl implements Node {
 
-    private static int __modelIdCounter = 0;
+    private static final ParentPropertyType[] PARENT_PROPERTY_TYPES = ParentPropertyType.values();
+    private static final int PARENT_PROPERTY_TYPE_BITS = 2;
+    private static final int PARENT_PROPERTY_TYPE_MASK = (1 << PARENT_PROPERTY_TYPE_BITS) - 1;
+    private static final int FROZEN_BIT = 1 << PARENT_PROPERTY_TYPE_BITS;
+    private static final int PARENT_PROPERTY_NAME_SHIFT = PARENT_PROPERTY_TYPE_BITS + 1;
 
-    protected int _modelId = __modelIdCounter++;
-    private String _parentPropertyName;
+    protected int _modelId = ModelIdAllocator.nextId();
+    /**
+     * (index of the parent property name + 1) << 3 | frozen << 2 | ordinal of the parent property
+     * type.  Zero (the default) is a null name, not frozen and the "standard" type.
+     */
+    private int _parentProperty;
     private String _mapPropertyName;
-    private ParentPropertyType _parentPropertyType = ParentPropertyType.standard;
     private Node _parent;
-    private Map<String, JsonNode> _extraProperties;
-    private Map<String, Object> _attributes;
+    private NodeData _data;
+
+    private static final Runnable MATERIALIZING = () -> {};
 
     @Override
     public RootNode root() {
@@ -34,12 +65,13 @@ public abstract class NodeImpl implements Node {
 
     @Override
     public String parentPropertyName() {
-        return this._parentPropertyName;
+        int nameIndex = (this._parentProperty >>> PARENT_PROPERTY_NAME_SHIFT) - 1;
+        return nameIndex == -1 ? null : PropertyNameTable.nameOf(nameIndex);
     }
 
     @Override
     public ParentPropertyType parentPropertyType() {
-        return this._parentPropertyType;
+        return PARENT_PROPERTY_TYPES[this._parentProperty & PARENT_PROPERTY_TYPE_MASK];
     }
 
     @Override
@@ -48,21 +80,153 @@ public abstract class NodeImpl implements Node {
     }
 
     public void setParent(Node parent) {
+        this._checkNotFrozen();
         this._parent = parent;
     }
 
     public void _setParentPropertyName(String name) {
-        this._parentPropertyName = name;
+        this._checkNotFrozen();
+        int nameBits = name == null ? 0 : (PropertyNameTable.indexOf(name) + 1) << PARENT_PROPERTY_NAME_SHIFT;
+        this._parentProperty = nameBits | (this._parentProperty & (FROZEN_BIT | PARENT_PROPERTY_TYPE_MASK));
     }
 
     public void _setParentPropertyType(ParentPropertyType type) {
-        this._parentPropertyType = type;
+        this._checkNotFrozen();
+        this._parentProperty = (this._parentProperty & ~PARENT_PROPERTY_TYPE_MASK) | type.ordinal();
     }
 
     public void _setMapPropertyName(String name) {
+        this._checkNotFrozen();
         this._mapPropertyName = name;
     }
 
+    /**
+     * Defers the given read of the content of this node until it is first accessed.  Returns false
+     * (and does nothing) if the node is being materialized, in which case it must be read now.
+     * @param read
+     */
+    public boolean _deferRead(Runnable read) {
+        if (this._data == null) {
+            this._data = new NodeData();
+        } else if (this._data.getPendingRead() == MATERIALIZING) {
+            return false;
+        }
+        this._data.setPendingRead(read);
+        return true;
+    }
+
+    /**
+     * Reads the content of this node, if its reading was deferred (see _deferRead).
+     */
+    protected void _materialize() {
+        NodeData data = this._data;
+        if (data == null) {
+            return;
+        }
+        Runnable read = data.getPendingRead();
+        if (read != null && read != MATERIALIZING) {
+            data.setPendingRead(MATERIALIZING);
+            try {
+                read.run();
+            } finally {
+                data.setPendingRead(null);
+            }
+            if (this._data == data && data.isEmpty()) {
+                this._data = null;
+            }
+        }
+    }
+
+    /**
+     * Freezes this node and all of its descendants (see RootNode.freeze).
+     */
+    public final void _freeze() {
+        if ((this._parentProperty & FROZEN_BIT) != 0) {
+            return;
+        }
+        this._materialize();
+        this._parentProperty |= FROZEN_BIT;
+        if (this._data != null) {
+            if (this._data.isEmpty()) {
+                this._data = null;
+            } else {
+                this._data.compact();
+            }
+        }
+        this._freezeFields();
+    }
+
+    /**
+     * Replaces the collections held by the fields of this node with unmodifiable copies, and
+     * freezes its child nodes.
+     */
+    protected void _freezeFields() {
+    }
+
+    /**
+     * Throws if this node is frozen (see RootNode.freeze).
+     */
+    protected void _checkNotFrozen() {
+        if ((this._parentProperty & FROZEN_BIT) != 0) {
+            throw new UnsupportedOperationException("The node is frozen: " + this.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Returns a mutable copy of this (frozen) node, for an update of the model (see
+     * PersistentRootNode.update).  The copy holds copies of the collections of this node, but
+     * shares their content, and all the child nodes and values of this node - except the child
+     * with the given version key (if newChild is not null), which is replaced with newChild.
+     * Generated (for each entity) by the "persistentUpdates" option.
+     * @param childKey
+     * @param newChild
+     */
+    protected NodeImpl _pathCopy(int childKey, Node newChild) {
+        throw new UnsupportedOperationException("The model was generated without persistent updates.");
+    }
+
+    /**
+     * Returns the child node (held by a property, a list, a map or a union value) of this node
+     * with the given version key, or null.  Generated (for each entity) by the "persistentUpdates"
+     * option.
+     * @param childKey
+     */
+    protected Node _findChild(int childKey) {
+        throw new UnsupportedOperationException("The model was generated without persistent updates.");
+    }
+
+    /**
+     * Copies the state held by this base class to the given path copy of this node (see
+     * _pathCopy).  Unlike a clone, the copy keeps the version key of this node, and shares its
+     * extra property and attribute values.  The copy is not frozen.
+     * @param copy
+     */
+    protected void _copyNodeDataToPathCopy(NodeImpl copy) {
+        copy._parentProperty = this._parentProperty & ~FROZEN_BIT;
+        copy._mapPropertyName = this._mapPropertyName;
+        copy._data = this._data == null ? new NodeData() : this._data.shallowCopy();
+        copy._data.setVersionKey(this._versionKey());
+    }
+
+    /**
+     * Returns the version key of this node (see PersistentRootNode.versionKey): the version key
+     * of the node it is a path copy of, if any, or else its model id.
+     */
+    public int _versionKey() {
+        return this._data != null && this._data.hasVersionKey() ? this._data.getVersionKey() : this._modelId;
+    }
+
+    /**
+     * Copies the state held by this base class (parent property, extra properties and attributes)
+     * to the given clone of this node (see deepClone).  The clone is not frozen.
+     * @param clone
+     */
+    protected void _copyNodeDataTo(NodeImpl clone) {
+        clone._parentProperty = this._parentProperty & ~FROZEN_BIT;
+        clone._mapPropertyName = this._mapPropertyName;
+        clone._data = this._data == null ? null : this._data.copy();
+    }
+
     @Override
     public int modelId() {
         return this._modelId;
@@ -70,8 +234,8 @@ public abstract class NodeImpl implements Node {
 
     @Override
     public Object getNodeAttribute(String attributeName) {
-        if (this._attributes != null) {
-            return this._attributes.get(attributeName);
+        if (this._data != null) {
+            return this._data.getAttribute(attributeName);
         } else {
             return null;
         }
@@ -79,16 +243,17 @@ public abstract class NodeImpl implements Node {
 
     @Override
     public void setNodeAttribute(String attributeName, Object attributeValue) {
-        if (this._attributes == null) {
-            this._attributes = new HashMap<>();
+        this._checkNotFrozen();
+        if (this._data == null) {
+            this._data = new NodeData();
         }
-        this._attributes.put(attributeName, attributeValue);
+        this._data.putAttribute(attributeName, attributeValue);
     }
 
     @Override
     public Collection<String> getNodeAttributeNames() {
-        if (this._attributes != null) {
-            return this._attributes.keySet();
+        if (this._data != null) {
+            return this._data.getAttributeNames();
         } else {
             return Collections.emptyList();
         }
@@ -96,36 +261,42 @@ public abstract class NodeImpl implements Node {
 
     @Override
     public void clearNodeAttributes() {
-        if (this._attributes != null) {
-            this._attributes.clear();
+        this._checkNotFrozen();
+        if (this._data != null) {
+            this._data.clearAttributes();
         }
     }
 
     @Override
     public void addExtraProperty(String key, JsonNode value) {
-        if (this._extraProperties == null) {
-            this._extraProperties = new LinkedHashMap<>();
+        this._checkNotFrozen();
+        this._materialize();
+        if (this._data == null) {
+            this._data = new NodeData();
         }
-        this._extraProperties.put(key, value);
+        this._data.putExtraProperty(key, value);
     }
 
     @Override
     public JsonNode removeExtraProperty(String name) {
-        if (this._extraProperties != null && this._extraProperties.containsKey(name)) {
-            return this._extraProperties.remove(name);
+        this._checkNotFrozen();
+        this._materialize();
+        if (this._data != null) {
+            return this._data.removeExtraProperty(name);
         }
         return null;
     }
 
     @Override
     public boolean hasExtraProperties() {
-        return this._extraProperties != null && this._extraProperties.size() > 0;
+        this._materialize();
+        return this._data != null && this._data.getExtraPropertyCount() > 0;
     }
 
     @Override
     public List<String> getExtraPropertyNames() {
         if (this.hasExtraProperties()) {
-            return new ArrayList<String>(this._extraProperties.keySet());
+            return this._data.getExtraPropertyNames();
         }
         return Collections.emptyList();
     }
@@ -133,11 +304,31 @@ public abstract class NodeImpl implements Node {
     @Override
     public JsonNode getExtraProperty(String name) {
         if (this.hasExtraProperties()) {
-            return this._extraProperties.get(name);
+            return this._data.getExtraProperty(name);
         }
         return null;
     }
 
+    @Override
+    public int getExtraPropertyCount() {
+        this._materialize();
+        return this._data == null ? 0 : this._data.getExtraPropertyCount();
+    }
+
+    @Override
+    public Map<String, JsonNode> getExtraPropertiesView() {
+        this._materialize();
+        return new ExtraPropertiesView();
+    }
+
+    @Override
+    public void forEachExtraProperty(BiConsumer<String, JsonNode> consumer) {
+        this._materialize();
+        if (this._data != null) {
+            this._data.forEachExtraProperty(consumer);
+        }
+    }
+
     @Override
     public boolean isAttached() {
         if (_parent == null) {
@@ -172,4 +363,54 @@ public abstract class NodeImpl implements Node {
         return false;
     }
 
+    /**
+     * Read-only view of the extra properties of this node.  The node data is looked up on every
+     * access (rather than when the view is created), as it is only created when first needed.
+     */
+    private class ExtraPropertiesView extends AbstractMap<String, JsonNode> {
+
+        @Override
+        public int size() {
+            return getExtraPropertyCount();
+        }
+
+        @Override
+        public JsonNode get(Object key) {
+            return key instanceof String ? getExtraProperty((String) key) : null;
+        }
+
+        @Override
+        public Set<Entry<String, JsonNode>> entrySet() {
+            return new AbstractSet<Entry<String, JsonNode>>() {
+                @Override
+                public int size() {
+                    return getExtraPropertyCount();
+                }
+
+                @Override
+                public Iterator<Entry<String, JsonNode>> iterator() {
+                    return new Iterator<Entry<String, JsonNode>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < getExtraPropertyCount();
+                        }
+
+                        @Override
+                        public Entry<String, JsonNode> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, JsonNode> entry = new SimpleImmutableEntry<>(_data.getExtraPropertyName(index),
+                                    _data.getExtraPropertyValue(index));
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+
 }
@@ -0,0 +1,38 @@
+package io.apicurio.umg.base;
+
+import java.util.function.Consumer;
+
+/**
+ * The root node of a model generated with the "persistentUpdates" option, which can be updated
+ * once frozen (see update) without being modified.
+ */
+public interface PersistentRootNode extends RootNode {
+
+    /**
+     * Returns a new version of this (frozen) model, in which the given node has been modified by
+     * the given mutation.  This model is left unchanged.  Only the node and its ancestors are
+     * copied (path copying): every other node is shared by both versions, so keeping many
+     * versions of a large model costs little memory.  The new version is frozen.  Like any other
+     * node, each copy has its own model id, but all the versions of a node share the same
+     * version key (see versionKey), so the versions of a node can be matched.
+     *
+     * The node can be taken from this version or from an older one, as it is looked up (by the
+     * version keys of its ancestors) in this version.  The mutation receives the copy of the node:
+     * it can modify its properties, collections and extra properties, and add new nodes to it,
+     * but not modify its existing child nodes (which are shared, and therefore frozen) - each of
+     * them needs its own update.  Note that as nodes are shared by versions, the parent of a
+     * shared node is its parent in the version it was created in (a node with the same version
+     * key as its parent in this version).
+     * @param node
+     * @param mutation
+     */
+    public <T extends Node> PersistentRootNode update(T node, Consumer<? super T> mutation);
+
+    /**
+     * Returns the version key of the given node (of any version of this model): the model id of
+     * the first version of the node, which all of its versions (see update) share.
+     * @param node
+     */
+    public int versionKey(Node node);
+
+}
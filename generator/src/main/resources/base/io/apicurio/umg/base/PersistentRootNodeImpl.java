@@ -0,0 +1,67 @@
+package io.apicurio.umg.base;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Base class of the root entity implementations of a model generated with the "persistentUpdates"
+ * option.  The nodes of such a model implement _pathCopy and _findChild (see NodeImpl).
+ */
+public abstract class PersistentRootNodeImpl extends RootNodeImpl implements PersistentRootNode {
+
+    public PersistentRootNodeImpl(ModelType modelType) {
+        super(modelType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Node> PersistentRootNode update(T node, Consumer<? super T> mutation) {
+        if (!this.isFrozen()) {
+            throw new IllegalStateException("Only a frozen model can be updated (see freeze).");
+        }
+
+        // The version keys of the node and of its ancestors (which may be in an older version).
+        int[] keys = new int[16];
+        int depth = 0;
+        Node top = node;
+        for (Node ancestor = node; ancestor != null; ancestor = ancestor.parent()) {
+            if (depth == keys.length) {
+                keys = Arrays.copyOf(keys, depth * 2);
+            }
+            keys[depth++] = ((NodeImpl) ancestor)._versionKey();
+            top = ancestor;
+        }
+        if (((NodeImpl) top)._versionKey() != this._versionKey()) {
+            throw new IllegalArgumentException("The node is not part of this model.");
+        }
+
+        // The node and its ancestors in this version.
+        NodeImpl[] path = new NodeImpl[depth];
+        path[depth - 1] = this;
+        for (int idx = depth - 2; idx >= 0; idx--) {
+            Node child = path[idx + 1]._findChild(keys[idx]);
+            if (child == null) {
+                throw new IllegalArgumentException("The node is not part of this version of the model.");
+            }
+            path[idx] = (NodeImpl) child;
+        }
+
+        NodeImpl copy = path[0]._pathCopy(0, null);
+        if (depth > 1) {
+            copy.setParent(path[1]);
+        }
+        mutation.accept((T) copy);
+        for (int idx = 1; idx < depth; idx++) {
+            copy = path[idx]._pathCopy(keys[idx - 1], copy);
+        }
+        PersistentRootNodeImpl root = (PersistentRootNodeImpl) copy;
+        root.freeze();
+        return root;
+    }
+
+    @Override
+    public int versionKey(Node node) {
+        return ((NodeImpl) node)._versionKey();
+    }
+
+}
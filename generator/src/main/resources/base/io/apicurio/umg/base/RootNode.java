@@ -3,5 +3,21 @@ package io.apicurio.umg.base;
 public interface RootNode extends Node {
 
     public ModelType modelType();
-    
+
+    /**
+     * Freezes the model: all of its collections are replaced by compact, unmodifiable copies, and
+     * all of its setters (including those of the extra properties and node attributes) throw an
+     * UnsupportedOperationException from then on.  Nodes read lazily are read first.  A frozen
+     * model can be read by any number of threads without synchronization, provided that it is
+     * handed to them safely - which is the case for any thread that sees isFrozen() return true.
+     * Note that JSON values (extra properties and untyped properties) are not copied, so they must
+     * not be modified.  A mutable copy of a frozen model can be created with deepClone().
+     */
+    public void freeze();
+
+    /**
+     * Returns true if the model has been frozen (see freeze).
+     */
+    public boolean isFrozen();
+
 }
@@ -3,6 +3,8 @@ package io.apicurio.umg.base;
 public abstract class RootNodeImpl extends NodeImpl implements RootNode {
 
     private final ModelType _modelType;
+    /* Written once the whole model is frozen, so that reading it publishes the frozen model. */
+    private volatile boolean _published;
 
     public RootNodeImpl(ModelType modelType) {
         this._modelType = modelType;
@@ -18,4 +20,15 @@ public abstract class RootNodeImpl extends NodeImpl implements RootNode {
         return this._modelType;
     }
 
+    @Override
+    public void freeze() {
+        this._freeze();
+        this._published = true;
+    }
+
+    @Override
+    public boolean isFrozen() {
+        return this._published;
+    }
+
 }
@@ -3,6 +3,14 @@ package io.apicurio.umg.base.io;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.apicurio.umg.base.RootNode;
 
+/**
+ * Reads a document into a model.  Readers keep no state between documents, so independent
+ * documents can be read concurrently (with one or several readers) on any number of threads.
+ * A single model is not thread safe and should only be modified by one thread at a time.  A model
+ * read lazily (see ModelReaderFactory.createModelReader(modelType, lazy)) is modified when its nodes
+ * are first accessed, so it should only be used (even read) by one thread at a time until it is
+ * frozen (see RootNode.freeze).
+ */
 public interface ModelReader {
 
     public RootNode readRoot(ObjectNode json);
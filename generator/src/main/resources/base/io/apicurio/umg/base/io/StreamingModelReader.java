@@ -0,0 +1,22 @@
+package io.apicurio.umg.base.io;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+import io.apicurio.umg.base.RootNode;
+import io.apicurio.umg.base.util.Projection;
+
+/**
+ * Reads a document into a model directly from a JSON parser.  Like the {@link ModelReader}s, these
+ * readers keep no state between documents, so independent documents can be read concurrently.
+ *
+ * A projection read only reads the given paths of the document (see {@link Projection}): every
+ * other value is skipped by the parser, without being read into the model.
+ */
+public interface StreamingModelReader {
+
+    public RootNode readRoot(JsonParser parser) throws IOException;
+
+    public RootNode readRoot(JsonParser parser, Projection projection) throws IOException;
+
+}
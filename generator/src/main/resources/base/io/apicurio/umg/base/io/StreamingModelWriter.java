@@ -0,0 +1,12 @@
+package io.apicurio.umg.base.io;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.apicurio.umg.base.RootNode;
+
+public interface StreamingModelWriter {
+
+    public void writeRoot(RootNode node, JsonGenerator generator) throws IOException;
+
+}
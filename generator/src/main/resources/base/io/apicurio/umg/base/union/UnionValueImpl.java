@@ -6,9 +6,10 @@ import io.apicurio.umg.base.visitors.Visitor;
  * Base class for all union value implementations.
  * @author eric.wittmann@gmail.com
  */
-public abstract class UnionValueImpl<T> implements UnionValue<T>, Union {
+public abstract class UnionValueImpl<T> implements UnionValue<T>, Union, Cloneable {
 
     private T value;
+    private boolean frozen;
 
     public UnionValueImpl() {
     }
@@ -29,6 +30,9 @@ public abstract class UnionValueImpl<T> implements UnionValue<T>, Union {
 
     @Override
     public void setValue(T value) {
+        if (this.frozen) {
+            throw new UnsupportedOperationException("The union value is frozen.");
+        }
         this.value = value;
     }
 
@@ -61,4 +65,30 @@ public abstract class UnionValueImpl<T> implements UnionValue<T>, Union {
     public void accept(Visitor visitor) {
     }
 
+    /**
+     * Replaces the value with the given (unmodifiable) copy of it, and freezes this union value
+     * (see RootNode.freeze).
+     * @param frozenValue
+     */
+    public void freeze(T frozenValue) {
+        this.value = frozenValue;
+        this.frozen = true;
+    }
+
+    /**
+     * Returns a (non frozen) union value of the same type as this one, holding the given value.
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    public UnionValueImpl<T> withValue(T value) {
+        try {
+            UnionValueImpl<T> copy = (UnionValueImpl<T>) super.clone();
+            copy.value = value;
+            copy.frozen = false;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
 }
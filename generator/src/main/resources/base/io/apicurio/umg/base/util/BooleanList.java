@@ -0,0 +1,91 @@
+package io.apicurio.umg.base.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A list of booleans stored in a boolean[] rather than as Boolean objects.  Used (when the model is
+ * generated with primitive fields) for the properties whose type is a list of booleans.
+ */
+public class BooleanList extends PrimitiveList<Boolean> {
+
+    private static final boolean[] EMPTY = {};
+
+    private boolean[] values = EMPTY;
+
+    public BooleanList() {
+    }
+
+    public BooleanList(Collection<Boolean> values) {
+        this.values = new boolean[values.size()];
+        addAll(values);
+    }
+
+    /**
+     * Returns the given list as a BooleanList: the list itself if it already is one (and is not
+     * frozen), otherwise a copy of it.  Returns null if the list is null.
+     * @param list
+     */
+    public static BooleanList copyOf(List<Boolean> list) {
+        if (list == null || (list instanceof BooleanList && !((BooleanList) list).isFrozen())) {
+            return (BooleanList) list;
+        }
+        return new BooleanList(list);
+    }
+
+    /**
+     * Returns the element at the given index without boxing it.  The element must not be null.
+     * @param index
+     */
+    public boolean getBoolean(int index) {
+        if (index < 0 || index >= size || isNullAt(index)) {
+            throw new IllegalArgumentException("No boolean value at index: " + index);
+        }
+        return values[index];
+    }
+
+    /**
+     * Appends the given value without boxing it.
+     * @param value
+     */
+    public void addBoolean(boolean value) {
+        checkNotFrozen();
+        if (size == values.length) {
+            resize(Math.max(INITIAL_CAPACITY, size * 2));
+        }
+        values[size++] = value;
+        modCount++;
+    }
+
+    @Override
+    protected int capacity() {
+        return values.length;
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected void move(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+    }
+
+    @Override
+    protected Boolean getValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    protected void setValue(int index, Boolean value) {
+        values[index] = value;
+    }
+
+    @Override
+    protected void clearValue(int index) {
+        values[index] = false;
+    }
+
+}
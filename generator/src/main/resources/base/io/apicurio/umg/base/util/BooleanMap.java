@@ -0,0 +1,32 @@
+package io.apicurio.umg.base.util;
+
+import java.util.Map;
+
+/**
+ * An ordered map of booleans, stored in a boolean[] rather than as Boolean objects.  Used (when the
+ * model is generated with primitive fields) for the properties whose type is a map of booleans.
+ */
+public class BooleanMap extends PrimitiveMap<Boolean> {
+
+    public BooleanMap() {
+        super(new BooleanList());
+    }
+
+    public BooleanMap(Map<String, Boolean> values) {
+        this();
+        putAll(values);
+    }
+
+    /**
+     * Returns the given map as a BooleanMap: the map itself if it already is one (and is not
+     * frozen), otherwise a copy of it.  Returns null if the map is null.
+     * @param map
+     */
+    public static BooleanMap copyOf(Map<String, Boolean> map) {
+        if (map == null || (map instanceof BooleanMap && !((BooleanMap) map).isFrozen())) {
+            return (BooleanMap) map;
+        }
+        return new BooleanMap(map);
+    }
+
+}
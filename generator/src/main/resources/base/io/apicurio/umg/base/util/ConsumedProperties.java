@@ -0,0 +1,75 @@
+package io.apicurio.umg.base.util;
+
+/**
+ * Tracks the names of the JSON properties that have already been read from a single JSON object.
+ * Used by the non-destructive readers instead of removing each property from the input
+ * {@code ObjectNode} once it has been read.  Entities typically have only a handful of
+ * properties, so this is a small open-addressing (linear probing) hash set of strings.
+ */
+public class ConsumedProperties {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int size;
+
+    public void add(String name) {
+        if ((size + 1) * 2 > names.length) {
+            grow();
+        }
+        if (insert(names, name)) {
+            size++;
+        }
+    }
+
+    public boolean contains(String name) {
+        int mask = names.length - 1;
+        int idx = hash(name) & mask;
+        String candidate;
+        while ((candidate = names[idx]) != null) {
+            if (candidate == name || candidate.equals(name)) {
+                return true;
+            }
+            idx = (idx + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void grow() {
+        String[] newNames = new String[names.length * 2];
+        for (String name : names) {
+            if (name != null) {
+                insert(newNames, name);
+            }
+        }
+        names = newNames;
+    }
+
+    private static boolean insert(String[] table, String name) {
+        int mask = table.length - 1;
+        int idx = hash(name) & mask;
+        String candidate;
+        while ((candidate = table[idx]) != null) {
+            if (candidate == name || candidate.equals(name)) {
+                return false;
+            }
+            idx = (idx + 1) & mask;
+        }
+        table[idx] = name;
+        return true;
+    }
+
+    private static int hash(String name) {
+        int h = name.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+}
@@ -1,9 +1,19 @@
 package io.apicurio.umg.base.util;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import com.fasterxml.jackson.databind.JsonNode;
+
+import io.apicurio.umg.base.Node;
+import io.apicurio.umg.base.NodeImpl;
+import io.apicurio.umg.base.union.Union;
+import io.apicurio.umg.base.union.UnionValueImpl;
+
 public class DataModelUtil {
 
     public static <V> Map<String, V> insertMapEntry(Map<String, V> map, String key, V value, int atIndex) {
@@ -11,25 +21,19 @@ public class DataModelUtil {
         if (map.containsKey(key)) {
             return map;
         }
-        // If the map isn't an LHM then ordering can't be maintained anyway
+        // If the map isn't ordered then ordering can't be maintained anyway
         // If the atIndex is null then we're trying to undo a command that was persisted prior to this functionality being added
-        // If the atIndex is >= the map size it has to go at the end anyway
-        if (!(map instanceof LinkedHashMap) || atIndex >= map.size()){
+        // If the atIndex is >= the map size it has to go at the end anyway (and if it is < 0, at the start, as with lists)
+        if (!(map instanceof IndexedOrderedMap || map instanceof LinkedHashMap) || atIndex >= map.size()) {
             map.put(key, value);
             return map;
         }
 
-        final LinkedHashMap<String, V> newMap = new LinkedHashMap<>();
-        // In order to maintain ordering of the elements when replacing a key in a LinkedHashMap,
-        // create a new instance and populate it in insertion order
-        int index = 0;
-        for (Map.Entry<String, V> entry : map.entrySet()) {
-            if (index++ == atIndex) {
-                newMap.put(key, value);
-            }
-            newMap.put(entry.getKey(), entry.getValue());
-        }
-        return newMap;
+        // A LinkedHashMap can't insert at a position, so replace it (once) with an indexed map that can.
+        IndexedOrderedMap<String, V> indexedMap = map instanceof IndexedOrderedMap ?
+                (IndexedOrderedMap<String, V>) map : new IndexedOrderedMap<>(map);
+        indexedMap.insert(key, value, atIndex);
+        return indexedMap;
     }
 
     public static <V> List<V> insertListEntry(List<V> list, V value, int atIndex) {
@@ -43,4 +47,315 @@ public class DataModelUtil {
         return list;
     }
 
+    /**
+     * Returns a deep clone of the given node (see Node.deepClone), whose parent is the given node.
+     * @param node
+     * @param parent
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Node> T cloneNode(T node, Node parent) {
+        if (node == null) {
+            return null;
+        }
+        T clone = (T) node.deepClone();
+        ((NodeImpl) clone).setParent(parent);
+        return clone;
+    }
+
+    public static <T extends Node> List<T> cloneNodeList(List<T> nodes, Node parent) {
+        if (nodes == null) {
+            return null;
+        }
+        List<T> clones = new ArrayList<>(nodes.size());
+        for (T node : nodes) {
+            clones.add(cloneNode(node, parent));
+        }
+        return clones;
+    }
+
+    /**
+     * Returns a map of deep clones of the given nodes.  Maps other than LinkedHashMaps (indexed or
+     * frozen ones) are copied to an IndexedOrderedMap, so that entries can be inserted in place.
+     * @param nodes
+     * @param parent
+     */
+    public static <T extends Node> Map<String, T> cloneNodeMap(Map<String, T> nodes, Node parent) {
+        if (nodes == null) {
+            return null;
+        }
+        Map<String, T> clones = nodes instanceof LinkedHashMap ? new LinkedHashMap<>() : new IndexedOrderedMap<>();
+        nodes.forEach((key, node) -> clones.put(key, cloneNode(node, parent)));
+        return clones;
+    }
+
+    /**
+     * Returns a deep clone of the given union value, whose entities (if any) have the given parent.
+     * @param union
+     * @param parent
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Union> T cloneUnion(T union, Node parent) {
+        if (union == null) {
+            return null;
+        }
+        if (union.isEntity()) {
+            return (T) cloneNode((Node) union, parent);
+        }
+        UnionValueImpl<Object> value = (UnionValueImpl<Object>) union;
+        if (union.isEntityList()) {
+            return (T) value.withValue(cloneNodeList((List<Node>) value.getValue(), parent));
+        }
+        if (union.isEntityMap()) {
+            return (T) value.withValue(cloneNodeMap((Map<String, Node>) value.getValue(), parent));
+        }
+        return (T) value.withValue(copyValue(value.getValue()));
+    }
+
+    /**
+     * Returns a deep copy of the given (non entity) value: JSON nodes are deep copied, lists and
+     * maps are copied along with their values, and other values (strings, numbers and booleans)
+     * are immutable, so they are returned as is.
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T copyValue(T value) {
+        if (value instanceof JsonNode) {
+            return (T) ((JsonNode) value).deepCopy();
+        }
+        if (value instanceof List) {
+            List<Object> copy = new ArrayList<>(((List<?>) value).size());
+            for (Object item : (List<?>) value) {
+                copy.add(copyValue(item));
+            }
+            return (T) copy;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> copy = value instanceof LinkedHashMap ? new LinkedHashMap<>() : new IndexedOrderedMap<>();
+            ((Map<String, ?>) value).forEach((key, item) -> copy.put(key, copyValue(item)));
+            return (T) copy;
+        }
+        return value;
+    }
+
+    /**
+     * Freezes the given node and its descendants (see RootNode.freeze), and returns it.
+     * @param node
+     */
+    public static <T extends Node> T freezeNode(T node) {
+        if (node != null) {
+            ((NodeImpl) node)._freeze();
+        }
+        return node;
+    }
+
+    public static <T extends Node> List<T> freezeNodeList(List<T> nodes) {
+        if (nodes == null) {
+            return null;
+        }
+        nodes.forEach(DataModelUtil::freezeNode);
+        return freezeList(nodes);
+    }
+
+    public static <T extends Node> Map<String, T> freezeNodeMap(Map<String, T> nodes) {
+        if (nodes == null) {
+            return null;
+        }
+        nodes.values().forEach(DataModelUtil::freezeNode);
+        return freezeMap(nodes);
+    }
+
+    /**
+     * Freezes the given union value (including its entities, if any), and returns it.
+     * @param union
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Union> T freezeUnion(T union) {
+        if (union == null) {
+            return null;
+        }
+        if (union.isEntity()) {
+            return (T) freezeNode((Node) union);
+        }
+        UnionValueImpl<Object> value = (UnionValueImpl<Object>) union;
+        if (union.isEntityList()) {
+            value.freeze(freezeNodeList((List<Node>) value.getValue()));
+        } else if (union.isEntityMap()) {
+            value.freeze(freezeNodeMap((Map<String, Node>) value.getValue()));
+        } else {
+            value.freeze(freezeValue(value.getValue()));
+        }
+        return union;
+    }
+
+    /**
+     * Returns an unmodifiable copy of the given (non entity) value if it is a list or a map (see
+     * freezeList and freezeMap), with its nested lists and maps frozen too, or the value itself
+     * otherwise.  The given value is left as is (it may well be unmodifiable already).
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T freezeValue(T value) {
+        if (value instanceof List) {
+            Object[] items = ((List<?>) value).toArray();
+            if (items.length == 0) {
+                return (T) Collections.emptyList();
+            }
+            for (int idx = 0; idx < items.length; idx++) {
+                items[idx] = freezeValue(items[idx]);
+            }
+            return (T) Collections.unmodifiableList(Arrays.asList(items));
+        }
+        if (value instanceof Map) {
+            Map<String, Object> copy = new LinkedHashMap<>();
+            ((Map<String, ?>) value).forEach((key, item) -> copy.put(key, freezeValue(item)));
+            return (T) (copy.size() > 1 ? Collections.unmodifiableMap(copy) : freezeMap(copy));
+        }
+        return value;
+    }
+
+    /**
+     * Returns an unmodifiable copy of the given list, backed by an array of the exact size.
+     * @param list
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> List<T> freezeList(List<T> list) {
+        if (list == null) {
+            return null;
+        }
+        if (list.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList((T[]) list.toArray()));
+    }
+
+    /**
+     * Returns an unmodifiable copy of the given map (in the same order).
+     * @param map
+     */
+    public static <V> Map<String, V> freezeMap(Map<String, V> map) {
+        if (map == null) {
+            return null;
+        }
+        if (map.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        if (map.size() == 1) {
+            Map.Entry<String, V> entry = map.entrySet().iterator().next();
+            return Collections.singletonMap(entry.getKey(), entry.getValue());
+        }
+        return Collections.unmodifiableMap(new LinkedHashMap<>(map));
+    }
+
+    /**
+     * Returns the given node, or newChild (parented to the given node) if the given node is the
+     * child replaced by a path copy (see NodeImpl._pathCopy), which has the given version key.
+     * @param node
+     * @param childKey
+     * @param newChild
+     * @param parent
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Node> T pathCopyNode(T node, int childKey, Node newChild, Node parent) {
+        if (node != null && newChild != null && ((NodeImpl) node)._versionKey() == childKey) {
+            ((NodeImpl) newChild).setParent(parent);
+            return (T) newChild;
+        }
+        return node;
+    }
+
+    public static <T extends Node> List<T> pathCopyNodeList(List<T> nodes, int childKey, Node newChild, Node parent) {
+        if (nodes == null) {
+            return null;
+        }
+        List<T> copy = new ArrayList<>(nodes.size());
+        for (T node : nodes) {
+            copy.add(pathCopyNode(node, childKey, newChild, parent));
+        }
+        return copy;
+    }
+
+    public static <T extends Node> Map<String, T> pathCopyNodeMap(Map<String, T> nodes, int childKey, Node newChild, Node parent) {
+        if (nodes == null) {
+            return null;
+        }
+        Map<String, T> copy = nodes instanceof LinkedHashMap ? new LinkedHashMap<>() : new IndexedOrderedMap<>();
+        nodes.forEach((key, node) -> copy.put(key, pathCopyNode(node, childKey, newChild, parent)));
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends Union> T pathCopyUnion(T union, int childKey, Node newChild, Node parent) {
+        if (union == null) {
+            return null;
+        }
+        if (union.isEntity()) {
+            return (T) pathCopyNode((Node) union, childKey, newChild, parent);
+        }
+        UnionValueImpl<Object> value = (UnionValueImpl<Object>) union;
+        if (union.isEntityList()) {
+            return (T) value.withValue(pathCopyNodeList((List<Node>) value.getValue(), childKey, newChild, parent));
+        }
+        if (union.isEntityMap()) {
+            return (T) value.withValue(pathCopyNodeMap((Map<String, Node>) value.getValue(), childKey, newChild, parent));
+        }
+        return (T) value.withValue(thawValue(value.getValue()));
+    }
+
+    /**
+     * Returns a modifiable copy of the given (non entity) value if it is a list or a map, sharing
+     * its items, or the value itself otherwise.
+     * @param value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T thawValue(T value) {
+        if (value instanceof List) {
+            return (T) new ArrayList<>((List<?>) value);
+        }
+        if (value instanceof Map) {
+            Map<String, Object> copy = value instanceof LinkedHashMap ? new LinkedHashMap<>() : new IndexedOrderedMap<>();
+            copy.putAll((Map<String, ?>) value);
+            return (T) copy;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the node with the given version key (see NodeImpl._versionKey) among the given
+     * values (nodes, union values, and lists and maps of nodes), or null.
+     * @param childKey
+     * @param values
+     */
+    public static Node findChild(int childKey, Object... values) {
+        for (Object value : values) {
+            Node child = findChildIn(childKey, value);
+            if (child != null) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    private static Node findChildIn(int childKey, Object value) {
+        if (value instanceof Node) {
+            return ((NodeImpl) value)._versionKey() == childKey ? (Node) value : null;
+        }
+        if (value instanceof UnionValueImpl) {
+            return findChildIn(childKey, ((UnionValueImpl<?>) value).getValue());
+        }
+        if (value instanceof List) {
+            for (Object item : (List<?>) value) {
+                if (item instanceof Node && ((NodeImpl) item)._versionKey() == childKey) {
+                    return (Node) item;
+                }
+            }
+        } else if (value instanceof Map) {
+            for (Object item : ((Map<?, ?>) value).values()) {
+                if (item instanceof Node && ((NodeImpl) item)._versionKey() == childKey) {
+                    return (Node) item;
+                }
+            }
+        }
+        return null;
+    }
+
 }
@@ -0,0 +1,429 @@
+package io.apicurio.umg.base.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A map that keeps its entries in order (like a LinkedHashMap, new entries are added at the end),
+ * but that can also insert an entry at a given position and find the position of a key in
+ * O(log n) time.  Lookups by key are O(1): the entries are indexed by a hash map, and they also
+ * form a randomized balanced tree (a treap) ordered by position, in which each entry knows the
+ * size of its subtree and its parent.
+ */
+public class IndexedOrderedMap<K, V> extends AbstractMap<K, V> {
+
+    private final Map<K, TreeEntry<K, V>> entries = new HashMap<>();
+    private TreeEntry<K, V> root;
+    private int seed = ThreadLocalRandom.current().nextInt() | 1;
+    private int modCount;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /* Results of split(). */
+    private TreeEntry<K, V> splitLeft;
+    private TreeEntry<K, V> splitRight;
+
+    public IndexedOrderedMap() {
+    }
+
+    public IndexedOrderedMap(Map<? extends K, ? extends V> map) {
+        putAll(map);
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return entries.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        TreeEntry<K, V> entry = entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        TreeEntry<K, V> entry = entries.get(key);
+        if (entry != null) {
+            V old = entry.value;
+            entry.value = value;
+            return old;
+        }
+        link(new TreeEntry<>(key, value, nextPriority()), size());
+        return null;
+    }
+
+    /**
+     * Inserts an entry at the given position: a position past the end of the map appends the entry,
+     * and a negative position inserts it first.  If the map already contains the key, the map is
+     * not modified (not even the value) and false is returned.
+     * @param key
+     * @param value
+     * @param index
+     */
+    public boolean insert(K key, V value, int index) {
+        if (entries.containsKey(key)) {
+            return false;
+        }
+        link(new TreeEntry<>(key, value, nextPriority()), position(index));
+        return true;
+    }
+
+    /**
+     * Inserts the entries of the given map (in the order of its iteration) starting at the given
+     * position (see insert).  Keys that the map already contains are skipped.
+     * Returns the number of entries that were inserted.
+     * @param map
+     * @param index
+     */
+    public int insertAll(Map<? extends K, ? extends V> map, int index) {
+        index = position(index);
+        int inserted = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            if (insert(entry.getKey(), entry.getValue(), index + inserted)) {
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    @Override
+    public V remove(Object key) {
+        TreeEntry<K, V> entry = entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        unlink(entry);
+        return entry.value;
+    }
+
+    @Override
+    public void clear() {
+        entries.clear();
+        root = null;
+        modCount++;
+    }
+
+    /**
+     * Returns the position of the given key, or -1 if the map does not contain it.
+     * @param key
+     */
+    public int indexOf(Object key) {
+        TreeEntry<K, V> entry = entries.get(key);
+        if (entry == null) {
+            return -1;
+        }
+        int index = size(entry.left);
+        for (TreeEntry<K, V> node = entry; node.parent != null; node = node.parent) {
+            if (node.parent.right == node) {
+                index += size(node.parent.left) + 1;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the key at the given position.
+     * @param index
+     */
+    public K keyAt(int index) {
+        return entryAt(index).key;
+    }
+
+    /**
+     * Returns the value at the given position.
+     * @param index
+     */
+    public V valueAt(int index) {
+        return entryAt(index).value;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private TreeEntry<K, V> entryAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        TreeEntry<K, V> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * Returns the given insert position, clamped to 0 to size (inclusive).
+     */
+    private int position(int index) {
+        return Math.min(Math.max(index, 0), size());
+    }
+
+    private int nextPriority() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    /**
+     * Adds the given (new) entry to the tree at the given position.
+     */
+    private void link(TreeEntry<K, V> entry, int index) {
+        entries.put(entry.key, entry);
+        split(root, index);
+        TreeEntry<K, V> right = splitRight;
+        root = merge(merge(splitLeft, entry), right);
+        root.parent = null;
+        splitLeft = splitRight = null;
+        modCount++;
+    }
+
+    /**
+     * Removes the given entry from the tree, replacing it with the merge of its subtrees.
+     */
+    private void unlink(TreeEntry<K, V> entry) {
+        TreeEntry<K, V> merged = merge(entry.left, entry.right);
+        TreeEntry<K, V> parent = entry.parent;
+        if (merged != null) {
+            merged.parent = parent;
+        }
+        if (parent == null) {
+            root = merged;
+        } else if (parent.left == entry) {
+            parent.left = merged;
+        } else {
+            parent.right = merged;
+        }
+        for (TreeEntry<K, V> node = parent; node != null; node = node.parent) {
+            node.size--;
+        }
+        entry.left = entry.right = entry.parent = null;
+        modCount++;
+    }
+
+    /**
+     * Splits the given tree into its first "count" entries (splitLeft) and the rest (splitRight).
+     * The parents of the two resulting roots are not updated.
+     */
+    private void split(TreeEntry<K, V> node, int count) {
+        if (node == null) {
+            splitLeft = splitRight = null;
+        } else if (size(node.left) >= count) {
+            split(node.left, count);
+            node.left = splitRight;
+            update(node);
+            splitRight = node;
+        } else {
+            split(node.right, count - size(node.left) - 1);
+            node.right = splitLeft;
+            update(node);
+            splitLeft = node;
+        }
+    }
+
+    /**
+     * Merges two trees (all the entries of the first one come before those of the second one).
+     * The parent of the resulting root is not updated.
+     */
+    private TreeEntry<K, V> merge(TreeEntry<K, V> first, TreeEntry<K, V> second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            update(first);
+            return first;
+        } else {
+            second.left = merge(first, second.left);
+            update(second);
+            return second;
+        }
+    }
+
+    private static <K, V> void update(TreeEntry<K, V> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+    }
+
+    private static int size(TreeEntry<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <K, V> TreeEntry<K, V> leftmost(TreeEntry<K, V> node) {
+        if (node != null) {
+            while (node.left != null) {
+                node = node.left;
+            }
+        }
+        return node;
+    }
+
+    private static <K, V> TreeEntry<K, V> successor(TreeEntry<K, V> node) {
+        if (node.right != null) {
+            return leftmost(node.right);
+        }
+        while (node.parent != null && node.parent.right == node) {
+            node = node.parent;
+        }
+        return node.parent;
+    }
+
+    private static final class TreeEntry<K, V> implements Map.Entry<K, V> {
+
+        private final K key;
+        private V value;
+        private final int priority;
+        private int size = 1;
+        private TreeEntry<K, V> left;
+        private TreeEntry<K, V> right;
+        private TreeEntry<K, V> parent;
+
+        TreeEntry(K key, V value, int priority) {
+            this.key = key;
+            this.value = value;
+            this.priority = priority;
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return Objects.equals(key, other.getKey()) && Objects.equals(value, other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(key) ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public int size() {
+            return IndexedOrderedMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            TreeEntry<K, V> existing = entries.get(entry.getKey());
+            return existing != null && Objects.equals(existing.value, entry.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            IndexedOrderedMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            IndexedOrderedMap.this.clear();
+        }
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new Iterator<Map.Entry<K, V>>() {
+                private TreeEntry<K, V> next = leftmost(root);
+                private TreeEntry<K, V> lastReturned;
+                private int expectedModCount = modCount;
+
+                @Override
+                public boolean hasNext() {
+                    return next != null;
+                }
+
+                @Override
+                public Map.Entry<K, V> next() {
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    if (next == null) {
+                        throw new NoSuchElementException();
+                    }
+                    lastReturned = next;
+                    next = successor(next);
+                    return lastReturned;
+                }
+
+                @Override
+                public void remove() {
+                    if (lastReturned == null) {
+                        throw new IllegalStateException();
+                    }
+                    if (modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                    IndexedOrderedMap.this.remove(lastReturned.key);
+                    lastReturned = null;
+                    expectedModCount = modCount;
+                }
+            };
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package io.apicurio.umg.base.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A list of integers stored in an int[] rather than as Integer objects.  Used (when the model is
+ * generated with primitive fields) for the properties whose type is a list of integers.
+ */
+public class IntegerList extends PrimitiveList<Integer> {
+
+    private static final int[] EMPTY = {};
+
+    private int[] values = EMPTY;
+
+    public IntegerList() {
+    }
+
+    public IntegerList(Collection<Integer> values) {
+        this.values = new int[values.size()];
+        addAll(values);
+    }
+
+    /**
+     * Returns the given list as an IntegerList: the list itself if it already is one (and is not
+     * frozen), otherwise a copy of it.  Returns null if the list is null.
+     * @param list
+     */
+    public static IntegerList copyOf(List<Integer> list) {
+        if (list == null || (list instanceof IntegerList && !((IntegerList) list).isFrozen())) {
+            return (IntegerList) list;
+        }
+        return new IntegerList(list);
+    }
+
+    /**
+     * Returns the element at the given index without boxing it.  The element must not be null.
+     * @param index
+     */
+    public int getInt(int index) {
+        if (index < 0 || index >= size || isNullAt(index)) {
+            throw new IllegalArgumentException("No int value at index: " + index);
+        }
+        return values[index];
+    }
+
+    /**
+     * Appends the given value without boxing it.
+     * @param value
+     */
+    public void addInt(int value) {
+        checkNotFrozen();
+        if (size == values.length) {
+            resize(Math.max(INITIAL_CAPACITY, size * 2));
+        }
+        values[size++] = value;
+        modCount++;
+    }
+
+    @Override
+    protected int capacity() {
+        return values.length;
+    }
+
+    @Override
+    protected void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    @Override
+    protected void move(int from, int to, int length) {
+        System.arraycopy(values, from, values, to, length);
+    }
+
+    @Override
+    protected Integer getValue(int index) {
+        return values[index];
+    }
+
+    @Override
+    protected void setValue(int index, Integer value) {
+        values[index] = value;
+    }
+
+    @Override
+    protected void clearValue(int index) {
+        values[index] = 0;
+    }
+
+}
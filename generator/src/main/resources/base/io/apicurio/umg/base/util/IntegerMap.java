@@ -0,0 +1,32 @@
+package io.apicurio.umg.base.util;
+
+import java.util.Map;
+
+/**
+ * An ordered map of integers, stored in an int[] rather than as Integer objects.  Used (when the
+ * model is generated with primitive fields) for the properties whose type is a map of integers.
+ */
+public class IntegerMap extends PrimitiveMap<Integer> {
+
+    public IntegerMap() {
+        super(new IntegerList());
+    }
+
+    public IntegerMap(Map<String, Integer> values) {
+        this();
+        putAll(values);
+    }
+
+    /**
+     * Returns the given map as an IntegerMap: the map itself if it already is one (and is not
+     * frozen), otherwise a copy of it.  Returns null if the map is null.
+     * @param map
+     */
+    public static IntegerMap copyOf(Map<String, Integer> map) {
+        if (map == null || (map instanceof IntegerMap && !((IntegerMap) map).isFrozen())) {
+            return (IntegerMap) map;
+        }
+        return new IntegerMap(map);
+    }
+
+}
@@ -42,6 +42,25 @@ public class JsonUtil {
         return keys(json).stream().filter(key -> Pattern.matches(regex, key)).collect(Collectors.toList());
     }
 
+    /* The keys of the given JSON object that have not been consumed yet. */
+    public static List<String> keys(ObjectNode json, ConsumedProperties consumed) {
+        List<String> rval = new ArrayList<>();
+        if (json != null) {
+            Iterator<String> fieldNames = json.fieldNames();
+            while (fieldNames.hasNext()) {
+                String fieldName = fieldNames.next();
+                if (!consumed.contains(fieldName)) {
+                    rval.add(fieldName);
+                }
+            }
+        }
+        return rval;
+    }
+
+    public static List<String> matchingKeys(String regex, ObjectNode json, ConsumedProperties consumed) {
+        return keys(json, consumed).stream().filter(key -> Pattern.matches(regex, key)).collect(Collectors.toList());
+    }
+
     public static JsonNode getProperty(ObjectNode json, String propertyName) {
         if (json.has(propertyName)) {
             return json.get(propertyName);
@@ -75,6 +94,16 @@ public class JsonUtil {
         }
         return null;
     }
+    public static ObjectNode consumeObjectProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        ObjectNode rval = getObjectProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/Consume a JSON (Any) property. */
     public static JsonNode getAnyProperty(ObjectNode json, String propertyName) {
@@ -94,6 +123,13 @@ public class JsonUtil {
         }
         return null;
     }
+    public static JsonNode consumeAnyProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName) || !json.has(propertyName)) {
+            return null;
+        }
+        consumed.add(propertyName);
+        return getAnyProperty(json, propertyName);
+    }
 
     /* Get/consume an array of anys property. */
     public static List<JsonNode> getAnyArrayProperty(ObjectNode json, String propertyName) {
@@ -119,6 +155,16 @@ public class JsonUtil {
         }
         return rval;
     }
+    public static List<JsonNode> consumeAnyArrayProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        List<JsonNode> rval = getAnyArrayProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/consume an array of objects property. */
     public static List<ObjectNode> getObjectArrayProperty(ObjectNode json, String propertyName) {
@@ -146,6 +192,16 @@ public class JsonUtil {
         }
         return rval;
     }
+    public static List<ObjectNode> consumeObjectArrayProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        List<ObjectNode> rval = getObjectArrayProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/consume an array of strings property. */
     public static List<String> getStringArrayProperty(ObjectNode json, String propertyName) {
@@ -173,6 +229,13 @@ public class JsonUtil {
         }
         return null;
     }
+    public static List<String> consumeStringArrayProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName) || !json.has(propertyName)) {
+            return null;
+        }
+        consumed.add(propertyName);
+        return getStringArrayProperty(json, propertyName);
+    }
 
     /* Get/consume an array of integers property. */
     public static List<Integer> getIntegerArrayProperty(ObjectNode json, String propertyName) {
@@ -202,6 +265,13 @@ public class JsonUtil {
         }
         return null;
     }
+    public static List<Integer> consumeIntegerArrayProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName) || !json.has(propertyName)) {
+            return null;
+        }
+        consumed.add(propertyName);
+        return getIntegerArrayProperty(json, propertyName);
+    }
 
     /* Get/consume an array of numbers property. */
     public static List<Number> getNumberArrayProperty(ObjectNode json, String propertyName) {
@@ -237,6 +307,13 @@ public class JsonUtil {
         }
         return null;
     }
+    public static List<Number> consumeNumberArrayProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName) || !json.has(propertyName)) {
+            return null;
+        }
+        consumed.add(propertyName);
+        return getNumberArrayProperty(json, propertyName);
+    }
 
     /* Get/consume an array of booleans property. */
     public static List<Boolean> getBooleanArrayProperty(ObjectNode json, String propertyName) {
@@ -266,6 +343,13 @@ public class JsonUtil {
         }
         return null;
     }
+    public static List<Boolean> consumeBooleanArrayProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName) || !json.has(propertyName)) {
+            return null;
+        }
+        consumed.add(propertyName);
+        return getBooleanArrayProperty(json, propertyName);
+    }
 
     /* Get/Consume a string property. */
     public static String getStringProperty(ObjectNode json, String propertyName) {
@@ -287,6 +371,16 @@ public class JsonUtil {
         }
         return null;
     }
+    public static String consumeStringProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        String rval = getStringProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/Consume an Integer property. */
     public static Integer getIntegerProperty(ObjectNode json, String propertyName) {
@@ -308,6 +402,16 @@ public class JsonUtil {
         }
         return null;
     }
+    public static Integer consumeIntegerProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        Integer rval = getIntegerProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/Consume a Number property. */
     public static Number getNumberProperty(ObjectNode json, String propertyName) {
@@ -335,6 +439,16 @@ public class JsonUtil {
         }
         return null;
     }
+    public static Number consumeNumberProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        Number rval = getNumberProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/Consume a Boolean property. */
     public static Boolean getBooleanProperty(ObjectNode json, String propertyName) {
@@ -356,6 +470,16 @@ public class JsonUtil {
         }
         return null;
     }
+    public static Boolean consumeBooleanProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        Boolean rval = getBooleanProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/consume a map of anys property. */
     public static Map<String, JsonNode> getAnyMapProperty(ObjectNode json, String propertyName) {
@@ -382,6 +506,16 @@ public class JsonUtil {
         }
         return rval;
     }
+    public static Map<String, JsonNode> consumeAnyMapProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        Map<String, JsonNode> rval = getAnyMapProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/consume a map of objects property. */
     public static Map<String, ObjectNode> getObjectMapProperty(ObjectNode json, String propertyName) {
@@ -408,6 +542,16 @@ public class JsonUtil {
         }
         return rval;
     }
+    public static Map<String, ObjectNode> consumeObjectMapProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        Map<String, ObjectNode> rval = getObjectMapProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/consume a map of strings property. */
     public static Map<String, String> getStringMapProperty(ObjectNode json, String propertyName) {
@@ -434,6 +578,16 @@ public class JsonUtil {
         }
         return rval;
     }
+    public static Map<String, String> consumeStringMapProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        Map<String, String> rval = getStringMapProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/consume a map of integers property. */
     public static Map<String, Integer> getIntegerMapProperty(ObjectNode json, String propertyName) {
@@ -460,6 +614,16 @@ public class JsonUtil {
         }
         return rval;
     }
+    public static Map<String, Integer> consumeIntegerMapProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        Map<String, Integer> rval = getIntegerMapProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/consume a map of numbers property. */
     public static Map<String, Number> getNumberMapProperty(ObjectNode json, String propertyName) {
@@ -486,6 +650,16 @@ public class JsonUtil {
         }
         return rval;
     }
+    public static Map<String, Number> consumeNumberMapProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        Map<String, Number> rval = getNumberMapProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Get/consume a map of numbers property. */
     public static Map<String, Boolean> getBooleanMapProperty(ObjectNode json, String propertyName) {
@@ -512,6 +686,16 @@ public class JsonUtil {
         }
         return rval;
     }
+    public static Map<String, Boolean> consumeBooleanMapProperty(ObjectNode json, String propertyName, ConsumedProperties consumed) {
+        if (consumed.contains(propertyName)) {
+            return null;
+        }
+        Map<String, Boolean> rval = getBooleanMapProperty(json, propertyName);
+        if (rval != null) {
+            consumed.add(propertyName);
+        }
+        return rval;
+    }
 
     /* Set a JSON (Object) property. */
     public static void setObjectProperty(ObjectNode json, String propertyName, ObjectNode value) {
@@ -813,6 +997,23 @@ public class JsonUtil {
         return false;
     }
 
+    /**
+     * Looks up the (string) value of the given discriminator property of an object in the given
+     * table of discriminator values.  Returns the index found in the table, or -1 if the property
+     * is missing, is not a string, or has a value that is not in the table.
+     * @param value
+     * @param propertyName
+     * @param discriminators
+     */
+    public static int discriminate(JsonNode value, String propertyName, Map<String, Integer> discriminators) {
+        JsonNode pvalue = value.get(propertyName);
+        if (pvalue == null || !pvalue.isTextual()) {
+            return -1;
+        }
+        Integer index = discriminators.get(pvalue.asText());
+        return index == null ? -1 : index;
+    }
+
     public static ObjectNode toObject(JsonNode value) {
         return (ObjectNode) value;
     }
@@ -0,0 +1,38 @@
+package io.apicurio.umg.base.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Allocates the model ids of nodes.  Each thread takes a block of ids from a global counter and
+ * then hands them out without any synchronization, so nodes can be created (e.g. documents read)
+ * concurrently on many threads without the threads contending on a shared counter.  Ids are
+ * unique across all threads, but the ids of nodes created on different threads interleave, so
+ * they are only increasing within the nodes created by a single thread.
+ */
+public class ModelIdAllocator {
+
+    private static final int BLOCK_SIZE = 1024;
+
+    private static final AtomicInteger nextBlock = new AtomicInteger();
+    private static final ThreadLocal<Block> block = ThreadLocal.withInitial(Block::new);
+
+    public static int nextId() {
+        return block.get().nextId();
+    }
+
+    private static class Block {
+
+        private int next;
+        private int limit;
+
+        private int nextId() {
+            if (next == limit) {
+                next = nextBlock.getAndAdd(BLOCK_SIZE);
+                limit = next + BLOCK_SIZE;
+            }
+            return next++;
+        }
+
+    }
+
+}
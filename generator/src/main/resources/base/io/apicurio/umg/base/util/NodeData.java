@@ -0,0 +1,279 @@
+package io.apicurio.umg.base.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * Holds the extra properties and the attributes of a single node.  Most nodes have neither, and
+ * the rest typically have only a few, so rather than two hash maps this is a single array of
+ * key/value pairs: first the extra properties (in the order they were added), then the attributes.
+ * Lookups are a linear scan, except when a node has many extra properties (or attributes): those
+ * are then found through a (lazy) index from name to position, as in {@link PrimitiveMap}.
+ *
+ * It also holds the pending read of a node read by a lazy reader (see NodeImpl._deferRead), and
+ * the version key of a path copy (see NodeImpl._versionKey), so that only the nodes that are
+ * actually read lazily, or copied by an update, pay for them.
+ */
+public class NodeData {
+
+    private static final int INITIAL_CAPACITY = 4;
+    private static final Object[] EMPTY_TABLE = {};
+    private static final int INDEX_THRESHOLD = 16;
+
+    private Object[] table = EMPTY_TABLE;
+    private int extraPropertyCount;
+    private int attributeCount;
+    private Map<String, Integer> extraPropertyIndex;
+    private Map<String, Integer> attributeIndex;
+    private Runnable pendingRead;
+    private boolean hasVersionKey;
+    private int versionKey;
+
+    /* Pending read. */
+    public Runnable getPendingRead() {
+        return pendingRead;
+    }
+
+    public void setPendingRead(Runnable pendingRead) {
+        this.pendingRead = pendingRead;
+    }
+
+    /* Version key (of a path copy, see NodeImpl._versionKey). */
+    public boolean hasVersionKey() {
+        return hasVersionKey;
+    }
+
+    public int getVersionKey() {
+        return versionKey;
+    }
+
+    public void setVersionKey(int versionKey) {
+        this.hasVersionKey = true;
+        this.versionKey = versionKey;
+    }
+
+    /* Extra properties. */
+    public JsonNode getExtraProperty(String name) {
+        int idx = findExtraProperty(name);
+        return idx == -1 ? null : (JsonNode) table[idx * 2 + 1];
+    }
+
+    public void putExtraProperty(String name, JsonNode value) {
+        int idx = findExtraProperty(name);
+        if (idx == -1) {
+            insert(extraPropertyCount, name, value);
+            if (extraPropertyIndex != null) {
+                extraPropertyIndex.put(name, extraPropertyCount);
+            }
+            extraPropertyCount++;
+        } else {
+            table[idx * 2 + 1] = value;
+        }
+    }
+
+    public JsonNode removeExtraProperty(String name) {
+        int idx = findExtraProperty(name);
+        if (idx == -1) {
+            return null;
+        }
+        JsonNode value = (JsonNode) table[idx * 2 + 1];
+        remove(idx);
+        extraPropertyCount--;
+        return value;
+    }
+
+    public int getExtraPropertyCount() {
+        return extraPropertyCount;
+    }
+
+    public List<String> getExtraPropertyNames() {
+        return names(0, extraPropertyCount);
+    }
+
+    public String getExtraPropertyName(int index) {
+        return (String) table[index * 2];
+    }
+
+    public JsonNode getExtraPropertyValue(int index) {
+        return (JsonNode) table[index * 2 + 1];
+    }
+
+    public void forEachExtraProperty(BiConsumer<String, JsonNode> consumer) {
+        for (int idx = 0; idx < extraPropertyCount; idx++) {
+            consumer.accept((String) table[idx * 2], (JsonNode) table[idx * 2 + 1]);
+        }
+    }
+
+    /**
+     * Returns a copy of this data: the extra property values are deep copied, while the
+     * attribute values are shared.  The pending read and the version key are not copied.
+     */
+    public NodeData copy() {
+        NodeData copy = new NodeData();
+        copy.table = Arrays.copyOf(table, table.length);
+        copy.extraPropertyCount = extraPropertyCount;
+        copy.attributeCount = attributeCount;
+        for (int idx = 0; idx < extraPropertyCount; idx++) {
+            JsonNode value = (JsonNode) table[idx * 2 + 1];
+            if (value != null) {
+                copy.table[idx * 2 + 1] = value.deepCopy();
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Trims the table to the pairs it holds, and builds its indexes (if it needs any), see
+     * RootNode.freeze.  The indexes are built now because they are otherwise built by the first
+     * lookup, which would not be safe for concurrent readers.  The data must not be empty.
+     */
+    public void compact() {
+        table = Arrays.copyOf(table, (extraPropertyCount + attributeCount) * 2);
+        findExtraProperty(null);
+        findAttribute(null);
+    }
+
+    /**
+     * Returns a copy of this data that shares its extra property and attribute values.  The
+     * pending read and the version key are not copied.
+     */
+    public NodeData shallowCopy() {
+        NodeData copy = new NodeData();
+        copy.table = Arrays.copyOf(table, table.length);
+        copy.extraPropertyCount = extraPropertyCount;
+        copy.attributeCount = attributeCount;
+        return copy;
+    }
+
+    /* Attributes. */
+    public Object getAttribute(String name) {
+        int idx = findAttribute(name);
+        return idx == -1 ? null : table[idx * 2 + 1];
+    }
+
+    public void putAttribute(String name, Object value) {
+        int idx = findAttribute(name);
+        if (idx == -1) {
+            insert(extraPropertyCount + attributeCount, name, value);
+            if (attributeIndex != null) {
+                attributeIndex.put(name, extraPropertyCount + attributeCount);
+            }
+            attributeCount++;
+        } else {
+            table[idx * 2 + 1] = value;
+        }
+    }
+
+    public List<String> getAttributeNames() {
+        return names(extraPropertyCount, extraPropertyCount + attributeCount);
+    }
+
+    public void clearAttributes() {
+        Arrays.fill(table, extraPropertyCount * 2, (extraPropertyCount + attributeCount) * 2, null);
+        attributeCount = 0;
+        attributeIndex = null;
+    }
+
+    /**
+     * Returns true if this data holds no extra properties, no attributes and no version key.
+     */
+    public boolean isEmpty() {
+        return extraPropertyCount + attributeCount == 0 && !hasVersionKey;
+    }
+
+    /**
+     * Returns the index of the extra property with the given name, or -1.
+     */
+    private int findExtraProperty(String name) {
+        if (extraPropertyCount > INDEX_THRESHOLD) {
+            if (extraPropertyIndex == null) {
+                extraPropertyIndex = index(0, extraPropertyCount);
+            }
+            Integer idx = extraPropertyIndex.get(name);
+            return idx == null ? -1 : idx;
+        }
+        return find(0, extraPropertyCount, name);
+    }
+
+    /**
+     * Returns the index of the attribute with the given name, or -1.
+     */
+    private int findAttribute(String name) {
+        if (attributeCount > INDEX_THRESHOLD) {
+            if (attributeIndex == null) {
+                attributeIndex = index(extraPropertyCount, extraPropertyCount + attributeCount);
+            }
+            Integer idx = attributeIndex.get(name);
+            return idx == null ? -1 : idx;
+        }
+        return find(extraPropertyCount, extraPropertyCount + attributeCount, name);
+    }
+
+    /**
+     * Returns an index from key to position of the given range of pairs.
+     */
+    private Map<String, Integer> index(int from, int to) {
+        Map<String, Integer> index = new HashMap<>((to - from) * 2);
+        for (int idx = from; idx < to; idx++) {
+            index.put((String) table[idx * 2], idx);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the pair (in the given range of pairs) with the given key, or -1.
+     */
+    private int find(int from, int to, String name) {
+        for (int idx = from; idx < to; idx++) {
+            Object key = table[idx * 2];
+            if (key == name || key.equals(name)) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    private List<String> names(int from, int to) {
+        List<String> names = new ArrayList<>(to - from);
+        for (int idx = from; idx < to; idx++) {
+            names.add((String) table[idx * 2]);
+        }
+        return names;
+    }
+
+    /**
+     * Inserts a pair at the given index, moving the pairs after it (the attributes, if any, when
+     * inserting an extra property) up by one.
+     */
+    private void insert(int idx, String name, Object value) {
+        int size = extraPropertyCount + attributeCount;
+        if (size * 2 == table.length) {
+            table = Arrays.copyOf(table, Math.max(table.length * 2, INITIAL_CAPACITY * 2));
+        }
+        if (idx < size) {
+            System.arraycopy(table, idx * 2, table, idx * 2 + 2, (size - idx) * 2);
+            attributeIndex = null;
+        }
+        table[idx * 2] = name;
+        table[idx * 2 + 1] = value;
+    }
+
+    /**
+     * Removes the pair at the given index, moving the pairs after it down by one.
+     */
+    private void remove(int idx) {
+        int size = extraPropertyCount + attributeCount;
+        System.arraycopy(table, idx * 2 + 2, table, idx * 2, (size - idx - 1) * 2);
+        table[size * 2 - 2] = null;
+        table[size * 2 - 1] = null;
+        extraPropertyIndex = null;
+        attributeIndex = null;
+    }
+
+}
@@ -0,0 +1,201 @@
+package io.apicurio.umg.base.util;
+
+import java.util.AbstractList;
+import java.util.BitSet;
+import java.util.RandomAccess;
+
+/**
+ * Base class of the lists that store their (boxed) elements in an array of primitives.  Null
+ * elements are allowed: they are tracked in a bit set that is only created when the first null
+ * element is added, so lists without nulls (nearly all of them) pay nothing for it.
+ * Subclasses manage the primitive array, and must call checkNotFrozen() before any modification.
+ */
+public abstract class PrimitiveList<E> extends AbstractList<E> implements RandomAccess {
+
+    protected static final int INITIAL_CAPACITY = 8;
+
+    protected int size;
+    private BitSet nulls;
+    private boolean frozen;
+
+    /**
+     * Returns the number of elements the primitive array can hold.
+     */
+    protected abstract int capacity();
+
+    /**
+     * Resizes the primitive array to the given capacity, keeping its first {@code size} elements.
+     * @param capacity
+     */
+    protected abstract void resize(int capacity);
+
+    /**
+     * Moves a range of the primitive array (as with System.arraycopy).
+     * @param from
+     * @param to
+     * @param length
+     */
+    protected abstract void move(int from, int to, int length);
+
+    /**
+     * Returns the value stored at the given index.
+     * @param index
+     */
+    protected abstract E getValue(int index);
+
+    /**
+     * Stores the given (non-null) value at the given index.
+     * @param index
+     * @param value
+     */
+    protected abstract void setValue(int index, E value);
+
+    /**
+     * Clears the value stored at the given index (so that the slot holds a null element).
+     * @param index
+     */
+    protected abstract void clearValue(int index);
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public E get(int index) {
+        checkIndex(index);
+        return isNullAt(index) ? null : getValue(index);
+    }
+
+    @Override
+    public E set(int index, E element) {
+        checkNotFrozen();
+        checkIndex(index);
+        E old = isNullAt(index) ? null : getValue(index);
+        store(index, element);
+        return old;
+    }
+
+    @Override
+    public boolean add(E element) {
+        add(size, element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkNotFrozen();
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (size == capacity()) {
+            resize(Math.max(INITIAL_CAPACITY, size * 2));
+        }
+        if (index < size) {
+            move(index, index + 1, size - index);
+            shiftNulls(index, 1);
+        }
+        size++;
+        modCount++;
+        store(index, element);
+    }
+
+    @Override
+    public E remove(int index) {
+        checkNotFrozen();
+        checkIndex(index);
+        E old = isNullAt(index) ? null : getValue(index);
+        move(index + 1, index, size - index - 1);
+        shiftNulls(index + 1, -1);
+        size--;
+        clearValue(size);
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        checkNotFrozen();
+        for (int idx = 0; idx < size; idx++) {
+            clearValue(idx);
+        }
+        size = 0;
+        nulls = null;
+        modCount++;
+    }
+
+    /**
+     * Trims the primitive array to the size of the list, and makes the list unmodifiable (see
+     * RootNode.freeze).
+     */
+    public void freeze() {
+        if (capacity() != size) {
+            resize(size);
+        }
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Throws if the list is frozen (see freeze).
+     */
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The list is frozen.");
+        }
+    }
+
+    /**
+     * Returns true if the element at the given (valid) index is null.
+     * @param index
+     */
+    protected boolean isNullAt(int index) {
+        return nulls != null && nulls.get(index);
+    }
+
+    private void store(int index, E element) {
+        if (element == null) {
+            if (nulls == null) {
+                nulls = new BitSet();
+            }
+            nulls.set(index);
+            clearValue(index);
+        } else {
+            if (nulls != null) {
+                nulls.clear(index);
+            }
+            setValue(index, element);
+        }
+    }
+
+    /**
+     * Shifts the null flags of the elements from the given index (to the end of the list) by
+     * the given distance, following a move of those elements.
+     */
+    private void shiftNulls(int from, int distance) {
+        if (nulls == null) {
+            return;
+        }
+        if (distance > 0) {
+            for (int idx = size - 1; idx >= from; idx--) {
+                nulls.set(idx + distance, nulls.get(idx));
+            }
+            nulls.clear(from);
+        } else {
+            for (int idx = from; idx < size; idx++) {
+                nulls.set(idx + distance, nulls.get(idx));
+            }
+            nulls.clear(size - 1);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+}
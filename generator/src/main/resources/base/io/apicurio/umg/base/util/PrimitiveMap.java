@@ -0,0 +1,240 @@
+package io.apicurio.umg.base.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Base class of the (insertion ordered) maps from property names to primitive values.  The keys
+ * are kept in an array and the values in a parallel primitive list, so the values are never
+ * stored as boxed objects.  Small maps are searched linearly; larger ones build a (lazy) index
+ * from key to position.
+ */
+public abstract class PrimitiveMap<V> extends AbstractMap<String, V> {
+
+    private static final int INDEX_THRESHOLD = 16;
+
+    private final PrimitiveList<V> values;
+    private String[] keys = new String[0];
+    private Map<String, Integer> index;
+    private int modCount;
+    private boolean frozen;
+
+    protected PrimitiveMap(PrimitiveList<V> values) {
+        this.values = values;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return find(key) != -1;
+    }
+
+    @Override
+    public V get(Object key) {
+        int idx = find(key);
+        return idx == -1 ? null : values.get(idx);
+    }
+
+    @Override
+    public V put(String key, V value) {
+        checkNotFrozen();
+        int idx = find(key);
+        if (idx != -1) {
+            return values.set(idx, value);
+        }
+        idx = size();
+        if (idx == keys.length) {
+            keys = Arrays.copyOf(keys, Math.max(PrimitiveList.INITIAL_CAPACITY, idx * 2));
+        }
+        keys[idx] = key;
+        values.add(value);
+        if (index != null) {
+            index.put(key, idx);
+        }
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Inserts the given entry at the given position, unless the map already contains the key
+     * (in which case the map is not modified).  Appends the entry if the position is past the
+     * end of the map, and inserts it first if the position is negative.
+     * @param key
+     * @param value
+     * @param atIndex
+     */
+    public void insert(String key, V value, int atIndex) {
+        checkNotFrozen();
+        if (containsKey(key)) {
+            return;
+        }
+        int size = size();
+        if (atIndex >= size) {
+            put(key, value);
+            return;
+        }
+        atIndex = Math.max(atIndex, 0);
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+        }
+        System.arraycopy(keys, atIndex, keys, atIndex + 1, size - atIndex);
+        keys[atIndex] = key;
+        values.add(atIndex, value);
+        index = null;
+        modCount++;
+    }
+
+    @Override
+    public V remove(Object key) {
+        int idx = find(key);
+        return idx == -1 ? null : removeAt(idx);
+    }
+
+    @Override
+    public void clear() {
+        checkNotFrozen();
+        Arrays.fill(keys, 0, size(), null);
+        values.clear();
+        index = null;
+        modCount++;
+    }
+
+    @Override
+    public Set<Entry<String, V>> entrySet() {
+        return new AbstractSet<Entry<String, V>>() {
+            @Override
+            public Iterator<Entry<String, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return PrimitiveMap.this.size();
+            }
+
+            @Override
+            public void clear() {
+                PrimitiveMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Trims the keys and values to the size of the map, builds its index (if it needs one), and
+     * makes the map unmodifiable (see RootNode.freeze).  The index is built now because it is
+     * otherwise built by the first lookup, which would not be safe for concurrent readers.
+     */
+    public void freeze() {
+        int size = size();
+        if (keys.length != size) {
+            keys = Arrays.copyOf(keys, size);
+        }
+        values.freeze();
+        find(null);
+        frozen = true;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("The map is frozen.");
+        }
+    }
+
+    private V removeAt(int idx) {
+        checkNotFrozen();
+        int size = size();
+        V old = values.remove(idx);
+        System.arraycopy(keys, idx + 1, keys, idx, size - idx - 1);
+        keys[size - 1] = null;
+        index = null;
+        modCount++;
+        return old;
+    }
+
+    /**
+     * Returns the position of the given key, or -1.
+     */
+    private int find(Object key) {
+        int size = size();
+        if (size > INDEX_THRESHOLD) {
+            if (index == null) {
+                index = new HashMap<>(size * 2);
+                for (int idx = 0; idx < size; idx++) {
+                    index.put(keys[idx], idx);
+                }
+            }
+            Integer idx = index.get(key);
+            return idx == null ? -1 : idx;
+        }
+        for (int idx = 0; idx < size; idx++) {
+            if (keys[idx].equals(key)) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, V>> {
+
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next < size();
+        }
+
+        @Override
+        public Entry<String, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= size()) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            final int idx = last;
+            return new SimpleEntry<String, V>(keys[idx], values.get(idx)) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                public V setValue(V value) {
+                    values.set(idx, value);
+                    return super.setValue(value);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (last == -1) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+package io.apicurio.umg.base.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The set of property paths read by a projection read (see the streaming readers).  A path is a
+ * sequence of property names (as in the specification), map keys and star (mapped node) item
+ * names, separated by dots, e.g. "info.title", "paths.*.*.operationId" or "channels.*".  A "*"
+ * segment matches any name.  The items of a list are not a segment of the path: the remainder
+ * of the path applies to each of them.  Everything under the end of a path is read.
+ *
+ * A projection is immutable once created, and can be shared by any number of reads.
+ */
+public final class Projection {
+
+    /**
+     * The projection that reads everything.
+     */
+    public static final Projection ALL = new Projection();
+    static {
+        ALL.all = true;
+    }
+
+    private final Map<String, Projection> children = new HashMap<>();
+    private Projection any;
+    private boolean all;
+
+    private Projection() {
+    }
+
+    /**
+     * Creates a projection from the given (dot separated) paths.
+     * @param paths
+     */
+    public static Projection of(String... paths) {
+        List<List<String>> segments = new ArrayList<>(paths.length);
+        for (String path : paths) {
+            segments.add(path.isEmpty() ? List.of() : Arrays.asList(path.split("\\.", -1)));
+        }
+        return of(segments);
+    }
+
+    /**
+     * Creates a projection from the given paths, each given as its list of segments (for names
+     * that contain dots).
+     * @param paths
+     */
+    public static Projection of(Collection<List<String>> paths) {
+        Projection root = new Projection();
+        for (List<String> path : paths) {
+            Projection projection = root;
+            for (String segment : path) {
+                if ("*".equals(segment)) {
+                    if (projection.any == null) {
+                        projection.any = new Projection();
+                    }
+                    projection = projection.any;
+                } else {
+                    projection = projection.children.computeIfAbsent(segment, name -> new Projection());
+                }
+            }
+            projection.all = true;
+        }
+        root.normalize();
+        return root;
+    }
+
+    /**
+     * Returns the projection of the property (or map entry) with the given name, or null if it
+     * is not read at all.
+     * @param name
+     */
+    public Projection child(String name) {
+        if (all) {
+            return this;
+        }
+        Projection child = children.get(name);
+        return child != null ? child : any;
+    }
+
+    /**
+     * Returns true if everything under this projection is read.
+     */
+    public boolean isAll() {
+        return all;
+    }
+
+    /**
+     * Merges the wildcard paths into the paths of the named children (so that child() only needs a
+     * single lookup), and drops the paths under those that are read entirely.
+     */
+    private void normalize() {
+        if (all) {
+            children.clear();
+            any = null;
+            return;
+        }
+        if (any != null) {
+            children.values().forEach(child -> child.merge(any));
+            any.normalize();
+        }
+        children.values().forEach(Projection::normalize);
+    }
+
+    private void merge(Projection other) {
+        all |= other.all;
+        other.children.forEach((name, child) -> children.computeIfAbsent(name, key -> new Projection()).merge(child));
+        if (other.any != null) {
+            if (any == null) {
+                any = new Projection();
+            }
+            any.merge(other.any);
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package io.apicurio.umg.base.util;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A table of the property names that nodes are stored under in their parent nodes.  Nodes keep
+ * the (small integer) index of their parent property name rather than a reference to the name
+ * itself (see NodeImpl).  The set of names is small and fixed (they are the property names of
+ * the model), so names are never removed from the table.
+ */
+public class PropertyNameTable {
+
+    private static final ConcurrentHashMap<String, Integer> indexes = new ConcurrentHashMap<>();
+    private static volatile String[] names = new String[64];
+    private static int size;
+
+    /**
+     * Returns the index of the given property name, adding it to the table if necessary.
+     * @param name
+     */
+    public static int indexOf(String name) {
+        Integer index = indexes.get(name);
+        if (index == null) {
+            index = add(name);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the property name with the given index.
+     * @param index
+     */
+    public static String nameOf(int index) {
+        return names[index];
+    }
+
+    private static synchronized int add(String name) {
+        Integer index = indexes.get(name);
+        if (index != null) {
+            return index;
+        }
+        String[] table = names;
+        if (size == table.length) {
+            table = Arrays.copyOf(table, size * 2);
+        }
+        table[size] = name;
+        names = table;
+        indexes.put(name, size);
+        return size++;
+    }
+
+}
@@ -1,9 +1,14 @@
 package io.apicurio.umg.base.util;
 
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.databind.JsonNode;
 
 import io.apicurio.umg.base.Node;
+import io.apicurio.umg.base.NodeImpl;
 
 public class ReaderUtil {
 
@@ -15,5 +20,37 @@ public class ReaderUtil {
             });
         }
     }
-    
+
+    /**
+     * Reads every property of the JSON object that was not consumed by the (non-destructive)
+     * reader as an extra property.  The JSON object itself is left untouched.
+     * @param json
+     * @param node
+     * @param consumed
+     */
+    public static final void readExtraProperties(ObjectNode json, Node node, ConsumedProperties consumed) {
+        if (json != null) {
+            Iterator<Map.Entry<String, JsonNode>> fields = json.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!consumed.contains(field.getKey())) {
+                    JsonNode value = field.getValue();
+                    node.addExtraProperty(field.getKey(), value.isNull() ? null : value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Used by lazy readers: defers the reading of the given JSON object into the given node until
+     * the node is first accessed, unless the node is being read (materialized) already.  Returns
+     * true if the reading was deferred.
+     * @param json
+     * @param node
+     * @param reader
+     */
+    public static final <T extends Node> boolean deferRead(ObjectNode json, T node, BiConsumer<ObjectNode, T> reader) {
+        return ((NodeImpl) node)._deferRead(() -> reader.accept(json, node));
+    }
+
 }
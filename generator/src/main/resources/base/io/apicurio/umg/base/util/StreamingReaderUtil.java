@@ -0,0 +1,328 @@
+package io.apicurio.umg.base.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonParser.NumberType;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.apicurio.umg.base.Node;
+
+/**
+ * Utility methods used by the generated streaming readers.  Every "read" method expects the parser
+ * to be positioned on the first token of the value being read, and leaves the parser positioned on
+ * the last token of that value.  The type checks and conversions mirror the ones in {@link JsonUtil}
+ * so that the streaming readers produce the same models as the tree based readers.
+ */
+public class StreamingReaderUtil {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final JsonFactory factory = mapper.getFactory();
+
+    public static JsonParser createParser(String content) throws IOException {
+        return factory.createParser(content);
+    }
+
+    public static JsonParser createParser(Reader reader) throws IOException {
+        return factory.createParser(reader);
+    }
+
+    public static JsonParser createParser(InputStream stream) throws IOException {
+        return factory.createParser(stream);
+    }
+
+    /**
+     * Creates a parser over an already buffered JSON value, positioned on its first token.
+     * @param value
+     */
+    public static JsonParser traverse(JsonNode value) throws IOException {
+        JsonParser parser = value.traverse(mapper);
+        parser.nextToken();
+        return parser;
+    }
+
+    public static void skip(JsonParser parser) throws IOException {
+        parser.skipChildren();
+    }
+
+    public static void readExtraProperty(JsonParser parser, String name, Node node) throws IOException {
+        node.addExtraProperty(name, readAny(parser));
+    }
+
+    /* Type checks for the current value. */
+    public static boolean isString(JsonParser parser) {
+        return parser.currentToken() == JsonToken.VALUE_STRING;
+    }
+
+    public static boolean isInteger(JsonParser parser) throws IOException {
+        return parser.currentToken() == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == NumberType.INT;
+    }
+
+    /**
+     * Returns true if the current value is a number that {@link JsonUtil#getNumberProperty(ObjectNode, String)}
+     * would read: an int, a long or a floating point number.  Numbers that do not fit in a long
+     * (big integers and big decimals) are not, so that they are kept (exactly) as extra properties.
+     * @param parser
+     */
+    public static boolean isNumber(JsonParser parser) throws IOException {
+        if (!parser.currentToken().isNumeric()) {
+            return false;
+        }
+        NumberType type = parser.getNumberType();
+        return type != NumberType.BIG_INTEGER && type != NumberType.BIG_DECIMAL;
+    }
+
+    public static boolean isBoolean(JsonParser parser) {
+        return parser.currentToken() == JsonToken.VALUE_TRUE || parser.currentToken() == JsonToken.VALUE_FALSE;
+    }
+
+    public static boolean isObject(JsonParser parser) {
+        return parser.currentToken() == JsonToken.START_OBJECT;
+    }
+
+    public static boolean isArray(JsonParser parser) {
+        return parser.currentToken() == JsonToken.START_ARRAY;
+    }
+
+    /* Read the current (scalar) value. */
+    public static String readString(JsonParser parser) throws IOException {
+        return parser.getText();
+    }
+
+    public static Integer readInteger(JsonParser parser) throws IOException {
+        return parser.getIntValue();
+    }
+
+    /**
+     * Reads the current number the same way {@link JsonUtil#toNumber(JsonNode)} converts a numeric
+     * node: ints and longs are kept as they are, all other numbers are read as doubles.  Like the
+     * tree based readers, number arrays read every number this way, including big integers and
+     * big decimals.
+     * @param parser
+     */
+    public static Number readNumber(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT) {
+            NumberType type = parser.getNumberType();
+            if (type == NumberType.INT) {
+                return parser.getIntValue();
+            }
+            if (type == NumberType.LONG) {
+                return parser.getLongValue();
+            }
+        }
+        return parser.getDoubleValue();
+    }
+
+    public static Boolean readBoolean(JsonParser parser) throws IOException {
+        return parser.getBooleanValue();
+    }
+
+    /* Read the current value as a (buffered) JSON tree. */
+    public static ObjectNode readObject(JsonParser parser) throws IOException {
+        return (ObjectNode) mapper.readTree(parser);
+    }
+
+    public static JsonNode readAny(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return mapper.readTree(parser);
+    }
+
+    private static JsonNode readNode(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return mapper.getNodeFactory().nullNode();
+        }
+        return mapper.readTree(parser);
+    }
+
+    /* Read arrays of primitives. */
+    public static List<String> readStringArray(JsonParser parser) throws IOException {
+        if (!isArray(parser)) {
+            parser.skipChildren();
+            return null;
+        }
+        List<String> rval = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_NULL) {
+                rval.add(null);
+            } else if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                rval.add(String.valueOf(parser.getDoubleValue()));
+            } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                rval.add(parser.getNumberValue().toString());
+            } else if (token.isScalarValue()) {
+                rval.add(parser.getText());
+            } else {
+                parser.skipChildren();
+                rval.add("");
+            }
+        }
+        return rval;
+    }
+
+    public static List<Integer> readIntegerArray(JsonParser parser) throws IOException {
+        if (!isArray(parser)) {
+            parser.skipChildren();
+            return null;
+        }
+        List<Integer> rval = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (isInteger(parser)) {
+                rval.add(parser.getIntValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return rval;
+    }
+
+    public static List<Number> readNumberArray(JsonParser parser) throws IOException {
+        if (!isArray(parser)) {
+            parser.skipChildren();
+            return null;
+        }
+        List<Number> rval = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken().isNumeric()) {
+                rval.add(readNumber(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return rval;
+    }
+
+    public static List<Boolean> readBooleanArray(JsonParser parser) throws IOException {
+        if (!isArray(parser)) {
+            parser.skipChildren();
+            return null;
+        }
+        List<Boolean> rval = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (isBoolean(parser)) {
+                rval.add(parser.getBooleanValue());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return rval;
+    }
+
+    public static List<ObjectNode> readObjectArray(JsonParser parser) throws IOException {
+        List<ObjectNode> rval = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (isObject(parser)) {
+                rval.add(readObject(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return rval;
+    }
+
+    public static List<JsonNode> readAnyArray(JsonParser parser) throws IOException {
+        List<JsonNode> rval = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            rval.add(readNode(parser));
+        }
+        return rval;
+    }
+
+    /* Read maps of primitives. */
+    public static Map<String, String> readStringMap(JsonParser parser) throws IOException {
+        Map<String, String> rval = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            if (isString(parser)) {
+                rval.put(key, parser.getText());
+            } else {
+                parser.skipChildren();
+                rval.put(key, null);
+            }
+        }
+        return rval;
+    }
+
+    public static Map<String, Integer> readIntegerMap(JsonParser parser) throws IOException {
+        Map<String, Integer> rval = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            if (isInteger(parser)) {
+                rval.put(key, parser.getIntValue());
+            } else {
+                parser.skipChildren();
+                rval.put(key, null);
+            }
+        }
+        return rval;
+    }
+
+    public static Map<String, Number> readNumberMap(JsonParser parser) throws IOException {
+        Map<String, Number> rval = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            if (isNumber(parser)) {
+                rval.put(key, readNumber(parser));
+            } else {
+                parser.skipChildren();
+                rval.put(key, null);
+            }
+        }
+        return rval;
+    }
+
+    public static Map<String, Boolean> readBooleanMap(JsonParser parser) throws IOException {
+        Map<String, Boolean> rval = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            if (isBoolean(parser)) {
+                rval.put(key, parser.getBooleanValue());
+            } else {
+                parser.skipChildren();
+                rval.put(key, null);
+            }
+        }
+        return rval;
+    }
+
+    public static Map<String, ObjectNode> readObjectMap(JsonParser parser) throws IOException {
+        Map<String, ObjectNode> rval = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            if (isObject(parser)) {
+                rval.put(key, readObject(parser));
+            } else {
+                parser.skipChildren();
+                rval.put(key, null);
+            }
+        }
+        return rval;
+    }
+
+    public static Map<String, JsonNode> readAnyMap(JsonParser parser) throws IOException {
+        Map<String, JsonNode> rval = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String key = parser.getCurrentName();
+            parser.nextToken();
+            rval.put(key, readAny(parser));
+        }
+        return rval;
+    }
+
+}
@@ -0,0 +1,239 @@
+package io.apicurio.umg.base.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.apicurio.umg.base.Node;
+
+/**
+ * Utility methods used by the generated streaming writers.  Each "writeXyzProperty" method writes
+ * a field name followed by its value, and (like the "setXyzProperty" methods in {@link JsonUtil})
+ * writes nothing at all when the value is null.  Values are written exactly as the tree based
+ * writers would write them, so both writers produce the same JSON (including field order).
+ */
+public class StreamingWriterUtil {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final JsonFactory factory = mapper.getFactory();
+
+    public static JsonGenerator createGenerator(OutputStream stream) throws IOException {
+        return factory.createGenerator(stream, JsonEncoding.UTF8);
+    }
+
+    public static JsonGenerator createGenerator(Writer writer) throws IOException {
+        return factory.createGenerator(writer);
+    }
+
+    public static void writeExtraProperties(Node node, JsonGenerator generator) throws IOException {
+        if (node.hasExtraProperties()) {
+            for (Map.Entry<String, JsonNode> property : node.getExtraPropertiesView().entrySet()) {
+                writeProperty(generator, property.getKey(), property.getValue());
+            }
+        }
+    }
+
+    /**
+     * Writes an already buffered JSON value.  The tree is written through the shared mapper so
+     * that this works for generators that were not created with an ObjectCodec.
+     * @param generator
+     * @param value
+     */
+    public static void writeTree(JsonGenerator generator, JsonNode value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            mapper.writeTree(generator, value);
+        }
+    }
+
+    public static void writeProperty(JsonGenerator generator, String propertyName, JsonNode value) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(propertyName);
+            writeTree(generator, value);
+        }
+    }
+
+    /* Write primitive properties. */
+    public static void writeObjectProperty(JsonGenerator generator, String propertyName, ObjectNode value) throws IOException {
+        writeProperty(generator, propertyName, value);
+    }
+
+    public static void writeAnyProperty(JsonGenerator generator, String propertyName, JsonNode value) throws IOException {
+        writeProperty(generator, propertyName, value);
+    }
+
+    public static void writeStringProperty(JsonGenerator generator, String propertyName, String value) throws IOException {
+        if (value != null) {
+            generator.writeStringField(propertyName, value);
+        }
+    }
+
+    public static void writeIntegerProperty(JsonGenerator generator, String propertyName, Integer value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(propertyName, value.intValue());
+        }
+    }
+
+    public static void writeNumberProperty(JsonGenerator generator, String propertyName, Number value) throws IOException {
+        if (value != null) {
+            generator.writeNumberField(propertyName, value.doubleValue());
+        }
+    }
+
+    public static void writeBooleanProperty(JsonGenerator generator, String propertyName, Boolean value) throws IOException {
+        if (value != null) {
+            generator.writeBooleanField(propertyName, value.booleanValue());
+        }
+    }
+
+    /* Write arrays of primitives. */
+    public static void writeAnyArrayProperty(JsonGenerator generator, String propertyName, List<JsonNode> value) throws IOException {
+        if (value != null) {
+            generator.writeArrayFieldStart(propertyName);
+            for (JsonNode item : value) {
+                writeTree(generator, item);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    public static void writeObjectArrayProperty(JsonGenerator generator, String propertyName, List<ObjectNode> value) throws IOException {
+        if (value != null) {
+            generator.writeArrayFieldStart(propertyName);
+            for (ObjectNode item : value) {
+                writeTree(generator, item);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    public static void writeStringArrayProperty(JsonGenerator generator, String propertyName, List<String> value) throws IOException {
+        if (value != null) {
+            generator.writeArrayFieldStart(propertyName);
+            for (String item : value) {
+                if (item == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeString(item);
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    public static void writeIntegerArrayProperty(JsonGenerator generator, String propertyName, List<Integer> value) throws IOException {
+        if (value != null) {
+            generator.writeArrayFieldStart(propertyName);
+            for (Integer item : value) {
+                if (item == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(item.intValue());
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    public static void writeNumberArrayProperty(JsonGenerator generator, String propertyName, List<Number> value) throws IOException {
+        if (value != null) {
+            generator.writeArrayFieldStart(propertyName);
+            for (Number item : value) {
+                if (item == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(item.doubleValue());
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    public static void writeBooleanArrayProperty(JsonGenerator generator, String propertyName, List<Boolean> value) throws IOException {
+        if (value != null) {
+            generator.writeArrayFieldStart(propertyName);
+            for (Boolean item : value) {
+                if (item == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeBoolean(item.booleanValue());
+                }
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    /* Write maps of primitives. */
+    public static void writeAnyMapProperty(JsonGenerator generator, String propertyName, Map<String, JsonNode> value) throws IOException {
+        if (value != null) {
+            generator.writeObjectFieldStart(propertyName);
+            for (Map.Entry<String, JsonNode> entry : value.entrySet()) {
+                generator.writeFieldName(entry.getKey());
+                writeTree(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    public static void writeObjectMapProperty(JsonGenerator generator, String propertyName, Map<String, ObjectNode> value) throws IOException {
+        if (value != null) {
+            generator.writeObjectFieldStart(propertyName);
+            for (Map.Entry<String, ObjectNode> entry : value.entrySet()) {
+                generator.writeFieldName(entry.getKey());
+                writeTree(generator, entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    public static void writeStringMapProperty(JsonGenerator generator, String propertyName, Map<String, String> value) throws IOException {
+        if (value != null) {
+            generator.writeObjectFieldStart(propertyName);
+            for (Map.Entry<String, String> entry : value.entrySet()) {
+                writeStringProperty(generator, entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    public static void writeIntegerMapProperty(JsonGenerator generator, String propertyName, Map<String, Integer> value) throws IOException {
+        if (value != null) {
+            generator.writeObjectFieldStart(propertyName);
+            for (Map.Entry<String, Integer> entry : value.entrySet()) {
+                writeIntegerProperty(generator, entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    public static void writeNumberMapProperty(JsonGenerator generator, String propertyName, Map<String, Number> value) throws IOException {
+        if (value != null) {
+            generator.writeObjectFieldStart(propertyName);
+            for (Map.Entry<String, Number> entry : value.entrySet()) {
+                writeNumberProperty(generator, entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    public static void writeBooleanMapProperty(JsonGenerator generator, String propertyName, Map<String, Boolean> value) throws IOException {
+        if (value != null) {
+            generator.writeObjectFieldStart(propertyName);
+            for (Map.Entry<String, Boolean> entry : value.entrySet()) {
+                writeBooleanProperty(generator, entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+}
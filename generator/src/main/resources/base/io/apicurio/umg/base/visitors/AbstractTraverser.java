@@ -1,7 +1,18 @@
 package io.apicurio.umg.base.visitors;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
 
 import io.apicurio.umg.base.MappedNode;
 import io.apicurio.umg.base.Node;
@@ -16,8 +27,26 @@ import io.apicurio.umg.base.util.JsonUtil;
  */
 public abstract class AbstractTraverser implements Traverser, Visitor {
 
+    /**
+     * The default number of items above which a collection is traversed in parallel (see parallelize).
+     */
+    protected static final int DEFAULT_PARALLEL_THRESHOLD = 256;
+
     protected final Visitor visitor;
     protected final TraversalContextImpl traversalContext = new TraversalContextImpl();
+    /**
+     * Whether collections must be copied before they are iterated (see ReadOnlyVisitor).
+     */
+    protected final boolean copyCollections;
+    /**
+     * Which traversal sites (properties) can lead to a node handled by the visitor, or null
+     * to traverse them all (see prune).
+     */
+    private boolean[] traversable;
+    /* Set by parallelize() (a null pool means sequential traversal). */
+    private ForkJoinPool pool;
+    private int parallelThreshold;
+    private Function<Visitor, AbstractTraverser> forkedTraverserFactory;
 
     /**
      * C'tor.
@@ -26,11 +55,97 @@ public abstract class AbstractTraverser implements Traverser, Visitor {
      */
     public AbstractTraverser(Visitor visitor) {
         this.visitor = visitor;
+        this.copyCollections = !(visitor instanceof ReadOnlyVisitor);
         if (visitor instanceof TraversingVisitor) {
             ((TraversingVisitor) visitor).setTraversalContext(this.traversalContext);
         }
     }
 
+    /**
+     * Restricts the traversal to the traversal sites under which a node handled by the visitor
+     * can be found.  The visitor handles an entity type unless its visit method for that type
+     * is inherited from one of the given (no-op) adapter classes.
+     *
+     * @param visitMethodNames the visit methods, one per entity type
+     * @param reachableTypes for each traversal site, the indexes of the entity types reachable under it
+     * @param adapterClasses
+     */
+    protected void prune(String[] visitMethodNames, int[][] reachableTypes, Class<?>... adapterClasses) {
+        Set<Class<?>> adapters = Set.of(adapterClasses);
+        Map<String, Class<?>> declaringClasses = new HashMap<>();
+        for (Method method : visitor.getClass().getMethods()) {
+            if (method.getParameterCount() == 1) {
+                declaringClasses.put(method.getName(), method.getDeclaringClass());
+            }
+        }
+        boolean[] handled = new boolean[visitMethodNames.length];
+        for (int idx = 0; idx < visitMethodNames.length; idx++) {
+            Class<?> declaringClass = declaringClasses.get(visitMethodNames[idx]);
+            handled[idx] = declaringClass == null || !adapters.contains(declaringClass);
+        }
+        boolean[] traversable = new boolean[reachableTypes.length];
+        for (int site = 0; site < reachableTypes.length; site++) {
+            for (int type : reachableTypes[site]) {
+                traversable[site] |= handled[type];
+            }
+        }
+        this.traversable = traversable;
+    }
+
+    /**
+     * Returns true if the given traversal site can lead to a node handled by the visitor.
+     *
+     * @param site
+     */
+    protected boolean canTraverse(int site) {
+        return traversable == null || traversable[site];
+    }
+
+    /**
+     * Makes this traverser split the items of the lists, maps and mapped nodes that have more than
+     * the given number of items into fork-join tasks run by the given pool, each of which traverses
+     * at most that many items with a traverser created by the given factory (see ParallelVisitor).
+     * This has no effect unless the visitor is a ParallelVisitor (which is always a ReadOnlyVisitor).
+     *
+     * @param pool
+     * @param threshold
+     * @param traverserFactory
+     */
+    protected void parallelize(ForkJoinPool pool, int threshold, Function<Visitor, AbstractTraverser> traverserFactory) {
+        if (visitor instanceof ParallelVisitor) {
+            this.pool = pool;
+            this.parallelThreshold = Math.max(1, threshold);
+            this.forkedTraverserFactory = traverserFactory;
+        }
+    }
+
+    private boolean isParallel(int itemCount) {
+        return pool != null && itemCount > parallelThreshold;
+    }
+
+    /**
+     * Traverse the given items (list items if keys is null, map entries otherwise) in fork-join
+     * tasks, then merge the forked visitors into the visitor in the order of the items.
+     */
+    private void traverseInParallel(String[] keys, Node[] nodes) {
+        TraversalContextImpl context = new TraversalContextImpl();
+        context.copySteps(this.traversalContext);
+        ForkedTraversal task = new ForkedTraversal(context, keys, nodes, 0, nodes.length);
+        List<ParallelVisitor> forkedVisitors = ForkJoinTask.getPool() == pool ? task.invoke() : pool.invoke(task);
+        ParallelVisitor parallelVisitor = (ParallelVisitor) visitor;
+        for (ParallelVisitor forkedVisitor : forkedVisitors) {
+            if (forkedVisitor != parallelVisitor) {
+                parallelVisitor.join(forkedVisitor);
+            }
+        }
+    }
+
+    private void traverseMapInParallel(Map<String, ? extends Node> items) {
+        String[] keys = items.keySet().toArray(new String[0]);
+        Node[] nodes = items.values().toArray(new Node[0]);
+        traverseInParallel(keys, nodes);
+    }
+
     /**
      * Traverse the given node. Guaranteed to not be null here.
      *
@@ -63,21 +178,35 @@ public abstract class AbstractTraverser implements Traverser, Visitor {
     @SuppressWarnings("unchecked")
     protected void traverseList(String propertyName, Collection<? extends Node> items) {
         if (items != null) {
-            int index = 0;
             traversalContext.pushProperty(propertyName);
-            Collection<? extends Node> clonedItems = (Collection<? extends Node>) JsonUtil.cloneCollection(items);
-            for (Node node : clonedItems) {
-                if (node != null) {
-                    traversalContext.pushListIndex(index);
-                    doTraverseNode(node);
-                    traversalContext.pop();
+            if (copyCollections) {
+                items = (Collection<? extends Node>) JsonUtil.cloneCollection(items);
+            }
+            if (isParallel(items.size())) {
+                traverseInParallel(null, items.toArray(new Node[0]));
+            } else if (items instanceof List && items instanceof RandomAccess) {
+                List<? extends Node> list = (List<? extends Node>) items;
+                for (int index = 0; index < list.size(); index++) {
+                    traverseListItem(index, list.get(index));
+                }
+            } else {
+                int index = 0;
+                for (Node node : items) {
+                    traverseListItem(index++, node);
                 }
-                index++;
             }
             traversalContext.pop();
         }
     }
 
+    private void traverseListItem(int index, Node node) {
+        if (node != null) {
+            traversalContext.pushListIndex(index);
+            doTraverseNode(node);
+            traversalContext.pop();
+        }
+    }
+
     /**
      * Traverse the items of the given map.
      *
@@ -88,15 +217,22 @@ public abstract class AbstractTraverser implements Traverser, Visitor {
     protected void traverseMap(String propertyName, Map<String, ? extends Node> items) {
         if (items != null) {
             traversalContext.pushProperty(propertyName);
-            Collection<String> keys = (Collection<String>) JsonUtil.cloneCollection(items.keySet());
-            keys.forEach(key -> {
-                Node value = items.get(key);
-                if (value != null) {
-                    this.traversalContext.pushMapIndex(key);
-                    this.doTraverseNode(value);
-                    this.traversalContext.pop();
-                }
-            });
+            if (copyCollections) {
+                Collection<String> keys = (Collection<String>) JsonUtil.cloneCollection(items.keySet());
+                keys.forEach(key -> traverseMapItem(key, items.get(key)));
+            } else if (isParallel(items.size())) {
+                traverseMapInParallel(items);
+            } else {
+                items.forEach(this::traverseMapItem);
+            }
+            this.traversalContext.pop();
+        }
+    }
+
+    private void traverseMapItem(String key, Node value) {
+        if (value != null) {
+            this.traversalContext.pushMapIndex(key);
+            this.doTraverseNode(value);
             this.traversalContext.pop();
         }
     }
@@ -104,20 +240,19 @@ public abstract class AbstractTraverser implements Traverser, Visitor {
     /**
      * Traverse the items of the given mapped node.
      *
-     * @param items
+     * @param mappedNode
      */
     @SuppressWarnings("unchecked")
     protected void traverseMappedNode(MappedNode<? extends Node> mappedNode) {
         if (mappedNode != null) {
-            Collection<String> names = (Collection<String>) JsonUtil.cloneCollection(mappedNode.getItemNames());
-            names.forEach(name -> {
-                Node value = mappedNode.getItem(name);
-                if (value != null) {
-                    this.traversalContext.pushMapIndex(name);
-                    this.doTraverseNode(value);
-                    this.traversalContext.pop();
-                }
-            });
+            if (copyCollections) {
+                Collection<String> names = (Collection<String>) JsonUtil.cloneCollection(mappedNode.getItemNames());
+                names.forEach(name -> traverseMapItem(name, mappedNode.getItem(name)));
+            } else if (isParallel(mappedNode.getItemCount())) {
+                traverseMapInParallel(mappedNode.getItemsView());
+            } else {
+                mappedNode.forEachItem(this::traverseMapItem);
+            }
         }
     }
 
@@ -153,4 +288,54 @@ public abstract class AbstractTraverser implements Traverser, Visitor {
         node.accept(this);
     }
 
+    /**
+     * Traverses a range of the items of a collection: a range larger than the parallel threshold
+     * is split in two halves traversed in parallel, a smaller one is traversed by a new traverser
+     * (with a forked visitor and a copy of the traversal context).  Returns the forked visitors,
+     * in the order of the items.
+     */
+    private class ForkedTraversal extends RecursiveTask<List<ParallelVisitor>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TraversalContextImpl context;
+        private final String[] keys;
+        private final Node[] nodes;
+        private final int start;
+        private final int end;
+
+        ForkedTraversal(TraversalContextImpl context, String[] keys, Node[] nodes, int start, int end) {
+            this.context = context;
+            this.keys = keys;
+            this.nodes = nodes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<ParallelVisitor> compute() {
+            if (end - start > parallelThreshold) {
+                int middle = (start + end) >>> 1;
+                ForkedTraversal first = new ForkedTraversal(context, keys, nodes, start, middle);
+                ForkedTraversal second = new ForkedTraversal(context, keys, nodes, middle, end);
+                first.fork();
+                List<ParallelVisitor> secondVisitors = second.compute();
+                List<ParallelVisitor> forkedVisitors = new ArrayList<>(first.join());
+                forkedVisitors.addAll(secondVisitors);
+                return forkedVisitors;
+            }
+            ParallelVisitor forkedVisitor = ((ParallelVisitor) visitor).fork();
+            AbstractTraverser traverser = forkedTraverserFactory.apply((Visitor) forkedVisitor);
+            traverser.traversalContext.copySteps(context);
+            for (int idx = start; idx < end; idx++) {
+                if (keys == null) {
+                    traverser.traverseListItem(idx, nodes[idx]);
+                } else {
+                    traverser.traverseMapItem(keys[idx], nodes[idx]);
+                }
+            }
+            return Collections.singletonList(forkedVisitor);
+        }
+    }
+
 }
@@ -0,0 +1,34 @@
+package io.apicurio.umg.base.visitors;
+
+/**
+ * Any visitor that can be used to traverse the model in parallel must implement this interface
+ * (in addition to the standard Visitor interface).  A parallel traverser splits the items of large
+ * lists, maps and mapped nodes into fork-join tasks, each of which traverses its items with its
+ * own traverser (and traversal context) and with the visitor returned by fork().
+ *
+ * By default fork() returns the visitor itself, which must then be thread-safe (and must not be a
+ * TraversingVisitor, whose traversal context would be shared by the tasks).  A visitor that
+ * collects results should instead return a new, empty visitor and merge its results in join(),
+ * which is called on the visitor of the parent traversal once all the items have been traversed,
+ * for each forked visitor, in the order of the items (so the merged results are deterministic).
+ *
+ * Because the items are traversed concurrently, a parallel visitor must not add or remove list
+ * items, map entries or mapped node items (see ReadOnlyVisitor).
+ */
+public interface ParallelVisitor extends ReadOnlyVisitor {
+
+    /**
+     * Returns the visitor used to traverse a subset of the items of a collection.
+     */
+    public default ParallelVisitor fork() {
+        return this;
+    }
+
+    /**
+     * Merges the results of the given visitor (returned by fork()) into this visitor.
+     * @param forked
+     */
+    public default void join(ParallelVisitor forked) {
+    }
+
+}
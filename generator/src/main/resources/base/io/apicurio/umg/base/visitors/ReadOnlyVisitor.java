@@ -0,0 +1,12 @@
+package io.apicurio.umg.base.visitors;
+
+/**
+ * Marker interface for visitors that never add or remove list items, map entries or mapped
+ * node items while the model is being traversed.  By default, traversers copy each collection
+ * of the model before iterating it, so that visitors can safely modify the model.  When the
+ * visitor implements this interface, traversers iterate the collections directly instead,
+ * which avoids allocating a copy of every collection in the model.
+ */
+public interface ReadOnlyVisitor {
+
+}
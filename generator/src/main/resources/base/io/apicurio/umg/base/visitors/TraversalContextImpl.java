@@ -3,7 +3,6 @@ package io.apicurio.umg.base.visitors;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * Context used during traversal of a model. This gives insight into where in
@@ -11,47 +10,85 @@ import java.util.Stack;
  * maintains this context and optionally makes it available to the visitor (only
  * if the visitor implements the TraversingVisitor interface.
  *
+ * The steps are pushed and popped for every node of the model, so they are kept in
+ * (unsynchronized) parallel arrays rather than as TraversalStep objects, which are only
+ * created when a visitor asks for them.
+ *
  * @author eric.wittmann@gmail.com
  */
 public class TraversalContextImpl implements TraversalContext {
 
-    private final Stack<TraversalStep> stack = new Stack<>();
+    private static final int INITIAL_CAPACITY = 16;
+
+    private TraversalStepType[] types = new TraversalStepType[INITIAL_CAPACITY];
+    /* The property name or map key of each step (null for list index steps). */
+    private String[] names = new String[INITIAL_CAPACITY];
+    /* The index of each list index step. */
+    private int[] indexes = new int[INITIAL_CAPACITY];
+    private int depth;
 
     public void pushProperty(String propertyName) {
-        this.stack.push(TraversalStep.fromNodeProperty(propertyName));
+        push(TraversalStepType.property, propertyName, 0);
     }
     public void pushListIndex(int index) {
-        this.stack.push(TraversalStep.fromListIndex(index));
+        push(TraversalStepType.arrayIndex, null, index);
     }
     public void pushMapIndex(String key) {
-        this.stack.push(TraversalStep.fromMapIndex(key));
+        push(TraversalStepType.mapIndex, key, 0);
+    }
+
+    private void push(TraversalStepType type, String name, int index) {
+        if (depth == types.length) {
+            types = Arrays.copyOf(types, depth * 2);
+            names = Arrays.copyOf(names, depth * 2);
+            indexes = Arrays.copyOf(indexes, depth * 2);
+        }
+        types[depth] = type;
+        names[depth] = name;
+        indexes[depth] = index;
+        depth++;
+    }
+
+    /**
+     * Replaces the steps of this context with those of the given one (used when a traversal
+     * is forked).
+     * @param other
+     */
+    public void copySteps(TraversalContextImpl other) {
+        types = Arrays.copyOf(other.types, Math.max(INITIAL_CAPACITY, other.depth));
+        names = Arrays.copyOf(other.names, types.length);
+        indexes = Arrays.copyOf(other.indexes, types.length);
+        depth = other.depth;
     }
 
     public void pop() {
-        this.stack.pop();
+        depth--;
+        names[depth] = null;
     }
 
     public TraversalStep peek() {
-        return this.stack.peek();
+        return getMostRecentStep();
     }
 
     @Override
     public TraversalStep getMostRecentStep() {
-        return this.stack.peek();
+        return depth == 0 ? null : stepAt(depth - 1);
     }
 
     @Override
     public List<TraversalStep> getAllSteps() {
-        TraversalStep[] steps = this.stack.toArray(new TraversalStep[this.stack.size()]);
+        TraversalStep[] steps = new TraversalStep[depth];
+        for (int idx = 0; idx < depth; idx++) {
+            steps[idx] = stepAt(idx);
+        }
         return Collections.unmodifiableList(Arrays.asList(steps));
     }
 
     @Override
     public String getMostRecentPropertyStep() {
-        for (int idx = stack.size() - 1; idx >= 0; idx--) {
-            TraversalStep step = stack.get(idx);
-            if (step.getType() == TraversalStepType.property) {
-                return (String) step.getValue();
+        for (int idx = depth - 1; idx >= 0; idx--) {
+            if (types[idx] == TraversalStepType.property) {
+                return names[idx];
             }
         }
         return null;
@@ -59,12 +96,27 @@ public class TraversalContextImpl implements TraversalContext {
 
     @Override
     public boolean containsStep(TraversalStepType type, Object value) {
-        for (TraversalStep step : stack) {
-            if (step.getType() == type && value.equals(step.getValue())) {
+        for (int idx = 0; idx < depth; idx++) {
+            if (types[idx] == type && value.equals(valueAt(idx))) {
                 return true;
             }
         }
         return false;
     }
 
+    private Object valueAt(int idx) {
+        return types[idx] == TraversalStepType.arrayIndex ? (Object) indexes[idx] : names[idx];
+    }
+
+    private TraversalStep stepAt(int idx) {
+        switch (types[idx]) {
+            case arrayIndex:
+                return TraversalStep.fromListIndex(indexes[idx]);
+            case mapIndex:
+                return TraversalStep.fromMapIndex(names[idx]);
+            default:
+                return TraversalStep.fromNodeProperty(names[idx]);
+        }
+    }
+
 }
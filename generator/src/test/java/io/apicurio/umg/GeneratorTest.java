@@ -1,13 +1,21 @@
 package io.apicurio.umg;
 
+import io.apicurio.umg.io.GenerationManifest;
 import io.apicurio.umg.io.SpecificationLoader;
 import io.apicurio.umg.models.spec.SpecificationModel;
+import io.apicurio.umg.pipe.PipelineMetrics;
+import io.apicurio.umg.pipe.StageMetrics;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.List;
+import java.util.stream.Collectors;
 
 public class GeneratorTest {
 
@@ -85,4 +93,218 @@ public class GeneratorTest {
         }
     }
 
+    @Test
+    public void testGenerator_ParallelPipeline() throws Exception {
+        File serialOutputDir = Files.createTempDirectory(GeneratorTest.class.getSimpleName() + "-serial").toFile();
+        File parallelOutputDir = Files.createTempDirectory(GeneratorTest.class.getSimpleName() + "-parallel").toFile();
+        File umgTestOutputDir = Files.createTempDirectory(GeneratorTest.class.getSimpleName() + "-test").toFile();
+        try {
+            generate(serialOutputDir, umgTestOutputDir, false);
+            generate(parallelOutputDir, umgTestOutputDir, true);
+
+            // The parallel pipeline (and writer) must generate exactly the same sources as the serial one.
+            List<String> serialFiles = listFiles(serialOutputDir);
+            List<String> parallelFiles = listFiles(parallelOutputDir);
+            Assert.assertFalse(serialFiles.isEmpty());
+            Assert.assertEquals(serialFiles, parallelFiles);
+            for (String file : serialFiles) {
+                Assert.assertEquals(file,
+                        FileUtils.readFileToString(new File(serialOutputDir, file), StandardCharsets.UTF_8),
+                        FileUtils.readFileToString(new File(parallelOutputDir, file), StandardCharsets.UTF_8));
+            }
+        } finally {
+            FileUtils.deleteDirectory(serialOutputDir);
+            FileUtils.deleteDirectory(parallelOutputDir);
+            FileUtils.deleteDirectory(umgTestOutputDir);
+        }
+    }
+
+    @Test
+    public void testGenerator_StageMetrics() throws Exception {
+        File outputDir = Files.createTempDirectory(GeneratorTest.class.getSimpleName()).toFile();
+        File umgTestOutputDir = Files.createTempDirectory(GeneratorTest.class.getSimpleName() + "-test").toFile();
+        UnifiedModelGeneratorConfig config = UnifiedModelGeneratorConfig.builder()
+                .outputDirectory(outputDir)
+                .testOutputDirectory(umgTestOutputDir)
+                .generateTestFixtures(false)
+                .parallelPipeline(true)
+                .collectStageMetrics(true)
+                .rootNamespace("io.apicurio.umg.test").build();
+        List<SpecificationModel> specs = List.of(
+                SpecificationLoader.loadSpec(GeneratorTest.class.getResource("openapi.yaml"))
+        );
+        UnifiedModelGenerator generator = new UnifiedModelGenerator(config, specs);
+        try {
+            generator.generate();
+        } finally {
+            FileUtils.deleteDirectory(outputDir);
+            FileUtils.deleteDirectory(umgTestOutputDir);
+        }
+
+        // Every stage is measured exactly once, and reported in pipeline order.
+        PipelineMetrics metrics = generator.getMetrics();
+        List<StageMetrics> stages = metrics.getStages();
+        Assert.assertFalse(stages.isEmpty());
+        for (int i = 0; i < stages.size(); i++) {
+            Assert.assertEquals(i, stages.get(i).getIndex());
+            Assert.assertTrue(stages.get(i).getWallTimeNanos() >= 0);
+        }
+        Assert.assertEquals("IndexSpecificationsStage", stages.get(0).getStage());
+        Assert.assertTrue(metrics.getTotalWallTimeNanos() > 0);
+
+        JsonNode json = new ObjectMapper().readTree(metrics.toJson());
+        Assert.assertEquals(stages.size(), json.get("stages").size());
+        Assert.assertTrue(metrics.toSummaryTable().contains("JavaWriteStage"));
+    }
+
+    @Test
+    public void testGenerator_Incremental() throws Exception {
+        File outputDir = Files.createTempDirectory(GeneratorTest.class.getSimpleName()).toFile();
+        File umgTestOutputDir = Files.createTempDirectory(GeneratorTest.class.getSimpleName() + "-test").toFile();
+        UnifiedModelGeneratorConfig.UnifiedModelGeneratorConfigBuilder configBuilder = UnifiedModelGeneratorConfig.builder()
+                .outputDirectory(outputDir)
+                .testOutputDirectory(umgTestOutputDir)
+                .generateTestFixtures(true)
+                .collectStageMetrics(true)
+                .incremental(true)
+                .rootNamespace("io.apicurio.umg.test");
+        try {
+            // First run generates everything, and records a manifest.
+            UnifiedModelGenerator generator = new UnifiedModelGenerator(configBuilder.build(), loadSpecs("parent-trait-spec.yaml"));
+            generator.generate();
+            Assert.assertNotNull(generator.getMetrics());
+            Assert.assertTrue(new File(outputDir, GenerationManifest.MANIFEST_FILE_NAME).isFile());
+            List<String> generatedFiles = listFiles(outputDir);
+            List<String> fixtureFiles = listFiles(umgTestOutputDir);
+            Assert.assertFalse(fixtureFiles.isEmpty());
+
+            // Nothing changed: the pipeline is skipped entirely.
+            generator = new UnifiedModelGenerator(configBuilder.build(), loadSpecs("parent-trait-spec.yaml"));
+            generator.generate();
+            Assert.assertNull(generator.getMetrics());
+
+            // A deleted or modified output file is generated again.
+            File sourceFile = new File(outputDir, generatedFiles.stream().filter(file -> file.endsWith(".java")).findFirst().get());
+            String sourceContent = FileUtils.readFileToString(sourceFile, StandardCharsets.UTF_8);
+            Assert.assertTrue(sourceFile.delete());
+            generator = new UnifiedModelGenerator(configBuilder.build(), loadSpecs("parent-trait-spec.yaml"));
+            generator.generate();
+            Assert.assertNotNull(generator.getMetrics());
+            Assert.assertEquals(sourceContent, FileUtils.readFileToString(sourceFile, StandardCharsets.UTF_8));
+
+            FileUtils.writeStringToFile(sourceFile, "modified", StandardCharsets.UTF_8);
+            generator = new UnifiedModelGenerator(configBuilder.build(), loadSpecs("parent-trait-spec.yaml"));
+            generator.generate();
+            Assert.assertNotNull(generator.getMetrics());
+            Assert.assertEquals(sourceContent, FileUtils.readFileToString(sourceFile, StandardCharsets.UTF_8));
+
+            File fixtureFile = new File(umgTestOutputDir, fixtureFiles.get(0));
+            Assert.assertTrue(fixtureFile.delete());
+            generator = new UnifiedModelGenerator(configBuilder.build(), loadSpecs("parent-trait-spec.yaml"));
+            generator.generate();
+            Assert.assertNotNull(generator.getMetrics());
+            Assert.assertTrue(fixtureFile.isFile());
+
+            generator = new UnifiedModelGenerator(configBuilder.build(), loadSpecs("parent-trait-spec.yaml"));
+            generator.generate();
+            Assert.assertNull(generator.getMetrics());
+
+            // A config change invalidates the manifest.
+            generator = new UnifiedModelGenerator(configBuilder.generateStreamingReaders(true).build(), loadSpecs("parent-trait-spec.yaml"));
+            generator.generate();
+            Assert.assertNotNull(generator.getMetrics());
+            List<String> streamingReaders = listFiles(outputDir).stream()
+                    .filter(file -> file.endsWith("StreamingModelReader.java"))
+                    .collect(Collectors.toList());
+            Assert.assertFalse(streamingReaders.isEmpty());
+            Assert.assertTrue(streamingReaders.stream().noneMatch(generatedFiles::contains));
+            Assert.assertTrue(listFiles(outputDir).containsAll(generatedFiles));
+        } finally {
+            FileUtils.deleteDirectory(outputDir);
+            FileUtils.deleteDirectory(umgTestOutputDir);
+        }
+    }
+
+    @Test
+    public void testGenerator_WriteIfChanged() throws Exception {
+        File outputDir = Files.createTempDirectory(GeneratorTest.class.getSimpleName()).toFile();
+        File umgTestOutputDir = Files.createTempDirectory(GeneratorTest.class.getSimpleName() + "-test").toFile();
+        UnifiedModelGeneratorConfig.UnifiedModelGeneratorConfigBuilder configBuilder = UnifiedModelGeneratorConfig.builder()
+                .outputDirectory(outputDir)
+                .testOutputDirectory(umgTestOutputDir)
+                .generateTestFixtures(false)
+                .generateStreamingReaders(true)
+                .writeIfChanged(true)
+                .rootNamespace("io.apicurio.umg.test");
+        try {
+            new UnifiedModelGenerator(configBuilder.build(), loadSpecs("openapi.yaml")).generate();
+            List<String> generatedFiles = listFiles(outputDir);
+            List<String> streamingReaders = generatedFiles.stream()
+                    .filter(file -> file.endsWith("StreamingModelReader.java"))
+                    .collect(Collectors.toList());
+            Assert.assertFalse(streamingReaders.isEmpty());
+
+            // Mark every generated file as old, and add a hand-written source and a non-java file.
+            long timestamp = System.currentTimeMillis() - 60_000;
+            for (String file : generatedFiles) {
+                Assert.assertTrue(new File(outputDir, file).setLastModified(timestamp));
+            }
+            File handWrittenFile = new File(outputDir, "io/apicurio/umg/custom/Custom.java");
+            FileUtils.writeStringToFile(handWrittenFile, "package io.apicurio.umg.custom; public class Custom {}", StandardCharsets.UTF_8);
+            File otherFile = new File(outputDir, "README.txt");
+            FileUtils.writeStringToFile(otherFile, "Not a java file.", StandardCharsets.UTF_8);
+
+            // Nothing is rewritten, and files that this generator never wrote are left alone.
+            new UnifiedModelGenerator(configBuilder.build(), loadSpecs("openapi.yaml")).generate();
+            for (String file : generatedFiles) {
+                Assert.assertEquals(file, timestamp, new File(outputDir, file).lastModified());
+            }
+            Assert.assertTrue(handWrittenFile.isFile());
+            Assert.assertTrue(otherFile.isFile());
+
+            // Sources that an earlier run generated but this run does not are deleted.
+            new UnifiedModelGenerator(configBuilder.generateStreamingReaders(false).build(), loadSpecs("openapi.yaml")).generate();
+            for (String file : streamingReaders) {
+                Assert.assertFalse(file, new File(outputDir, file).exists());
+            }
+            Assert.assertTrue(handWrittenFile.isFile());
+            Assert.assertTrue(otherFile.isFile());
+            Assert.assertTrue(new File(outputDir, generatedFiles.stream()
+                    .filter(file -> file.endsWith(".java") && !streamingReaders.contains(file))
+                    .findFirst().get()).isFile());
+        } finally {
+            FileUtils.deleteDirectory(outputDir);
+            FileUtils.deleteDirectory(umgTestOutputDir);
+        }
+    }
+
+    private static void generate(File outputDir, File testOutputDir, boolean parallel) throws Exception {
+        UnifiedModelGeneratorConfig config = UnifiedModelGeneratorConfig.builder()
+                .outputDirectory(outputDir)
+                .testOutputDirectory(testOutputDir)
+                .generateTestFixtures(false)
+                .parallelPipeline(parallel)
+                .parallelWrite(parallel)
+                .rootNamespace("io.apicurio.umg.test").build();
+        List<SpecificationModel> specs = List.of(
+                SpecificationLoader.loadSpec(GeneratorTest.class.getResource("openapi.yaml"))
+        );
+        new UnifiedModelGenerator(config, specs).generate();
+    }
+
+    /**
+     * Loads the given spec.  The generator modifies the loaded models, so they cannot be shared by
+     * multiple runs.
+     */
+    private static List<SpecificationModel> loadSpecs(String specResource) {
+        return List.of(SpecificationLoader.loadSpec(GeneratorTest.class.getResource(specResource)));
+    }
+
+    private static List<String> listFiles(File dir) {
+        return FileUtils.listFiles(dir, null, true).stream()
+                .map(file -> dir.toPath().relativize(file.toPath()).toString())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+package org.example.io.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.example.io.util.BooleanList;
+import org.example.io.util.BooleanMap;
+import org.example.io.util.IntegerList;
+import org.example.io.util.IntegerMap;
+import org.example.io.v10.Iot10ChildEntity;
+import org.example.io.v10.Iot10Document;
+import org.example.io.v10.Iot10EntityTypesEntity;
+import org.example.io.v10.Iot10ListTypesEntity;
+import org.example.io.v10.Iot10MapTypesEntity;
+import org.example.io.v10.Iot10PrimitiveTypesEntity;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Tests the IO test model generated with the optional modes that change the generated code
+ * (non-destructive readers, primitive fields and persistent updates).  The default modes are
+ * tested by the "io-test" project.
+ */
+public class IoModesTest {
+
+    private static ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    public void testFullSimplest() throws Exception {
+        doFullTest("simplest.json");
+    }
+
+    @Test
+    public void testFullSimple() throws Exception {
+        doFullTest("simple.json");
+    }
+
+    @Test
+    public void testFullGenerated() throws Exception {
+        doFullTest("iot10-full.json");
+    }
+
+    @Test
+    public void testReaderLeavesInputUntouched() throws Exception {
+        String testContent = loadTestResource("iot10-full.json");
+        ObjectNode json = (ObjectNode) mapper.readTree(testContent);
+        ObjectNode original = json.deepCopy();
+        Iot10Document document = IoModesTestLibrary.readDocument(json);
+        Assert.assertEquals(original, json);
+        assertJsonEquals(testContent, IoModesTestLibrary.writeDocument(document));
+    }
+
+    @Test
+    public void testPrimitiveFields() throws Exception {
+        Iot10Document document = IoModesTestLibrary.readDocument(loadTestResource("simple.json"));
+        Iot10PrimitiveTypesEntity primitives = document.getPrimitives();
+        primitives.setIntegerProperty(0);
+        primitives.setBooleanProperty(false);
+        Assert.assertEquals(Integer.valueOf(0), primitives.getIntegerProperty());
+        Assert.assertEquals(false, primitives.isBooleanProperty());
+        primitives.setIntegerProperty(null);
+        Assert.assertNull(primitives.getIntegerProperty());
+        Assert.assertEquals(false, primitives.isBooleanProperty());
+        primitives.setBooleanProperty(null);
+        Assert.assertNull(primitives.isBooleanProperty());
+
+        Iot10ListTypesEntity lists = document.createListTypesEntity();
+        lists.setIntegers(new ArrayList<>(List.of(1, 2, 3)));
+        lists.setBooleans(List.of(true, false));
+        Assert.assertTrue(lists.getIntegers() instanceof IntegerList);
+        Assert.assertTrue(lists.getBooleans() instanceof BooleanList);
+        lists.getIntegers().add(1, null);
+        lists.getIntegers().remove(Integer.valueOf(3));
+        Assert.assertEquals(Arrays.asList(1, null, 2), lists.getIntegers());
+        lists.getIntegers().remove(1);
+        document.setLists(lists);
+
+        Iot10MapTypesEntity maps = document.createMapTypesEntity();
+        Map<String, Integer> integers = new LinkedHashMap<>();
+        integers.put("one", 1);
+        integers.put("none", null);
+        integers.put("two", 2);
+        maps.setIntegers(integers);
+        maps.setBooleans(Map.of("yes", true));
+        Assert.assertTrue(maps.getIntegers() instanceof IntegerMap);
+        Assert.assertTrue(maps.getBooleans() instanceof BooleanMap);
+        maps.getIntegers().remove("one");
+        maps.getIntegers().put("three", 3);
+        Assert.assertEquals(List.of("none", "two", "three"), new ArrayList<>(maps.getIntegers().keySet()));
+        Assert.assertEquals(integers.get("none"), maps.getIntegers().get("none"));
+        document.setMaps(maps);
+
+        String json = IoModesTestLibrary.writeDocument(document);
+        Iot10Document roundTrip = IoModesTestLibrary.readDocument(json);
+        Assert.assertNull(roundTrip.getPrimitives().getIntegerProperty());
+        Assert.assertEquals(List.of(1, 2), roundTrip.getLists().getIntegers());
+        Assert.assertEquals(List.of("two", "three"), new ArrayList<>(roundTrip.getMaps().getIntegers().keySet()));
+        Assert.assertEquals(Integer.valueOf(3), roundTrip.getMaps().getIntegers().get("three"));
+        assertSameJson(json, IoModesTestLibrary.writeDocumentStreaming(roundTrip));
+    }
+
+    @Test
+    public void testPersistentUpdates() throws Exception {
+        Iot10Document v1 = IoModesTestLibrary.readDocument(loadTestResource("iot10-full.json"));
+        Assert.assertThrows(IllegalStateException.class, () -> v1.update(v1, document -> {}));
+        // The generated fixture may have a single child.
+        while (v1.getEntities().getChildren().size() < 2) {
+            Iot10ChildEntity extra = v1.getEntities().createChildEntity();
+            extra.setName("extra");
+            v1.getEntities().addChild(extra);
+        }
+        v1.freeze();
+        String content = IoModesTestLibrary.writeDocument(v1);
+
+        // Only the node and its ancestors are copied.
+        Iot10ChildEntity child = v1.getEntities().getChildren().get(0);
+        Iot10Document v2 = (Iot10Document) v1.update(child, (Iot10ChildEntity c) -> c.setName("changed"));
+        Assert.assertTrue(v2.isFrozen());
+        Assert.assertEquals(content, IoModesTestLibrary.writeDocument(v1));
+        Assert.assertEquals("changed", v2.getEntities().getChildren().get(0).getName());
+        Assert.assertNotSame(v1.getEntities(), v2.getEntities());
+        Assert.assertSame(v2.getEntities(), v2.getEntities().getChildren().get(0).parent());
+        Assert.assertSame(v2, v2.getEntities().getChildren().get(0).root());
+
+        // The copies are new nodes (with new model ids), but are matched by their version keys.
+        Assert.assertNotEquals(v1.modelId(), v2.modelId());
+        Assert.assertNotEquals(child.modelId(), v2.getEntities().getChildren().get(0).modelId());
+        Assert.assertEquals(v1.versionKey(v1), v2.versionKey(v2));
+        Assert.assertEquals(v1.versionKey(child), v2.versionKey(v2.getEntities().getChildren().get(0)));
+        Assert.assertEquals(child.modelId(), v2.versionKey(v2.getEntities().getChildren().get(0)));
+        Assert.assertSame(v1.getPrimitives(), v2.getPrimitives());
+        Assert.assertSame(v1.getEntities().getChildren().get(1), v2.getEntities().getChildren().get(1));
+        Assert.assertSame(v1.getEntities().getChild(), v2.getEntities().getChild());
+
+        // A node can be taken from an older version, and new nodes can be added.
+        Iot10Document v3 = (Iot10Document) v2.update(v1.getEntities().getChildren().get(1), (Iot10ChildEntity c) -> c.setOrigin("changed"));
+        Iot10Document v4 = (Iot10Document) v3.update(v1.getEntities(), (Iot10EntityTypesEntity entities) -> {
+            Iot10ChildEntity added = entities.createChildEntity();
+            added.setName("added");
+            entities.addChild(added);
+        });
+        Assert.assertTrue(v4.getEntities().getChildren().get(2).isAttached());
+        Assert.assertEquals(v1.versionKey(v1.getEntities()), v4.versionKey(v4.getEntities()));
+
+        // The same changes made to a mutable copy.
+        Iot10Document expected = (Iot10Document) v1.deepClone();
+        expected.getEntities().getChildren().get(0).setName("changed");
+        expected.getEntities().getChildren().get(1).setOrigin("changed");
+        Iot10ChildEntity added = expected.getEntities().createChildEntity();
+        added.setName("added");
+        expected.getEntities().addChild(added);
+        Assert.assertEquals(IoModesTestLibrary.writeDocument(expected), IoModesTestLibrary.writeDocument(v4));
+        Assert.assertEquals(content, IoModesTestLibrary.writeDocument(v1));
+
+        // The existing children of the updated node are shared, so they can't be modified.
+        Assert.assertThrows(UnsupportedOperationException.class,
+                () -> v4.update(v4.getEntities(), (Iot10EntityTypesEntity entities) -> entities.getChildren().get(0).setName("x")));
+        Iot10Document other = IoModesTestLibrary.readDocument(loadTestResource("iot10-full.json"));
+        Assert.assertThrows(IllegalArgumentException.class, () -> v4.update(other.getEntities(), entities -> {}));
+    }
+
+    private void doFullTest(String testFile) throws Exception {
+        String originalContent = loadTestResource(testFile);
+        ObjectNode json = (ObjectNode) mapper.readTree(originalContent);
+        Iot10Document inputDocument = IoModesTestLibrary.readDocument(json);
+        String roundTripContent = IoModesTestLibrary.writeDocument(inputDocument);
+        assertJsonEquals(originalContent, roundTripContent);
+        Assert.assertEquals(mapper.readTree(originalContent), json);
+
+        // The streaming reader and writer must produce the same model and JSON.
+        Assert.assertEquals(roundTripContent, IoModesTestLibrary.writeDocument(IoModesTestLibrary.readDocumentStreaming(originalContent)));
+        assertSameJson(roundTripContent, IoModesTestLibrary.writeDocumentStreaming(inputDocument));
+
+        // A deep clone, and a frozen model, must produce the same JSON.
+        Assert.assertEquals(roundTripContent, IoModesTestLibrary.writeDocument((Iot10Document) inputDocument.deepClone()));
+        inputDocument.freeze();
+        Assert.assertEquals(roundTripContent, IoModesTestLibrary.writeDocument(inputDocument));
+    }
+
+    private String loadTestResource(String resourceName) throws Exception {
+        String resourcePath = "fixtures/" + resourceName;
+        try (InputStream res = getClass().getClassLoader().getResourceAsStream(resourcePath)) {
+            if (res == null) {
+                Assert.fail("Test resource not found: " + resourcePath);
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            baos.write(res.readAllBytes());
+            return new String(baos.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void assertSameJson(String expectedJson, String actualJson) throws Exception {
+        Assert.assertEquals(mapper.writeValueAsString(mapper.readTree(expectedJson)), actualJson);
+    }
+
+    private void assertJsonEquals(String expectedJson, String actualJson) throws Exception {
+        Assert.assertEquals(mapper.readTree(expectedJson), mapper.readTree(actualJson));
+    }
+
+}
@@ -1,23 +1,52 @@
 package org.example.io.test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import org.example.io.util.JsonUtil;
+import org.example.io.util.Projection;
+import org.example.io.util.StreamingReaderUtil;
+import org.example.io.util.StreamingWriterUtil;
 import org.example.io.v10.Iot10Document;
 import org.example.io.v10.Iot10DocumentImpl;
 import org.example.io.v10.io.Iot10ModelReader;
 import org.example.io.v10.io.Iot10ModelWriter;
+import org.example.io.v10.io.Iot10StreamingModelReader;
+import org.example.io.v10.io.Iot10StreamingModelWriter;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class IoTestLibrary {
 
     public static Iot10Document readDocument(String content) {
-        ObjectNode json = (ObjectNode) JsonUtil.parseJSON(content);
+        return readDocument((ObjectNode) JsonUtil.parseJSON(content));
+    }
+
+    public static Iot10Document readDocument(ObjectNode json) {
         Iot10ModelReader reader = new Iot10ModelReader();
         Iot10Document document = new Iot10DocumentImpl();
         reader.readDocument(json, document);
         return document;
     }
 
+    public static Iot10Document readDocumentLazily(String content) {
+        Iot10ModelReader reader = new Iot10ModelReader(true);
+        return (Iot10Document) reader.readRoot((ObjectNode) JsonUtil.parseJSON(content));
+    }
+
+    public static Iot10Document readDocumentStreaming(String content) throws IOException {
+        return readDocumentStreaming(content, Projection.ALL);
+    }
+
+    public static Iot10Document readDocumentStreaming(String content, Projection projection) throws IOException {
+        try (JsonParser parser = StreamingReaderUtil.createParser(content)) {
+            Iot10StreamingModelReader reader = new Iot10StreamingModelReader();
+            return (Iot10Document) reader.readRoot(parser, projection);
+        }
+    }
+
     public static String writeDocument(Iot10Document document) {
         ObjectNode object = JsonUtil.objectNode();
         Iot10ModelWriter writer = new Iot10ModelWriter();
@@ -25,4 +54,13 @@ public class IoTestLibrary {
         return JsonUtil.stringify(object);
     }
 
+    public static String writeDocumentStreaming(Iot10Document document) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = StreamingWriterUtil.createGenerator(writer)) {
+            Iot10StreamingModelWriter modelWriter = new Iot10StreamingModelWriter();
+            modelWriter.writeRoot(document, generator);
+        }
+        return writer.toString();
+    }
+
 }
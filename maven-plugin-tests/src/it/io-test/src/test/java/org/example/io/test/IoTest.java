@@ -3,12 +3,46 @@ package org.example.io.test;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
+import org.example.io.ModelType;
+import org.example.io.Node;
+import org.example.io.Visitable;
+import org.example.io.ParentPropertyType;
+import org.example.io.io.ModelReaderFactory;
+import org.example.io.util.JsonUtil;
+import org.example.io.util.Projection;
+import org.example.io.v10.Iot10ChildEntity;
 import org.example.io.v10.Iot10Document;
+import org.example.io.v10.Iot10EntityTypesEntity;
+import org.example.io.v10.Iot10StarTypesEntity;
+import org.example.io.v10.Iot10StringMapEntity;
+import org.example.io.v10.visitors.Iot10ParallelTraverser;
+import org.example.io.v10.visitors.Iot10PruningTraverser;
+import org.example.io.v10.visitors.Iot10Traverser;
+import org.example.io.v10.visitors.Iot10VisitorAdapter;
+import org.example.io.visitors.AllNodeVisitor;
+import org.example.io.visitors.ParallelVisitor;
+import org.example.io.visitors.ReadOnlyVisitor;
+import org.example.io.visitors.TraversalContext;
+import org.example.io.visitors.TraversingVisitor;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class IoTest {
 
@@ -52,11 +86,533 @@ public class IoTest {
         doFullTest("iot10-full.json");
     }
 
+    @Test
+    public void testFullLargeNumbers() throws Exception {
+        doFullTest("numbers.json");
+
+        // Number properties that do not fit in a long are kept (exactly) as extra properties by both readers.
+        String testContent = loadTestResource("numbers.json");
+        for (Iot10Document document : List.of(IoTestLibrary.readDocument(testContent), IoTestLibrary.readDocumentStreaming(testContent))) {
+            Assert.assertNull(document.getPrimitives().getNumberProperty());
+            Assert.assertEquals("12345678901234567890", document.getPrimitives().getExtraProperty("numberProperty").toString());
+        }
+
+        // Number lists and maps keep ints and longs as they are.  Numbers that do not fit in a long
+        // are read as doubles by number lists, and as nulls by number maps, in both readers.
+        String inlineContent = "{\"lists\": {\"numbers\": [1, 3000000000, 117.5, 12345678901234567890]}, "
+                + "\"maps\": {\"numbers\": {\"long\": 3000000000, \"big\": 12345678901234567890}}}";
+        Iot10Document document = IoTestLibrary.readDocument(inlineContent);
+        for (Iot10Document doc : List.of(document, IoTestLibrary.readDocumentStreaming(inlineContent))) {
+            Assert.assertEquals(List.of(1, 3000000000L, 117.5d, 12345678901234567890d), doc.getLists().getNumbers());
+            Assert.assertEquals(3000000000L, doc.getMaps().getNumbers().get("long"));
+            Assert.assertTrue(doc.getMaps().getNumbers().containsKey("big"));
+            Assert.assertNull(doc.getMaps().getNumbers().get("big"));
+        }
+        Assert.assertEquals(IoTestLibrary.writeDocument(document), IoTestLibrary.writeDocument(IoTestLibrary.readDocumentStreaming(inlineContent)));
+    }
+
+    @Test
+    public void testStreamingReaderSimple() throws Exception {
+        String testContent = loadTestResource("simple.json");
+        Iot10Document document = IoTestLibrary.readDocumentStreaming(testContent);
+        Assert.assertNotNull(document);
+        Assert.assertEquals("simple", document.getId());
+        Assert.assertNotNull(document.getPrimitives());
+        Assert.assertEquals("hello-world", document.getPrimitives().getStringProperty());
+        Assert.assertEquals(true, document.getPrimitives().isBooleanProperty());
+        Assert.assertEquals(Integer.valueOf(17), document.getPrimitives().getIntegerProperty());
+        Assert.assertEquals(Double.valueOf(117.5), document.getPrimitives().getNumberProperty());
+        Assert.assertNotNull(document.getPrimitives().getObjectProperty());
+        Assert.assertNotNull(document.getPrimitives().getAnyProperty());
+    }
+
+    @Test
+    public void testNodeHeader() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("simple.json"));
+        Node primitives = document.getPrimitives();
+        Assert.assertEquals("primitives", primitives.parentPropertyName());
+        Assert.assertEquals(ParentPropertyType.standard, primitives.parentPropertyType());
+        Assert.assertNull(primitives.mapPropertyName());
+
+        primitives.addExtraProperty("x-one", mapper.getNodeFactory().textNode("1"));
+        primitives.setNodeAttribute("attr", "value");
+        primitives.addExtraProperty("x-two", mapper.getNodeFactory().textNode("2"));
+        primitives.addExtraProperty("x-one", mapper.getNodeFactory().textNode("one"));
+        Assert.assertEquals(List.of("x-one", "x-two"), primitives.getExtraPropertyNames());
+        Assert.assertEquals("one", primitives.getExtraProperty("x-one").asText());
+        Assert.assertEquals("value", primitives.getNodeAttribute("attr"));
+        Assert.assertEquals(List.of("attr"), new ArrayList<>(primitives.getNodeAttributeNames()));
+
+        primitives.clearNodeAttributes();
+        Assert.assertNull(primitives.getNodeAttribute("attr"));
+        Assert.assertEquals("2", primitives.removeExtraProperty("x-two").asText());
+        Assert.assertEquals(List.of("x-one"), primitives.getExtraPropertyNames());
+        Assert.assertNull(primitives.removeExtraProperty("x-two"));
+    }
+
+    @Test
+    public void testManyExtraProperties() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("simple.json"));
+        Node primitives = document.getPrimitives();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            primitives.addExtraProperty("x-" + i, mapper.getNodeFactory().numberNode(i));
+            primitives.setNodeAttribute("attr-" + i, i);
+            expected.add("x-" + i);
+        }
+        primitives.addExtraProperty("x-7", mapper.getNodeFactory().textNode("seven"));
+        Assert.assertEquals(expected, primitives.getExtraPropertyNames());
+        Assert.assertEquals("seven", primitives.getExtraProperty("x-7").asText());
+        Assert.assertEquals(99, primitives.getExtraProperty("x-99").asInt());
+        Assert.assertEquals(42, primitives.getNodeAttribute("attr-42"));
+        Assert.assertNull(primitives.getExtraProperty("attr-42"));
+        Assert.assertNull(primitives.getNodeAttribute("x-42"));
+
+        // Removing an extra property moves the ones after it (and all the attributes).
+        Assert.assertEquals(10, primitives.removeExtraProperty("x-10").asInt());
+        expected.remove("x-10");
+        primitives.addExtraProperty("x-100", mapper.getNodeFactory().numberNode(100));
+        expected.add("x-100");
+        Assert.assertEquals(expected, primitives.getExtraPropertyNames());
+        Assert.assertNull(primitives.getExtraProperty("x-10"));
+        Assert.assertEquals(11, primitives.getExtraProperty("x-11").asInt());
+        Assert.assertEquals(100, primitives.getExtraProperty("x-100").asInt());
+        Assert.assertEquals(99, primitives.getNodeAttribute("attr-99"));
+
+        primitives.clearNodeAttributes();
+        primitives.setNodeAttribute("attr-1", "one");
+        Assert.assertNull(primitives.getNodeAttribute("attr-2"));
+        Assert.assertEquals("one", primitives.getNodeAttribute("attr-1"));
+
+        document.freeze();
+        Assert.assertEquals(expected, document.getPrimitives().getExtraPropertyNames());
+        Assert.assertEquals(50, document.getPrimitives().getExtraProperty("x-50").asInt());
+    }
+
+
+    @Test
+    public void testItemAndExtraPropertyViews() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("simple.json"));
+        Iot10StarTypesEntity starTypes = document.createStarTypesEntity();
+        Iot10StringMapEntity stringMap = starTypes.createStringMapEntity();
+        Map<String, String> items = stringMap.getItemsView();
+        Assert.assertTrue(items.isEmpty());
+        stringMap.addItem("one", "1");
+        stringMap.addItem("three", "3");
+        stringMap.insertItem("two", "2", 1);
+        Assert.assertEquals(3, stringMap.getItemCount());
+        Assert.assertEquals(List.of("one", "two", "three"), new ArrayList<>(items.keySet()));
+        Map<String, String> visited = new LinkedHashMap<>();
+        stringMap.forEachItem(visited::put);
+        Assert.assertEquals(items, visited);
+        Assert.assertThrows(UnsupportedOperationException.class, () -> items.remove("one"));
+
+        Node primitives = document.getPrimitives();
+        Map<String, JsonNode> extraProperties = primitives.getExtraPropertiesView();
+        Assert.assertEquals(0, primitives.getExtraPropertyCount());
+        primitives.addExtraProperty("x-one", mapper.getNodeFactory().textNode("1"));
+        primitives.addExtraProperty("x-two", mapper.getNodeFactory().textNode("2"));
+        primitives.setNodeAttribute("attr", "value");
+        Assert.assertEquals(2, primitives.getExtraPropertyCount());
+        Assert.assertEquals(List.of("x-one", "x-two"), new ArrayList<>(extraProperties.keySet()));
+        Assert.assertEquals("2", extraProperties.get("x-two").asText());
+        List<String> names = new ArrayList<>();
+        primitives.forEachExtraProperty((name, value) -> names.add(name + "=" + value.asText()));
+        Assert.assertEquals(List.of("x-one=1", "x-two=2"), names);
+        Assert.assertThrows(UnsupportedOperationException.class, () -> extraProperties.clear());
+    }
+
+    @Test
+    public void testPositionalInserts() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("simple.json"));
+        Iot10StringMapEntity stringMap = document.createStarTypesEntity().createStringMapEntity();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            int atIndex = (i * 7) % (expected.size() + 1);
+            stringMap.insertItem("item-" + i, String.valueOf(i), atIndex);
+            expected.add(atIndex, "item-" + i);
+        }
+        stringMap.removeItem("item-3");
+        expected.remove("item-3");
+        stringMap.insertItem("item-0", "ignored", 0);
+        Assert.assertEquals(expected, stringMap.getItemNames());
+        Assert.assertEquals("0", stringMap.getItem("item-0"));
+
+        Map<String, String> batch = new LinkedHashMap<>();
+        batch.put("batch-1", "b1");
+        batch.put("item-1", "ignored");
+        batch.put("batch-2", "b2");
+        stringMap.insertItems(batch, 2);
+        expected.addAll(2, List.of("batch-1", "batch-2"));
+        Assert.assertEquals(expected, stringMap.getItemNames());
+        Assert.assertEquals("1", stringMap.getItem("item-1"));
+
+        // A negative index inserts first, and an index past the end appends.
+        stringMap.insertItem("first", "f", -1);
+        stringMap.insertItem("last", "l", expected.size() + 10);
+        stringMap.insertItems(Map.of("batch-0", "b0"), -3);
+        expected.add(0, "first");
+        expected.add("last");
+        expected.add(0, "batch-0");
+        Assert.assertEquals(expected, stringMap.getItemNames());
+
+        Iot10EntityTypesEntity entities = document.createEntityTypesEntity();
+        entities.addChildMap("one", entities.createChildEntity());
+        entities.addChildMap("three", entities.createChildEntity());
+        entities.insertChildMap("two", entities.createChildEntity(), 1);
+        entities.insertChildMap("zero", entities.createChildEntity(), 0);
+        entities.insertChildMap("minus-one", entities.createChildEntity(), -1);
+        Assert.assertEquals(List.of("minus-one", "zero", "one", "two", "three"), new ArrayList<>(entities.getChildMap().keySet()));
+        Assert.assertEquals("two", entities.getChildMap().get("two").mapPropertyName());
+    }
+
+    @Test
+    public void testConcurrentReadsHaveUniqueModelIds() throws Exception {
+        String testContent = loadTestResource("iot10-full.json");
+        Set<Integer> modelIds = ConcurrentHashMap.newKeySet();
+        AtomicInteger nodeCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                boolean streaming = i % 2 == 1;
+                futures.add(executor.submit(() -> {
+                    Iot10Document document = streaming ? IoTestLibrary.readDocumentStreaming(testContent)
+                            : IoTestLibrary.readDocument(testContent);
+                    new Iot10Traverser(new AllNodeVisitor() {
+                        @Override
+                        protected void visitNode(Node node) {
+                            nodeCount.incrementAndGet();
+                            modelIds.add(node.modelId());
+                        }
+                    }).traverse(document);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        Assert.assertTrue(nodeCount.get() > 40);
+        Assert.assertEquals(nodeCount.get(), modelIds.size());
+    }
+
+    @Test
+    public void testTraversalContext() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("simple.json"));
+        Iot10EntityTypesEntity entities = document.createEntityTypesEntity();
+        entities.addChild(entities.createChildEntity());
+        entities.addChild(entities.createChildEntity());
+        entities.addChildMap("a", entities.createChildEntity());
+        document.setEntities(entities);
+
+        PathRecordingVisitor visitor = new PathRecordingVisitor();
+        new Iot10Traverser(visitor).traverse(document);
+        Assert.assertTrue(visitor.paths.containsAll(List.of("entities/children/0", "entities/children/1", "entities/childMap/a")));
+
+        // Visitors (unless they are read-only) can safely remove items while traversing.
+        ChildRemovingVisitor remover = new ChildRemovingVisitor();
+        new Iot10Traverser(remover).traverse(document);
+        Assert.assertEquals(3, remover.removed);
+        Assert.assertTrue(entities.getChildren().isEmpty());
+        Assert.assertTrue(entities.getChildMap().isEmpty());
+    }
+
+    @Test
+    public void testLazyReading() throws Exception {
+        ObjectNode json = (ObjectNode) JsonUtil.parseJSON(loadTestResource("simple.json"));
+        Iot10Document document = (Iot10Document) ModelReaderFactory.createModelReader(ModelType.IOT10, true).readRoot(json);
+
+        // Each node is read from its JSON object when it is first accessed.
+        ((ObjectNode) json.get("primitives")).put("stringProperty", "changed");
+        Assert.assertEquals("simple", document.getId());
+        Assert.assertEquals("changed", document.getPrimitives().getStringProperty());
+        Assert.assertEquals(Integer.valueOf(17), document.getPrimitives().getIntegerProperty());
+        Assert.assertSame(document, document.getPrimitives().parent());
+    }
+
+    @Test
+    public void testDeepClone() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("iot10-full.json"));
+        document.addExtraProperty("x-extra", JsonUtil.parseJSON("{\"foo\": \"bar\"}"));
+        document.setNodeAttribute("attr", "value");
+        String content = IoTestLibrary.writeDocument(document);
+
+        Iot10Document clone = (Iot10Document) document.deepClone();
+        Assert.assertEquals(content, IoTestLibrary.writeDocument(clone));
+        Assert.assertNull(clone.parent());
+        Assert.assertEquals("value", clone.getNodeAttribute("attr"));
+
+        // The cloned nodes are parented to their cloned parents.
+        Iot10EntityTypesEntity entities = clone.getEntities();
+        Assert.assertNotSame(document.getEntities(), entities);
+        Assert.assertSame(clone, entities.parent());
+        Iot10ChildEntity child = entities.getChildren().get(0);
+        Assert.assertNotSame(document.getEntities().getChildren().get(0), child);
+        Assert.assertSame(entities, child.parent());
+        Assert.assertEquals(document.getEntities().getChildren().get(0).parentPropertyName(), child.parentPropertyName());
+        Assert.assertSame(entities, entities.getChildMap().values().iterator().next().parent());
+
+        // Changing the clone does not change the original.
+        child.setName("changed");
+        entities.getChildren().clear();
+        clone.getPrimitives().setStringProperty("changed");
+        ((ObjectNode) clone.getExtraProperty("x-extra")).put("foo", "changed");
+        clone.getLists().getStrings().add("changed");
+        Assert.assertEquals(content, IoTestLibrary.writeDocument(document));
+    }
+
+    @Test
+    public void testFreezeUnmodifiableValues() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("iot10-full.json"));
+        List<String> strings = List.of("a", "b");
+        Map<String, String> stringMap = Map.of("a", "1", "b", "2");
+        document.getLists().setStrings(strings);
+        document.getMaps().setStrings(stringMap);
+        document.getMaps().setBooleans(Map.of("c", true));
+
+        // The values are copied when frozen, so the (unmodifiable) values that were set are fine.
+        document.freeze();
+        Assert.assertEquals(strings, document.getLists().getStrings());
+        Assert.assertEquals(stringMap, document.getMaps().getStrings());
+        Assert.assertEquals(Map.of("c", true), document.getMaps().getBooleans());
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.getLists().getStrings().add("c"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.getMaps().getStrings().put("c", "3"));
+    }
+
+    @Test
+    public void testFreeze() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("iot10-full.json"));
+        document.getPrimitives().addExtraProperty("x-extra", JsonUtil.parseJSON("{\"foo\": \"bar\"}"));
+        String content = IoTestLibrary.writeDocument(document);
+
+        Assert.assertFalse(document.isFrozen());
+        document.freeze();
+        Assert.assertTrue(document.isFrozen());
+        Assert.assertEquals(content, IoTestLibrary.writeDocument(document));
+
+        // Nothing can be modified.
+        Iot10EntityTypesEntity entities = document.getEntities();
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.setId("changed"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> entities.getChildren().get(0).setName("changed"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> entities.addChild(entities.createChildEntity()));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> entities.getChildren().clear());
+        Assert.assertThrows(UnsupportedOperationException.class, () -> entities.getChildMap().remove("key_0"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.getLists().getStrings().add("changed"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.getLists().getBooleans().add(true));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.getMaps().getIntegers().put("changed", 1));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.getStarTypes().getStringMap().addItem("changed", "1"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.getStarTypes().getStringMap().insertItems(Map.of(), 0));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.getStarTypes().getStringMap().removeItem("missing"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> entities.insertChildMap("changed", entities.createChildEntity(), 0));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> entities.clearChildMap());
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.getPrimitives().removeExtraProperty("x-extra"));
+        Assert.assertThrows(UnsupportedOperationException.class, () -> document.setNodeAttribute("attr", "value"));
+        Assert.assertEquals(content, IoTestLibrary.writeDocument(document));
+
+        // A frozen model can be shared by concurrent readers.
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int idx = 0; idx < 8; idx++) {
+                results.add(executor.submit(() -> IoTestLibrary.writeDocument(document)));
+            }
+            for (Future<String> result : results) {
+                Assert.assertEquals(content, result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // A deep clone of a frozen model can be modified.
+        Iot10Document clone = (Iot10Document) document.deepClone();
+        Assert.assertFalse(clone.isFrozen());
+        clone.setId("changed");
+        clone.getEntities().getChildren().clear();
+        clone.getLists().getBooleans().add(true);
+        clone.getStarTypes().getStringMap().insertItem("changed", "1", 0);
+        Assert.assertEquals("changed", clone.getStarTypes().getStringMap().getItemNames().get(0));
+        // But its frozen nodes can't be moved into it.
+        Assert.assertThrows(UnsupportedOperationException.class, () -> clone.getEntities().addChildMap("frozen", entities.getChildren().get(0)));
+        Assert.assertEquals(content, IoTestLibrary.writeDocument(document));
+    }
+
+    @Test
+    public void testProjection() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("simple.json"));
+        Iot10EntityTypesEntity entities = document.createEntityTypesEntity();
+        for (String name : List.of("a", "b")) {
+            Iot10ChildEntity child = entities.createChildEntity();
+            child.setName(name);
+            child.setOrigin("origin-" + name);
+            entities.addChild(child);
+            child = entities.createChildEntity();
+            child.setName(name);
+            child.setOrigin("origin-" + name);
+            entities.addChildMap(name, child);
+        }
+        document.setEntities(entities);
+        document.addExtraProperty("x-extra", JsonUtil.parseJSON("{\"foo\": \"bar\"}"));
+        String content = IoTestLibrary.writeDocument(document);
+
+        // Only the selected paths are read, everything else is skipped.
+        Iot10Document projected = IoTestLibrary.readDocumentStreaming(content,
+                Projection.of("id", "primitives.stringProperty", "entities.children.name", "entities.childMap.*.origin", "entities.childMap.b"));
+        Assert.assertEquals("simple", projected.getId());
+        Assert.assertEquals("hello-world", projected.getPrimitives().getStringProperty());
+        Assert.assertNull(projected.getPrimitives().getIntegerProperty());
+        Assert.assertFalse(projected.hasExtraProperties());
+
+        List<Iot10ChildEntity> children = projected.getEntities().getChildren();
+        Assert.assertEquals(2, children.size());
+        Assert.assertEquals("a", children.get(0).getName());
+        Assert.assertNull(children.get(0).getOrigin());
+
+        Map<String, Iot10ChildEntity> childMap = projected.getEntities().getChildMap();
+        Assert.assertNull(childMap.get("a").getName());
+        Assert.assertEquals("origin-a", childMap.get("a").getOrigin());
+        Assert.assertEquals("b", childMap.get("b").getName());
+        Assert.assertEquals("origin-b", childMap.get("b").getOrigin());
+        Assert.assertNull(projected.getEntities().getChild());
+
+        // The full projection reads everything.
+        Assert.assertEquals(content, IoTestLibrary.writeDocument(IoTestLibrary.readDocumentStreaming(content, Projection.of(""))));
+    }
+
+    @Test
+    public void testPruningTraverser() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("simple.json"));
+        document.setPrimitives(document.createPrimitiveTypesEntity());
+        Iot10EntityTypesEntity entities = document.createEntityTypesEntity();
+        entities.addChild(entities.createChildEntity());
+        entities.addChild(entities.createChildEntity());
+        entities.addChildMap("a", entities.createChildEntity());
+        document.setEntities(entities);
+
+        // Only the subtrees that can contain a child entity are traversed.
+        ChildCountingVisitor visitor = new ChildCountingVisitor();
+        List<Node> traversed = new ArrayList<>();
+        new Iot10PruningTraverser(visitor) {
+            @Override
+            protected void doTraverseNode(Visitable node) {
+                traversed.add((Node) node);
+                super.doTraverseNode(node);
+            }
+        }.traverse(document);
+        Assert.assertEquals(3, visitor.count);
+        Assert.assertTrue(traversed.contains(entities));
+        Assert.assertFalse(traversed.contains(document.getPrimitives()));
+
+        // Visitors that handle every entity type are not pruned.
+        PathRecordingVisitor recorder = new PathRecordingVisitor();
+        new Iot10PruningTraverser(recorder).traverse(document);
+        Assert.assertTrue(recorder.paths.contains("primitives"));
+        Assert.assertTrue(recorder.paths.contains("entities/childMap/a"));
+    }
+
+    @Test
+    public void testParallelTraverser() throws Exception {
+        Iot10Document document = IoTestLibrary.readDocument(loadTestResource("simple.json"));
+        Iot10EntityTypesEntity entities = document.createEntityTypesEntity();
+        for (int idx = 0; idx < 100; idx++) {
+            entities.addChild(entities.createChildEntity());
+            entities.addChildMap("child" + idx, entities.createChildEntity());
+        }
+        document.setEntities(entities);
+
+        PathRecordingVisitor sequential = new PathRecordingVisitor();
+        new Iot10Traverser(sequential).traverse(document);
+
+        // Each task has its own visitor and traversal context, and the results are merged in document order.
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            ParallelPathRecordingVisitor parallel = new ParallelPathRecordingVisitor();
+            new Iot10ParallelTraverser(parallel, pool, 8).traverse(document);
+            Assert.assertEquals(sequential.paths, parallel.paths);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static class ParallelPathRecordingVisitor extends PathRecordingVisitor implements ParallelVisitor {
+
+        @Override
+        public ParallelVisitor fork() {
+            return new ParallelPathRecordingVisitor();
+        }
+
+        @Override
+        public void join(ParallelVisitor forked) {
+            paths.addAll(((ParallelPathRecordingVisitor) forked).paths);
+        }
+    }
+
+    private static class ChildCountingVisitor extends Iot10VisitorAdapter {
+
+        private int count;
+
+        @Override
+        public void visitChildEntity(Iot10ChildEntity node) {
+            count++;
+        }
+    }
+
+    private static class PathRecordingVisitor extends AllNodeVisitor implements TraversingVisitor, ReadOnlyVisitor {
+
+        protected final List<String> paths = new ArrayList<>();
+        private TraversalContext context;
+
+        @Override
+        public void setTraversalContext(TraversalContext context) {
+            this.context = context;
+        }
+
+        @Override
+        protected void visitNode(Node node) {
+            paths.add(context.getAllSteps().stream().map(step -> String.valueOf(step.getValue())).collect(Collectors.joining("/")));
+        }
+    }
+
+    private static class ChildRemovingVisitor extends AllNodeVisitor {
+
+        private int removed;
+
+        @Override
+        protected void visitNode(Node node) {
+            if (node instanceof Iot10ChildEntity) {
+                Iot10EntityTypesEntity parent = (Iot10EntityTypesEntity) node.parent();
+                if (node.mapPropertyName() != null) {
+                    parent.removeChildMap(node.mapPropertyName());
+                } else {
+                    parent.removeChild((Iot10ChildEntity) node);
+                }
+                removed++;
+            }
+        }
+    }
+
     private void doFullTest(String testFile) throws Exception {
         String originalContent = loadTestResource(testFile);
         Iot10Document inputDocument = IoTestLibrary.readDocument(originalContent);
         String roundTripContent = IoTestLibrary.writeDocument(inputDocument);
         assertJsonEquals(originalContent, roundTripContent);
+
+        // The streaming reader must produce the same model.
+        Iot10Document streamedDocument = IoTestLibrary.readDocumentStreaming(originalContent);
+        String streamedRoundTripContent = IoTestLibrary.writeDocument(streamedDocument);
+        Assert.assertEquals(roundTripContent, streamedRoundTripContent);
+
+        // The streaming writer must produce the same JSON (including field order).
+        assertSameJson(roundTripContent, IoTestLibrary.writeDocumentStreaming(inputDocument));
+
+        // The lazy reader must produce the same model.
+        Iot10Document lazyDocument = IoTestLibrary.readDocumentLazily(originalContent);
+        Assert.assertEquals(roundTripContent, IoTestLibrary.writeDocument(lazyDocument));
+
+        // A deep clone must produce the same model.
+        Assert.assertEquals(roundTripContent, IoTestLibrary.writeDocument((Iot10Document) inputDocument.deepClone()));
     }
 
     private String loadTestResource(String resourceName) throws Exception {
@@ -71,6 +627,10 @@ public class IoTest {
         }
     }
 
+    private void assertSameJson(String expectedJson, String actualJson) throws Exception {
+        Assert.assertEquals(mapper.writeValueAsString(mapper.readTree(expectedJson)), actualJson);
+    }
+
     private void assertJsonEquals(String expectedJson, String actualJson) throws Exception {
         Assert.assertEquals(mapper.readTree(expectedJson), mapper.readTree(actualJson));
     }
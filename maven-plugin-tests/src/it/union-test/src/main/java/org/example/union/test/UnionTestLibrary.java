@@ -1,11 +1,20 @@
 package org.example.union.test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import org.example.union.util.JsonUtil;
+import org.example.union.util.StreamingReaderUtil;
+import org.example.union.util.StreamingWriterUtil;
 import org.example.union.v10.Utm10Document;
 import org.example.union.v10.Utm10DocumentImpl;
 import org.example.union.v10.io.Utm10ModelReader;
 import org.example.union.v10.io.Utm10ModelWriter;
+import org.example.union.v10.io.Utm10StreamingModelReader;
+import org.example.union.v10.io.Utm10StreamingModelWriter;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 public class UnionTestLibrary {
@@ -18,6 +27,13 @@ public class UnionTestLibrary {
         return document;
     }
 
+    public static Utm10Document readDocumentStreaming(String content) throws IOException {
+        try (JsonParser parser = StreamingReaderUtil.createParser(content)) {
+            Utm10StreamingModelReader reader = new Utm10StreamingModelReader();
+            return (Utm10Document) reader.readRoot(parser);
+        }
+    }
+
     public static String writeDocument(Utm10Document document) {
         ObjectNode object = JsonUtil.objectNode();
         Utm10ModelWriter writer = new Utm10ModelWriter();
@@ -25,4 +41,13 @@ public class UnionTestLibrary {
         return JsonUtil.stringify(object);
     }
 
+    public static String writeDocumentStreaming(Utm10Document document) throws IOException {
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = StreamingWriterUtil.createGenerator(writer)) {
+            Utm10StreamingModelWriter modelWriter = new Utm10StreamingModelWriter();
+            modelWriter.writeRoot(document, generator);
+        }
+        return writer.toString();
+    }
+
 }
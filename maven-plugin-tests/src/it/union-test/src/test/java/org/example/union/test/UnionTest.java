@@ -87,6 +87,25 @@ public class UnionTest {
         String roundTripContent = UnionTestLibrary.writeDocument(inputDocument);
         assertJsonEquals(originalContent, roundTripContent);
         assertEquals(0, countExtraProperties(inputDocument));
+
+        // The streaming reader must produce an equivalent model.
+        Utm10Document streamedDocument = UnionTestLibrary.readDocumentStreaming(originalContent);
+        assertJsonEquals(originalContent, UnionTestLibrary.writeDocument(streamedDocument));
+        assertEquals(0, countExtraProperties(streamedDocument));
+
+        // The streaming writer must produce the same JSON (including field order).
+        assertEquals(mapper.writeValueAsString(mapper.readTree(roundTripContent)),
+                UnionTestLibrary.writeDocumentStreaming(inputDocument));
+
+        // A deep clone (including its union values) must produce the same JSON.
+        assertEquals(roundTripContent, UnionTestLibrary.writeDocument((Utm10Document) inputDocument.deepClone()));
+
+        // Freezing (including the union values) must not change the model.
+        inputDocument.freeze();
+        assertEquals(roundTripContent, UnionTestLibrary.writeDocument(inputDocument));
+
+        // So must a (path copying) update that changes nothing.
+        assertEquals(roundTripContent, UnionTestLibrary.writeDocument((Utm10Document) inputDocument.update(inputDocument, document -> {})));
         return inputDocument;
     }
 
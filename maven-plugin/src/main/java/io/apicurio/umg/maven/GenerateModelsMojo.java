@@ -1,6 +1,7 @@
 package io.apicurio.umg.maven;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -17,6 +18,7 @@ import io.apicurio.umg.UnifiedModelGenerator;
 import io.apicurio.umg.UnifiedModelGeneratorConfig;
 import io.apicurio.umg.io.SpecificationLoader;
 import io.apicurio.umg.models.spec.SpecificationModel;
+import io.apicurio.umg.pipe.PipelineMetrics;
 
 /**
  * The main generate code mojo implementation.
@@ -47,6 +49,42 @@ public class GenerateModelsMojo extends AbstractMojo {
     @Parameter(defaultValue = "false")
     Boolean generateTestFixtures;
 
+    @Parameter(defaultValue = "false")
+    Boolean generateStreamingReaders;
+
+    @Parameter(defaultValue = "false")
+    Boolean generateStreamingWriters;
+
+    @Parameter(defaultValue = "false")
+    Boolean nonDestructiveReaders;
+
+    @Parameter(defaultValue = "false")
+    Boolean lazyReaders;
+
+    @Parameter(defaultValue = "false")
+    Boolean primitiveFields;
+
+    @Parameter(defaultValue = "false")
+    Boolean persistentUpdates;
+
+    @Parameter(defaultValue = "false")
+    Boolean parallelPipeline;
+
+    @Parameter(defaultValue = "false")
+    Boolean stageMetrics;
+
+    @Parameter(defaultValue = "false")
+    Boolean incremental;
+
+    @Parameter(defaultValue = "false")
+    Boolean writeIfChanged;
+
+    @Parameter(defaultValue = "false")
+    Boolean parallelWrite;
+
+    @Parameter(defaultValue = "${project.build.directory}/umg-stage-metrics.json")
+    File stageMetricsFile;
+
     @Parameter
     String testSubDir;
 
@@ -102,6 +140,17 @@ public class GenerateModelsMojo extends AbstractMojo {
                 .outputDirectory(outputDir)
                 .testOutputDirectory(umgTestOutputDir)
                 .generateTestFixtures(generateTestFixtures)
+                .generateStreamingReaders(generateStreamingReaders)
+                .generateStreamingWriters(generateStreamingWriters)
+                .nonDestructiveReaders(nonDestructiveReaders)
+                .lazyReaders(lazyReaders)
+                .primitiveFields(primitiveFields)
+                .persistentUpdates(persistentUpdates)
+                .parallelPipeline(parallelPipeline)
+                .collectStageMetrics(stageMetrics)
+                .incremental(incremental)
+                .writeIfChanged(writeIfChanged)
+                .parallelWrite(parallelWrite)
                 .rootNamespace(rootNamespace).build();
         // Load the specs
         List<SpecificationModel> specs = loadSpecifications();
@@ -114,9 +163,27 @@ public class GenerateModelsMojo extends AbstractMojo {
             throw new MojoExecutionException("Error generating unified model classes.", e);
         }
 
+        if (stageMetrics && generator.getMetrics() != null) {
+            reportStageMetrics(generator.getMetrics());
+        }
+
         getLog().info("Models successfully generated.");
     }
 
+    /**
+     * Logs the resources used by each generator stage and writes them to the metrics file (as JSON).
+     * @param metrics
+     */
+    private void reportStageMetrics(PipelineMetrics metrics) throws MojoExecutionException {
+        getLog().info("Generator stage metrics:\n" + metrics.toSummaryTable());
+        try {
+            metrics.writeJson(stageMetricsFile);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing generator stage metrics.", e);
+        }
+        getLog().info("Generator stage metrics written to: " + stageMetricsFile.getAbsolutePath());
+    }
+
     /**
      * Loads the configured specifications.
      */